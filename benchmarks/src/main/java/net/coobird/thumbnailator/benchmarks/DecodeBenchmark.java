@@ -0,0 +1,101 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import net.coobird.thumbnailator.ThumbnailParameter;
+import net.coobird.thumbnailator.builders.ThumbnailParameterBuilder;
+import net.coobird.thumbnailator.tasks.io.InputStreamImageSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks decoding images by the {@link InputStreamImageSource}, with
+ * and without capturing the Exif metadata of JPEG images to apply their
+ * orientation.
+ * 
+ * @author coobird
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DecodeBenchmark {
+	
+	@Param({"jpg", "png"})
+	public String format;
+	
+	@Param({"true", "false"})
+	public boolean useExifOrientation;
+	
+	/**
+	 * The scaling factor of the thumbnail, which determines whether the
+	 * source image can be subsampled while it is decoded.
+	 */
+	@Param({"1.0", "0.25"})
+	public double scale;
+	
+	private byte[] data;
+	private ThumbnailParameter param;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		if ("jpg".equals(format)) {
+			data = SyntheticImages.encodeJpegWithExif(1600, 1200, 6);
+		} else {
+			data = SyntheticImages.encode(1600, 1200, format);
+		}
+		
+		param = new ThumbnailParameterBuilder()
+				.scale(scale)
+				.useExifOrientation(useExifOrientation)
+				.build();
+	}
+	
+	@Benchmark
+	public BufferedImage decode() throws IOException {
+		InputStreamImageSource source = new InputStreamImageSource(new ByteArrayInputStream(data));
+		source.setThumbnailParameter(param);
+		return source.read();
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import net.coobird.thumbnailator.ThumbnailParameter;
+import net.coobird.thumbnailator.builders.ThumbnailParameterBuilder;
+import net.coobird.thumbnailator.tasks.io.OutputStreamImageSink;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks encoding thumbnails by the {@link OutputStreamImageSink}, for
+ * each output format and several compression qualities.
+ * <p>
+ * The quality only affects formats whose writers support compression
+ * quality settings, such as JPEG.
+ * 
+ * @author coobird
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EncodeBenchmark {
+	
+	@Param({"jpg", "png", "bmp", "gif"})
+	public String format;
+	
+	@Param({"0.5", "0.8", "1.0"})
+	public float quality;
+	
+	private BufferedImage thumbnail;
+	private ThumbnailParameter param;
+	private ByteArrayOutputStream os;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		thumbnail = SyntheticImages.create(320, 240, BufferedImage.TYPE_INT_RGB);
+		param = new ThumbnailParameterBuilder()
+				.scale(1.0)
+				.format(format)
+				.quality(quality)
+				.build();
+		os = new ByteArrayOutputStream(1 << 20);
+	}
+	
+	@Benchmark
+	public int encode() throws IOException {
+		os.reset();
+		OutputStreamImageSink sink = new OutputStreamImageSink(os);
+		sink.setThumbnailParameter(param);
+		sink.setOutputFormatName(format);
+		sink.write(thumbnail);
+		return os.size();
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import net.coobird.thumbnailator.Thumbnails;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks creating a thumbnail end to end, from encoded source data to
+ * an encoded thumbnail, through
+ * {@code Thumbnails.of(InputStream).toOutputStream(OutputStream)}.
+ * 
+ * @author coobird
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EndToEndBenchmark {
+	
+	@Param({"jpg", "png"})
+	public String format;
+	
+	@Param({"800x600", "1600x1200", "4000x3000"})
+	public String sourceSize;
+	
+	@Param({"160", "640"})
+	public int thumbnailSize;
+	
+	private byte[] data;
+	private ByteArrayOutputStream os;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		String[] dimensions = sourceSize.split("x");
+		data = SyntheticImages.encode(
+				Integer.parseInt(dimensions[0]),
+				Integer.parseInt(dimensions[1]),
+				format
+		);
+		os = new ByteArrayOutputStream(1 << 20);
+	}
+	
+	@Benchmark
+	public int thumbnail() throws IOException {
+		os.reset();
+		Thumbnails.of(new ByteArrayInputStream(data))
+				.size(thumbnailSize, thumbnailSize)
+				.outputFormat(format)
+				.toOutputStream(os);
+		return os.size();
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.benchmarks;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import net.coobird.thumbnailator.filters.Canvas;
+import net.coobird.thumbnailator.filters.Caption;
+import net.coobird.thumbnailator.filters.Colorize;
+import net.coobird.thumbnailator.filters.Flip;
+import net.coobird.thumbnailator.filters.ImageFilter;
+import net.coobird.thumbnailator.filters.Rotation;
+import net.coobird.thumbnailator.filters.Transparency;
+import net.coobird.thumbnailator.filters.Watermark;
+import net.coobird.thumbnailator.geometry.Positions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks each of the built-in {@link ImageFilter}s, applied to an
+ * image of the size of a typical thumbnail.
+ * 
+ * @author coobird
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FilterBenchmark {
+	
+	@Param({
+		"CANVAS", "CAPTION", "COLORIZE", "FLIP_HORIZONTAL", "FLIP_VERTICAL",
+		"ROTATE_90", "ROTATE_30", "TRANSPARENCY", "WATERMARK"
+	})
+	public String filterName;
+	
+	@Param({"INT_RGB", "INT_ARGB"})
+	public String imageType;
+	
+	private BufferedImage image;
+	private ImageFilter filter;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		image = SyntheticImages.create(640, 480, ImageTypes.valueOf(imageType));
+		filter = createFilter(filterName);
+	}
+	
+	private static ImageFilter createFilter(String name) {
+		if ("CANVAS".equals(name)) {
+			return new Canvas(800, 800, Positions.CENTER, Color.WHITE);
+		} else if ("CAPTION".equals(name)) {
+			return new Caption("Thumbnailator", new Font(Font.SANS_SERIF, Font.BOLD, 24), Color.WHITE, 0.8f, Positions.BOTTOM_RIGHT, 10);
+		} else if ("COLORIZE".equals(name)) {
+			return new Colorize(Color.ORANGE, 0.3f);
+		} else if ("FLIP_HORIZONTAL".equals(name)) {
+			return Flip.HORIZONTAL;
+		} else if ("FLIP_VERTICAL".equals(name)) {
+			return Flip.VERTICAL;
+		} else if ("ROTATE_90".equals(name)) {
+			return Rotation.RIGHT_90_DEGREES;
+		} else if ("ROTATE_30".equals(name)) {
+			return Rotation.newRotator(30);
+		} else if ("TRANSPARENCY".equals(name)) {
+			return new Transparency(0.5);
+		} else if ("WATERMARK".equals(name)) {
+			BufferedImage watermark = SyntheticImages.create(120, 40, BufferedImage.TYPE_INT_ARGB);
+			return new Watermark(Positions.BOTTOM_RIGHT, watermark, 0.5f, 10);
+		}
+		throw new IllegalArgumentException("Unknown filter: " + name);
+	}
+	
+	@Benchmark
+	public BufferedImage apply() {
+		return filter.apply(image);
+	}
+}
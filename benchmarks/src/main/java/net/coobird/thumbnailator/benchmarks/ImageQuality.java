@@ -0,0 +1,238 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.benchmarks;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Measures the quality of a resized image against a reference image.
+ * <p>
+ * The metrics are computed here rather than by an external library, so that
+ * the reports of the {@link ResizerQualityReport} do not depend on the
+ * version of such a library.
+ * 
+ * @author coobird
+ *
+ */
+public final class ImageQuality {
+	/**
+	 * The size of the windows over which the SSIM is computed.
+	 */
+	private static final int SSIM_WINDOW = 8;
+	
+	/**
+	 * The distance between the windows over which the SSIM is computed.
+	 */
+	private static final int SSIM_STEP = 4;
+	
+	private static final double SSIM_C1 = (0.01 * 255) * (0.01 * 255);
+	private static final double SSIM_C2 = (0.03 * 255) * (0.03 * 255);
+	
+	/**
+	 * The PSNR reported for identical images, whose PSNR is infinite.
+	 */
+	public static final double MAX_PSNR = 100.0;
+	
+	/**
+	 * This class is not intended to be instantiated.
+	 */
+	private ImageQuality() {}
+	
+	/**
+	 * Downscales an image by averaging the source pixels covered by each
+	 * destination pixel, weighted by the area they cover.
+	 * <p>
+	 * This is the ideal box filter, computed in double precision, and serves
+	 * as the reference the resizers are measured against. It is slow, and
+	 * is only meant for downscaling.
+	 * 
+	 * @param src			The image to downscale.
+	 * @param width			The width of the downscaled image.
+	 * @param height		The height of the downscaled image.
+	 * @return				The downscaled image, of type
+	 * 						{@link BufferedImage#TYPE_INT_ARGB}.
+	 * @throws IllegalArgumentException	If the downscaled image would be
+	 * 									larger than the source image.
+	 */
+	public static BufferedImage referenceDownscale(BufferedImage src, int width, int height) {
+		int srcWidth = src.getWidth();
+		int srcHeight = src.getHeight();
+		if (width > srcWidth || height > srcHeight || width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Only downscaling is supported.");
+		}
+		
+		int[] pixels = src.getRGB(0, 0, srcWidth, srcHeight, null, 0, srcWidth);
+		BufferedImage dest = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		
+		double scaleX = srcWidth / (double)width;
+		double scaleY = srcHeight / (double)height;
+		double[] sum = new double[4];
+		
+		for (int y = 0; y < height; y++) {
+			double top = y * scaleY;
+			double bottom = top + scaleY;
+			
+			for (int x = 0; x < width; x++) {
+				double left = x * scaleX;
+				double right = left + scaleX;
+				
+				sum[0] = sum[1] = sum[2] = sum[3] = 0;
+				for (int sy = (int)top; sy < Math.min(srcHeight, Math.ceil(bottom)); sy++) {
+					double h = Math.min(bottom, sy + 1) - Math.max(top, sy);
+					for (int sx = (int)left; sx < Math.min(srcWidth, Math.ceil(right)); sx++) {
+						double weight = h * (Math.min(right, sx + 1) - Math.max(left, sx));
+						int argb = pixels[sy * srcWidth + sx];
+						sum[0] += weight * ((argb >>> 24) & 0xff);
+						sum[1] += weight * ((argb >> 16) & 0xff);
+						sum[2] += weight * ((argb >> 8) & 0xff);
+						sum[3] += weight * (argb & 0xff);
+					}
+				}
+				
+				double area = scaleX * scaleY;
+				dest.setRGB(x, y,
+						(round(sum[0] / area) << 24)
+						| (round(sum[1] / area) << 16)
+						| (round(sum[2] / area) << 8)
+						| round(sum[3] / area)
+				);
+			}
+		}
+		
+		return dest;
+	}
+	
+	/**
+	 * Returns the peak signal-to-noise ratio of an image against a
+	 * reference, over its red, green and blue channels.
+	 * 
+	 * @param reference		The reference image.
+	 * @param image			The image to measure.
+	 * @return				The PSNR in decibels, or {@link #MAX_PSNR} if the
+	 * 						images are identical.
+	 * @throws IllegalArgumentException	If the images differ in size.
+	 */
+	public static double psnr(BufferedImage reference, BufferedImage image) {
+		checkSameSize(reference, image);
+		
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int[] a = reference.getRGB(0, 0, width, height, null, 0, width);
+		int[] b = image.getRGB(0, 0, width, height, null, 0, width);
+		
+		double squaredError = 0;
+		for (int i = 0; i < a.length; i++) {
+			for (int shift = 0; shift <= 16; shift += 8) {
+				int d = ((a[i] >> shift) & 0xff) - ((b[i] >> shift) & 0xff);
+				squaredError += d * d;
+			}
+		}
+		
+		double mse = squaredError / (a.length * 3.0);
+		if (mse == 0) {
+			return MAX_PSNR;
+		}
+		return Math.min(MAX_PSNR, 10 * Math.log10(255.0 * 255.0 / mse));
+	}
+	
+	/**
+	 * Returns the mean structural similarity of an image to a reference,
+	 * computed over the luma of {@value #SSIM_WINDOW}-pixel square windows.
+	 * 
+	 * @param reference		The reference image.
+	 * @param image			The image to measure.
+	 * @return				The SSIM, which is {@code 1.0} for identical
+	 * 						images.
+	 * @throws IllegalArgumentException	If the images differ in size.
+	 */
+	public static double ssim(BufferedImage reference, BufferedImage image) {
+		checkSameSize(reference, image);
+		
+		int width = image.getWidth();
+		int height = image.getHeight();
+		double[] a = luma(reference);
+		double[] b = luma(image);
+		
+		int window = Math.min(SSIM_WINDOW, Math.min(width, height));
+		double total = 0;
+		int windows = 0;
+		
+		for (int y = 0; y + window <= height; y += SSIM_STEP) {
+			for (int x = 0; x + window <= width; x += SSIM_STEP) {
+				double sumA = 0, sumB = 0, sumAA = 0, sumBB = 0, sumAB = 0;
+				for (int wy = y; wy < y + window; wy++) {
+					for (int wx = x; wx < x + window; wx++) {
+						double va = a[wy * width + wx];
+						double vb = b[wy * width + wx];
+						sumA += va;
+						sumB += vb;
+						sumAA += va * va;
+						sumBB += vb * vb;
+						sumAB += va * vb;
+					}
+				}
+				
+				int n = window * window;
+				double meanA = sumA / n;
+				double meanB = sumB / n;
+				double varA = sumAA / n - meanA * meanA;
+				double varB = sumBB / n - meanB * meanB;
+				double covariance = sumAB / n - meanA * meanB;
+				
+				total += ((2 * meanA * meanB + SSIM_C1) * (2 * covariance + SSIM_C2))
+						/ ((meanA * meanA + meanB * meanB + SSIM_C1) * (varA + varB + SSIM_C2));
+				windows++;
+			}
+		}
+		
+		return windows == 0 ? 1.0 : total / windows;
+	}
+	
+	private static double[] luma(BufferedImage img) {
+		int width = img.getWidth();
+		int height = img.getHeight();
+		int[] pixels = img.getRGB(0, 0, width, height, null, 0, width);
+		
+		double[] luma = new double[pixels.length];
+		for (int i = 0; i < pixels.length; i++) {
+			int argb = pixels[i];
+			luma[i] = 0.299 * ((argb >> 16) & 0xff)
+					+ 0.587 * ((argb >> 8) & 0xff)
+					+ 0.114 * (argb & 0xff);
+		}
+		return luma;
+	}
+	
+	private static void checkSameSize(BufferedImage reference, BufferedImage image) {
+		if (reference.getWidth() != image.getWidth()
+				|| reference.getHeight() != image.getHeight()) {
+			throw new IllegalArgumentException("Images must be the same size.");
+		}
+	}
+	
+	private static int round(double value) {
+		return Math.max(0, Math.min(255, (int)Math.round(value)));
+	}
+}
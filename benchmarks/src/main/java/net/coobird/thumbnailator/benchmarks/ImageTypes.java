@@ -0,0 +1,65 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.benchmarks;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Maps the names of image types used as benchmark parameters to the
+ * constants of {@link BufferedImage}.
+ * 
+ * @author coobird
+ *
+ */
+final class ImageTypes {
+	/**
+	 * This class is not intended to be instantiated.
+	 */
+	private ImageTypes() {}
+	
+	/**
+	 * Returns the image type of the given name.
+	 * 
+	 * @param name			The name of the type, which is the name of a
+	 * 						{@code TYPE_} constant of {@link BufferedImage}
+	 * 						without the prefix.
+	 * @return				The image type.
+	 * @throws IllegalArgumentException	If the name is not known.
+	 */
+	static int valueOf(String name) {
+		if ("INT_RGB".equals(name)) {
+			return BufferedImage.TYPE_INT_RGB;
+		} else if ("INT_ARGB".equals(name)) {
+			return BufferedImage.TYPE_INT_ARGB;
+		} else if ("3BYTE_BGR".equals(name)) {
+			return BufferedImage.TYPE_3BYTE_BGR;
+		} else if ("4BYTE_ABGR".equals(name)) {
+			return BufferedImage.TYPE_4BYTE_ABGR;
+		} else if ("BYTE_GRAY".equals(name)) {
+			return BufferedImage.TYPE_BYTE_GRAY;
+		}
+		throw new IllegalArgumentException("Unknown image type: " + name);
+	}
+}
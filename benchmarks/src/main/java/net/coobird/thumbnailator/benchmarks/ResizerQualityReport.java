@@ -0,0 +1,241 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.benchmarks;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+
+import net.coobird.thumbnailator.resizers.DefaultResizerFactory;
+import net.coobird.thumbnailator.resizers.Resizer;
+import net.coobird.thumbnailator.resizers.Resizers;
+
+/**
+ * Produces a report of the speed and the quality of each of the
+ * {@link Resizers}, for a corpus of reference images and common scaling
+ * factors.
+ * <p>
+ * For each image, scaling factor and resizer, the report gives the time
+ * and the memory allocated to resize the image, and the PSNR and SSIM of
+ * the resized image against an ideal area-averaged downscale of the source
+ * image computed by {@link ImageQuality#referenceDownscale}. It also marks
+ * the resizer which {@link DefaultResizerFactory} chooses, so that its
+ * thresholds can be checked against the data.
+ * <p>
+ * The report is written as JSON, to standard output or to the file given
+ * by the {@code --output} option:
+ * <pre>
+java -cp target/benchmarks.jar net.coobird.thumbnailator.benchmarks.ResizerQualityReport --output report.json
+ * </pre>
+ * The number of measured and warm-up iterations can be changed with the
+ * {@code --iterations} and {@code --warmup} options.
+ * 
+ * @author coobird
+ *
+ */
+public final class ResizerQualityReport {
+	/**
+	 * The scaling factors of the report. Only downscaling is covered, as
+	 * the reference image is a downscale.
+	 */
+	private static final double[] RATIOS = {0.75, 0.5, 0.33, 0.25, 0.125, 0.1};
+	
+	private int iterations = 20;
+	private int warmup = 5;
+	
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	
+	/**
+	 * An image of the corpus.
+	 */
+	private static final class CorpusImage {
+		private final String name;
+		private final String imageType;
+		private final BufferedImage image;
+		
+		private CorpusImage(String name, String imageType, BufferedImage image) {
+			this.name = name;
+			this.imageType = imageType;
+			this.image = image;
+		}
+	}
+	
+	private ResizerQualityReport() {}
+	
+	public static void main(String[] args) throws IOException {
+		ResizerQualityReport report = new ResizerQualityReport();
+		String output = null;
+		
+		for (int i = 0; i < args.length; i++) {
+			if ("--output".equals(args[i]) && i + 1 < args.length) {
+				output = args[++i];
+			} else if ("--iterations".equals(args[i]) && i + 1 < args.length) {
+				report.iterations = Integer.parseInt(args[++i]);
+			} else if ("--warmup".equals(args[i]) && i + 1 < args.length) {
+				report.warmup = Integer.parseInt(args[++i]);
+			} else {
+				System.err.println("Usage: ResizerQualityReport [--output file] [--iterations n] [--warmup n]");
+				System.exit(1);
+			}
+		}
+		
+		if (output == null) {
+			PrintStream out = System.out;
+			Writer w = new OutputStreamWriter(out, "UTF-8");
+			report.write(w);
+			w.flush();
+		} else {
+			Writer w = new OutputStreamWriter(new FileOutputStream(output), "UTF-8");
+			try {
+				report.write(w);
+			} finally {
+				w.close();
+			}
+		}
+	}
+	
+	/**
+	 * Returns the reference corpus.
+	 * 
+	 * @return				The images of the corpus.
+	 */
+	private static CorpusImage[] corpus() {
+		return new CorpusImage[] {
+				new CorpusImage("photo", "INT_RGB", SyntheticImages.create(1600, 1200, BufferedImage.TYPE_INT_RGB)),
+				new CorpusImage("photo", "3BYTE_BGR", SyntheticImages.create(1600, 1200, BufferedImage.TYPE_3BYTE_BGR)),
+				new CorpusImage("zoneplate", "INT_RGB", SyntheticImages.createZonePlate(1024, 1024)),
+		};
+	}
+	
+	/**
+	 * Measures every resizer and writes the report.
+	 * 
+	 * @param w				The writer to write the report to.
+	 * @throws IOException	If the report could not be written.
+	 */
+	private void write(Writer w) throws IOException {
+		w.write("{\n");
+		w.write("  \"javaVersion\": " + quote(System.getProperty("java.version")) + ",\n");
+		w.write("  \"iterations\": " + iterations + ",\n");
+		w.write("  \"warmup\": " + warmup + ",\n");
+		w.write("  \"results\": [");
+		
+		boolean isFirst = true;
+		for (CorpusImage corpusImage : corpus()) {
+			BufferedImage src = corpusImage.image;
+			
+			for (double ratio : RATIOS) {
+				int width = (int)Math.round(src.getWidth() * ratio);
+				int height = (int)Math.round(src.getHeight() * ratio);
+				BufferedImage reference = ImageQuality.referenceDownscale(src, width, height);
+				Resizer defaultResizer = DefaultResizerFactory.getInstance().getResizer(
+						new Dimension(src.getWidth(), src.getHeight()),
+						new Dimension(width, height)
+				);
+				
+				for (Resizers resizer : Resizers.values()) {
+					BufferedImage dest = new BufferedImage(width, height, src.getType());
+					long[] nanos = new long[iterations];
+					long allocated = measure(resizer, src, dest, nanos);
+					Arrays.sort(nanos);
+					
+					w.write(isFirst ? "\n" : ",\n");
+					isFirst = false;
+					w.write(String.format(Locale.ROOT,
+							"    {\"image\": %s, \"imageType\": %s, "
+									+ "\"sourceWidth\": %d, \"sourceHeight\": %d, "
+									+ "\"ratio\": %s, \"width\": %d, \"height\": %d, "
+									+ "\"resizer\": %s, \"isDefault\": %b, "
+									+ "\"medianMillis\": %.4f, \"minMillis\": %.4f, "
+									+ "\"allocatedBytes\": %d, \"psnr\": %.3f, \"ssim\": %.5f}",
+							quote(corpusImage.name), quote(corpusImage.imageType),
+							src.getWidth(), src.getHeight(),
+							ratio, width, height,
+							quote(resizer.name()), resizer == defaultResizer,
+							nanos[nanos.length / 2] / 1e6, nanos[0] / 1e6,
+							allocated,
+							ImageQuality.psnr(reference, dest),
+							ImageQuality.ssim(reference, dest)
+					));
+					w.flush();
+				}
+			}
+		}
+		
+		w.write("\n  ]\n}\n");
+	}
+	
+	/**
+	 * Resizes an image repeatedly, recording the time each resize took.
+	 * 
+	 * @param resizer		The resizer.
+	 * @param src			The source image.
+	 * @param dest			The destination image.
+	 * @param nanos			The array in which to record the times.
+	 * @return				The mean number of bytes allocated per resize, or
+	 * 						{@code -1} if the JVM does not report the memory
+	 * 						allocated by threads.
+	 */
+	private long measure(Resizer resizer, BufferedImage src, BufferedImage dest, long[] nanos) {
+		for (int i = 0; i < warmup; i++) {
+			resizer.resize(src, dest);
+		}
+		
+		long startAllocated = allocatedBytes();
+		for (int i = 0; i < nanos.length; i++) {
+			long start = System.nanoTime();
+			resizer.resize(src, dest);
+			nanos[i] = System.nanoTime() - start;
+		}
+		long endAllocated = allocatedBytes();
+		
+		if (startAllocated == -1 || endAllocated == -1) {
+			return -1;
+		}
+		return (endAllocated - startAllocated) / nanos.length;
+	}
+	
+	private long allocatedBytes() {
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean)threads;
+			if (t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled()) {
+				return t.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+	
+	private static String quote(String s) {
+		return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.benchmarks;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Generates the images used by the benchmarks.
+ * <p>
+ * The images are synthetic and deterministic: the same arguments always
+ * produce the same pixels, so that results are comparable between runs and
+ * between machines. They combine smooth gradients, hard edges and noise, as
+ * photographs do, so that neither resizing nor compression is unusually
+ * cheap.
+ * 
+ * @author coobird
+ *
+ */
+public final class SyntheticImages {
+	/**
+	 * The seed of the noise, which is fixed so that images are the same
+	 * in every run.
+	 */
+	private static final long SEED = 0x7468756dL;
+	
+	/**
+	 * This class is not intended to be instantiated.
+	 */
+	private SyntheticImages() {}
+	
+	/**
+	 * Creates an image.
+	 * 
+	 * @param width			The width of the image.
+	 * @param height		The height of the image.
+	 * @param imageType		The type of the image, such as
+	 * 						{@link BufferedImage#TYPE_INT_RGB}.
+	 * @return				The image.
+	 */
+	public static BufferedImage create(int width, int height, int imageType) {
+		BufferedImage img = new BufferedImage(width, height, imageType);
+		Random random = new Random(SEED);
+		
+		Graphics2D g = img.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setPaint(new GradientPaint(0, 0, new Color(30, 90, 160), width, height, new Color(230, 190, 80)));
+		g.fillRect(0, 0, width, height);
+		
+		for (int i = 0; i < 40; i++) {
+			g.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256), 96 + random.nextInt(160)));
+			int x = random.nextInt(width);
+			int y = random.nextInt(height);
+			int w = 1 + random.nextInt(Math.max(1, width / 3));
+			int h = 1 + random.nextInt(Math.max(1, height / 3));
+			if (i % 2 == 0) {
+				g.fillOval(x, y, w, h);
+			} else {
+				g.fillRect(x, y, w, h);
+			}
+		}
+		g.dispose();
+		
+		// Noise, as found in photographs, defeats run-length compression.
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int argb = img.getRGB(x, y);
+				int noise = random.nextInt(17) - 8;
+				int r = clamp(((argb >> 16) & 0xff) + noise);
+				int gr = clamp(((argb >> 8) & 0xff) + noise);
+				int b = clamp((argb & 0xff) + noise);
+				img.setRGB(x, y, (argb & 0xff000000) | (r << 16) | (gr << 8) | b);
+			}
+		}
+		
+		return img;
+	}
+	
+	/**
+	 * Creates a zone plate, whose concentric rings become finer towards its
+	 * edges. Resizers which do not filter the image enough before
+	 * subsampling it show aliasing as spurious rings.
+	 * 
+	 * @param width			The width of the image.
+	 * @param height		The height of the image.
+	 * @return				The image, of type
+	 * 						{@link BufferedImage#TYPE_INT_RGB}.
+	 */
+	public static BufferedImage createZonePlate(int width, int height) {
+		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		
+		// The frequency reaches the Nyquist limit at the edges of the image.
+		double k = Math.PI / Math.max(width, height);
+		for (int y = 0; y < height; y++) {
+			double dy = y - height / 2.0;
+			for (int x = 0; x < width; x++) {
+				double dx = x - width / 2.0;
+				int v = clamp((int)Math.round(127.5 + 127.5 * Math.cos(k * (dx * dx + dy * dy))));
+				img.setRGB(x, y, (v << 16) | (v << 8) | v);
+			}
+		}
+		
+		return img;
+	}
+	
+	/**
+	 * Creates an image, and encodes it in the given format.
+	 * 
+	 * @param width			The width of the image.
+	 * @param height		The height of the image.
+	 * @param formatName	The format to encode the image in.
+	 * @return				The encoded image.
+	 * @throws IOException	If the image could not be encoded.
+	 */
+	public static byte[] encode(int width, int height, String formatName) throws IOException {
+		BufferedImage img = create(width, height, BufferedImage.TYPE_INT_RGB);
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		if (!ImageIO.write(img, formatName, os)) {
+			throw new IOException("No writer for format: " + formatName);
+		}
+		return os.toByteArray();
+	}
+	
+	/**
+	 * Creates a JPEG image whose Exif metadata specifies the given
+	 * orientation.
+	 * 
+	 * @param width			The width of the image.
+	 * @param height		The height of the image.
+	 * @param orientation	The value of the Exif orientation tag, from
+	 * 						{@code 1} to {@code 8}.
+	 * @return				The encoded image.
+	 * @throws IOException	If the image could not be encoded.
+	 */
+	public static byte[] encodeJpegWithExif(int width, int height, int orientation) throws IOException {
+		byte[] jpeg = encode(width, height, "jpg");
+		
+		// An APP1 segment holding a big-endian TIFF structure with one IFD
+		// entry: the orientation tag (0x0112), of type SHORT, count 1.
+		byte[] app1 = new byte[] {
+				(byte)0xff, (byte)0xe1, 0x00, 0x22,
+				'E', 'x', 'i', 'f', 0x00, 0x00,
+				'M', 'M', 0x00, 0x2a, 0x00, 0x00, 0x00, 0x08,
+				0x00, 0x01,
+				0x01, 0x12, 0x00, 0x03, 0x00, 0x00, 0x00, 0x01,
+				0x00, (byte)orientation, 0x00, 0x00,
+				0x00, 0x00, 0x00, 0x00
+		};
+		
+		// The segment is inserted after the JFIF APP0 segment, if any, which
+		// follows the start of image marker.
+		int offset = 2;
+		if ((jpeg[2] & 0xff) == 0xff && (jpeg[3] & 0xff) == 0xe0) {
+			offset += 2 + (((jpeg[4] & 0xff) << 8) | (jpeg[5] & 0xff));
+		}
+		
+		ByteArrayOutputStream os = new ByteArrayOutputStream(jpeg.length + app1.length);
+		os.write(jpeg, 0, offset);
+		os.write(app1);
+		os.write(jpeg, offset, jpeg.length - offset);
+		return os.toByteArray();
+	}
+	
+	private static int clamp(int value) {
+		return Math.max(0, Math.min(255, value));
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts of the thumbnails which were skipped and regenerated when
+ * {@link Thumbnails.Builder#incremental()} is used.
+ * <p>
+ * An instance of this class is given to the
+ * {@link Thumbnails.Builder#incrementalStatistics(IncrementalStatistics)}
+ * method, and is updated while the thumbnails are being written. The counts
+ * are reset each time an output method is called, and therefore reflect the
+ * most recent run.
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class IncrementalStatistics {
+	/**
+	 * The number of thumbnails which were up to date, and were not written.
+	 */
+	private final AtomicLong skipped = new AtomicLong();
+	
+	/**
+	 * The number of thumbnails which were written.
+	 */
+	private final AtomicLong regenerated = new AtomicLong();
+	
+	/**
+	 * Instantiates a {@link IncrementalStatistics} object.
+	 */
+	public IncrementalStatistics() {}
+	
+	/**
+	 * Resets the counts at the start of a run.
+	 */
+	void start() {
+		skipped.set(0);
+		regenerated.set(0);
+	}
+	
+	/**
+	 * Records that a thumbnail was up to date.
+	 */
+	void recordSkipped() {
+		skipped.incrementAndGet();
+	}
+	
+	/**
+	 * Records that a thumbnail was written.
+	 */
+	void recordRegenerated() {
+		regenerated.incrementAndGet();
+	}
+	
+	/**
+	 * Returns the number of thumbnails which were up to date, and therefore
+	 * were not created.
+	 * 
+	 * @return				The number of skipped thumbnails.
+	 */
+	public long getSkippedCount() {
+		return skipped.get();
+	}
+	
+	/**
+	 * Returns the number of thumbnails which were created and written,
+	 * because they were missing or out of date.
+	 * 
+	 * @return				The number of regenerated thumbnails.
+	 */
+	public long getRegeneratedCount() {
+		return regenerated.get();
+	}
+	
+	@Override
+	public String toString() {
+		return "IncrementalStatistics[skipped=" + getSkippedCount()
+				+ ", regenerated=" + getRegeneratedCount() + "]";
+	}
+}
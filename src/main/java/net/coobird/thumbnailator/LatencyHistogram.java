@@ -0,0 +1,178 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies which can be recorded concurrently without
+ * locking, for the {@link ThumbnailatorMonitor}.
+ * <p>
+ * Latencies are recorded in microseconds into buckets whose width is
+ * proportional to their value, as in an HDR histogram: values below
+ * {@code 64} have a bucket of their own, and larger values share a bucket
+ * with the values within about 3% of them. Percentiles are therefore
+ * accurate to about 3%, for latencies from a microsecond to several days,
+ * with a fixed amount of memory.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+final class LatencyHistogram {
+	/**
+	 * The number of bits of a value which select its bucket within the
+	 * buckets which share its highest bit.
+	 */
+	private static final int SUB_BUCKET_BITS = 5;
+	
+	/**
+	 * The number of buckets which share the highest bit of their values.
+	 */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	
+	/**
+	 * The number of buckets, which covers all positive {@code long} values.
+	 */
+	private static final int BUCKETS = indexOf(Long.MAX_VALUE) + 1;
+	
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	
+	/**
+	 * Records a latency.
+	 * 
+	 * @param time			The latency.
+	 * @param unit			The unit of the latency.
+	 */
+	void record(long time, TimeUnit unit) {
+		long micros = Math.max(0, unit.toMicros(time));
+		counts.incrementAndGet(indexOf(micros));
+		count.increment();
+		sum.add(micros);
+	}
+	
+	/**
+	 * Returns the number of latencies recorded.
+	 * 
+	 * @return				The number of latencies recorded.
+	 */
+	long getCount() {
+		return count.sum();
+	}
+	
+	/**
+	 * Returns the mean of the latencies recorded, in milliseconds.
+	 * 
+	 * @return				The mean, or {@code 0} if no latencies have been
+	 * 						recorded.
+	 */
+	double getMeanMillis() {
+		long n = count.sum();
+		return n == 0 ? 0.0 : sum.sum() / (double)n / 1000.0;
+	}
+	
+	/**
+	 * Returns the latency below which the given fraction of the latencies
+	 * recorded fall, in milliseconds. The returned latency is the highest
+	 * latency of the bucket which holds the percentile, so that it is not
+	 * underestimated.
+	 * 
+	 * @param percentile	The percentile, between {@code 0.0} and
+	 * 						{@code 100.0}.
+	 * @return				The latency, or {@code 0} if no latencies have
+	 * 						been recorded.
+	 * @throws IllegalArgumentException	If the percentile is out of range.
+	 */
+	double getPercentileMillis(double percentile) {
+		if (!(percentile >= 0.0 && percentile <= 100.0)) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 100.");
+		}
+		
+		// The counts are copied first, as they may change while being read.
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0.0;
+		}
+		
+		long rank = Math.max(1, (long)Math.ceil(total * percentile / 100.0));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return highestValueOf(i) / 1000.0;
+			}
+		}
+		
+		return highestValueOf(BUCKETS - 1) / 1000.0;
+	}
+	
+	/**
+	 * Discards the latencies recorded.
+	 */
+	void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+	}
+	
+	/**
+	 * Returns the index of the bucket of the given value.
+	 * 
+	 * @param value			The value, which is not negative.
+	 * @return				The index of the bucket.
+	 */
+	static int indexOf(long value) {
+		int highestBit = 63 - Long.numberOfLeadingZeros(value);
+		int shift = Math.max(0, highestBit - SUB_BUCKET_BITS);
+		return shift * SUB_BUCKETS + (int)(value >>> shift);
+	}
+	
+	/**
+	 * Returns the highest value which is recorded in the given bucket.
+	 * 
+	 * @param index			The index of the bucket.
+	 * @return				The highest value of the bucket.
+	 */
+	static long highestValueOf(int index) {
+		if (index < 2 * SUB_BUCKETS) {
+			return index;
+		}
+		
+		int shift = index / SUB_BUCKETS - 1;
+		long subBucket = index - shift * SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * A summary of the latencies of a stage of creating thumbnails, as exposed
+ * by the {@link ThumbnailatorMXBean}.
+ * <p>
+ * The latencies are in milliseconds. The percentiles are accurate to
+ * about 3%, and are never lower than the actual percentile.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class LatencySummary {
+	private final String stage;
+	private final long count;
+	private final double meanMillis;
+	private final double p50Millis;
+	private final double p90Millis;
+	private final double p99Millis;
+	private final double p999Millis;
+	private final double maxMillis;
+	
+	/**
+	 * Creates a summary of latencies.
+	 * 
+	 * @param stage			The name of the stage.
+	 * @param count			The number of latencies recorded.
+	 * @param meanMillis	The mean latency.
+	 * @param p50Millis		The median latency.
+	 * @param p90Millis		The 90th percentile of the latencies.
+	 * @param p99Millis		The 99th percentile of the latencies.
+	 * @param p999Millis	The 99.9th percentile of the latencies.
+	 * @param maxMillis		The highest latency.
+	 */
+	@ConstructorProperties({
+		"stage", "count", "meanMillis", "p50Millis",
+		"p90Millis", "p99Millis", "p999Millis", "maxMillis"
+	})
+	public LatencySummary(
+			String stage,
+			long count,
+			double meanMillis,
+			double p50Millis,
+			double p90Millis,
+			double p99Millis,
+			double p999Millis,
+			double maxMillis
+	) {
+		this.stage = stage;
+		this.count = count;
+		this.meanMillis = meanMillis;
+		this.p50Millis = p50Millis;
+		this.p90Millis = p90Millis;
+		this.p99Millis = p99Millis;
+		this.p999Millis = p999Millis;
+		this.maxMillis = maxMillis;
+	}
+	
+	/**
+	 * Creates a summary of the latencies recorded in a histogram.
+	 * 
+	 * @param stage			The name of the stage.
+	 * @param histogram		The histogram.
+	 * @return				The summary.
+	 */
+	static LatencySummary of(String stage, LatencyHistogram histogram) {
+		return new LatencySummary(
+				stage,
+				histogram.getCount(),
+				histogram.getMeanMillis(),
+				histogram.getPercentileMillis(50.0),
+				histogram.getPercentileMillis(90.0),
+				histogram.getPercentileMillis(99.0),
+				histogram.getPercentileMillis(99.9),
+				histogram.getPercentileMillis(100.0)
+		);
+	}
+	
+	/**
+	 * Returns the name of the stage, which is the name of a
+	 * {@link PipelineStage}, or {@code TOTAL} for the time spent in all
+	 * stages.
+	 * 
+	 * @return		The name of the stage.
+	 */
+	public String getStage() {
+		return stage;
+	}
+	
+	/**
+	 * Returns the number of latencies recorded.
+	 * 
+	 * @return		The number of latencies recorded.
+	 */
+	public long getCount() {
+		return count;
+	}
+	
+	/**
+	 * Returns the mean latency, in milliseconds.
+	 * 
+	 * @return		The mean latency.
+	 */
+	public double getMeanMillis() {
+		return meanMillis;
+	}
+	
+	/**
+	 * Returns the median latency, in milliseconds.
+	 * 
+	 * @return		The median latency.
+	 */
+	public double getP50Millis() {
+		return p50Millis;
+	}
+	
+	/**
+	 * Returns the 90th percentile of the latencies, in milliseconds.
+	 * 
+	 * @return		The 90th percentile.
+	 */
+	public double getP90Millis() {
+		return p90Millis;
+	}
+	
+	/**
+	 * Returns the 99th percentile of the latencies, in milliseconds.
+	 * 
+	 * @return		The 99th percentile.
+	 */
+	public double getP99Millis() {
+		return p99Millis;
+	}
+	
+	/**
+	 * Returns the 99.9th percentile of the latencies, in milliseconds.
+	 * 
+	 * @return		The 99.9th percentile.
+	 */
+	public double getP999Millis() {
+		return p999Millis;
+	}
+	
+	/**
+	 * Returns the highest latency, in milliseconds.
+	 * 
+	 * @return		The highest latency.
+	 */
+	public double getMaxMillis() {
+		return maxMillis;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format(
+				"LatencySummary[stage=%s, count=%d, mean=%.3fms, p50=%.3fms, "
+						+ "p90=%.3fms, p99=%.3fms, p99.9=%.3fms, max=%.3fms]",
+				stage, count, meanMillis, p50Millis,
+				p90Millis, p99Millis, p999Millis, maxMillis
+		);
+	}
+}
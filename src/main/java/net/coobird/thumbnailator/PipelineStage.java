@@ -0,0 +1,65 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+/**
+ * The stages of the pipeline which creates thumbnails when
+ * {@link Thumbnails.Builder#pipelined()} is used.
+ * <p>
+ * Each source image passes through the stages in the order they are
+ * declared in.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public enum PipelineStage {
+	/**
+	 * Retrieves the data of the source image, such as the contents of a
+	 * file or of a URL, without decoding it.
+	 */
+	PREFETCH,
+	
+	/**
+	 * Decodes the source image.
+	 */
+	DECODE,
+	
+	/**
+	 * Resizes the source image and applies the image filters.
+	 */
+	RESIZE,
+	
+	/**
+	 * Encodes the thumbnail in the output format.
+	 */
+	ENCODE,
+	
+	/**
+	 * Writes the encoded thumbnail to its destination.
+	 */
+	WRITE,
+	;
+}
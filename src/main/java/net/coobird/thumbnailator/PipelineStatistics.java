@@ -0,0 +1,216 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Statistics of the stages of the pipeline which creates thumbnails when
+ * {@link Thumbnails.Builder#pipelined()} is used.
+ * <p>
+ * An instance of this class is given to the
+ * {@link Thumbnails.Builder#pipelineStatistics(PipelineStatistics)} method,
+ * and is updated while the thumbnails are being created. The statistics
+ * are reset each time the pipeline is started, and therefore reflect the
+ * most recent run of the pipeline.
+ * <p>
+ * The utilization of a stage indicates the fraction of time its threads
+ * were busy processing images. A stage whose utilization is close to
+ * {@code 1.0} is the bottleneck of the pipeline, and assigning more threads
+ * to it by the {@link Thumbnails.Builder#pipeline(PipelineStage, int)}
+ * method may improve throughput.
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class PipelineStatistics {
+	/**
+	 * The number of images processed by each stage.
+	 */
+	private final AtomicLongArray processed =
+			new AtomicLongArray(PipelineStage.values().length);
+	
+	/**
+	 * The time, in nanoseconds, spent by each stage processing images.
+	 */
+	private final AtomicLongArray busyTime =
+			new AtomicLongArray(PipelineStage.values().length);
+	
+	/**
+	 * The number of threads of each stage.
+	 */
+	private final AtomicLongArray threads =
+			new AtomicLongArray(PipelineStage.values().length);
+	
+	/**
+	 * The value of {@link System#nanoTime()} when the pipeline was started.
+	 */
+	private volatile long startTime;
+	
+	/**
+	 * The value of {@link System#nanoTime()} when the pipeline finished, or
+	 * {@code 0} if it has not finished.
+	 */
+	private volatile long endTime;
+	
+	/**
+	 * Instantiates a {@link PipelineStatistics} object.
+	 */
+	public PipelineStatistics() {}
+	
+	/**
+	 * Resets the statistics at the start of a run of the pipeline.
+	 * 
+	 * @param stageThreads	The number of threads of each stage, indexed by
+	 * 						the ordinal of the stage.
+	 */
+	synchronized void start(int[] stageThreads) {
+		for (int i = 0; i < stageThreads.length; i++) {
+			processed.set(i, 0);
+			busyTime.set(i, 0);
+			threads.set(i, stageThreads[i]);
+		}
+		endTime = 0;
+		startTime = System.nanoTime();
+	}
+	
+	/**
+	 * Records the end of a run of the pipeline.
+	 */
+	void finish() {
+		endTime = System.nanoTime();
+	}
+	
+	/**
+	 * Records that a stage has processed an image.
+	 * 
+	 * @param stage			The stage.
+	 * @param nanos			The time spent processing the image, in
+	 * 						nanoseconds.
+	 */
+	void record(PipelineStage stage, long nanos) {
+		processed.incrementAndGet(stage.ordinal());
+		busyTime.addAndGet(stage.ordinal(), nanos);
+	}
+	
+	/**
+	 * Returns the number of threads used by the given stage.
+	 * 
+	 * @param stage			The stage.
+	 * @return				The number of threads.
+	 */
+	public int getThreads(PipelineStage stage) {
+		return (int)threads.get(stage.ordinal());
+	}
+	
+	/**
+	 * Returns the number of images processed by the given stage, including
+	 * images for which the stage failed.
+	 * 
+	 * @param stage			The stage.
+	 * @return				The number of images processed.
+	 */
+	public long getProcessedCount(PipelineStage stage) {
+		return processed.get(stage.ordinal());
+	}
+	
+	/**
+	 * Returns the total time the threads of the given stage spent
+	 * processing images.
+	 * 
+	 * @param stage			The stage.
+	 * @param unit			The unit of the returned time.
+	 * @return				The time spent processing images.
+	 */
+	public long getBusyTime(PipelineStage stage, TimeUnit unit) {
+		return unit.convert(busyTime.get(stage.ordinal()), TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Returns the time elapsed since the pipeline was started, or if it has
+	 * finished, the time it took to run.
+	 * 
+	 * @param unit			The unit of the returned time.
+	 * @return				The elapsed time, or {@code 0} if the pipeline
+	 * 						has not been started.
+	 */
+	public long getElapsedTime(TimeUnit unit) {
+		return unit.convert(elapsedNanos(), TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Returns the elapsed time in nanoseconds.
+	 * 
+	 * @return				The elapsed time in nanoseconds.
+	 */
+	private long elapsedNanos() {
+		long start = startTime;
+		if (start == 0) {
+			return 0;
+		}
+		
+		long end = endTime;
+		return (end == 0 ? System.nanoTime() : end) - start;
+	}
+	
+	/**
+	 * Returns the utilization of the given stage, which is the fraction of
+	 * the available thread time that the threads of the stage spent
+	 * processing images.
+	 * 
+	 * @param stage			The stage.
+	 * @return				The utilization, between {@code 0.0} and
+	 * 						{@code 1.0}.
+	 */
+	public double getUtilization(PipelineStage stage) {
+		long available = elapsedNanos() * getThreads(stage);
+		if (available <= 0) {
+			return 0.0;
+		}
+		
+		return Math.min(1.0, busyTime.get(stage.ordinal()) / (double)available);
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("PipelineStatistics[elapsed=");
+		sb.append(getElapsedTime(TimeUnit.MILLISECONDS)).append("ms");
+		
+		for (PipelineStage stage : PipelineStage.values()) {
+			sb.append(", ").append(stage)
+				.append("={threads=").append(getThreads(stage))
+				.append(", processed=").append(getProcessedCount(stage))
+				.append(", utilization=")
+				.append(String.format("%.2f", getUtilization(stage)))
+				.append("}");
+		}
+		
+		return sb.append("]").toString();
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A thumbnail which is delivered in two phases, as returned by the
+ * {@link Thumbnails.Builder#asBufferedImageWithPreview()} method.
+ * <p>
+ * The preview is a quickly created, lower quality version of the
+ * thumbnail, which can be shown while the thumbnail itself is created.
+ * The preview is completed no later than the thumbnail.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class ProgressiveThumbnail {
+	/**
+	 * The preview of the thumbnail.
+	 */
+	private final CompletableFuture<BufferedImage> preview;
+	
+	/**
+	 * The thumbnail.
+	 */
+	private final CompletableFuture<BufferedImage> thumbnail;
+	
+	/**
+	 * Instantiates a {@link ProgressiveThumbnail}.
+	 * 
+	 * @param preview		The preview of the thumbnail.
+	 * @param thumbnail		The thumbnail.
+	 */
+	ProgressiveThumbnail(CompletableFuture<BufferedImage> preview, CompletableFuture<BufferedImage> thumbnail) {
+		this.preview = preview;
+		this.thumbnail = thumbnail;
+	}
+	
+	/**
+	 * Returns the {@link CompletableFuture} which is completed with the
+	 * preview of the thumbnail.
+	 * <p>
+	 * When no preview could be created, it is completed with the thumbnail,
+	 * or exceptionally when the thumbnail could not be created.
+	 * 
+	 * @return		The preview of the thumbnail.
+	 */
+	public CompletableFuture<BufferedImage> getPreview() {
+		return preview;
+	}
+	
+	/**
+	 * Returns the {@link CompletableFuture} which is completed with the
+	 * thumbnail.
+	 * <p>
+	 * Cancelling it stops the creation of both the preview and the
+	 * thumbnail.
+	 * 
+	 * @return		The thumbnail.
+	 */
+	public CompletableFuture<BufferedImage> getThumbnail() {
+		return thumbnail;
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * Obtains the number of bytes allocated by the current thread, on JVMs
+ * which support it.
+ * <p>
+ * The {@code com.sun.management.ThreadMXBean} interface is accessed by
+ * reflection, so that Thumbnailator does not depend on it on JVMs which
+ * do not provide it.
+ * 
+ * @author coobird
+ *
+ */
+final class ThreadAllocation {
+	/**
+	 * The {@link ThreadMXBean} of the JVM.
+	 */
+	private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+	
+	/**
+	 * The {@code getThreadAllocatedBytes(long)} method, or {@code null} if
+	 * it is not supported.
+	 */
+	private static final Method ALLOCATED_BYTES = findAllocatedBytesMethod();
+	
+	/**
+	 * This class is not intended to be instantiated.
+	 */
+	private ThreadAllocation() {}
+	
+	/**
+	 * Finds the method which returns the number of bytes allocated by a
+	 * thread.
+	 * 
+	 * @return		The method, or {@code null} if it is not supported.
+	 */
+	private static Method findAllocatedBytesMethod() {
+		try {
+			Class<?> c = Class.forName("com.sun.management.ThreadMXBean");
+			if (!c.isInstance(THREAD_BEAN)) {
+				return null;
+			}
+			
+			Method isSupported = c.getMethod("isThreadAllocatedMemorySupported");
+			Method isEnabled = c.getMethod("isThreadAllocatedMemoryEnabled");
+			if (!(Boolean)isSupported.invoke(THREAD_BEAN) || !(Boolean)isEnabled.invoke(THREAD_BEAN)) {
+				return null;
+			}
+			
+			return c.getMethod("getThreadAllocatedBytes", long.class);
+			
+		} catch (Exception e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Returns the number of bytes allocated by the current thread.
+	 * 
+	 * @return		The number of bytes allocated, or {@code -1} if it is
+	 * 				not supported.
+	 */
+	static long currentThreadAllocatedBytes() {
+		if (ALLOCATED_BYTES == null) {
+			return -1;
+		}
+		
+		try {
+			return (Long)ALLOCATED_BYTES.invoke(THREAD_BEAN, Thread.currentThread().getId());
+			
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+}
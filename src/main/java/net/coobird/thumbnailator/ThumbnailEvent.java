@@ -0,0 +1,403 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import net.coobird.thumbnailator.resizers.Resizer;
+import net.coobird.thumbnailator.tasks.io.AbstractImageSource;
+import net.coobird.thumbnailator.tasks.io.FileImageSource;
+import net.coobird.thumbnailator.tasks.io.ImageSource;
+
+/**
+ * Describes how a thumbnail was created, and is given to
+ * {@link ThumbnailListener}s once the thumbnail has been created or has
+ * failed to be created.
+ * <p>
+ * The time spent creating the thumbnail is recorded for each of the stages
+ * listed in {@link PipelineStage}, whether or not the thumbnail was created
+ * by a pipeline. When the thumbnail is not created by a pipeline, the time
+ * spent writing a thumbnail which is not buffered is included in the
+ * {@link PipelineStage#ENCODE} stage. The stages which were not performed,
+ * such as the stages which are skipped when the thumbnail was found in a
+ * cache, have a time of {@code 0}.
+ * <p>
+ * Values which are not known, such as the number of bytes read from a
+ * source which is not a file and was not prefetched, are {@code -1}.
+ * <p>
+ * An event is not modified once it has been given to the listeners.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class ThumbnailEvent {
+	private final Object source;
+	
+	private final long[] stageNanos = new long[PipelineStage.values().length];
+	private long filterNanos;
+	
+	private long allocatedBytes = -1;
+	private long bytesRead = -1;
+	private long bytesWritten = -1;
+	
+	private Dimension sourceSize;
+	private Dimension decodedSize;
+	private int subsampling = 1;
+	private Dimension thumbnailSize;
+	private Resizer resizer;
+	private String formatName;
+	
+	private boolean isCached;
+	private Throwable failure;
+	
+	/**
+	 * The value of {@link System#nanoTime()} when the current stage started.
+	 */
+	private long stageStartNanos;
+	
+	/**
+	 * The number of bytes allocated by the current thread when the current
+	 * stage started.
+	 */
+	private long stageStartAllocatedBytes;
+	
+	/**
+	 * The {@link ThumbnailatorMonitor} which recorded the start of the
+	 * thumbnail, or {@code null} if no monitor was registered.
+	 */
+	ThumbnailatorMonitor monitor;
+	
+	/**
+	 * The number of bytes of the decoded source image which have been
+	 * recorded by the {@link #monitor} as held.
+	 */
+	long heldPixelBytes;
+	
+	/**
+	 * Creates an event for a thumbnail.
+	 * 
+	 * @param source		The source of the thumbnail.
+	 */
+	ThumbnailEvent(Object source) {
+		this.source = source;
+	}
+	
+	/**
+	 * Records the start of a stage, on the thread which performs it.
+	 */
+	void startStage() {
+		stageStartAllocatedBytes = ThreadAllocation.currentThreadAllocatedBytes();
+		stageStartNanos = System.nanoTime();
+	}
+	
+	/**
+	 * Records the end of a stage, on the thread which performed it.
+	 * 
+	 * @param stage			The stage.
+	 */
+	void endStage(PipelineStage stage) {
+		stageNanos[stage.ordinal()] += System.nanoTime() - stageStartNanos;
+		
+		if (stageStartAllocatedBytes != -1) {
+			long allocated = ThreadAllocation.currentThreadAllocatedBytes();
+			if (allocated != -1) {
+				allocatedBytes = Math.max(allocatedBytes, 0)
+						+ allocated - stageStartAllocatedBytes;
+			}
+		}
+	}
+	
+	/**
+	 * Records the data of the source which has been retrieved.
+	 * 
+	 * @param data			The data of the source, or {@code null} if it
+	 * 						has not been retrieved.
+	 */
+	void recordFetched(byte[] data) {
+		if (data != null) {
+			bytesRead = data.length;
+		}
+	}
+	
+	/**
+	 * Records the source image which has been decoded.
+	 * 
+	 * @param imageSource	The source which decoded the image.
+	 * @param image			The decoded image.
+	 */
+	void recordDecoded(ImageSource<?> imageSource, BufferedImage image) {
+		decodedSize = new Dimension(image.getWidth(), image.getHeight());
+		
+		try {
+			formatName = imageSource.getInputFormatName();
+			
+		} catch (IllegalStateException e) {
+			// The format is not known to sources which did not read the image.
+		}
+		
+		if (imageSource instanceof AbstractImageSource) {
+			AbstractImageSource<?> s = (AbstractImageSource<?>)imageSource;
+			sourceSize = s.getSourceSize();
+			subsampling = s.getSubsampling();
+			
+		} else if (imageSource instanceof FileImageSource) {
+			FileImageSource s = (FileImageSource)imageSource;
+			sourceSize = s.getSourceSize();
+			subsampling = s.getSubsampling();
+		}
+		if (sourceSize == null) {
+			sourceSize = decodedSize;
+		}
+		
+		if (bytesRead == -1 && source instanceof File) {
+			bytesRead = ((File)source).length();
+		}
+	}
+	
+	/**
+	 * Records the thumbnail which has been created.
+	 * 
+	 * @param resizer		The {@link Resizer} used to resize the image.
+	 * @param filterNanos	The time spent applying the filters, in
+	 * 						nanoseconds.
+	 * @param thumbnail		The thumbnail.
+	 */
+	void recordResized(Resizer resizer, long filterNanos, BufferedImage thumbnail) {
+		this.resizer = resizer;
+		this.filterNanos += filterNanos;
+		this.thumbnailSize = new Dimension(thumbnail.getWidth(), thumbnail.getHeight());
+	}
+	
+	/**
+	 * Records the number of bytes of the thumbnail which has been written.
+	 * 
+	 * @param bytes			The number of bytes.
+	 */
+	void recordWritten(long bytes) {
+		bytesWritten = bytes;
+	}
+	
+	/**
+	 * Records that the thumbnail was found in a cache.
+	 */
+	void recordCached() {
+		isCached = true;
+	}
+	
+	/**
+	 * Records that the thumbnail failed to be created.
+	 * 
+	 * @param failure		The cause of the failure.
+	 */
+	void recordFailure(Throwable failure) {
+		this.failure = failure;
+	}
+	
+	/**
+	 * Returns the source of the thumbnail, such as a {@link File} or a
+	 * {@link BufferedImage}.
+	 * 
+	 * @return		The source of the thumbnail.
+	 */
+	public Object getSource() {
+		return source;
+	}
+	
+	/**
+	 * Returns the dimensions of the source image as stored, before a source
+	 * region or subsampling was applied.
+	 * 
+	 * @return		The dimensions of the source image, or {@code null} if
+	 * 				the image was not decoded.
+	 */
+	public Dimension getSourceSize() {
+		return sourceSize == null ? null : new Dimension(sourceSize);
+	}
+	
+	/**
+	 * Returns the dimensions of the decoded source image.
+	 * 
+	 * @return		The dimensions of the decoded image, or {@code null} if
+	 * 				the image was not decoded.
+	 */
+	public Dimension getDecodedSize() {
+		return decodedSize == null ? null : new Dimension(decodedSize);
+	}
+	
+	/**
+	 * Returns the subsampling factor used while decoding the source image.
+	 * 
+	 * @return		The subsampling factor, which is {@code 1} if the image
+	 * 				was not subsampled.
+	 */
+	public int getSubsampling() {
+		return subsampling;
+	}
+	
+	/**
+	 * Returns the dimensions of the thumbnail, after the filters have been
+	 * applied.
+	 * 
+	 * @return		The dimensions of the thumbnail, or {@code null} if the
+	 * 				thumbnail was not created.
+	 */
+	public Dimension getThumbnailSize() {
+		return thumbnailSize == null ? null : new Dimension(thumbnailSize);
+	}
+	
+	/**
+	 * Returns the {@link Resizer} which resized the source image.
+	 * 
+	 * @return		The {@link Resizer}, or {@code null} if the image was not
+	 * 				resized.
+	 */
+	public Resizer getResizer() {
+		return resizer;
+	}
+	
+	/**
+	 * Returns the name of the format of the source image.
+	 * 
+	 * @return		The format name, or {@code null} if the image was not
+	 * 				decoded or its format is not known.
+	 */
+	public String getFormatName() {
+		return formatName;
+	}
+	
+	/**
+	 * Returns the time spent in the given stage.
+	 * 
+	 * @param stage			The stage.
+	 * @param unit			The unit of the returned time.
+	 * @return				The time spent in the stage.
+	 */
+	public long getTime(PipelineStage stage, TimeUnit unit) {
+		return unit.convert(stageNanos[stage.ordinal()], TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Returns the time spent applying the filters, which is included in the
+	 * time of the {@link PipelineStage#RESIZE} stage.
+	 * 
+	 * @param unit			The unit of the returned time.
+	 * @return				The time spent applying the filters.
+	 */
+	public long getFilterTime(TimeUnit unit) {
+		return unit.convert(filterNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Returns the total time spent in all stages.
+	 * 
+	 * @param unit			The unit of the returned time.
+	 * @return				The time spent in all stages.
+	 */
+	public long getTotalTime(TimeUnit unit) {
+		long total = 0;
+		for (long nanos : stageNanos) {
+			total += nanos;
+		}
+		return unit.convert(total, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Returns the number of bytes read from the source.
+	 * 
+	 * @return		The number of bytes read, or {@code -1} if not known.
+	 */
+	public long getBytesRead() {
+		return bytesRead;
+	}
+	
+	/**
+	 * Returns the number of bytes of the thumbnail which were written.
+	 * 
+	 * @return		The number of bytes written, or {@code -1} if not known.
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+	
+	/**
+	 * Returns the number of bytes allocated on the heap by the threads
+	 * which created the thumbnail, while they were creating it.
+	 * 
+	 * @return		The number of bytes allocated, or {@code -1} if the JVM
+	 * 				does not support measuring the memory allocated by
+	 * 				threads.
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+	
+	/**
+	 * Returns whether the thumbnail was found in a cache, rather than
+	 * being created.
+	 * 
+	 * @return		{@code true} if the thumbnail was found in a cache.
+	 */
+	public boolean isCached() {
+		return isCached;
+	}
+	
+	/**
+	 * Returns the cause of the failure to create the thumbnail.
+	 * 
+	 * @return		The cause of the failure, or {@code null} if the
+	 * 				thumbnail was created.
+	 */
+	public Throwable getFailure() {
+		return failure;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("ThumbnailEvent[source=");
+		sb.append(source);
+		
+		for (PipelineStage stage : PipelineStage.values()) {
+			sb.append(", ").append(stage).append("=")
+				.append(getTime(stage, TimeUnit.MICROSECONDS)).append("us");
+		}
+		
+		sb.append(", filters=").append(getFilterTime(TimeUnit.MICROSECONDS)).append("us");
+		if (decodedSize != null) {
+			sb.append(", decoded=").append(decodedSize.width).append("x").append(decodedSize.height);
+		}
+		if (thumbnailSize != null) {
+			sb.append(", thumbnail=").append(thumbnailSize.width).append("x").append(thumbnailSize.height);
+		}
+		if (failure != null) {
+			sb.append(", failure=").append(failure);
+		}
+		
+		return sb.append("]").toString();
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+/**
+ * A listener which is notified each time Thumbnailator finishes creating a
+ * thumbnail, with a {@link ThumbnailEvent} which describes how the
+ * thumbnail was created and where the time was spent.
+ * <p>
+ * A listener is either set on a builder through
+ * {@link Thumbnails.Builder#listener(ThumbnailListener)}, or registered for
+ * all builders through {@link ThumbnailListeners#add(ThumbnailListener)}.
+ * When no listener is set or registered, events are not recorded at all.
+ * <p>
+ * Listeners are called on the thread which finished creating the
+ * thumbnail, which may be a thread of a pipeline or of an executor, and
+ * therefore must be thread-safe. As listeners are called while thumbnails
+ * are being created, they should return quickly. Exceptions thrown by
+ * listeners are ignored.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public interface ThumbnailListener {
+	/**
+	 * Called when a thumbnail has been created, or has failed to be created.
+	 * 
+	 * @param event		The event which describes the thumbnail.
+	 */
+	public void thumbnailCompleted(ThumbnailEvent event);
+}
@@ -0,0 +1,113 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The {@link ThumbnailListener}s which are notified of the thumbnails
+ * created by all builders, in addition to the listener set on each builder
+ * through {@link Thumbnails.Builder#listener(ThumbnailListener)}.
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class ThumbnailListeners {
+	/**
+	 * The registered listeners.
+	 */
+	private static final List<ThumbnailListener> LISTENERS =
+			new CopyOnWriteArrayList<ThumbnailListener>();
+	
+	/**
+	 * This class is not intended to be instantiated.
+	 */
+	private ThumbnailListeners() {}
+	
+	/**
+	 * Registers a listener which is notified of the thumbnails created by
+	 * all builders.
+	 * 
+	 * @param listener		The listener to register.
+	 * @throws NullPointerException	If the listener is {@code null}.
+	 */
+	public static void add(ThumbnailListener listener) {
+		if (listener == null) {
+			throw new NullPointerException("Listener is null.");
+		}
+		
+		LISTENERS.add(listener);
+	}
+	
+	/**
+	 * Removes a listener which has been registered.
+	 * 
+	 * @param listener		The listener to remove.
+	 * @return				{@code true} if the listener was registered.
+	 */
+	public static boolean remove(ThumbnailListener listener) {
+		return LISTENERS.remove(listener);
+	}
+	
+	/**
+	 * Returns the listeners to notify of a thumbnail created by a builder.
+	 * 
+	 * @param builderListener	The listener set on the builder, or
+	 * 							{@code null}.
+	 * @return					The listeners, or {@code null} if there are
+	 * 							no listeners to notify.
+	 */
+	static List<ThumbnailListener> forBuilder(ThumbnailListener builderListener) {
+		if (builderListener == null) {
+			return LISTENERS.isEmpty() ? null : LISTENERS;
+		}
+		
+		List<ThumbnailListener> listeners = new ArrayList<ThumbnailListener>(LISTENERS);
+		listeners.add(builderListener);
+		return listeners;
+	}
+	
+	/**
+	 * Notifies the listeners of an event.
+	 * 
+	 * @param listeners		The listeners to notify.
+	 * @param event			The event.
+	 */
+	static void notify(List<ThumbnailListener> listeners, ThumbnailEvent event) {
+		for (ThumbnailListener listener : listeners) {
+			try {
+				listener.thumbnailCompleted(event);
+				
+			} catch (RuntimeException e) {
+				// A listener must not affect the creation of thumbnails.
+			}
+		}
+	}
+}
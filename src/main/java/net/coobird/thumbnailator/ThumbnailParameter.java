@@ -34,6 +34,8 @@ import net.coobird.thumbnailator.resizers.FixedResizerFactory;
 import net.coobird.thumbnailator.geometry.Region;
 import net.coobird.thumbnailator.resizers.Resizer;
 import net.coobird.thumbnailator.resizers.ResizerFactory;
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
 
 /**
  * This class is used to specify the parameters to use when creating a thumbnail.
@@ -45,7 +47,7 @@ import net.coobird.thumbnailator.resizers.ResizerFactory;
  * @author coobird
  *
  */
-public class ThumbnailParameter {
+public class ThumbnailParameter implements Fingerprintable {
 	/**
 	 * A constant used to denote that the output format of the thumbnail should
 	 * be the same as the format of the original image.
@@ -334,6 +336,33 @@ public class ThumbnailParameter {
 		this.useExifOrientation = useExifOrientation;
 	}
 	
+	/**
+	 * Creates a copy of the given {@link ThumbnailParameter} with its own
+	 * list of filters, so that filters can be added to the copy without
+	 * affecting the given {@link ThumbnailParameter}, such as the filter
+	 * which corrects the orientation of an image according to its Exif
+	 * metadata.
+	 * 
+	 * @param param				The {@link ThumbnailParameter} to copy.
+	 */
+	ThumbnailParameter(ThumbnailParameter param) {
+		this(
+				param.thumbnailSize,
+				param.widthScalingFactor,
+				param.heightScalingFactor,
+				param.sourceRegion,
+				param.keepAspectRatio,
+				param.outputFormat,
+				param.outputFormatType,
+				param.outputQuality,
+				param.imageType,
+				param.filters,
+				param.resizerFactory,
+				param.fitWithinDimensions,
+				param.useExifOrientation
+		);
+	}
+	
 	/**
 	 * Perform validations on the {@code thumbnailSize} field.
 	 */
@@ -993,4 +1022,40 @@ public class ThumbnailParameter {
 	public boolean useExifOrientation() {
 		return useExifOrientation;
 	}
+	
+	/**
+	 * Returns the fingerprint of the parameters.
+	 * <p>
+	 * Thumbnails created from the same source image with parameters of the
+	 * same fingerprint are the same, which allows the thumbnails to be
+	 * cached. The fingerprint is the same across invocations of the Java
+	 * virtual machine.
+	 * <p>
+	 * The fingerprint can only be determined when the filters, the
+	 * {@link ResizerFactory} and the source region provide their own
+	 * fingerprints by implementing {@link Fingerprintable}, as the filters
+	 * and resizers included in Thumbnailator do.
+	 * 
+	 * @return		The fingerprint of the parameters.
+	 * @throws IllegalArgumentException	If the fingerprint cannot be
+	 * 									determined.
+	 * @since	0.4.21
+	 */
+	public String getFingerprint() {
+		return new Fingerprint(getClass().getName())
+				.add("size", thumbnailSize)
+				.add("widthScalingFactor", widthScalingFactor)
+				.add("heightScalingFactor", heightScalingFactor)
+				.add("sourceRegion", sourceRegion)
+				.add("keepAspectRatio", keepAspectRatio)
+				.add("fitWithinDimensions", fitWithinDimensions)
+				.add("outputFormat", outputFormat)
+				.add("outputFormatType", outputFormatType)
+				.add("outputQuality", outputQuality)
+				.add("imageType", imageType)
+				.add("filters", filters)
+				.add("resizerFactory", resizerFactory)
+				.add("useExifOrientation", useExifOrientation)
+				.toString();
+	}
 }
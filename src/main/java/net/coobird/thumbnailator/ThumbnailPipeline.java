@@ -0,0 +1,341 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.coobird.thumbnailator.tasks.ThumbnailBatchException;
+import net.coobird.thumbnailator.util.DaemonThreadFactory;
+
+/**
+ * Creates thumbnails from multiple sources by passing each source through
+ * the stages listed in {@link PipelineStage}.
+ * <p>
+ * Each stage has its own threads, and the stages are connected by bounded
+ * queues. While one image is being resized, another can be read and yet
+ * another can be written, so that I/O and computation overlap. When a stage
+ * falls behind, the queue leading to it fills up, and the preceding stages
+ * wait until there is room in the queue, which limits the number of images
+ * held in memory.
+ * 
+ * @author coobird
+ *
+ */
+final class ThumbnailPipeline {
+	/**
+	 * A unit of work which passes through the stages of the pipeline.
+	 * 
+	 * @param <R>		The type of the result of the work.
+	 */
+	interface Task<R> {
+		/**
+		 * Performs the work of the given stage.
+		 * 
+		 * @param stage			The stage to perform.
+		 * @throws IOException	If a problem occurs while performing the
+		 * 						stage.
+		 */
+		public void perform(PipelineStage stage) throws IOException;
+		
+		/**
+		 * Returns the result of the work, after all stages have been
+		 * performed.
+		 * 
+		 * @return		The result, or {@code null} if there is no result.
+		 */
+		public R getResult();
+	}
+	
+	/**
+	 * The number of queued tasks per thread of the stage receiving them.
+	 */
+	private static final int QUEUED_TASKS_PER_THREAD = 2;
+	
+	/**
+	 * Marker which indicates that no more tasks will follow in a queue.
+	 */
+	private static final Item<?> END_OF_TASKS = new Item<Object>(-1, null);
+	
+	/**
+	 * A task and its position among the tasks.
+	 */
+	private static final class Item<R> {
+		private final int index;
+		private final Task<R> task;
+		
+		private Item(int index, Task<R> task) {
+			this.index = index;
+			this.task = task;
+		}
+	}
+	
+	/**
+	 * The number of threads of each stage, indexed by the ordinal of the
+	 * stage.
+	 */
+	private final int[] threads;
+	
+	/**
+	 * Where the statistics are recorded, or {@code null}.
+	 */
+	private final PipelineStatistics statistics;
+	
+	/**
+	 * Instantiates a pipeline.
+	 * 
+	 * @param threads		The number of threads of each stage, indexed by
+	 * 						the ordinal of the stage.
+	 * @param statistics	Where the statistics are recorded, or
+	 * 						{@code null} if they are not recorded.
+	 */
+	ThumbnailPipeline(int[] threads, PipelineStatistics statistics) {
+		this.threads = threads.clone();
+		this.statistics = statistics;
+	}
+	
+	/**
+	 * Returns the default number of threads of each stage, indexed by the
+	 * ordinal of the stage.
+	 * <p>
+	 * Stages which perform I/O are given a fixed number of threads, while
+	 * stages which perform computation are given as many threads as there
+	 * are processors.
+	 * 
+	 * @return		The default number of threads of each stage.
+	 */
+	static int[] defaultThreads() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		
+		int[] threads = new int[PipelineStage.values().length];
+		threads[PipelineStage.PREFETCH.ordinal()] = 4;
+		threads[PipelineStage.DECODE.ordinal()] = processors;
+		threads[PipelineStage.RESIZE.ordinal()] = processors;
+		threads[PipelineStage.ENCODE.ordinal()] = processors;
+		threads[PipelineStage.WRITE.ordinal()] = 2;
+		
+		return threads;
+	}
+	
+	/**
+	 * Runs the given tasks through the pipeline, and returns their results
+	 * in the order of the tasks.
+	 * <p>
+	 * A failure of a task does not stop other tasks. Once all tasks have
+	 * been processed, a {@link ThumbnailBatchException} is thrown if any of
+	 * the tasks failed.
+	 * 
+	 * @param tasks			The tasks to run. The tasks are obtained on the
+	 * 						calling thread.
+	 * @return				The results of the tasks.
+	 * @throws IOException	If a task failed.
+	 */
+	@SuppressWarnings("unchecked")
+	<R> List<R> run(Iterator<? extends Task<R>> tasks) throws IOException {
+		final PipelineStage[] stages = PipelineStage.values();
+		
+		final List<BlockingQueue<Item<R>>> queues = new ArrayList<BlockingQueue<Item<R>>>();
+		final AtomicInteger[] runningThreads = new AtomicInteger[stages.length];
+		int totalThreads = 0;
+		for (int i = 0; i < stages.length; i++) {
+			queues.add(new ArrayBlockingQueue<Item<R>>(threads[i] * QUEUED_TASKS_PER_THREAD));
+			runningThreads[i] = new AtomicInteger(threads[i]);
+			totalThreads += threads[i];
+		}
+		
+		final Map<Integer, R> results = Collections.synchronizedMap(new HashMap<Integer, R>());
+		final Map<Integer, Throwable> failures = Collections.synchronizedMap(new HashMap<Integer, Throwable>());
+		final CountDownLatch finished = new CountDownLatch(1);
+		
+		if (statistics != null) {
+			statistics.start(threads);
+		}
+		
+		ExecutorService service = Executors.newFixedThreadPool(
+				totalThreads,
+				new DaemonThreadFactory("thumbnailator-pipeline")
+		);
+		
+		int count = 0;
+		boolean isCompleted = false;
+		try {
+			for (int i = 0; i < stages.length; i++) {
+				for (int j = 0; j < threads[i]; j++) {
+					service.execute(new Worker<R>(
+							stages, i, queues, runningThreads, results, failures, finished
+					));
+				}
+			}
+			
+			BlockingQueue<Item<R>> firstQueue = queues.get(0);
+			while (tasks.hasNext()) {
+				firstQueue.put(new Item<R>(count, tasks.next()));
+				count++;
+			}
+			for (int j = 0; j < threads[0]; j++) {
+				firstQueue.put((Item<R>)END_OF_TASKS);
+			}
+			
+			finished.await();
+			isCompleted = true;
+			
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(
+					"Interrupted while waiting for thumbnails to be created."
+			);
+			
+		} finally {
+			if (isCompleted) {
+				service.shutdown();
+			} else {
+				service.shutdownNow();
+			}
+			if (statistics != null) {
+				statistics.finish();
+			}
+		}
+		
+		List<R> orderedResults = new ArrayList<R>(count);
+		for (int i = 0; i < count; i++) {
+			orderedResults.add(results.get(i));
+		}
+		
+		if (!failures.isEmpty()) {
+			for (int i = 0; i < count; i++) {
+				Throwable t = failures.get(i);
+				if (t instanceof Error) {
+					throw (Error)t;
+				}
+			}
+			throw new ThumbnailBatchException(orderedResults, failures);
+		}
+		
+		return orderedResults;
+	}
+	
+	/**
+	 * A thread of a stage, which takes tasks from the queue of the stage,
+	 * performs the stage, and passes the tasks to the queue of the next
+	 * stage.
+	 */
+	private final class Worker<R> implements Runnable {
+		private final PipelineStage[] stages;
+		private final int stageIndex;
+		private final List<BlockingQueue<Item<R>>> queues;
+		private final AtomicInteger[] runningThreads;
+		private final Map<Integer, R> results;
+		private final Map<Integer, Throwable> failures;
+		private final CountDownLatch finished;
+		
+		private Worker(
+				PipelineStage[] stages,
+				int stageIndex,
+				List<BlockingQueue<Item<R>>> queues,
+				AtomicInteger[] runningThreads,
+				Map<Integer, R> results,
+				Map<Integer, Throwable> failures,
+				CountDownLatch finished
+		) {
+			this.stages = stages;
+			this.stageIndex = stageIndex;
+			this.queues = queues;
+			this.runningThreads = runningThreads;
+			this.results = results;
+			this.failures = failures;
+			this.finished = finished;
+		}
+		
+		@SuppressWarnings("unchecked")
+		public void run() {
+			PipelineStage stage = stages[stageIndex];
+			BlockingQueue<Item<R>> queue = queues.get(stageIndex);
+			boolean isLastStage = stageIndex == stages.length - 1;
+			
+			try {
+				while (true) {
+					Item<R> item = queue.take();
+					
+					if (item == END_OF_TASKS) {
+						/*
+						 * The last thread of the stage to finish tells the
+						 * threads of the next stage that no more tasks follow.
+						 */
+						if (runningThreads[stageIndex].decrementAndGet() == 0) {
+							if (isLastStage) {
+								finished.countDown();
+							} else {
+								for (int j = 0; j < threads[stageIndex + 1]; j++) {
+									queues.get(stageIndex + 1).put((Item<R>)END_OF_TASKS);
+								}
+							}
+						}
+						return;
+					}
+					
+					long startTime = System.nanoTime();
+					boolean isSuccessful = false;
+					try {
+						item.task.perform(stage);
+						isSuccessful = true;
+						
+					} catch (Throwable t) {
+						failures.put(item.index, t);
+						
+					} finally {
+						if (statistics != null) {
+							statistics.record(stage, System.nanoTime() - startTime);
+						}
+					}
+					
+					if (!isSuccessful) {
+						continue;
+					}
+					
+					if (isLastStage) {
+						results.put(item.index, item.task.getResult());
+					} else {
+						queues.get(stageIndex + 1).put(item);
+					}
+				}
+				
+			} catch (InterruptedException e) {
+				// The pipeline is being shut down.
+			}
+		}
+	}
+}
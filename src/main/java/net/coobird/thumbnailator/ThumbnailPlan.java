@@ -0,0 +1,264 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.coobird.thumbnailator.makers.ThumbnailMaker;
+import net.coobird.thumbnailator.tasks.SourceSinkThumbnailTask;
+import net.coobird.thumbnailator.tasks.io.ImageSink;
+import net.coobird.thumbnailator.tasks.io.ImageSource;
+import net.coobird.thumbnailator.util.PixelMemoryGovernor;
+
+/**
+ * A compiled set of parameters for creating thumbnails, which is obtained
+ * from the {@link Thumbnails.Builder#compile()} method.
+ * <p>
+ * The resizer, filters, image type and output settings are resolved once
+ * when the plan is compiled, rather than each time a thumbnail is created.
+ * The {@link ThumbnailMaker} which resizes images is also created once for
+ * each image type of the thumbnails, and is reused for all thumbnails of
+ * that type.
+ * <p>
+ * A {@link ThumbnailPlan} is immutable and thread-safe, and can be used to
+ * create any number of thumbnails, from any number of threads at the same
+ * time.
+ * 
+ * <DL>
+ * <DT><B>Usage:</B></DT>
+ * <DD>
+ * <pre>
+ThumbnailPlan plan = Thumbnails.of(sampleImage)
+    .size(200, 200)
+    .outputFormat("jpg")
+    .compile();
+
+// In each request:
+plan.createThumbnail(new InputStreamImageSource(is), new OutputStreamImageSink(os));
+ * </pre>
+ * </DD>
+ * </DL>
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class ThumbnailPlan {
+	/**
+	 * The parameters of the thumbnails.
+	 * <p>
+	 * As the source of an image may change the parameters, by adding the
+	 * filter which corrects the orientation of the image according to its
+	 * Exif metadata, or by adjusting the scaling factors to the subsampling
+	 * used to decode the image, these parameters are copied for each
+	 * thumbnail which is created from an {@link ImageSource}.
+	 */
+	private final ThumbnailParameter param;
+	
+	/**
+	 * Whether the filters of {@link #param} swap the width and height of
+	 * the thumbnails.
+	 */
+	private final boolean isSwapDimensions;
+	
+	/**
+	 * The {@link ThumbnailMaker}s which have been created, by the image
+	 * type, whether the dimensions are swapped, and the scaling factors.
+	 */
+	private final ConcurrentMap<MakerKey, ThumbnailMaker> makers =
+			new ConcurrentHashMap<MakerKey, ThumbnailMaker>();
+	
+	/**
+	 * Creates a {@link ThumbnailPlan}.
+	 * 
+	 * @param param			The parameters of the thumbnails.
+	 */
+	ThumbnailPlan(ThumbnailParameter param) {
+		this.param = param;
+		this.isSwapDimensions = Thumbnailator.hasSwapDimensionsFilter(param.getImageFilters());
+	}
+	
+	/**
+	 * Creates a thumbnail from the given source, and writes it to the given
+	 * destination.
+	 * 
+	 * @param source			The source of the image.
+	 * @param destination		The destination of the thumbnail.
+	 * @throws IOException		If a problem occurs while reading the image
+	 * 							or writing the thumbnail.
+	 * @throws NullPointerException	If the source or destination is
+	 * 								{@code null}.
+	 */
+	public <S, D> void createThumbnail(ImageSource<S> source, ImageSink<D> destination) throws IOException {
+		ThumbnailParameter thumbnailParam = new ThumbnailParameter(param);
+		
+		SourceSinkThumbnailTask<S, D> task =
+				new SourceSinkThumbnailTask<S, D>(thumbnailParam, source, destination);
+		
+		BufferedImage sourceImage = task.read();
+		try {
+			BufferedImage thumbnail = createThumbnail(thumbnailParam, sourceImage);
+			task.write(thumbnail);
+			thumbnail.flush();
+			
+		} finally {
+			sourceImage.flush();
+			PixelMemoryGovernor.release(sourceImage);
+		}
+	}
+	
+	/**
+	 * Creates a thumbnail from the given image.
+	 * 
+	 * @param image				The image.
+	 * @return					The thumbnail.
+	 * @throws NullPointerException	If the image is {@code null}.
+	 */
+	public BufferedImage createThumbnail(BufferedImage image) {
+		if (image == null) {
+			throw new NullPointerException("Image is null.");
+		}
+		
+		return createThumbnail(param, image);
+	}
+	
+	/**
+	 * Creates a thumbnail from the given image, and writes it into the
+	 * top-left corner of the given destination image.
+	 * <p>
+	 * When the plan has no filters, the image is resized directly into the
+	 * destination image, so rendering thumbnails repeatedly into the same
+	 * destination image does not allocate images.
+	 * 
+	 * @param image				The image.
+	 * @param destination		The image to write the thumbnail into.
+	 * @return					The dimensions of the thumbnail.
+	 * @throws NullPointerException		If the image or destination image is
+	 * 									{@code null}.
+	 * @throws IllegalArgumentException	If the thumbnail does not fit within
+	 * 									the destination image, or if the
+	 * 									images share their pixel data.
+	 */
+	public Dimension createThumbnail(BufferedImage image, BufferedImage destination) {
+		if (image == null) {
+			throw new NullPointerException("Image is null.");
+		}
+		if (destination == null) {
+			throw new NullPointerException("Destination image is null.");
+		}
+		
+		return Thumbnailator.createThumbnailInto(param, getMaker(param, image), image, destination);
+	}
+	
+	/**
+	 * Creates a thumbnail from an image which has already been read.
+	 * 
+	 * @param thumbnailParam	The parameters of the thumbnail, which are
+	 * 							either {@link #param} or a copy of it.
+	 * @param sourceImage		The image.
+	 * @return					The thumbnail.
+	 */
+	private BufferedImage createThumbnail(ThumbnailParameter thumbnailParam, BufferedImage sourceImage) {
+		return Thumbnailator.applyFilters(thumbnailParam, getMaker(thumbnailParam, sourceImage).make(sourceImage));
+	}
+	
+	/**
+	 * Returns the {@link ThumbnailMaker} for an image, creating it if it
+	 * has not been created yet.
+	 * 
+	 * @param thumbnailParam	The parameters of the thumbnail, which are
+	 * 							either {@link #param} or a copy of it.
+	 * @param sourceImage		The image.
+	 * @return					The {@link ThumbnailMaker}.
+	 */
+	private ThumbnailMaker getMaker(ThumbnailParameter thumbnailParam, BufferedImage sourceImage) {
+		int imageType = Thumbnailator.getImageType(thumbnailParam, sourceImage);
+		
+		// Only the filters added by the source can change whether the dimensions are swapped.
+		boolean isSwap = thumbnailParam == param ?
+				isSwapDimensions :
+				Thumbnailator.hasSwapDimensionsFilter(thumbnailParam.getImageFilters());
+		
+		// The scaling factors differ from those of the plan when the source was subsampled.
+		MakerKey key = new MakerKey(
+				imageType,
+				isSwap,
+				thumbnailParam.getWidthScalingFactor(),
+				thumbnailParam.getHeightScalingFactor()
+		);
+		ThumbnailMaker maker = makers.get(key);
+		if (maker == null) {
+			maker = Thumbnailator.createMaker(thumbnailParam, imageType, isSwap);
+			ThumbnailMaker existing = makers.putIfAbsent(key, maker);
+			if (existing != null) {
+				maker = existing;
+			}
+		}
+		
+		return maker;
+	}
+	
+	/**
+	 * The key of a {@link ThumbnailMaker} in {@link ThumbnailPlan#makers}.
+	 */
+	private static final class MakerKey {
+		private final int imageType;
+		private final boolean isSwapDimensions;
+		private final double widthScalingFactor;
+		private final double heightScalingFactor;
+		
+		private MakerKey(int imageType, boolean isSwapDimensions, double widthScalingFactor, double heightScalingFactor) {
+			this.imageType = imageType;
+			this.isSwapDimensions = isSwapDimensions;
+			this.widthScalingFactor = widthScalingFactor;
+			this.heightScalingFactor = heightScalingFactor;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof MakerKey)) {
+				return false;
+			}
+			
+			MakerKey other = (MakerKey)o;
+			return imageType == other.imageType &&
+					isSwapDimensions == other.isSwapDimensions &&
+					Double.compare(widthScalingFactor, other.widthScalingFactor) == 0 &&
+					Double.compare(heightScalingFactor, other.heightScalingFactor) == 0;
+		}
+		
+		@Override
+		public int hashCode() {
+			int result = imageType * 2 + (isSwapDimensions ? 1 : 0);
+			result = 31 * result + Double.valueOf(widthScalingFactor).hashCode();
+			result = 31 * result + Double.valueOf(heightScalingFactor).hashCode();
+			return result;
+		}
+	}
+}
@@ -0,0 +1,458 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.coobird.thumbnailator.util.Flow;
+
+/**
+ * A {@link Flow.Publisher} which creates thumbnails as its
+ * {@link Flow.Subscriber} requests them.
+ * <p>
+ * Thumbnails are created on an {@link Executor}, no more than a given
+ * number at a time. A thumbnail is only started when the subscriber has
+ * requested it, or when it is within a given number of thumbnails beyond
+ * those requested. The tasks are taken from an {@link Iterator} as they are
+ * started, so the sources are not enumerated in advance. The results are
+ * sent to the subscriber in the order of the sources. When the
+ * subscription is cancelled or terminated, the {@link Iterator} is closed
+ * if it is {@link Closeable}.
+ * <p>
+ * Only one {@link Flow.Subscriber} is supported.
+ * 
+ * @param <T>		The type of the sources.
+ * @author coobird
+ *
+ */
+final class ThumbnailPublisher<T> implements Flow.Publisher<ThumbnailResult<T>> {
+	/**
+	 * The tasks which create the thumbnails, in the order of the sources.
+	 */
+	private final Iterator<? extends Callable<ThumbnailResult<T>>> tasks;
+	
+	/**
+	 * The maximum number of thumbnails created at a time.
+	 */
+	private final int concurrency;
+	
+	/**
+	 * The number of thumbnails which may be started beyond those requested.
+	 */
+	private final int prefetch;
+	
+	/**
+	 * The {@link Executor} on which the thumbnails are created.
+	 */
+	private final Executor executor;
+	
+	/**
+	 * Whether a subscriber has subscribed.
+	 */
+	private final AtomicBoolean isSubscribed = new AtomicBoolean();
+	
+	/**
+	 * Instantiates a {@link ThumbnailPublisher}.
+	 * 
+	 * @param tasks			The tasks which create the thumbnails, which are
+	 * 						taken as they are started.
+	 * @param concurrency	The maximum number of thumbnails created at a
+	 * 						time.
+	 * @param prefetch		The number of thumbnails which may be started
+	 * 						beyond those requested.
+	 * @param executor		The {@link Executor} on which the thumbnails are
+	 * 						created.
+	 */
+	ThumbnailPublisher(Iterator<? extends Callable<ThumbnailResult<T>>> tasks, int concurrency, int prefetch, Executor executor) {
+		this.tasks = tasks;
+		this.concurrency = concurrency;
+		this.prefetch = prefetch;
+		this.executor = executor;
+	}
+	
+	public void subscribe(Flow.Subscriber<? super ThumbnailResult<T>> subscriber) {
+		if (subscriber == null) {
+			throw new NullPointerException("Subscriber is null.");
+		}
+		
+		if (!isSubscribed.compareAndSet(false, true)) {
+			subscriber.onSubscribe(new Flow.Subscription() {
+				public void request(long n) {}
+				public void cancel() {}
+			});
+			subscriber.onError(new IllegalStateException(
+					"Only one subscriber is supported."
+			));
+			return;
+		}
+		
+		ResultSubscription subscription = new ResultSubscription(subscriber);
+		subscriber.onSubscribe(subscription);
+		subscription.drain();
+	}
+	
+	/**
+	 * The {@link Flow.Subscription} of the subscriber, which starts the
+	 * tasks and sends their results.
+	 * <p>
+	 * The state is guarded by the lock of this object. Signals to the
+	 * subscriber are sent from the {@link #drain()} method, which is run by
+	 * one thread at a time, and never while holding the lock. The tasks are
+	 * also taken from their {@link Iterator} by the {@link #drain()} method.
+	 */
+	private final class ResultSubscription implements Flow.Subscription {
+		private final Flow.Subscriber<? super ThumbnailResult<T>> subscriber;
+		
+		/**
+		 * The results which have been created but not yet sent, keyed by
+		 * the position of the source.
+		 */
+		private final Map<Integer, ThumbnailResult<T>> results =
+				new HashMap<Integer, ThumbnailResult<T>>();
+		
+		/**
+		 * The tasks which are running, keyed by the position of the source.
+		 */
+		private final Map<Integer, FutureTask<?>> running =
+				new HashMap<Integer, FutureTask<?>>();
+		
+		/**
+		 * The number of threads which want to run the {@link #drain()} loop.
+		 */
+		private final AtomicInteger drainRequests = new AtomicInteger();
+		
+		/**
+		 * The number of results requested but not yet sent.
+		 */
+		private long demand = 0;
+		
+		/**
+		 * The position of the next task to start.
+		 */
+		private int nextTask = 0;
+		
+		/**
+		 * The position of the next result to send.
+		 */
+		private int nextResult = 0;
+		
+		/**
+		 * The number of tasks which are running.
+		 */
+		private int runningCount = 0;
+		
+		/**
+		 * Whether all tasks have been taken from their {@link Iterator}.
+		 */
+		private boolean isExhausted = false;
+		
+		/**
+		 * An error to send to the subscriber, or {@code null}.
+		 */
+		private Throwable error;
+		
+		/**
+		 * Whether the subscription has been cancelled, or a terminal signal
+		 * has been sent.
+		 */
+		private boolean isTerminated = false;
+		
+		private ResultSubscription(Flow.Subscriber<? super ThumbnailResult<T>> subscriber) {
+			this.subscriber = subscriber;
+		}
+		
+		public void request(long n) {
+			synchronized (this) {
+				if (isTerminated) {
+					return;
+				}
+				if (n <= 0) {
+					if (error == null) {
+						error = new IllegalArgumentException(
+								"Number of requested items must be positive: " + n
+						);
+					}
+				} else {
+					demand += n;
+					if (demand < 0) {
+						demand = Long.MAX_VALUE;
+					}
+				}
+			}
+			
+			drain();
+		}
+		
+		public void cancel() {
+			synchronized (this) {
+				if (isTerminated) {
+					return;
+				}
+				isTerminated = true;
+			}
+			
+			cancelRunningTasks();
+			
+			// The tasks are closed by the thread which takes them.
+			drain();
+		}
+		
+		/**
+		 * Closes the {@link Iterator} of the tasks, if it is
+		 * {@link Closeable}. This is only called from the {@link #drain()}
+		 * method, which takes the tasks.
+		 */
+		private void closeTasks() {
+			if (!(tasks instanceof Closeable)) {
+				return;
+			}
+			
+			try {
+				((Closeable)tasks).close();
+			} catch (IOException e) {
+				// No more tasks are taken.
+			}
+		}
+		
+		/**
+		 * Cancels the running tasks, interrupting the threads which run
+		 * them, and discards the results which have not been sent.
+		 */
+		private void cancelRunningTasks() {
+			List<FutureTask<?>> toCancel;
+			synchronized (this) {
+				toCancel = new ArrayList<FutureTask<?>>(running.values());
+				results.clear();
+				running.clear();
+			}
+			
+			for (FutureTask<?> task : toCancel) {
+				if (task != null) {
+					task.cancel(true);
+				}
+			}
+		}
+		
+		/**
+		 * Records the result of a task, or the error which prevented the
+		 * task from completing.
+		 * 
+		 * @param index			The position of the task.
+		 * @param result		The result, or {@code null}.
+		 * @param t				The error, or {@code null}.
+		 */
+		private void complete(int index, ThumbnailResult<T> result, Throwable t) {
+			synchronized (this) {
+				running.remove(index);
+				runningCount--;
+				
+				if (isTerminated) {
+					return;
+				}
+				if (t != null) {
+					if (error == null) {
+						error = t;
+					}
+				} else {
+					results.put(index, result);
+				}
+			}
+			
+			drain();
+		}
+		
+		/**
+		 * Sends the results which can be sent, starts the tasks which can be
+		 * started, and sends a terminal signal when there is nothing left to
+		 * do.
+		 */
+		private void drain() {
+			if (drainRequests.getAndIncrement() != 0) {
+				return;
+			}
+			
+			int missed = 1;
+			do {
+				while (true) {
+					ThumbnailResult<T> result = null;
+					Throwable errorToSend = null;
+					boolean isCompleted = false;
+					boolean isCancelled = false;
+					
+					synchronized (this) {
+						if (isTerminated) {
+							isCancelled = true;
+							
+						} else if (error != null) {
+							isTerminated = true;
+							errorToSend = error;
+							
+						} else if (isExhausted && nextResult == nextTask) {
+							isTerminated = true;
+							isCompleted = true;
+							
+						} else if (demand > 0 && results.containsKey(nextResult)) {
+							result = results.remove(nextResult);
+							nextResult++;
+							if (demand != Long.MAX_VALUE) {
+								demand--;
+							}
+						}
+					}
+					
+					if (isCancelled) {
+						closeTasks();
+						return;
+					}
+					if (errorToSend != null) {
+						cancelRunningTasks();
+						closeTasks();
+						subscriber.onError(errorToSend);
+						return;
+					}
+					if (isCompleted) {
+						closeTasks();
+						subscriber.onComplete();
+						return;
+					}
+					if (result == null) {
+						break;
+					}
+					
+					subscriber.onNext(result);
+				}
+				
+				startTasks();
+				
+				missed = drainRequests.addAndGet(-missed);
+			} while (missed != 0);
+		}
+		
+		/**
+		 * Starts the tasks which are within the demand and prefetch, up to
+		 * the concurrency.
+		 * <p>
+		 * Whether there are more tasks is checked regardless of the demand,
+		 * so that the subscriber is completed without requesting anything
+		 * when there are no tasks. When there are no more tasks, or a task
+		 * could not be started, the {@link #drain()} loop is run again, so
+		 * that the terminal signal is sent.
+		 */
+		private void startTasks() {
+			while (true) {
+				boolean canStart;
+				synchronized (this) {
+					if (isTerminated || error != null || isExhausted) {
+						return;
+					}
+					
+					/*
+					 * Tasks started but not yet sent must not exceed the
+					 * demand plus the prefetch. Written as a subtraction, as
+					 * the demand can be Long.MAX_VALUE.
+					 */
+					long pending = nextTask - nextResult;
+					canStart = runningCount < concurrency && pending - prefetch < demand;
+				}
+				
+				// Only the thread running the drain loop takes tasks.
+				Callable<ThumbnailResult<T>> task = null;
+				RuntimeException failure = null;
+				try {
+					if (tasks.hasNext()) {
+						if (!canStart) {
+							return;
+						}
+						task = tasks.next();
+					}
+				} catch (RuntimeException e) {
+					failure = e;
+				}
+				
+				if (task == null) {
+					synchronized (this) {
+						if (failure == null) {
+							isExhausted = true;
+						} else if (error == null) {
+							error = failure;
+						}
+					}
+					drainRequests.incrementAndGet();
+					return;
+				}
+				
+				FutureTask<ThumbnailResult<T>> futureTask;
+				synchronized (this) {
+					final int index = nextTask++;
+					
+					futureTask = new FutureTask<ThumbnailResult<T>>(task) {
+						@Override
+						protected void done() {
+							if (isCancelled()) {
+								complete(index, null, null);
+								return;
+							}
+							
+							try {
+								complete(index, get(), null);
+							} catch (Throwable t) {
+								Throwable cause = t.getCause() != null ? t.getCause() : t;
+								complete(index, null, cause);
+							}
+						}
+					};
+					
+					running.put(index, futureTask);
+					runningCount++;
+				}
+				
+				try {
+					executor.execute(futureTask);
+					
+				} catch (RuntimeException e) {
+					futureTask.cancel(false);
+					synchronized (this) {
+						if (error == null) {
+							error = e;
+						}
+					}
+					drainRequests.incrementAndGet();
+					return;
+				}
+			}
+		}
+	}
+}
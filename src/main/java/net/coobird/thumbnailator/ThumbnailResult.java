@@ -0,0 +1,137 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * The result of creating a thumbnail from one of the sources of a
+ * {@link Thumbnails.Builder}, as returned by the
+ * {@link Thumbnails.Builder#stream()} method.
+ * <p>
+ * A result holds either the thumbnail, or the exception which prevented the
+ * thumbnail from being created.
+ * 
+ * @param <T>		The type of the source of the thumbnail.
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class ThumbnailResult<T> {
+	/**
+	 * The position of the source among the sources of the builder.
+	 */
+	private final int index;
+	
+	/**
+	 * The source of the thumbnail.
+	 */
+	private final T source;
+	
+	/**
+	 * The thumbnail, or {@code null} if it could not be created.
+	 */
+	private final BufferedImage thumbnail;
+	
+	/**
+	 * The exception which prevented the thumbnail from being created, or
+	 * {@code null} if the thumbnail was created.
+	 */
+	private final IOException failure;
+	
+	/**
+	 * Instantiates a {@link ThumbnailResult}.
+	 * 
+	 * @param index			The position of the source.
+	 * @param source		The source of the thumbnail.
+	 * @param thumbnail		The thumbnail, or {@code null}.
+	 * @param failure		The exception which prevented the thumbnail from
+	 * 						being created, or {@code null}.
+	 */
+	ThumbnailResult(int index, T source, BufferedImage thumbnail, IOException failure) {
+		this.index = index;
+		this.source = source;
+		this.thumbnail = thumbnail;
+		this.failure = failure;
+	}
+	
+	/**
+	 * Returns the position of the source of the thumbnail among the sources
+	 * of the builder, starting from {@code 0}.
+	 * 
+	 * @return		The position of the source.
+	 */
+	public int getIndex() {
+		return index;
+	}
+	
+	/**
+	 * Returns the source of the thumbnail, such as a {@link java.io.File}
+	 * or a {@link java.net.URL}.
+	 * 
+	 * @return		The source of the thumbnail.
+	 */
+	public T getSource() {
+		return source;
+	}
+	
+	/**
+	 * Returns whether the thumbnail was created.
+	 * 
+	 * @return		{@code true} if the thumbnail was created,
+	 * 				{@code false} otherwise.
+	 */
+	public boolean isSuccessful() {
+		return failure == null;
+	}
+	
+	/**
+	 * Returns the thumbnail.
+	 * 
+	 * @return		The thumbnail, or {@code null} if the thumbnail could not
+	 * 				be created.
+	 */
+	public BufferedImage getThumbnail() {
+		return thumbnail;
+	}
+	
+	/**
+	 * Returns the exception which prevented the thumbnail from being
+	 * created.
+	 * 
+	 * @return		The exception, or {@code null} if the thumbnail was
+	 * 				created.
+	 */
+	public IOException getFailure() {
+		return failure;
+	}
+	
+	@Override
+	public String toString() {
+		return "ThumbnailResult[index=" + index + ", source=" + source
+				+ (failure == null ? "" : ", failure=" + failure) + "]";
+	}
+}
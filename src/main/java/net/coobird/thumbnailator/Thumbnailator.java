@@ -24,17 +24,22 @@
 
 package net.coobird.thumbnailator;
 
+import java.awt.AlphaComposite;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import net.coobird.thumbnailator.builders.BufferedImageBuilder;
@@ -44,10 +49,13 @@ import net.coobird.thumbnailator.filters.Pipeline;
 import net.coobird.thumbnailator.filters.SwapDimensions;
 import net.coobird.thumbnailator.makers.FixedSizeThumbnailMaker;
 import net.coobird.thumbnailator.makers.ScaledThumbnailMaker;
+import net.coobird.thumbnailator.makers.ThumbnailMaker;
 import net.coobird.thumbnailator.name.Rename;
 import net.coobird.thumbnailator.resizers.DefaultResizerFactory;
 import net.coobird.thumbnailator.resizers.Resizer;
 import net.coobird.thumbnailator.tasks.ThumbnailTask;
+import net.coobird.thumbnailator.util.PixelMemoryGovernor;
+import net.coobird.thumbnailator.util.jfr.FlightRecorderEvents;
 
 /**
  * This class provides static utility methods which perform generation of
@@ -64,6 +72,19 @@ public final class Thumbnailator {
 	 */
 	private Thumbnailator() {}
 	
+	/**
+	 * The minimum factor by which a resized image must be larger than a
+	 * thumbnail, for the thumbnail to be created from the resized image.
+	 */
+	private static final double CASCADE_FACTOR = 2.0;
+	
+	/**
+	 * The relative difference of the aspect ratios of a resized image and a
+	 * thumbnail, within which the thumbnail can be created from the resized
+	 * image. Allows for rounding of the dimensions.
+	 */
+	private static final double ASPECT_RATIO_TOLERANCE = 0.02;
+	
 	/**
 	 * Creates a thumbnail from parameters specified in a {@link ThumbnailTask}.
 	 * 
@@ -76,80 +97,384 @@ public final class Thumbnailator {
 		
 		// Obtain the original image.
 		BufferedImage sourceImage = task.read();
-
-		// Decide the image type of the destination image.
-		int imageType = param.getType();
-		/*
-		 * If the imageType indicates that the image type of the original image
-		 * should be used in the thumbnail, then obtain the image type of the
-		 * original.
-		 * 
-		 * If the original type is a custom type, then the default image type
-		 * will be used.
-		 */
-		if (param.useOriginalImageType()) {
-			int imageTypeToUse = sourceImage.getType();
+		
+		// The reservation must be released even if the thumbnail is not written.
+		try {
+			BufferedImage destinationImage = createThumbnail(param, sourceImage);
 			
-			if (imageTypeToUse == BufferedImage.TYPE_CUSTOM) {
-				imageType = ThumbnailParameter.DEFAULT_IMAGE_TYPE;
-			} else {
-				imageType = sourceImage.getType();
-			}
+			// Write the thumbnail image to the destination.
+			task.write(destinationImage);
+			
+			destinationImage.flush();
+			
+		} finally {
+			sourceImage.flush();
+			PixelMemoryGovernor.release(sourceImage);
 		}
+	}
+	
+	/**
+	 * Creates a thumbnail from an image which has already been read, by
+	 * resizing the image and applying the image filters as specified by
+	 * the given {@link ThumbnailParameter}.
+	 * 
+	 * @param param				The parameters to use to create the
+	 * 							thumbnail.
+	 * @param sourceImage		The original image.
+	 * @return					The thumbnail.
+	 */
+	static BufferedImage createThumbnail(ThumbnailParameter param, BufferedImage sourceImage) {
+		return createThumbnail(param, sourceImage, null);
+	}
+	
+	/**
+	 * Creates a thumbnail from an image which has already been read, by
+	 * resizing the image and applying the image filters as specified by
+	 * the given {@link ThumbnailParameter}, and records how the thumbnail
+	 * was created in the given {@link ThumbnailEvent}.
+	 * 
+	 * @param param				The parameters to use to create the
+	 * 							thumbnail.
+	 * @param sourceImage		The original image.
+	 * @param event				The event to record to, or {@code null}.
+	 * @return					The thumbnail.
+	 */
+	static BufferedImage createThumbnail(ThumbnailParameter param, BufferedImage sourceImage, ThumbnailEvent event) {
+		// Decide the image type of the destination image.
+		int imageType = getImageType(param, sourceImage);
 
 		// Check for presence of marker indicating to swap the width and height.
 		boolean isSwapDimensions = hasSwapDimensionsFilter(param.getImageFilters());
 
-		BufferedImage destinationImage;
+		// Create the thumbnail.
+		BufferedImage destinationImage =
+				createMaker(param, imageType, isSwapDimensions).make(sourceImage);
+		
+		if (event == null) {
+			return applyFilters(param, destinationImage);
+		}
+		
+		// The factory chooses the same resizer again for the same dimensions.
+		Resizer resizer = param.getResizerFactory().getResizer(
+				new Dimension(sourceImage.getWidth(), sourceImage.getHeight()),
+				new Dimension(destinationImage.getWidth(), destinationImage.getHeight())
+		);
+		
+		long filterStart = System.nanoTime();
+		BufferedImage thumbnail = applyFilters(param, destinationImage);
+		event.recordResized(resizer, System.nanoTime() - filterStart, thumbnail);
+		
+		return thumbnail;
+	}
+	
+	/**
+	 * Creates a thumbnail from an image which has already been read, and
+	 * writes it into the top-left corner of the specified destination image.
+	 * 
+	 * @param param				The parameters to use to create the
+	 * 							thumbnail.
+	 * @param sourceImage		The original image.
+	 * @param destination		The image to write the thumbnail into.
+	 * @return					The dimensions of the thumbnail.
+	 * @throws IllegalArgumentException	If the thumbnail does not fit within
+	 * 									the destination image, or if the
+	 * 									images share their pixel data.
+	 */
+	static Dimension createThumbnailInto(ThumbnailParameter param, BufferedImage sourceImage, BufferedImage destination) {
+		boolean isSwapDimensions = hasSwapDimensionsFilter(param.getImageFilters());
+		ThumbnailMaker maker =
+				createMaker(param, getImageType(param, sourceImage), isSwapDimensions);
+		
+		return createThumbnailInto(param, maker, sourceImage, destination);
+	}
+	
+	/**
+	 * Creates a thumbnail from an image which has already been read, using
+	 * the specified {@link ThumbnailMaker}, and writes it into the top-left
+	 * corner of the specified destination image.
+	 * <p>
+	 * When there are no filters to apply, the image is resized directly into
+	 * the destination image, without allocating an image for the thumbnail.
+	 * Otherwise, the filtered thumbnail is copied into the destination
+	 * image.
+	 * 
+	 * @param param				The parameters to use to create the
+	 * 							thumbnail.
+	 * @param maker				The {@link ThumbnailMaker} created from the
+	 * 							parameters.
+	 * @param sourceImage		The original image.
+	 * @param destination		The image to write the thumbnail into.
+	 * @return					The dimensions of the thumbnail.
+	 * @throws IllegalArgumentException	If the thumbnail does not fit within
+	 * 									the destination image, or if the
+	 * 									images share their pixel data.
+	 */
+	static Dimension createThumbnailInto(ThumbnailParameter param, ThumbnailMaker maker, BufferedImage sourceImage, BufferedImage destination) {
+		if (sourceImage.getRaster().getDataBuffer() == destination.getRaster().getDataBuffer()) {
+			throw new IllegalArgumentException(
+					"Original and destination images must not share pixel data."
+			);
+		}
 		
+		if (param.getImageFilters().isEmpty()) {
+			Dimension size = maker.calculateSize(sourceImage.getWidth(), sourceImage.getHeight());
+			checkFits(size, destination);
+			
+			maker.makeInto(sourceImage, destination, new Rectangle(size));
+			return size;
+		}
+		
+		BufferedImage thumbnail = applyFilters(param, maker.make(sourceImage));
+		Dimension size = new Dimension(thumbnail.getWidth(), thumbnail.getHeight());
+		checkFits(size, destination);
+		
+		Graphics2D g = destination.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(thumbnail, 0, 0, null);
+		g.dispose();
+		
+		thumbnail.flush();
+		return size;
+	}
+	
+	/**
+	 * Checks that a thumbnail of the specified dimensions fits within the
+	 * destination image.
+	 * 
+	 * @param size				The dimensions of the thumbnail.
+	 * @param destination		The destination image.
+	 * @throws IllegalArgumentException	If the thumbnail does not fit.
+	 */
+	private static void checkFits(Dimension size, BufferedImage destination) {
+		if (size.width > destination.getWidth() || size.height > destination.getHeight()) {
+			throw new IllegalArgumentException(
+					"Thumbnail of size " + size.width + "x" + size.height
+					+ " does not fit within the destination image of size "
+					+ destination.getWidth() + "x" + destination.getHeight() + "."
+			);
+		}
+	}
+	
+	/**
+	 * Creates the {@link ThumbnailMaker} which resizes an image as specified
+	 * by the given {@link ThumbnailParameter}.
+	 * <p>
+	 * The {@link ThumbnailMaker} is not modified once it has been created,
+	 * and therefore can be used to resize any number of images, from any
+	 * number of threads.
+	 * 
+	 * @param param				The parameters to use to create the
+	 * 							thumbnail.
+	 * @param imageType			The image type of the thumbnail.
+	 * @param isSwapDimensions	Whether the width and height of the
+	 * 							thumbnail should be swapped, as the filters
+	 * 							of the thumbnail will rotate it.
+	 * @return					The {@link ThumbnailMaker}.
+	 */
+	static ThumbnailMaker createMaker(ThumbnailParameter param, int imageType, boolean isSwapDimensions) {
 		if (param.getSize() != null) {
 			// Get the dimensions of the original and thumbnail images.
 			Dimension size = param.getSize();
 			int destinationWidth = !isSwapDimensions ? size.width : size.height;
 			int destinationHeight = !isSwapDimensions ? size.height : size.width;
 			
-			// Create the thumbnail.
-			destinationImage =
-				new FixedSizeThumbnailMaker()
+			return new FixedSizeThumbnailMaker()
 					.size(destinationWidth, destinationHeight)
 					.keepAspectRatio(param.isKeepAspectRatio())
 					.fitWithinDimensions(param.fitWithinDimenions())
 					.imageType(imageType)
-					.resizerFactory(param.getResizerFactory())
-					.make(sourceImage);
+					.resizerFactory(param.getResizerFactory());
 
 		} else if (!Double.isNaN(param.getWidthScalingFactor())) {
-			// Create the thumbnail.
 			double widthScalingFactor = !isSwapDimensions ?
 					param.getWidthScalingFactor() : param.getHeightScalingFactor();
 			double heightScalingFactor = !isSwapDimensions ?
 					param.getHeightScalingFactor() : param.getWidthScalingFactor();
 
-			destinationImage =
-				new ScaledThumbnailMaker()
+			return new ScaledThumbnailMaker()
 					.scale(widthScalingFactor, heightScalingFactor)
 					.imageType(imageType)
-					.resizerFactory(param.getResizerFactory())
-					.make(sourceImage);
+					.resizerFactory(param.getResizerFactory());
 
 		} else {
 			throw new IllegalStateException("Parameters to make thumbnail" +
 					" does not have scaling factor nor thumbnail size specified.");
 		}
-		
+	}
+	
+	/**
+	 * Applies the filters of the given {@link ThumbnailParameter} to a
+	 * resized image.
+	 * 
+	 * @param param				The parameters used to create the thumbnail.
+	 * @param image				The resized image.
+	 * @return					The thumbnail.
+	 */
+	static BufferedImage applyFilters(ThumbnailParameter param, BufferedImage image) {
 		// Perform the image filters
 		for (ImageFilter filter : param.getImageFilters()) {
-			destinationImage = filter.apply(destinationImage);
+			Object event = FlightRecorderEvents.beginFilter();
+			BufferedImage filtered = null;
+			try {
+				filtered = filter.apply(image);
+				
+			} finally {
+				FlightRecorderEvents.endFilter(event, filter, image, filtered);
+			}
+			image = filtered;
+		}
+		
+		return image;
+	}
+
+	/**
+	 * Creates thumbnails of several sizes from one image which has already
+	 * been read, by resizing the image and applying the image filters as
+	 * specified by each of the given {@link ThumbnailParameter}s.
+	 * <p>
+	 * The thumbnails are created from the largest to the smallest. When a
+	 * thumbnail which has already been created is at least twice as large
+	 * as the next thumbnail to create, the next thumbnail is created from it
+	 * rather than from the original image, which takes less time while
+	 * retaining the quality of the thumbnail. The dimensions of each
+	 * thumbnail are always calculated from the original image.
+	 * 
+	 * @param params			The parameters to use to create each
+	 * 							thumbnail. Each must specify the size of the
+	 * 							thumbnail.
+	 * @param sourceImage		The original image.
+	 * @return					The thumbnails, in the order of the
+	 * 							parameters.
+	 * @throws IllegalArgumentException	If a parameter does not specify
+	 * 									the size of the thumbnail.
+	 */
+	static List<BufferedImage> createRenditions(List<ThumbnailParameter> params, BufferedImage sourceImage) {
+		int count = params.size();
+		Dimension[] targetSizes = new Dimension[count];
+		Integer[] order = new Integer[count];
+		
+		for (int i = 0; i < count; i++) {
+			ThumbnailParameter param = params.get(i);
+			if (param.getSize() == null) {
+				throw new IllegalArgumentException(
+						"The size must be specified to create renditions."
+				);
+			}
+			
+			boolean isSwapDimensions = hasSwapDimensionsFilter(param.getImageFilters());
+			Dimension size = param.getSize();
+			
+			targetSizes[i] = new FixedSizeThumbnailMaker()
+					.size(
+							!isSwapDimensions ? size.width : size.height,
+							!isSwapDimensions ? size.height : size.width
+					)
+					.keepAspectRatio(param.isKeepAspectRatio())
+					.fitWithinDimensions(param.fitWithinDimenions())
+					.calculateSize(sourceImage.getWidth(), sourceImage.getHeight());
+			
+			order[i] = i;
+		}
+		
+		final Dimension[] sizes = targetSizes;
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				long areaA = (long)sizes[a].width * sizes[a].height;
+				long areaB = (long)sizes[b].width * sizes[b].height;
+				return areaA < areaB ? 1 : (areaA > areaB ? -1 : 0);
+			}
+		});
+		
+		BufferedImage[] resizedImages = new BufferedImage[count];
+		
+		for (int i : order) {
+			ThumbnailParameter param = params.get(i);
+			Dimension targetSize = targetSizes[i];
+			
+			// Start from the smallest image which retains enough detail.
+			BufferedImage baseImage = sourceImage;
+			for (BufferedImage resizedImage : resizedImages) {
+				if (
+						resizedImage != null
+						&& isCascadable(resizedImage, targetSize)
+						&& resizedImage.getWidth() < baseImage.getWidth()
+				) {
+					baseImage = resizedImage;
+				}
+			}
+			
+			resizedImages[i] = new FixedSizeThumbnailMaker()
+					.size(targetSize.width, targetSize.height)
+					.keepAspectRatio(false)
+					.fitWithinDimensions(false)
+					.imageType(getImageType(param, sourceImage))
+					.resizerFactory(param.getResizerFactory())
+					.make(baseImage);
 		}
 		
-		// Write the thumbnail image to the destination.
-		task.write(destinationImage);
+		// Filters are applied once all images are resized, as they may
+		// alter the resized images which are used to create other images.
+		List<BufferedImage> thumbnails = new ArrayList<BufferedImage>(count);
+		for (int i = 0; i < count; i++) {
+			thumbnails.add(applyFilters(params.get(i), resizedImages[i]));
+		}
+		
+		return thumbnails;
+	}
+	
+	/**
+	 * Returns whether an image which has already been resized can be used to
+	 * create a thumbnail of the given size without a loss of quality.
+	 * 
+	 * @param image				The resized image.
+	 * @param targetSize		The size of the thumbnail.
+	 * @return					{@code true} if the resized image can be used.
+	 */
+	private static boolean isCascadable(BufferedImage image, Dimension targetSize) {
+		double widthFactor = (double)image.getWidth() / targetSize.width;
+		double heightFactor = (double)image.getHeight() / targetSize.height;
+		
+		/*
+		 * The image must be at least twice the size of the thumbnail, and
+		 * have the same aspect ratio, apart from rounding, so that resizing
+		 * it does not distort the thumbnail.
+		 */
+		return widthFactor >= CASCADE_FACTOR
+				&& heightFactor >= CASCADE_FACTOR
+				&& Math.abs(widthFactor - heightFactor) <= ASPECT_RATIO_TOLERANCE * Math.min(widthFactor, heightFactor);
+	}
+	
+	/**
+	 * Returns the image type to use for a thumbnail.
+	 * 
+	 * @param param				The parameters used to create the thumbnail.
+	 * @param sourceImage		The original image.
+	 * @return					The image type to use.
+	 */
+	static int getImageType(ThumbnailParameter param, BufferedImage sourceImage) {
+		int imageType = param.getType();
+		/*
+		 * If the imageType indicates that the image type of the original image
+		 * should be used in the thumbnail, then obtain the image type of the
+		 * original.
+		 * 
+		 * If the original type is a custom type, then the default image type
+		 * will be used.
+		 */
+		if (param.useOriginalImageType()) {
+			int imageTypeToUse = sourceImage.getType();
+			
+			if (imageTypeToUse == BufferedImage.TYPE_CUSTOM) {
+				imageType = ThumbnailParameter.DEFAULT_IMAGE_TYPE;
+			} else {
+				imageType = sourceImage.getType();
+			}
+		}
 		
-		sourceImage.flush();
-		destinationImage.flush();
+		return imageType;
 	}
 
-	private static boolean hasSwapDimensionsFilter(List<ImageFilter> imageFilters) {
+	static boolean hasSwapDimensionsFilter(List<ImageFilter> imageFilters) {
 		boolean hasSwapDimenionsFilter = false;
 		for (ImageFilter imageFilter : imageFilters) {
 			if (imageFilter instanceof Pipeline) {
@@ -0,0 +1,152 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The management interface of Thumbnailator, which exposes the throughput,
+ * latencies and resource usage of the thumbnails created by all builders.
+ * <p>
+ * The MXBean is registered on the platform MBean server by the
+ * {@link ThumbnailatorMonitor#register()} method, under the name given by
+ * {@link ThumbnailatorMonitor#OBJECT_NAME}. Its statistics cover the
+ * thumbnails created while it is registered.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public interface ThumbnailatorMXBean {
+	/**
+	 * Returns the number of thumbnails which have been completed, whether
+	 * or not they were created successfully.
+	 * 
+	 * @return		The number of thumbnails completed.
+	 */
+	public long getCompletedCount();
+	
+	/**
+	 * Returns the number of thumbnails which have been created successfully.
+	 * 
+	 * @return		The number of thumbnails created successfully.
+	 */
+	public long getSuccessCount();
+	
+	/**
+	 * Returns the number of thumbnails which have failed to be created.
+	 * 
+	 * @return		The number of thumbnails which failed.
+	 */
+	public long getFailureCount();
+	
+	/**
+	 * Returns the number of thumbnails which were found in a cache, rather
+	 * than being created.
+	 * 
+	 * @return		The number of thumbnails found in a cache.
+	 */
+	public long getCachedCount();
+	
+	/**
+	 * Returns the number of thumbnails created successfully, by the format
+	 * of their source image. Thumbnails whose format is not known, such as
+	 * those created from a {@link java.awt.image.BufferedImage}, are
+	 * counted as {@code unknown}.
+	 * 
+	 * @return		The number of thumbnails by format name.
+	 */
+	public Map<String, Long> getCountsByFormat();
+	
+	/**
+	 * Returns the number of thumbnails created successfully, by the
+	 * resizer which resized their source image.
+	 * 
+	 * @return		The number of thumbnails by resizer name.
+	 */
+	public Map<String, Long> getCountsByResizer();
+	
+	/**
+	 * Returns the number of thumbnails which are being created.
+	 * 
+	 * @return		The number of thumbnails being created.
+	 */
+	public long getInFlightCount();
+	
+	/**
+	 * Returns the number of bytes of decoded source images which are held
+	 * by the thumbnails being created, and which have not been resized yet.
+	 * 
+	 * @return		The number of bytes of decoded pixels held.
+	 */
+	public long getDecodedPixelBytes();
+	
+	/**
+	 * Returns the latencies of each stage of creating thumbnails, and of
+	 * all the stages together.
+	 * 
+	 * @return		The latencies, for each {@link PipelineStage} followed by
+	 * 				the total.
+	 */
+	public List<LatencySummary> getLatencies();
+	
+	/**
+	 * Returns a percentile of the latencies of a stage.
+	 * 
+	 * @param stage			The name of a {@link PipelineStage}, or
+	 * 						{@code TOTAL} for the time spent in all stages.
+	 * @param percentile	The percentile, between {@code 0.0} and
+	 * 						{@code 100.0}.
+	 * @return				The latency, in milliseconds.
+	 * @throws IllegalArgumentException	If the stage is not known, or the
+	 * 									percentile is out of range.
+	 */
+	public double getLatencyPercentile(String stage, double percentile);
+	
+	/**
+	 * Returns the fraction of the temporary images leased from the default
+	 * {@link net.coobird.thumbnailator.util.BufferedImagePool} which were
+	 * reused.
+	 * 
+	 * @return		The reuse rate, or {@code 0.0} if pooling is disabled.
+	 */
+	public double getImagePoolReuseRate();
+	
+	/**
+	 * Returns the number of bytes of temporary images held by the default
+	 * {@link net.coobird.thumbnailator.util.BufferedImagePool}.
+	 * 
+	 * @return		The number of bytes pooled, or {@code 0} if pooling is
+	 * 				disabled.
+	 */
+	public long getImagePoolBytes();
+	
+	/**
+	 * Resets the counts and latencies. The number of thumbnails being
+	 * created and the bytes of decoded pixels held are not reset.
+	 */
+	public void resetStatistics();
+}
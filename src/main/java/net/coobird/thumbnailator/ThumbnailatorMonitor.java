@@ -0,0 +1,412 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import net.coobird.thumbnailator.resizers.Resizer;
+import net.coobird.thumbnailator.util.BufferedImagePool;
+import net.coobird.thumbnailator.util.BufferedImages;
+
+/**
+ * The implementation of the {@link ThumbnailatorMXBean}, which records the
+ * thumbnails created by all builders while it is registered.
+ * <p>
+ * The MXBean is registered on demand by the {@link #register()} method,
+ * which also registers it as a {@link ThumbnailListener} through
+ * {@link ThumbnailListeners#add(ThumbnailListener)}. As for other
+ * listeners, thumbnails created by renditions are not recorded.
+ * <p>
+ * Counters are {@link LongAdder}s and latencies are recorded in lock-free
+ * histograms, so that threads creating thumbnails concurrently do not
+ * contend with each other while they are recorded.
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class ThumbnailatorMonitor implements ThumbnailatorMXBean {
+	/**
+	 * The name under which the MXBean is registered.
+	 */
+	public static final String OBJECT_NAME = "net.coobird.thumbnailator:type=Thumbnailator";
+	
+	/**
+	 * The name of the latencies of all the stages together.
+	 */
+	private static final String TOTAL = "TOTAL";
+	
+	/**
+	 * The name under which thumbnails whose format is not known are counted.
+	 */
+	private static final String UNKNOWN = "unknown";
+	
+	/**
+	 * The monitor which is registered, or {@code null} if no monitor is
+	 * registered.
+	 */
+	private static volatile ThumbnailatorMonitor registered;
+	
+	private final LongAdder successCount = new LongAdder();
+	private final LongAdder failureCount = new LongAdder();
+	private final LongAdder cachedCount = new LongAdder();
+	private final LongAdder inFlightCount = new LongAdder();
+	private final LongAdder decodedPixelBytes = new LongAdder();
+	
+	private final ConcurrentMap<String, LongAdder> countsByFormat =
+			new ConcurrentHashMap<String, LongAdder>();
+	private final ConcurrentMap<String, LongAdder> countsByResizer =
+			new ConcurrentHashMap<String, LongAdder>();
+	
+	private final LatencyHistogram[] stageLatencies =
+			new LatencyHistogram[PipelineStage.values().length];
+	private final LatencyHistogram totalLatency = new LatencyHistogram();
+	
+	/**
+	 * The listener through which the completed thumbnails are recorded.
+	 */
+	private final ThumbnailListener listener = new ThumbnailListener() {
+		public void thumbnailCompleted(ThumbnailEvent event) {
+			completed(event);
+		}
+	};
+	
+	/**
+	 * Creates a monitor.
+	 */
+	private ThumbnailatorMonitor() {
+		for (int i = 0; i < stageLatencies.length; i++) {
+			stageLatencies[i] = new LatencyHistogram();
+		}
+	}
+	
+	/**
+	 * Registers the {@link ThumbnailatorMXBean} on the platform MBean server,
+	 * and starts recording the thumbnails which are created. If it is
+	 * already registered, the registered monitor is returned.
+	 * 
+	 * @return				The monitor which is registered.
+	 * @throws IllegalStateException	If the MXBean could not be
+	 * 									registered.
+	 */
+	public static synchronized ThumbnailatorMonitor register() {
+		if (registered != null) {
+			return registered;
+		}
+		
+		ThumbnailatorMonitor monitor = new ThumbnailatorMonitor();
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(monitor, new ObjectName(OBJECT_NAME));
+			
+		} catch (InstanceAlreadyExistsException e) {
+			throw new IllegalStateException(
+					"Another MBean is registered as " + OBJECT_NAME + ".", e
+			);
+		} catch (JMException e) {
+			throw new IllegalStateException("Could not register the MXBean.", e);
+		}
+		
+		ThumbnailListeners.add(monitor.listener);
+		registered = monitor;
+		return monitor;
+	}
+	
+	/**
+	 * Unregisters the {@link ThumbnailatorMXBean} from the platform MBean
+	 * server, and stops recording the thumbnails which are created.
+	 * 
+	 * @return				{@code true} if the MXBean was registered.
+	 */
+	public static synchronized boolean unregister() {
+		if (registered == null) {
+			return false;
+		}
+		
+		ThumbnailListeners.remove(registered.listener);
+		registered = null;
+		
+		try {
+			ManagementFactory.getPlatformMBeanServer()
+					.unregisterMBean(new ObjectName(OBJECT_NAME));
+			
+		} catch (InstanceNotFoundException e) {
+			// Already unregistered through the MBean server.
+		} catch (JMException e) {
+			throw new IllegalStateException("Could not unregister the MXBean.", e);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Returns the monitor which is registered.
+	 * 
+	 * @return				The monitor, or {@code null} if the MXBean is not
+	 * 						registered.
+	 */
+	public static ThumbnailatorMonitor getRegistered() {
+		return registered;
+	}
+	
+	/**
+	 * Records that a thumbnail has started to be created.
+	 * 
+	 * @param event			The event of the thumbnail.
+	 */
+	static void started(ThumbnailEvent event) {
+		ThumbnailatorMonitor monitor = registered;
+		if (monitor != null) {
+			event.monitor = monitor;
+			monitor.inFlightCount.increment();
+		}
+	}
+	
+	/**
+	 * Records the source image of a thumbnail which has been decoded, and is
+	 * held until it has been resized.
+	 * 
+	 * @param event			The event of the thumbnail.
+	 * @param image			The decoded image.
+	 */
+	static void decoded(ThumbnailEvent event, BufferedImage image) {
+		if (event.monitor != null) {
+			event.heldPixelBytes = BufferedImages.sizeOf(image);
+			event.monitor.decodedPixelBytes.add(event.heldPixelBytes);
+		}
+	}
+	
+	/**
+	 * Records that the decoded source image of a thumbnail is no longer
+	 * held.
+	 * 
+	 * @param event			The event of the thumbnail.
+	 */
+	static void released(ThumbnailEvent event) {
+		if (event.monitor != null && event.heldPixelBytes != 0) {
+			event.monitor.decodedPixelBytes.add(-event.heldPixelBytes);
+			event.heldPixelBytes = 0;
+		}
+	}
+	
+	/**
+	 * Records a thumbnail which has been completed.
+	 * 
+	 * @param event			The event of the thumbnail.
+	 */
+	private void completed(ThumbnailEvent event) {
+		if (event.monitor == this) {
+			released(event);
+			inFlightCount.decrement();
+		}
+		
+		long totalNanos = 0;
+		for (PipelineStage stage : PipelineStage.values()) {
+			long nanos = event.getTime(stage, TimeUnit.NANOSECONDS);
+			if (nanos > 0) {
+				stageLatencies[stage.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+				totalNanos += nanos;
+			}
+		}
+		totalLatency.record(totalNanos, TimeUnit.NANOSECONDS);
+		
+		if (event.getFailure() != null) {
+			failureCount.increment();
+			return;
+		}
+		
+		successCount.increment();
+		if (event.isCached()) {
+			cachedCount.increment();
+		}
+		
+		String format = event.getFormatName();
+		increment(countsByFormat, format == null ? UNKNOWN : format.toLowerCase());
+		
+		Resizer resizer = event.getResizer();
+		if (resizer != null) {
+			increment(countsByResizer, nameOf(resizer));
+		}
+	}
+	
+	/**
+	 * Increments the count of the given key.
+	 * 
+	 * @param counts		The counts.
+	 * @param key			The key.
+	 */
+	private static void increment(ConcurrentMap<String, LongAdder> counts, String key) {
+		LongAdder count = counts.get(key);
+		if (count == null) {
+			LongAdder newCount = new LongAdder();
+			count = counts.putIfAbsent(key, newCount);
+			if (count == null) {
+				count = newCount;
+			}
+		}
+		count.increment();
+	}
+	
+	/**
+	 * Returns a snapshot of the given counts.
+	 * 
+	 * @param counts		The counts.
+	 * @return				The snapshot, sorted by key.
+	 */
+	private static Map<String, Long> snapshot(ConcurrentMap<String, LongAdder> counts) {
+		Map<String, Long> snapshot = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongAdder> e : counts.entrySet()) {
+			snapshot.put(e.getKey(), e.getValue().sum());
+		}
+		return snapshot;
+	}
+	
+	/**
+	 * Returns the name of a resizer. Resizers which are constants of an
+	 * enum, such as {@link net.coobird.thumbnailator.resizers.Resizers},
+	 * are named by their constant.
+	 * 
+	 * @param resizer		The resizer.
+	 * @return				The name of the resizer.
+	 */
+	private static String nameOf(Resizer resizer) {
+		if (resizer instanceof Enum) {
+			return ((Enum<?>)resizer).name();
+		}
+		return resizer.getClass().getSimpleName();
+	}
+	
+	/**
+	 * Returns the histogram of the latencies of the given stage.
+	 * 
+	 * @param stage			The name of a {@link PipelineStage}, or
+	 * 						{@code TOTAL}.
+	 * @return				The histogram.
+	 */
+	private LatencyHistogram latencyOf(String stage) {
+		if (TOTAL.equals(stage)) {
+			return totalLatency;
+		}
+		
+		for (PipelineStage s : PipelineStage.values()) {
+			if (s.name().equals(stage)) {
+				return stageLatencies[s.ordinal()];
+			}
+		}
+		throw new IllegalArgumentException("Unknown stage: " + stage);
+	}
+	
+	public long getCompletedCount() {
+		return successCount.sum() + failureCount.sum();
+	}
+	
+	public long getSuccessCount() {
+		return successCount.sum();
+	}
+	
+	public long getFailureCount() {
+		return failureCount.sum();
+	}
+	
+	public long getCachedCount() {
+		return cachedCount.sum();
+	}
+	
+	public Map<String, Long> getCountsByFormat() {
+		return snapshot(countsByFormat);
+	}
+	
+	public Map<String, Long> getCountsByResizer() {
+		return snapshot(countsByResizer);
+	}
+	
+	public long getInFlightCount() {
+		return inFlightCount.sum();
+	}
+	
+	public long getDecodedPixelBytes() {
+		return decodedPixelBytes.sum();
+	}
+	
+	public List<LatencySummary> getLatencies() {
+		List<LatencySummary> latencies = new ArrayList<LatencySummary>();
+		for (PipelineStage stage : PipelineStage.values()) {
+			latencies.add(LatencySummary.of(stage.name(), stageLatencies[stage.ordinal()]));
+		}
+		latencies.add(LatencySummary.of(TOTAL, totalLatency));
+		return latencies;
+	}
+	
+	public double getLatencyPercentile(String stage, double percentile) {
+		return latencyOf(stage).getPercentileMillis(percentile);
+	}
+	
+	public double getImagePoolReuseRate() {
+		BufferedImagePool pool = BufferedImagePool.getDefault();
+		return pool == null ? 0.0 : pool.getReuseRate();
+	}
+	
+	public long getImagePoolBytes() {
+		BufferedImagePool pool = BufferedImagePool.getDefault();
+		return pool == null ? 0 : pool.getPooledBytes();
+	}
+	
+	public void resetStatistics() {
+		successCount.reset();
+		failureCount.reset();
+		cachedCount.reset();
+		countsByFormat.clear();
+		countsByResizer.clear();
+		for (LatencyHistogram histogram : stageLatencies) {
+			histogram.reset();
+		}
+		totalLatency.reset();
+	}
+	
+	@Override
+	public String toString() {
+		return "ThumbnailatorMonitor[completed=" + getCompletedCount()
+				+ ", failed=" + getFailureCount()
+				+ ", inFlight=" + getInFlightCount()
+				+ ", decodedPixelBytes=" + getDecodedPixelBytes() + "]";
+	}
+}
@@ -28,20 +28,56 @@ import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.imageio.ImageIO;
 
+import net.coobird.thumbnailator.cache.CachedThumbnail;
+import net.coobird.thumbnailator.cache.DiskThumbnailCache;
+import net.coobird.thumbnailator.cache.OutputManifest;
+import net.coobird.thumbnailator.cache.ThumbnailCache;
 import net.coobird.thumbnailator.filters.Canvas;
 import net.coobird.thumbnailator.filters.ImageFilter;
 import net.coobird.thumbnailator.filters.Pipeline;
@@ -58,6 +94,7 @@ import net.coobird.thumbnailator.resizers.BicubicResizer;
 import net.coobird.thumbnailator.resizers.BilinearResizer;
 import net.coobird.thumbnailator.resizers.DefaultResizerFactory;
 import net.coobird.thumbnailator.resizers.FixedResizerFactory;
+import net.coobird.thumbnailator.resizers.NearestNeighborResizer;
 import net.coobird.thumbnailator.resizers.ProgressiveBilinearResizer;
 import net.coobird.thumbnailator.resizers.Resizer;
 import net.coobird.thumbnailator.resizers.ResizerFactory;
@@ -67,15 +104,30 @@ import net.coobird.thumbnailator.resizers.configurations.Dithering;
 import net.coobird.thumbnailator.resizers.configurations.Rendering;
 import net.coobird.thumbnailator.resizers.configurations.ScalingMode;
 import net.coobird.thumbnailator.tasks.SourceSinkThumbnailTask;
+import net.coobird.thumbnailator.tasks.ThumbnailBatchException;
+import net.coobird.thumbnailator.tasks.ThumbnailTask;
+import net.coobird.thumbnailator.tasks.io.AbstractImageSource;
 import net.coobird.thumbnailator.tasks.io.BufferedImageSink;
 import net.coobird.thumbnailator.tasks.io.BufferedImageSource;
+import net.coobird.thumbnailator.tasks.io.BufferingImageSink;
 import net.coobird.thumbnailator.tasks.io.FileImageSink;
 import net.coobird.thumbnailator.tasks.io.FileImageSource;
+import net.coobird.thumbnailator.tasks.io.ImageSink;
 import net.coobird.thumbnailator.tasks.io.ImageSource;
 import net.coobird.thumbnailator.tasks.io.InputStreamImageSource;
 import net.coobird.thumbnailator.tasks.io.OutputStreamImageSink;
+import net.coobird.thumbnailator.tasks.io.PrefetchingImageSource;
 import net.coobird.thumbnailator.tasks.io.URLImageSource;
+import net.coobird.thumbnailator.util.CancellationToken;
+import net.coobird.thumbnailator.util.DaemonThreadFactory;
+import net.coobird.thumbnailator.util.DirectoryImageFiles;
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Flow;
+import net.coobird.thumbnailator.util.PixelMemoryGovernor;
+import net.coobird.thumbnailator.util.ThumbnailatorExecutors;
 import net.coobird.thumbnailator.util.ThumbnailatorUtils;
+import net.coobird.thumbnailator.util.exif.LosslessJpegTransform;
+import net.coobird.thumbnailator.util.jfr.FlightRecorderEvents;
 
 /**
  * <p>
@@ -311,6 +363,42 @@ public final class Thumbnails {
 		checkForEmpty(files, "Cannot specify an empty collection for input files.");
 		return Builder.ofFiles(files);
 	}
+	
+	/**
+	 * Indicate to make thumbnails from the image files in the specified
+	 * directory.
+	 * <p>
+	 * The directory is walked lazily while the thumbnails are being
+	 * created, so that thumbnails are created as soon as the first files are
+	 * found, and the files in the directory are never held in memory all at
+	 * once. Files are included when {@link javax.imageio.ImageIO} can read
+	 * files with their suffix, and their names match the given glob pattern.
+	 * The order of the files is not specified. See
+	 * {@link DirectoryImageFiles} for details.
+	 * <p>
+	 * Unlike the other methods of this class, an empty directory is not
+	 * rejected, as the directory is not walked until the thumbnails are
+	 * created. Output methods which create a single thumbnail should not be
+	 * used, as they read more than one file to check that only a single
+	 * file exists.
+	 * 
+	 * @param directory		The directory which contains the image files.
+	 * @param glob			The glob pattern which the names of files must
+	 * 						match, such as {@code "*.jpg"}, or {@code null}
+	 * 						to include all image files.
+	 * @param recursive		Whether the files in subdirectories should also
+	 * 						be included.
+	 * @return			Reference to a builder object which is used to
+	 * 					specify the parameters for creating the thumbnail.
+	 * @throws NullPointerException		If the directory is {@code null}.
+	 * @throws IllegalArgumentException	If the directory is not a directory,
+	 * 									or the glob pattern is invalid.
+	 * @since	0.4.21
+	 */
+	public static Builder<File> fromDirectory(Path directory, String glob, boolean recursive) {
+		checkForNull(directory, "Cannot specify null for directory.");
+		return Builder.ofFiles(new DirectoryImageFiles(directory, glob, recursive));
+	}
 
 	/**
 	 * Indicate to make thumbnails for images with the specified {@link URL}s.
@@ -427,6 +515,7 @@ instance.asFiles("path/to/thumbnail");
 	 * <li>{@link Thumbnails#fromFilenames(Iterable)}</li>
 	 * <li>{@link Thumbnails#fromInputStreams(Iterable)}</li>
 	 * <li>{@link Thumbnails#fromURLs(Iterable)}</li>
+	 * <li>{@link Thumbnails#fromDirectory(Path, String, boolean)}</li>
 	 * </ul>
  	 * 
 	 * @author coobird
@@ -435,8 +524,15 @@ instance.asFiles("path/to/thumbnail");
 	public static class Builder<T> {
 		private final Iterable<ImageSource<T>> sources;
 		
-		private Builder(Iterable<ImageSource<T>> sources) {
+		/**
+		 * Whether the sources are held in a {@link Collection}, so that
+		 * their number is known before they are taken.
+		 */
+		private final boolean isSized;
+		
+		private Builder(Iterable<ImageSource<T>> sources, Iterable<?> sourceObjects) {
 			this.sources = sources;
+			this.isSized = sourceObjects instanceof Collection;
 			statusMap.put(Properties.OUTPUT_FORMAT, Status.OPTIONAL);
 		}
 		
@@ -478,21 +574,36 @@ instance.asFiles("path/to/thumbnail");
 			}
 			
 			public Iterator<ImageSource<File>> iterator() {
-				return new Iterator<ImageSource<File>>() {
-					Iterator<File> iter = files.iterator();
-					
-					public boolean hasNext() {
-						return iter.hasNext();
-					}
-					
-					public ImageSource<File> next() {
-						return new FileImageSource(iter.next());
-					}
-					
-					public void remove() {
-						throw new UnsupportedOperationException();
-					}
-				};
+				return new FileIterator(files.iterator());
+			}
+			
+			/**
+			 * An {@link Iterator} of the sources of the files, which closes
+			 * the {@link Iterator} of the files when it is closed, such as
+			 * the open directories of a {@link DirectoryImageFiles}.
+			 */
+			private static final class FileIterator implements Iterator<ImageSource<File>>, Closeable {
+				private final Iterator<File> iter;
+				
+				private FileIterator(Iterator<File> iter) {
+					this.iter = iter;
+				}
+				
+				public boolean hasNext() {
+					return iter.hasNext();
+				}
+				
+				public ImageSource<File> next() {
+					return new FileImageSource(iter.next());
+				}
+				
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+				
+				public void close() {
+					closeSources(iter);
+				}
 			}
 		}
 		
@@ -580,29 +691,47 @@ instance.asFiles("path/to/thumbnail");
 			}
 		}
 
+		/**
+		 * Closes an {@link Iterator} of sources which has not necessarily
+		 * reached its end, if it holds resources such as open directories.
+		 * 
+		 * @param iter		The {@link Iterator}.
+		 */
+		private static void closeSources(Iterator<?> iter) {
+			if (!(iter instanceof Closeable)) {
+				return;
+			}
+			
+			try {
+				((Closeable)iter).close();
+			} catch (IOException e) {
+				// No more sources are taken from the iterator.
+			}
+		}
+		
 		private static Builder<File> ofStrings(Iterable<String> filenames) {
 			Iterable<ImageSource<File>> iter = new StringImageSourceIterator(filenames);
-			return new Builder<File>(iter);
+			return new Builder<File>(iter, filenames);
 		}
 		
 		private static Builder<File> ofFiles(Iterable<File> files) {
 			Iterable<ImageSource<File>> iter = new FileImageSourceIterator(files);
-			return new Builder<File>(iter);
+			return new Builder<File>(iter, files);
 		}
 		
 		private static Builder<URL> ofUrls(Iterable<URL> urls) {
 			Iterable<ImageSource<URL>> iter = new URLImageSourceIterator(urls);
-			return new Builder<URL>(iter);
+			return new Builder<URL>(iter, urls);
 		}
 		
 		private static Builder<InputStream> ofInputStreams(Iterable<? extends InputStream> inputStreams) {
 			Iterable<ImageSource<InputStream>> iter = new InputStreamImageSourceIterator(inputStreams);
-			return new Builder<InputStream>(iter);
+			return new Builder<InputStream>(iter, inputStreams);
 		}
 		
 		private static Builder<BufferedImage> ofBufferedImages(Iterable<BufferedImage> images) {
 			Iterable<ImageSource<BufferedImage>> iter = new BufferedImageImageSourceIterator(images);
-			return new Builder<BufferedImage>(iter);
+			return new Builder<BufferedImage>(iter, images);
 		}
 
 		private final class BufferedImageIterable implements
@@ -691,6 +820,16 @@ instance.asFiles("path/to/thumbnail");
 			ALLOW_OVERWRITE("allowOverwrite"),
 			CROP("crop"),
 			USE_EXIF_ORIENTATION("useExifOrientation"),
+			PARALLELISM("parallelism"),
+			EXECUTOR("executor"),
+			IO_PARALLELISM("ioParallelism"),
+			PIPELINE("pipeline"),
+			RENDITIONS("renditions"),
+			CACHE("cache"),
+			INCREMENTAL("incremental"),
+			LISTENER("listener"),
+			CANCELLATION_TOKEN("cancellationToken"),
+			TIMEOUT("timeout"),
 			;
 			
 			private final String name;
@@ -733,6 +872,16 @@ instance.asFiles("path/to/thumbnail");
 			statusMap.put(Properties.ALLOW_OVERWRITE, Status.OPTIONAL);
 			statusMap.put(Properties.CROP, Status.OPTIONAL);
 			statusMap.put(Properties.USE_EXIF_ORIENTATION, Status.OPTIONAL);
+			statusMap.put(Properties.PARALLELISM, Status.OPTIONAL);
+			statusMap.put(Properties.EXECUTOR, Status.OPTIONAL);
+			statusMap.put(Properties.IO_PARALLELISM, Status.OPTIONAL);
+			statusMap.put(Properties.PIPELINE, Status.OPTIONAL);
+			statusMap.put(Properties.RENDITIONS, Status.OPTIONAL);
+			statusMap.put(Properties.CACHE, Status.OPTIONAL);
+			statusMap.put(Properties.INCREMENTAL, Status.OPTIONAL);
+			statusMap.put(Properties.LISTENER, Status.OPTIONAL);
+			statusMap.put(Properties.CANCELLATION_TOKEN, Status.OPTIONAL);
+			statusMap.put(Properties.TIMEOUT, Status.OPTIONAL);
 		}
 
 		/**
@@ -801,6 +950,89 @@ instance.asFiles("path/to/thumbnail");
 		
 		private boolean useExifOrientation = true;
 		
+		/**
+		 * The number of thumbnails which are created concurrently when
+		 * thumbnails are created from multiple sources. A value of {@code 1}
+		 * indicates that thumbnails are created one at a time on the thread
+		 * which calls the output method.
+		 */
+		private int parallelism = 1;
+		
+		/**
+		 * The {@link ExecutorService} used to create thumbnails when
+		 * thumbnails are created from multiple sources, or {@code null} if
+		 * one has not been specified.
+		 */
+		private ExecutorService executor = null;
+		
+		/**
+		 * The number of sources which are retrieved concurrently on threads
+		 * dedicated to I/O. A value of {@code 0} indicates that sources are
+		 * retrieved on the same thread which creates the thumbnail.
+		 */
+		private int ioParallelism = 0;
+		
+		/**
+		 * The number of threads of each stage of the pipeline, indexed by
+		 * the ordinal of the {@link PipelineStage}, or {@code null} if
+		 * thumbnails are not created by a pipeline.
+		 */
+		private int[] pipelineThreads = null;
+		
+		/**
+		 * Where the statistics of the pipeline are recorded, or
+		 * {@code null} if they are not recorded.
+		 */
+		private PipelineStatistics pipelineStatistics = null;
+		
+		/**
+		 * The sizes of the thumbnails which are created from each source, or
+		 * {@code null} if a single thumbnail is created from each source.
+		 */
+		private List<Dimension> renditions = null;
+		
+		/**
+		 * The cache of encoded thumbnails, or {@code null} if thumbnails are
+		 * not cached.
+		 */
+		private ThumbnailCache cache = null;
+		
+		/**
+		 * Whether thumbnail files which are up to date are skipped.
+		 */
+		private boolean incremental = false;
+		
+		/**
+		 * The record of the thumbnail files which have been written, or
+		 * {@code null} if thumbnail files are compared with their source
+		 * files by their last modified times.
+		 */
+		private OutputManifest outputManifest = null;
+		
+		/**
+		 * Where the counts of skipped and regenerated thumbnails are
+		 * recorded, or {@code null} if they are not recorded.
+		 */
+		private IncrementalStatistics incrementalStatistics = null;
+		
+		/**
+		 * The listener which is notified of the thumbnails created by this
+		 * builder, or {@code null}.
+		 */
+		private ThumbnailListener listener = null;
+		
+		/**
+		 * The token which cancels the thumbnails created by this builder,
+		 * or {@code null}.
+		 */
+		private CancellationToken cancellationToken = null;
+		
+		/**
+		 * The time allowed to create each thumbnail in nanoseconds, or
+		 * {@code -1} if there is no deadline.
+		 */
+		private long timeoutNanos = -1;
+		
 		/**
 		 * This field should be set to the {@link Position} to be used for
 		 * cropping if cropping is enabled. If cropping is disabled, then
@@ -1047,6 +1279,102 @@ Thumbnails.of(image)
 			return this;
 		}
 		
+		/**
+		 * Sets the sizes of several thumbnails to create from each source,
+		 * where each thumbnail fits within a square of the given size.
+		 * <p>
+		 * This method is equivalent to calling the
+		 * {@link #renditions(Dimension...)} method with a square of each
+		 * size.
+		 * 
+		 * @param maxSizes		The maximum width and height of each
+		 * 						thumbnail.
+		 * @return				Reference to this object.
+		 * @throws IllegalArgumentException	If no sizes are specified, a
+		 * 									size is less than or equal to
+		 * 									0, or a size is specified more
+		 * 									than once.
+		 * @since	0.4.21
+		 */
+		public Builder<T> renditions(int... maxSizes) {
+			checkForNull(maxSizes, "Sizes are null.");
+			
+			Dimension[] sizes = new Dimension[maxSizes.length];
+			for (int i = 0; i < maxSizes.length; i++) {
+				sizes[i] = new Dimension(maxSizes[i], maxSizes[i]);
+			}
+			
+			return renditions(sizes);
+		}
+		
+		/**
+		 * Sets the sizes of several thumbnails to create from each source.
+		 * <p>
+		 * Each source is read and decoded once, and a thumbnail is created
+		 * for each of the sizes, in the same way as {@link #size(int, int)}
+		 * would create it. A smaller thumbnail is created from a larger
+		 * thumbnail rather than from the original image, when the larger
+		 * thumbnail is at least twice its size. The thumbnails of a source
+		 * are encoded concurrently.
+		 * <p>
+		 * The output methods which create multiple thumbnails return or
+		 * write the thumbnails of each source in the order of the sizes,
+		 * followed by the thumbnails of the next source. When using a
+		 * {@link Rename} to name the files, the {@link ThumbnailParameter}
+		 * given to the {@link Rename} holds the size of the thumbnail, which
+		 * can be used to give each thumbnail a distinct name. When the
+		 * {@link Rename} gives several thumbnails of a source the same name,
+		 * as the built-in {@link Rename} functions do, the size is added to
+		 * the name of each, so that {@code Rename.PREFIX_DOT_THUMBNAIL}
+		 * names the thumbnails of {@code s.png} as
+		 * {@code thumbnail.s-400x400.png}, {@code thumbnail.s-200x200.png}
+		 * and so on. The output methods which create a single thumbnail
+		 * cannot be used.
+		 * <p>
+		 * Once this method is called, calling the {@link #size(int, int)},
+		 * {@link #width(int)}, {@link #height(int)},
+		 * {@link #forceSize(int, int)} or {@link #scale(double)} method
+		 * will result in an {@link IllegalStateException}.
+		 * <p>
+		 * Calling this method multiple times will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param sizes			The size of each thumbnail.
+		 * @return				Reference to this object.
+		 * @throws NullPointerException		If a size is {@code null}.
+		 * @throws IllegalArgumentException	If no sizes are specified, a
+		 * 									dimension is less than or
+		 * 									equal to 0, or a size is
+		 * 									specified more than once.
+		 * @since	0.4.21
+		 */
+		public Builder<T> renditions(Dimension... sizes) {
+			updateStatus(Properties.RENDITIONS, Status.ALREADY_SET);
+			updateStatus(Properties.SIZE, Status.ALREADY_SET);
+			updateStatus(Properties.WIDTH, Status.CANNOT_SET);
+			updateStatus(Properties.HEIGHT, Status.CANNOT_SET);
+			updateStatus(Properties.SCALE, Status.CANNOT_SET);
+			
+			checkForNull(sizes, "Sizes are null.");
+			if (sizes.length == 0) {
+				throw new IllegalArgumentException("No sizes are specified.");
+			}
+			
+			List<Dimension> renditions = new ArrayList<Dimension>();
+			for (Dimension size : sizes) {
+				checkForNull(size, "Size is null.");
+				validateDimensions(size.width, size.height);
+				if (renditions.contains(size)) {
+					throw new IllegalArgumentException("Size is specified more than once: " + size);
+				}
+				renditions.add(new Dimension(size));
+			}
+			
+			this.renditions = renditions;
+			
+			return this;
+		}
+		
 		/**
 		 * Specifies the region of the source image where the thumbnail
 		 * will be created from.
@@ -2023,148 +2351,2515 @@ watermark(Positions.CENTER, image, opacity);
 		}
 		
 		/**
-		 * Checks whether the builder is ready to create thumbnails.
+		 * Sets the number of thumbnails to create concurrently when
+		 * thumbnails are created from multiple sources.
+		 * <p>
+		 * When a value greater than {@code 1} is specified, the output
+		 * methods which create multiple thumbnails, such as
+		 * {@link #asBufferedImages()}, {@link #asFiles(Iterable)},
+		 * {@link #asFiles(File, Rename)} and {@link #toOutputStreams(Iterable)},
+		 * will create the thumbnails on the specified number of threads.
+		 * The threads are created when the output method is called, and are
+		 * terminated when the output method returns.
+		 * <p>
+		 * The results of the output methods are in the same order as the
+		 * sources, and destinations such as file names are assigned in the
+		 * order of the sources, in the same manner as when thumbnails are
+		 * created one at a time.
+		 * <p>
+		 * When creating thumbnails concurrently, a failure to create a
+		 * thumbnail does not stop the creation of other thumbnails. Once all
+		 * thumbnails have been processed, a {@link ThumbnailBatchException}
+		 * is thrown if any of the thumbnails failed.
+		 * <p>
+		 * Calling this method to set this parameter is optional.
+		 * <p>
+		 * Calling this method multiple times, or calling this method after
+		 * calling the {@link #executor(ExecutorService)} method or enabling
+		 * the pipeline by the {@link #pipelined()} method will result in an
+		 * {@link IllegalStateException} to be thrown.
 		 * 
-		 * @throws IllegalStateException	If the builder is not ready to
-		 * 									create thumbnails, due to some
-		 * 									parameters not being set.
+		 * @param parallelism	The number of thumbnails to create
+		 * 						concurrently.
+		 * @return				Reference to this object.
+		 * @throws IllegalArgumentException	If the parallelism is less than
+		 * 									{@code 1}.
+		 * @since	0.4.21
 		 */
-		private void checkReadiness() {
-			for (Map.Entry<Properties, Status> s : statusMap.entrySet()) {
-				if (s.getValue() == Status.NOT_READY) {
-					throw new IllegalStateException(s.getKey().getName() +
-							" is not set.");
-				}
+		public Builder<T> parallelism(int parallelism) {
+			updateStatus(Properties.PARALLELISM, Status.ALREADY_SET);
+			updateStatus(Properties.EXECUTOR, Status.CANNOT_SET);
+			updateStatus(Properties.PIPELINE, Status.CANNOT_SET);
+			
+			if (parallelism < 1) {
+				throw new IllegalArgumentException(
+						"Parallelism must be greater than 0."
+				);
 			}
+			
+			this.parallelism = parallelism;
+			return this;
 		}
 		
 		/**
-		 * Returns a {@link Resizer} which is suitable for the current
-		 * builder state.
+		 * Sets the {@link ExecutorService} to use to create thumbnails when
+		 * thumbnails are created from multiple sources.
+		 * <p>
+		 * This method behaves in the same manner as the
+		 * {@link #parallelism(int)} method, except that the thumbnails are
+		 * created on the specified {@link ExecutorService} rather than on
+		 * threads created by Thumbnailator. The {@link ExecutorService} will
+		 * not be shut down by Thumbnailator.
+		 * <p>
+		 * As the number of threads of the {@link ExecutorService} is not
+		 * known, the number of thumbnails which are submitted to it and whose
+		 * results have not yet been collected is limited to four times the
+		 * number of processors available to the Java virtual machine, or to
+		 * the number set by the {@link #ioParallelism(int)} method when it has
+		 * been called. An {@link ExecutorService} with more threads than that
+		 * will not have all of its threads used.
+		 * <p>
+		 * Calling this method to set this parameter is optional.
+		 * <p>
+		 * Calling this method multiple times, or calling this method after
+		 * calling the {@link #parallelism(int)} method or enabling the
+		 * pipeline by the {@link #pipelined()} method will result in an
+		 * {@link IllegalStateException} to be thrown.
 		 * 
-		 * @param mode		The scaling mode to use to create thumbnails.
-		 * @return			The {@link Resizer} which is suitable for the
-		 * 					specified scaling mode and builder state.
+		 * @param executor		The {@link ExecutorService} to use to create
+		 * 						thumbnails.
+		 * @return				Reference to this object.
+		 * @throws NullPointerException	If the {@link ExecutorService} is
+		 * 								{@code null}.
+		 * @since	0.4.21
 		 */
-		private Resizer makeResizer(ScalingMode mode) {
-
-			Map<RenderingHints.Key, Object> hints =
-				new HashMap<RenderingHints.Key, Object>();
+		public Builder<T> executor(ExecutorService executor) {
+			updateStatus(Properties.EXECUTOR, Status.ALREADY_SET);
+			updateStatus(Properties.PARALLELISM, Status.CANNOT_SET);
+			updateStatus(Properties.PIPELINE, Status.CANNOT_SET);
 			
-			hints.put(RenderingHints.KEY_ALPHA_INTERPOLATION, alphaInterpolation.getValue());
-			hints.put(RenderingHints.KEY_DITHERING, dithering.getValue());
-			hints.put(RenderingHints.KEY_ANTIALIASING, antialiasing.getValue());
-			hints.put(RenderingHints.KEY_RENDERING, rendering.getValue());
-			
-			if (mode == ScalingMode.BILINEAR) {
-				return new BilinearResizer(hints);
-			} else if (mode == ScalingMode.BICUBIC) {
-				return new BicubicResizer(hints);
-			} else if (mode == ScalingMode.PROGRESSIVE_BILINEAR) {
-				return new ProgressiveBilinearResizer(hints);
-			} else {
-				return new ProgressiveBilinearResizer(hints);
-			}
-		}
-
-		private void prepareResizerFactory() {
-			/*
-			 * If the scalingMode has been set, then use scalingMode to obtain
-			 * a resizer, else, use the resizer field.
-			 */
-			if (statusMap.get(Properties.SCALING_MODE) == Status.ALREADY_SET) {
-				this.resizerFactory = new FixedResizerFactory(makeResizer(scalingMode));
+			if (executor == null) {
+				throw new NullPointerException("ExecutorService is null.");
 			}
+			
+			this.executor = executor;
+			return this;
 		}
-
+		
 		/**
-		 * Returns a {@link ThumbnailParameter} from the current builder state.
+		 * Sets the number of source images which are retrieved concurrently
+		 * when thumbnails are created from multiple sources.
+		 * <p>
+		 * When this method is called, the output methods which create
+		 * multiple thumbnails retrieve the data of the source images, such
+		 * as the contents of files or of URLs, on threads dedicated to I/O.
+		 * On Java 21 or later, each source image is retrieved on its own
+		 * virtual thread. Decoding, resizing and encoding of the images is
+		 * performed on the threads specified by the {@link #parallelism(int)}
+		 * or the {@link #executor(ExecutorService)} methods, or if neither
+		 * has been specified, on as many threads as there are processors.
+		 * <p>
+		 * This is useful when the source images are slow to retrieve, such
+		 * as when they are on remote servers, as many source images can be
+		 * retrieved at once without requiring as many threads to create the
+		 * thumbnails. The data of at most the specified number of source
+		 * images are held in memory at once.
+		 * <p>
+		 * Failures are handled in the same manner as described for the
+		 * {@link #parallelism(int)} method.
+		 * <p>
+		 * Calling this method to set this parameter is optional.
+		 * <p>
+		 * Calling this method multiple times, or calling this method after
+		 * enabling the pipeline by the {@link #pipelined()} method will
+		 * result in an {@link IllegalStateException} to be thrown.
 		 * 
-		 * @return			A {@link ThumbnailParameter} from the current
-		 * 					builder state.
+		 * @param ioParallelism		The number of source images to retrieve
+		 * 							concurrently.
+		 * @return					Reference to this object.
+		 * @throws IllegalArgumentException	If the number is less than
+		 * 									{@code 1}.
+		 * @since	0.4.21
 		 */
-		private ThumbnailParameter makeParam() {
-			prepareResizerFactory();
-			
-			int imageTypeToUse = imageType;
-			if (imageType == IMAGE_TYPE_UNSPECIFIED) {
-				imageTypeToUse = ThumbnailParameter.ORIGINAL_IMAGE_TYPE;
-			}
-
-			/*
-			 * croppingPosition being non-null means that a crop should
-			 * take place.
-			 */
-			if (croppingPosition != null) {
-				filterPipeline.addFirst(new Canvas(width, height, croppingPosition));
-			}
+		public Builder<T> ioParallelism(int ioParallelism) {
+			updateStatus(Properties.IO_PARALLELISM, Status.ALREADY_SET);
+			updateStatus(Properties.PIPELINE, Status.CANNOT_SET);
 			
-			if (Double.isNaN(scaleWidth)) {
-				// If the dimensions were specified, do the following.
-				
-				// Check that at least one dimension is specified.
-				// If it's not, it's a bug.
-				if (
-						width == DIMENSION_NOT_SPECIFIED &&
-						height == DIMENSION_NOT_SPECIFIED
-				) {
-					throw new IllegalStateException(
-							"The width or height must be specified. If this " +
-							"exception is thrown, it is due to a bug in the " +
-							"Thumbnailator library."
-					);
-				}
-				
-				// Set the unspecified dimension to a default value.
-				if (width == DIMENSION_NOT_SPECIFIED) {
-					width = Integer.MAX_VALUE;
-				}
-				if (height == DIMENSION_NOT_SPECIFIED) {
-					height = Integer.MAX_VALUE;
-				}
-				
-				return new ThumbnailParameter(
-						new Dimension(width, height),
-						sourceRegion,
-						keepAspectRatio,
-						outputFormat,
-						outputFormatType,
-						outputQuality,
-						imageTypeToUse,
-						filterPipeline.getFilters(),
-						resizerFactory,
-						fitWithinDimenions,
-						useExifOrientation
-				);
-
-			} else {
-				// If the scaling factor was specified
-				return new ThumbnailParameter(
-						scaleWidth,
-						scaleHeight,
-						sourceRegion,
-						keepAspectRatio,
-						outputFormat,
-						outputFormatType,
-						outputQuality,
-						imageTypeToUse,
-						filterPipeline.getFilters(),
-						resizerFactory,
-						fitWithinDimenions,
-						useExifOrientation
+			if (ioParallelism < 1) {
+				throw new IllegalArgumentException(
+						"I/O parallelism must be greater than 0."
 				);
 			}
+			
+			this.ioParallelism = ioParallelism;
+			return this;
 		}
-
+		
 		/**
+		 * Creates thumbnails from multiple sources by a pipeline, in which
+		 * reading, resizing and writing of different images overlap.
+		 * <p>
+		 * When this method is called, the output methods which create
+		 * multiple thumbnails pass each source through the stages listed in
+		 * {@link PipelineStage}: retrieving the data of the source image,
+		 * decoding it, resizing it and applying the image filters, encoding
+		 * the thumbnail, and writing the thumbnail to its destination.
+		 * <p>
+		 * Each stage has its own threads, and the stages are connected by
+		 * bounded queues. While one image is being resized, another can be
+		 * read and yet another can be written, so that the time to create
+		 * all thumbnails approaches the time of the slowest stage, rather
+		 * than the sum of the times of all stages. When a stage falls
+		 * behind, the preceding stages wait for it, which limits the number
+		 * of images held in memory.
+		 * <p>
+		 * By default, the stages which retrieve and write data are given a
+		 * small, fixed number of threads, and the other stages are given as
+		 * many threads as there are processors. The number of threads of a
+		 * stage can be changed by the {@link #pipeline(PipelineStage, int)}
+		 * method, and the utilization of each stage can be obtained by the
+		 * {@link #pipelineStatistics(PipelineStatistics)} method.
+		 * <p>
+		 * The results of the output methods, and failures, are the same as
+		 * described for the {@link #parallelism(int)} method.
 		 * <p>
-		 * Create the thumbnails and return as a {@link Iterable} of
-		 * {@link BufferedImage}s.
-		 * </p>
-		 * <p>
-		 * Thumbnail for a given input is lazily evaluated as the
-		 * {@link Iterator#next()} method is called on the iterator.
-		 * </p>
+		 * Calling this method to set this parameter is optional.
+		 * <p>
+		 * Calling this method after calling the {@link #parallelism(int)},
+		 * {@link #executor(ExecutorService)} or {@link #ioParallelism(int)}
+		 * methods will result in an {@link IllegalStateException} to be
+		 * thrown.
+		 * 
+		 * @return				Reference to this object.
+		 * @since	0.4.21
+		 */
+		public Builder<T> pipelined() {
+			if (pipelineThreads == null) {
+				updateStatus(Properties.PARALLELISM, Status.CANNOT_SET);
+				updateStatus(Properties.EXECUTOR, Status.CANNOT_SET);
+				updateStatus(Properties.IO_PARALLELISM, Status.CANNOT_SET);
+				updateStatus(Properties.PIPELINE, Status.ALREADY_SET);
+				
+				pipelineThreads = ThumbnailPipeline.defaultThreads();
+			}
+			
+			return this;
+		}
+		
+		/**
+		 * Sets the number of threads of a stage of the pipeline, and creates
+		 * thumbnails by the pipeline as described in the {@link #pipelined()}
+		 * method.
+		 * <p>
+		 * This method can be called for each stage. Stages for which this
+		 * method has not been called use the default number of threads.
+		 * <p>
+		 * Calling this method after calling the {@link #parallelism(int)},
+		 * {@link #executor(ExecutorService)} or {@link #ioParallelism(int)}
+		 * methods will result in an {@link IllegalStateException} to be
+		 * thrown.
+		 * 
+		 * @param stage			The stage of the pipeline.
+		 * @param threads		The number of threads of the stage.
+		 * @return				Reference to this object.
+		 * @throws NullPointerException		If the stage is {@code null}.
+		 * @throws IllegalArgumentException	If the number of threads is
+		 * 									less than {@code 1}.
+		 * @since	0.4.21
+		 */
+		public Builder<T> pipeline(PipelineStage stage, int threads) {
+			if (stage == null) {
+				throw new NullPointerException("PipelineStage is null.");
+			}
+			if (threads < 1) {
+				throw new IllegalArgumentException(
+						"Number of threads must be greater than 0."
+				);
+			}
+			
+			pipelined();
+			pipelineThreads[stage.ordinal()] = threads;
+			return this;
+		}
+		
+		/**
+		 * Sets the {@link PipelineStatistics} in which the statistics of the
+		 * pipeline are recorded, and creates thumbnails by the pipeline as
+		 * described in the {@link #pipelined()} method.
+		 * <p>
+		 * The statistics are updated while the thumbnails are being created,
+		 * and are reset each time an output method is called.
+		 * <p>
+		 * Calling this method after calling the {@link #parallelism(int)},
+		 * {@link #executor(ExecutorService)} or {@link #ioParallelism(int)}
+		 * methods will result in an {@link IllegalStateException} to be
+		 * thrown.
+		 * 
+		 * @param statistics	Where the statistics are recorded.
+		 * @return				Reference to this object.
+		 * @throws NullPointerException		If the {@link PipelineStatistics}
+		 * 									is {@code null}.
+		 * @since	0.4.21
+		 */
+		public Builder<T> pipelineStatistics(PipelineStatistics statistics) {
+			if (statistics == null) {
+				throw new NullPointerException("PipelineStatistics is null.");
+			}
+			
+			pipelined();
+			pipelineStatistics = statistics;
+			return this;
+		}
+		
+		/**
+		 * Sets the cache in which encoded thumbnails are stored and looked up.
+		 * <p>
+		 * When writing thumbnails to files or {@link OutputStream}s, the cache
+		 * is looked up by the source image and the fingerprint of the
+		 * parameters of the thumbnail. When the thumbnail is found, it is
+		 * written without decoding the source image. Otherwise, the thumbnail
+		 * is created and stored in the cache after it has been encoded.
+		 * <p>
+		 * The source image is identified by its data when the cache is
+		 * {@link ThumbnailCache#isKeyedBySourceData() keyed by source data},
+		 * such as a {@link DiskThumbnailCache}, or when the source is not a
+		 * {@link File}. Otherwise, a file is identified by its path, size and
+		 * last modified time, so that the cache is looked up without reading
+		 * the file, as with a
+		 * {@link net.coobird.thumbnailator.cache.MemoryThumbnailCache}.
+		 * <p>
+		 * Thumbnails are not cached when the source is a
+		 * {@link BufferedImage}, when the output is a {@link BufferedImage},
+		 * when {@link #renditions(Dimension...)} has been set, or when a
+		 * filter or resizer does not provide a fingerprint, as described in
+		 * {@link ThumbnailParameter#getFingerprint()}.
+		 * <p>
+		 * Calling this method multiple times will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param cache			The cache to use.
+		 * @return				Reference to this object.
+		 * @throws NullPointerException		If the cache is {@code null}.
+		 * @since	0.4.21
+		 */
+		public Builder<T> cache(ThumbnailCache cache) {
+			updateStatus(Properties.CACHE, Status.ALREADY_SET);
+			checkForNull(cache, "Cache is null.");
+			
+			this.cache = cache;
+			return this;
+		}
+		
+		/**
+		 * Skips the thumbnails whose files are up to date with their source
+		 * files, when writing thumbnails to files by the {@link #asFiles}
+		 * and {@link #toFiles} methods.
+		 * <p>
+		 * A thumbnail file is up to date when it is not empty, and was last
+		 * modified at or after its source file. Up to date thumbnails are
+		 * skipped before their source images are read, and their files are
+		 * included in the {@link List} returned by the {@link #asFiles}
+		 * methods.
+		 * <p>
+		 * Changes to the parameters of the thumbnails are not detected by
+		 * comparing the last modified times. To also create the thumbnails
+		 * again when the parameters have changed, use the
+		 * {@link #incremental(OutputManifest)} method.
+		 * <p>
+		 * Thumbnails are only skipped when they are created from
+		 * {@link File}s. When {@link #renditions(Dimension...)} has been set,
+		 * the thumbnails of a source are only skipped when all of them are
+		 * up to date.
+		 * <p>
+		 * Calling this method to set this parameter is optional.
+		 * 
+		 * @return				Reference to this object.
+		 * @see #incrementalStatistics(IncrementalStatistics)
+		 * @since	0.4.21
+		 */
+		public Builder<T> incremental() {
+			incremental = true;
+			return this;
+		}
+		
+		/**
+		 * Skips the thumbnails whose files are up to date according to the
+		 * given {@link OutputManifest}, when writing thumbnails to files by
+		 * the {@link #asFiles} and {@link #toFiles} methods.
+		 * <p>
+		 * A thumbnail file is up to date when neither the thumbnail file nor
+		 * its source file has changed since the thumbnail was recorded in
+		 * the manifest, and the thumbnail was created with the same
+		 * parameters, as identified by
+		 * {@link ThumbnailParameter#getFingerprint()}. The thumbnails which
+		 * are written are recorded in the manifest, and the manifest is
+		 * saved when the output method returns.
+		 * <p>
+		 * Thumbnails whose parameters do not provide a fingerprint are never
+		 * skipped. Otherwise, thumbnails are skipped as described in the
+		 * {@link #incremental()} method.
+		 * <p>
+		 * Calling this method multiple times will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param manifest		The record of the thumbnail files.
+		 * @return				Reference to this object.
+		 * @throws NullPointerException		If the manifest is {@code null}.
+		 * @since	0.4.21
+		 */
+		public Builder<T> incremental(OutputManifest manifest) {
+			updateStatus(Properties.INCREMENTAL, Status.ALREADY_SET);
+			checkForNull(manifest, "OutputManifest is null.");
+			
+			incremental();
+			outputManifest = manifest;
+			return this;
+		}
+		
+		/**
+		 * Sets the {@link IncrementalStatistics} in which the numbers of
+		 * skipped and regenerated thumbnails are recorded, and skips the
+		 * thumbnails which are up to date as described in the
+		 * {@link #incremental()} method.
+		 * <p>
+		 * The counts are reset each time an output method is called.
+		 * 
+		 * @param statistics	Where the counts are recorded.
+		 * @return				Reference to this object.
+		 * @throws NullPointerException		If the
+		 * 									{@link IncrementalStatistics} is
+		 * 									{@code null}.
+		 * @since	0.4.21
+		 */
+		public Builder<T> incrementalStatistics(IncrementalStatistics statistics) {
+			checkForNull(statistics, "IncrementalStatistics is null.");
+			
+			incremental();
+			incrementalStatistics = statistics;
+			return this;
+		}
+		
+		/**
+		 * Sets the listener which is notified each time a thumbnail has been
+		 * created by this builder, with a {@link ThumbnailEvent} which
+		 * records the time spent in each stage of creating the thumbnail.
+		 * <p>
+		 * The listener is notified in addition to the listeners registered
+		 * through {@link ThumbnailListeners#add(ThumbnailListener)}. When no
+		 * listener has been set or registered, no events are recorded.
+		 * Thumbnails created when {@link #renditions(Dimension...)} has been
+		 * set are not recorded.
+		 * <p>
+		 * Calling this method multiple times will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param listener		The listener to notify.
+		 * @return				Reference to this object.
+		 * @throws NullPointerException		If the listener is {@code null}.
+		 * @since	0.4.21
+		 */
+		public Builder<T> listener(ThumbnailListener listener) {
+			updateStatus(Properties.LISTENER, Status.ALREADY_SET);
+			checkForNull(listener, "Listener is null.");
+			
+			this.listener = listener;
+			return this;
+		}
+		
+		/**
+		 * Sets the token which cancels the thumbnails created by this
+		 * builder.
+		 * <p>
+		 * Once the token has been cancelled, the thumbnails which are being
+		 * created stop at their next check, and the thumbnails which have
+		 * not started fail immediately, with a
+		 * {@link CancellationException}. The decoding and encoding of
+		 * images is aborted, and the steps of resizing and the filters
+		 * are checked in between, as described in
+		 * {@link CancellationToken}. This bounds the time a worker thread
+		 * spends on a source which has become unwanted.
+		 * <p>
+		 * Thumbnails created when {@link #renditions(Dimension...)} has
+		 * been set are not cancelled.
+		 * <p>
+		 * Calling this method multiple times will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param token			The token.
+		 * @return				Reference to this object.
+		 * @throws NullPointerException		If the token is {@code null}.
+		 * @since	0.4.21
+		 */
+		public Builder<T> cancellationToken(CancellationToken token) {
+			updateStatus(Properties.CANCELLATION_TOKEN, Status.ALREADY_SET);
+			checkForNull(token, "CancellationToken is null.");
+			
+			this.cancellationToken = token;
+			return this;
+		}
+		
+		/**
+		 * Sets the time allowed to create each thumbnail, after which it is
+		 * cancelled in the same way as by
+		 * {@link #cancellationToken(CancellationToken)}.
+		 * <p>
+		 * The time is measured separately for each thumbnail, from when it
+		 * starts to be created, so that time spent waiting for a thread is
+		 * not included.
+		 * <p>
+		 * Thumbnails created when {@link #renditions(Dimension...)} has
+		 * been set do not have a deadline.
+		 * <p>
+		 * Calling this method multiple times will result in an
+		 * {@link IllegalStateException} to be thrown.
+		 * 
+		 * @param timeout		The time allowed to create each thumbnail.
+		 * @param unit			The unit of the timeout.
+		 * @return				Reference to this object.
+		 * @throws IllegalArgumentException	If the timeout is negative.
+		 * @throws NullPointerException		If the unit is {@code null}.
+		 * @since	0.4.21
+		 */
+		public Builder<T> timeout(long timeout, TimeUnit unit) {
+			updateStatus(Properties.TIMEOUT, Status.ALREADY_SET);
+			checkForNull(unit, "TimeUnit is null.");
+			if (timeout < 0) {
+				throw new IllegalArgumentException("Timeout must not be negative.");
+			}
+			
+			this.timeoutNanos = unit.toNanos(timeout);
+			return this;
+		}
+		
+		/**
+		 * Compiles the parameters which have been set on this builder into
+		 * a {@link ThumbnailPlan}, which creates thumbnails with the same
+		 * parameters from any source to any destination.
+		 * <p>
+		 * The resizer, filters, image type and output settings are resolved
+		 * once by this method, so that creating a thumbnail with the plan
+		 * does not repeat that work. The plan is immutable and thread-safe,
+		 * and is not affected by later changes to this builder.
+		 * <p>
+		 * Only the parameters of the thumbnails are compiled. The sources of
+		 * this builder, and settings which affect how thumbnails are
+		 * created from multiple sources or written to files, such as
+		 * {@link #parallelism(int)}, {@link #cache(ThumbnailCache)} and
+		 * {@link #allowOverwrite(boolean)}, are not part of the plan.
+		 * 
+		 * @return				The compiled parameters.
+		 * @throws IllegalStateException	If the parameters required to
+		 * 									create thumbnails have not been
+		 * 									set, or
+		 * 									{@link #renditions(Dimension...)}
+		 * 									has been set.
+		 * @since	0.4.21
+		 */
+		public ThumbnailPlan compile() {
+			checkReadiness();
+			checkNoRenditions();
+			
+			return new ThumbnailPlan(makeParam());
+		}
+		
+		/**
+		 * Checks whether the builder is ready to create thumbnails.
+		 * 
+		 * @throws IllegalStateException	If the builder is not ready to
+		 * 									create thumbnails, due to some
+		 * 									parameters not being set.
+		 */
+		private void checkReadiness() {
+			for (Map.Entry<Properties, Status> s : statusMap.entrySet()) {
+				if (s.getValue() == Status.NOT_READY) {
+					throw new IllegalStateException(s.getKey().getName() +
+							" is not set.");
+				}
+			}
+		}
+		
+		/**
+		 * Returns a {@link Resizer} which is suitable for the current
+		 * builder state.
+		 * 
+		 * @param mode		The scaling mode to use to create thumbnails.
+		 * @return			The {@link Resizer} which is suitable for the
+		 * 					specified scaling mode and builder state.
+		 */
+		private Resizer makeResizer(ScalingMode mode) {
+
+			Map<RenderingHints.Key, Object> hints =
+				new HashMap<RenderingHints.Key, Object>();
+			
+			hints.put(RenderingHints.KEY_ALPHA_INTERPOLATION, alphaInterpolation.getValue());
+			hints.put(RenderingHints.KEY_DITHERING, dithering.getValue());
+			hints.put(RenderingHints.KEY_ANTIALIASING, antialiasing.getValue());
+			hints.put(RenderingHints.KEY_RENDERING, rendering.getValue());
+			
+			if (mode == ScalingMode.BILINEAR) {
+				return new BilinearResizer(hints);
+			} else if (mode == ScalingMode.BICUBIC) {
+				return new BicubicResizer(hints);
+			} else if (mode == ScalingMode.PROGRESSIVE_BILINEAR) {
+				return new ProgressiveBilinearResizer(hints);
+			} else {
+				return new ProgressiveBilinearResizer(hints);
+			}
+		}
+
+		private void prepareResizerFactory() {
+			/*
+			 * If the scalingMode has been set, then use scalingMode to obtain
+			 * a resizer, else, use the resizer field.
+			 */
+			if (statusMap.get(Properties.SCALING_MODE) == Status.ALREADY_SET) {
+				this.resizerFactory = new FixedResizerFactory(makeResizer(scalingMode));
+			}
+		}
+
+		/**
+		 * Returns a {@link ThumbnailParameter} from the current builder state.
+		 * 
+		 * @return			A {@link ThumbnailParameter} from the current
+		 * 					builder state.
+		 */
+		private ThumbnailParameter makeParam() {
+			if (Double.isNaN(scaleWidth)) {
+				// If the dimensions were specified, do the following.
+				
+				// Check that at least one dimension is specified.
+				// If it's not, it's a bug.
+				if (
+						width == DIMENSION_NOT_SPECIFIED &&
+						height == DIMENSION_NOT_SPECIFIED
+				) {
+					throw new IllegalStateException(
+							"The width or height must be specified. If this " +
+							"exception is thrown, it is due to a bug in the " +
+							"Thumbnailator library."
+					);
+				}
+				
+				// Set the unspecified dimension to a default value.
+				Dimension size = new Dimension(
+						width == DIMENSION_NOT_SPECIFIED ? Integer.MAX_VALUE : width,
+						height == DIMENSION_NOT_SPECIFIED ? Integer.MAX_VALUE : height
+				);
+				
+				return makeParam(size, makeFilters(width, height));
+
+			} else {
+				prepareResizerFactory();
+				
+				// If the scaling factor was specified
+				return new ThumbnailParameter(
+						scaleWidth,
+						scaleHeight,
+						sourceRegion,
+						keepAspectRatio,
+						outputFormat,
+						outputFormatType,
+						outputQuality,
+						getImageTypeToUse(),
+						makeFilters(width, height),
+						resizerFactory,
+						fitWithinDimenions,
+						useExifOrientation
+				);
+			}
+		}
+		
+		/**
+		 * Returns a {@link ThumbnailParameter} for a thumbnail of the given
+		 * size from the current builder state.
+		 * 
+		 * @param size		The size of the thumbnail.
+		 * @param filters	The filters to apply to the thumbnail.
+		 * @return			A {@link ThumbnailParameter} from the current
+		 * 					builder state.
+		 */
+		private ThumbnailParameter makeParam(Dimension size, List<ImageFilter> filters) {
+			prepareResizerFactory();
+			
+			return new ThumbnailParameter(
+					size,
+					sourceRegion,
+					keepAspectRatio,
+					outputFormat,
+					outputFormatType,
+					outputQuality,
+					getImageTypeToUse(),
+					filters,
+					resizerFactory,
+					fitWithinDimenions,
+					useExifOrientation
+			);
+		}
+		
+		/**
+		 * Returns the {@link ThumbnailParameter}s of the thumbnails which
+		 * are created from each source when {@link #renditions(Dimension...)}
+		 * has been set, in the order of the sizes.
+		 * 
+		 * @return			The {@link ThumbnailParameter}s of the
+		 * 					thumbnails.
+		 */
+		private List<ThumbnailParameter> makeRenditionParams() {
+			List<ThumbnailParameter> params = new ArrayList<ThumbnailParameter>();
+			for (Dimension size : renditions) {
+				params.add(makeParam(size, makeFilters(size.width, size.height)));
+			}
+			return params;
+		}
+		
+		/**
+		 * Returns the filters to apply to a thumbnail, including the filter
+		 * which crops the thumbnail when cropping has been enabled.
+		 * <p>
+		 * The filters of this builder are not changed, so that parameters
+		 * can be made any number of times.
+		 * 
+		 * @param width		The width of the thumbnail, used for cropping.
+		 * @param height	The height of the thumbnail, used for cropping.
+		 * @return			The filters to apply to the thumbnail.
+		 */
+		private List<ImageFilter> makeFilters(int width, int height) {
+			List<ImageFilter> filters = new ArrayList<ImageFilter>();
+			
+			/*
+			 * croppingPosition being non-null means that a crop should
+			 * take place.
+			 */
+			if (croppingPosition != null) {
+				filters.add(new Canvas(width, height, croppingPosition));
+			}
+			
+			filters.addAll(filterPipeline.getFilters());
+			return filters;
+		}
+		
+		/**
+		 * Returns the image type to use for the {@link ThumbnailParameter}.
+		 * 
+		 * @return			The image type.
+		 */
+		private int getImageTypeToUse() {
+			if (imageType == IMAGE_TYPE_UNSPECIFIED) {
+				return ThumbnailParameter.ORIGINAL_IMAGE_TYPE;
+			}
+			return imageType;
+		}
+
+		/**
+		 * A unit of work which creates thumbnails from a single source.
+		 * 
+		 * @param <R>		The type of the result of the work.
+		 */
+		private static abstract class SourceTask<R> implements ThumbnailPipeline.Task<R> {
+			/**
+			 * The source whose data is retrieved by the {@link #fetch()}
+			 * method, or {@code null} if the data is retrieved when the
+			 * thumbnails are created.
+			 */
+			protected PrefetchingImageSource<?> prefetchingSource;
+			
+			/**
+			 * Retrieves the data of the source image, without creating the
+			 * thumbnails.
+			 * 
+			 * @throws IOException		If a problem occurs while retrieving
+			 * 							the data.
+			 */
+			public void fetch() throws IOException {
+				if (prefetchingSource != null) {
+					prefetchingSource.prefetch();
+				}
+			}
+			
+			/**
+			 * Creates the thumbnails.
+			 * 
+			 * @return					The result, or {@code null} if there
+			 * 							is no result for the source.
+			 * @throws IOException		If a problem occurs while creating
+			 * 							the thumbnails.
+			 */
+			public abstract R run() throws IOException;
+		}
+		
+		/**
+		 * A unit of work for a source whose thumbnails are up to date, which
+		 * only returns the results of the thumbnails.
+		 * 
+		 * @param <R>		The type of the result of the work.
+		 */
+		private static final class UpToDateSourceTask<R> extends SourceTask<R> {
+			/**
+			 * The result of the work.
+			 */
+			private final R result;
+			
+			private UpToDateSourceTask(R result) {
+				this.result = result;
+			}
+			
+			public R run() {
+				return result;
+			}
+			
+			public void perform(PipelineStage stage) {
+			}
+			
+			public R getResult() {
+				return result;
+			}
+		}
+		
+		/**
+		 * A unit of work which creates a single thumbnail from a single
+		 * source.
+		 * 
+		 * @param <R>		The type of the result of the work.
+		 */
+		private static abstract class ThumbnailSourceTask<R> extends SourceTask<R> {
+			/**
+			 * The task which creates the thumbnail.
+			 */
+			private final ThumbnailTask<?, ?> task;
+			
+			/**
+			 * The destination of the thumbnail.
+			 */
+			private final ImageSink<?> destination;
+			
+			/**
+			 * Whether the thumbnail should be skipped rather than fail when
+			 * the destination file already exists.
+			 */
+			private final boolean skipExistingDestination;
+			
+			/**
+			 * The image passed between the stages of the pipeline.
+			 */
+			private BufferedImage image;
+			
+			/**
+			 * Whether the thumbnail was skipped because the destination file
+			 * already exists.
+			 */
+			private boolean isSkipped = false;
+			
+			/**
+			 * The cache of encoded thumbnails, or {@code null} if the
+			 * thumbnail is not cached.
+			 */
+			private ThumbnailCache cache;
+			
+			/**
+			 * The fingerprint of the parameters of the thumbnail, which is
+			 * combined with the identity or the data of the source to look
+			 * up the cache.
+			 */
+			private String cacheFingerprint;
+			
+			/**
+			 * The key of the thumbnail in the cache, or {@code null} if the
+			 * thumbnail is not cached.
+			 */
+			private String cacheKey;
+			
+			/**
+			 * Whether the thumbnail was found in the cache.
+			 */
+			private boolean isCached = false;
+			
+			/**
+			 * Whether the thumbnail was not found in the cache, and the
+			 * cache expects it to be stored or released by this task.
+			 */
+			private boolean isLoading = false;
+			
+			/**
+			 * Whether the Exif orientation of a JPEG source may be applied
+			 * by {@link LosslessJpegTransform}, as no other processing is
+			 * applied to the thumbnail.
+			 */
+			private boolean losslessOrientation = false;
+			
+			/**
+			 * Whether the thumbnail was created by
+			 * {@link LosslessJpegTransform}, rather than by decoding the
+			 * source image.
+			 */
+			private boolean isTransformed = false;
+			
+			/**
+			 * The listeners to notify once the thumbnail has been created,
+			 * or {@code null} if there are no listeners.
+			 */
+			private List<ThumbnailListener> listeners;
+			
+			/**
+			 * The source of the thumbnail, from which the dimensions of the
+			 * source image are recorded.
+			 */
+			private ImageSource<?> imageSource;
+			
+			/**
+			 * The event which records how the thumbnail is created, or
+			 * {@code null} if there are no listeners.
+			 */
+			private ThumbnailEvent event;
+			
+			/**
+			 * Whether the start of the thumbnail has been recorded.
+			 */
+			private boolean isStarted = false;
+			
+			/**
+			 * The token which cancels all thumbnails of the builder, or
+			 * {@code null}.
+			 */
+			private CancellationToken cancellationToken;
+			
+			/**
+			 * The time allowed to create the thumbnail in nanoseconds, or
+			 * {@code -1} if there is no deadline.
+			 */
+			private long timeoutNanos = -1;
+			
+			/**
+			 * The token which is current while the thumbnail is created,
+			 * or {@code null} if the thumbnail cannot be cancelled. It is
+			 * created once the thumbnail starts to be created, so that the
+			 * deadline does not include the time spent waiting for a
+			 * thread.
+			 */
+			private CancellationToken token;
+			
+			/**
+			 * Creates a {@link ThumbnailSourceTask} which fails when the
+			 * destination file already exists and overwriting is not
+			 * allowed.
+			 * 
+			 * @param task				The task which creates the thumbnail.
+			 * @param destination		The destination of the thumbnail.
+			 */
+			protected ThumbnailSourceTask(ThumbnailTask<?, ?> task, ImageSink<?> destination) {
+				this(task, destination, false);
+			}
+			
+			/**
+			 * Creates a {@link ThumbnailSourceTask}.
+			 * 
+			 * @param task				The task which creates the thumbnail.
+			 * @param destination		The destination of the thumbnail.
+			 * @param skipExistingDestination	Whether the thumbnail should
+			 * 							be skipped rather than fail when the
+			 * 							destination file already exists.
+			 */
+			protected ThumbnailSourceTask(ThumbnailTask<?, ?> task, ImageSink<?> destination, boolean skipExistingDestination) {
+				this.task = task;
+				this.destination = destination;
+				this.skipExistingDestination = skipExistingDestination;
+			}
+			
+			public R run() throws IOException {
+				CancellationToken previous = attachToken();
+				try {
+					return runStages();
+				} finally {
+					detachToken(previous);
+				}
+			}
+			
+			/**
+			 * Creates the thumbnail, by performing all stages.
+			 * 
+			 * @return					The result, or {@code null} if there
+			 * 							is no result for the source.
+			 * @throws IOException		If a problem occurs while creating
+			 * 							the thumbnail.
+			 */
+			private R runStages() throws IOException {
+				// A buffered thumbnail is only written in the last stage.
+				if (destination instanceof BufferingImageSink) {
+					for (PipelineStage stage : PipelineStage.values()) {
+						perform(stage);
+					}
+					return getResult();
+				}
+				
+				// The stages are performed separately so that they can be timed.
+				if (event != null) {
+					perform(PipelineStage.DECODE);
+					perform(PipelineStage.RESIZE);
+					perform(PipelineStage.ENCODE);
+					perform(PipelineStage.WRITE);
+					return getResult();
+				}
+				
+				try {
+					Thumbnailator.createThumbnail(task);
+					
+				} catch (IllegalArgumentException e) {
+					if (!skipExistingDestination) {
+						throw e;
+					}
+					isSkipped = true;
+				}
+				
+				return getResult();
+			}
+			
+			@Override
+			public void fetch() throws IOException {
+				CancellationToken previous = attachToken();
+				try {
+					fetchData();
+				} finally {
+					detachToken(previous);
+				}
+			}
+			
+			/**
+			 * Retrieves the data of the source image, and records the time
+			 * spent when there are listeners to notify.
+			 * 
+			 * @throws IOException		If a problem occurs while retrieving
+			 * 							the data.
+			 */
+			private void fetchData() throws IOException {
+				if (event == null) {
+					super.fetch();
+					return;
+				}
+				
+				// The data is retrieved before the thumbnail is created.
+				recordStart();
+				event.startStage();
+				
+				boolean isFetched = false;
+				try {
+					super.fetch();
+					isFetched = true;
+					
+				} catch (IOException e) {
+					event.recordFailure(e);
+					throw e;
+					
+				} catch (RuntimeException e) {
+					event.recordFailure(e);
+					throw e;
+					
+				} finally {
+					event.endStage(PipelineStage.PREFETCH);
+					if (!isFetched) {
+						ThumbnailListeners.notify(listeners, event);
+					}
+				}
+				
+				if (prefetchingSource != null) {
+					event.recordFetched(prefetchingSource.getData());
+				}
+			}
+			
+			public void perform(PipelineStage stage) throws IOException {
+				if ((isCached || isTransformed) && stage != PipelineStage.WRITE) {
+					return;
+				}
+				
+				if (event != null) {
+					recordStart();
+					event.startStage();
+				}
+				
+				boolean isPerformed = false;
+				CancellationToken previous = attachToken();
+				try {
+					if (token != null) {
+						token.throwIfCancelled();
+					}
+					performStage(stage);
+					isPerformed = true;
+					
+				} catch (IOException e) {
+					recordFailure(e);
+					throw e;
+					
+				} catch (RuntimeException e) {
+					recordFailure(e);
+					throw e;
+					
+				} catch (Error e) {
+					recordFailure(e);
+					throw e;
+					
+				} finally {
+					detachToken(previous);
+					
+					// Callers waiting for the thumbnail must not wait forever.
+					if (!isPerformed) {
+						releaseCache();
+						releaseImage();
+					}
+					
+					if (event != null) {
+						event.endStage(stage);
+						if (!isPerformed || stage == PipelineStage.WRITE) {
+							ThumbnailListeners.notify(listeners, event);
+						}
+					}
+				}
+			}
+			
+			/**
+			 * Makes the token of the thumbnail the current token of the
+			 * calling thread, creating it the first time the thumbnail is
+			 * worked on.
+			 * 
+			 * @return		The token which was current before, which is
+			 * 				passed to {@link #detachToken(CancellationToken)}.
+			 */
+			private CancellationToken attachToken() {
+				if (token == null) {
+					if (timeoutNanos != -1) {
+						token = new CancellationToken(cancellationToken, timeoutNanos, TimeUnit.NANOSECONDS);
+					} else if (cancellationToken != null) {
+						token = cancellationToken;
+					} else {
+						return null;
+					}
+				}
+				
+				return token.attach();
+			}
+			
+			/**
+			 * Restores the token which was current before
+			 * {@link #attachToken()} was called.
+			 * 
+			 * @param previous		The token returned by
+			 * 						{@link #attachToken()}.
+			 */
+			private void detachToken(CancellationToken previous) {
+				if (token != null) {
+					CancellationToken.detach(previous);
+				}
+			}
+			
+			/**
+			 * Records that the thumbnail has started to be created, the
+			 * first time a stage is performed.
+			 */
+			private void recordStart() {
+				if (!isStarted) {
+					isStarted = true;
+					ThumbnailatorMonitor.started(event);
+				}
+			}
+			
+			/**
+			 * Records the cause of a failure of a stage, when there are
+			 * listeners to notify.
+			 * 
+			 * @param failure		The cause of the failure.
+			 */
+			private void recordFailure(Throwable failure) {
+				if (event != null) {
+					event.recordFailure(failure);
+				}
+			}
+			
+			/**
+			 * Performs the work of the given stage.
+			 * 
+			 * @param stage			The stage to perform.
+			 * @throws IOException	If a problem occurs while performing the
+			 * 						stage.
+			 */
+			private void performStage(PipelineStage stage) throws IOException {
+				switch (stage) {
+					case PREFETCH:
+						if (cache != null && !cache.isKeyedBySourceData()) {
+							lookUpCache(createIdentityKey());
+						}
+						if (isCached) {
+							break;
+						}
+						
+						super.fetch();
+						if (event != null && prefetchingSource != null) {
+							event.recordFetched(prefetchingSource.getData());
+						}
+						
+						if (cache != null && cacheKey == null) {
+							lookUpCache(createDataKey());
+						}
+						break;
+						
+					case DECODE:
+						if (losslessOrientation && transformLosslessly()) {
+							break;
+						}
+						
+						image = task.read();
+						if (event != null) {
+							event.recordDecoded(imageSource, image);
+							ThumbnailatorMonitor.decoded(event, image);
+						}
+						break;
+						
+					case RESIZE:
+						BufferedImage sourceImage = image;
+						image = null;
+						try {
+							image = Thumbnailator.createThumbnail(task.getParam(), sourceImage, event);
+							
+						} finally {
+							sourceImage.flush();
+							PixelMemoryGovernor.release(sourceImage);
+							if (event != null) {
+								ThumbnailatorMonitor.released(event);
+							}
+						}
+						break;
+						
+					case ENCODE:
+						try {
+							task.write(image);
+							
+							if (event != null) {
+								event.recordWritten(getBytesWritten());
+							}
+							
+							if (isLoading) {
+								// Storing the thumbnail also releases the callers waiting for it.
+								isLoading = false;
+								BufferingImageSink<?> sink = (BufferingImageSink<?>)destination;
+								cache.put(cacheKey, sink.getEncodedFormatName(), sink.getEncodedImage());
+							}
+							
+						} catch (IllegalArgumentException e) {
+							if (!skipExistingDestination) {
+								throw e;
+							}
+							isSkipped = true;
+							
+						} finally {
+							image.flush();
+							image = null;
+						}
+						
+						releaseCache();
+						break;
+						
+					case WRITE:
+						if (!isSkipped && destination instanceof BufferingImageSink) {
+							((BufferingImageSink<?>)destination).commit();
+						}
+						break;
+				}
+			}
+			
+			public R getResult() {
+				return isSkipped ? null : result();
+			}
+			
+			/**
+			 * Returns the key of the thumbnail in the cache which identifies
+			 * the source by its path, size and last modified time, so that
+			 * the cache can be looked up before the source is read.
+			 * 
+			 * @return					The key, or {@code null} if the
+			 * 							source is not a {@link File}.
+			 */
+			private String createIdentityKey() {
+				if (prefetchingSource == null || !(prefetchingSource.getSource() instanceof File)) {
+					return null;
+				}
+				
+				File file = ((File)prefetchingSource.getSource()).getAbsoluteFile();
+				String identity = new Fingerprint("File")
+						.add("path", file.getPath())
+						.add("length", file.length())
+						.add("lastModified", file.lastModified())
+						.toString();
+				
+				return Fingerprint.digest(identity + ":" + cacheFingerprint);
+			}
+			
+			/**
+			 * Returns the key of the thumbnail in the cache which identifies
+			 * the source by its data, once the data has been retrieved.
+			 * 
+			 * @return					The key, or {@code null} if the data
+			 * 							of the source is not available.
+			 */
+			private String createDataKey() {
+				if (prefetchingSource == null || prefetchingSource.getData() == null) {
+					return null;
+				}
+				
+				return DiskThumbnailCache.createKey(prefetchingSource.getData(), cacheFingerprint);
+			}
+			
+			/**
+			 * Looks up the thumbnail in the cache. When the thumbnail is
+			 * found, it is written to the destination in place of creating
+			 * it.
+			 * 
+			 * @param key				The key of the thumbnail, or
+			 * 							{@code null} if the thumbnail cannot
+			 * 							be looked up.
+			 * @throws IOException		If a problem occurs while reading the
+			 * 							cache.
+			 */
+			private void lookUpCache(String key) throws IOException {
+				if (key == null) {
+					return;
+				}
+				
+				cacheKey = key;
+				
+				CachedThumbnail thumbnail = cache.get(cacheKey);
+				if (thumbnail == null) {
+					isLoading = true;
+					return;
+				}
+				
+				if (event != null) {
+					event.recordCached();
+					event.recordWritten(thumbnail.getData().length);
+				}
+				
+				try {
+					((BufferingImageSink<?>)destination).setEncodedImage(
+							thumbnail.getData(),
+							thumbnail.getFormatName()
+					);
+					
+				} catch (IllegalArgumentException e) {
+					if (!skipExistingDestination) {
+						throw e;
+					}
+					isSkipped = true;
+				}
+				
+				isCached = true;
+			}
+			
+			/**
+			 * Creates the thumbnail by applying the Exif orientation of a
+			 * JPEG source to its DCT coefficients, without decoding and
+			 * re-encoding the source image.
+			 * 
+			 * @return				{@code true} if the thumbnail was
+			 * 						created, or {@code false} if the source
+			 * 						must be decoded.
+			 * @throws IOException	If a problem occurs while preparing the
+			 * 						destination.
+			 */
+			private boolean transformLosslessly() throws IOException {
+				if (
+						prefetchingSource == null ||
+						prefetchingSource.getData() == null ||
+						!(destination instanceof BufferingImageSink)
+				) {
+					return false;
+				}
+				
+				// The format is determined in the same way as SourceSinkThumbnailTask.
+				String formatName = task.getParam().getOutputFormat();
+				if (ThumbnailParameter.DETERMINE_FORMAT.equals(formatName)) {
+					formatName = destination.preferredOutputFormatName();
+				}
+				if (formatName == ThumbnailParameter.ORIGINAL_FORMAT) {
+					formatName = "JPEG";
+				}
+				if (!"jpg".equalsIgnoreCase(formatName) && !"jpeg".equalsIgnoreCase(formatName)) {
+					return false;
+				}
+				
+				byte[] data = LosslessJpegTransform.normalizeOrientation(prefetchingSource.getData());
+				if (data == null) {
+					return false;
+				}
+				
+				BufferingImageSink<?> sink = (BufferingImageSink<?>)destination;
+				try {
+					sink.setEncodedImage(data, formatName);
+					
+				} catch (IllegalArgumentException e) {
+					if (!skipExistingDestination) {
+						throw e;
+					}
+					isSkipped = true;
+				}
+				
+				if (event != null) {
+					event.recordWritten(data.length);
+				}
+				
+				if (isLoading && !isSkipped) {
+					// Storing the thumbnail also releases the callers waiting for it.
+					isLoading = false;
+					cache.put(cacheKey, sink.getEncodedFormatName(), sink.getEncodedImage());
+				}
+				releaseCache();
+				
+				isTransformed = true;
+				return true;
+			}
+			
+			/**
+			 * Returns the number of bytes of the thumbnail which has been
+			 * written.
+			 * 
+			 * @return					The number of bytes, or {@code -1} if
+			 * 							it is not known.
+			 */
+			private long getBytesWritten() {
+				if (destination instanceof BufferingImageSink) {
+					return ((BufferingImageSink<?>)destination).getEncodedSize();
+				}
+				if (destination instanceof FileImageSink) {
+					return ((FileImageSink)destination).getSink().length();
+				}
+				return -1;
+			}
+			
+			/**
+			 * Releases the callers of the cache which are waiting for the
+			 * thumbnail, when the thumbnail will not be stored in the cache.
+			 */
+			private void releaseCache() {
+				if (isLoading) {
+					isLoading = false;
+					cache.release(cacheKey);
+				}
+			}
+			
+			/**
+			 * Releases the image held between the stages, and its
+			 * reservation of memory, when the thumbnail will not be
+			 * created.
+			 */
+			private void releaseImage() {
+				if (image != null) {
+					image.flush();
+					PixelMemoryGovernor.release(image);
+					image = null;
+				}
+			}
+			
+			/**
+			 * Returns the result once the thumbnail has been created.
+			 * 
+			 * @return					The result, or {@code null} if there
+			 * 							is no result for the source.
+			 */
+			protected abstract R result();
+		}
+		
+		/**
+		 * An {@link Iterator} which prepares a {@link SourceTask} for each
+		 * source of this builder.
+		 * <p>
+		 * Tasks are prepared on the thread which calls the output method, in
+		 * the order of the sources. This keeps the assignment of destinations
+		 * to sources deterministic, even when the tasks are run concurrently.
+		 * <p>
+		 * When {@link #ioParallelism(int)} or {@link #cache(ThumbnailCache)}
+		 * has been set, or when the thumbnails are created by a pipeline, the
+		 * sources are wrapped in a {@link PrefetchingImageSource}, so that
+		 * their data can be retrieved separately from creating the thumbnail.
+		 * 
+		 * <p>
+		 * The iterator must be closed by the output method once it is done
+		 * with it, so that sources which hold resources, such as the open
+		 * directories of a {@link DirectoryImageFiles}, release them.
+		 * 
+		 * @param <R>		The type of the result of the tasks.
+		 */
+		private abstract class SourceTaskIterator<R> implements Iterator<SourceTask<R>>, Closeable {
+			private final Iterator<ImageSource<T>> sourceIter = sources.iterator();
+			
+			public boolean hasNext() {
+				return sourceIter.hasNext();
+			}
+			
+			public SourceTask<R> next() {
+				ImageSource<T> source = sourceIter.next();
+				if (ioParallelism == 0 && pipelineThreads == null && cache == null) {
+					return prepare(source);
+				}
+				
+				PrefetchingImageSource<T> prefetchingSource =
+						new PrefetchingImageSource<T>(source);
+				
+				SourceTask<R> task = prepare(prefetchingSource);
+				task.prefetchingSource = prefetchingSource;
+				return task;
+			}
+			
+			public void remove() {
+				throw new UnsupportedOperationException(
+						"Cannot remove elements from this iterator."
+				);
+			}
+			
+			public void close() {
+				closeSources(sourceIter);
+			}
+			
+			/**
+			 * Prepares the task to create a thumbnail from the given source.
+			 * <p>
+			 * The type of the source should be determined from the object
+			 * returned by its {@link ImageSource#getSource()} method, as
+			 * the source may be wrapped.
+			 * 
+			 * @param source		The source of the thumbnail.
+			 * @return				The task which creates the thumbnail.
+			 */
+			protected abstract SourceTask<R> prepare(ImageSource<T> source);
+		}
+		
+		/**
+		 * Creates the destinations of the thumbnails for an output method
+		 * which creates thumbnails from multiple sources, and obtains the
+		 * results from them.
+		 * 
+		 * @param <R>		The type of the result of each thumbnail.
+		 */
+		private abstract class Destinations<R> {
+			/**
+			 * The fingerprints of the parameters of the thumbnails, by the
+			 * size of the thumbnails.
+			 */
+			private final Map<Dimension, String> parameterFingerprints =
+					new HashMap<Dimension, String>();
+			
+			/**
+			 * Returns the fingerprint of the given parameters, which is only
+			 * computed for the first thumbnail of each size, as computing it
+			 * can be costly, such as hashing the image of a watermark.
+			 * <p>
+			 * Before the source is read, the parameters of the thumbnails of
+			 * the same size are the same for every source, as they are
+			 * made from the settings of this builder.
+			 * 
+			 * @param param			The parameters of a thumbnail, before
+			 * 						the source is read.
+			 * @return				The fingerprint, or {@code null} if the
+			 * 						parameters cannot be identified.
+			 */
+			protected final synchronized String parameterFingerprint(ThumbnailParameter param) {
+				Dimension size = param.getSize();
+				if (!parameterFingerprints.containsKey(size)) {
+					parameterFingerprints.put(size, fingerprintOf(param));
+				}
+				return parameterFingerprints.get(size);
+			}
+			
+			/**
+			 * Creates the destination of a thumbnail.
+			 * <p>
+			 * This method is called on the thread which calls the output
+			 * method, once for each thumbnail, in the order of the
+			 * thumbnails.
+			 * 
+			 * @param source		The source of the thumbnail.
+			 * @param param			The parameters of the thumbnail.
+			 * @return				The destination of the thumbnail.
+			 */
+			protected abstract ImageSink<?> create(ImageSource<T> source, ThumbnailParameter param);
+			
+			/**
+			 * Creates the destinations of the thumbnails of a source when
+			 * {@link #renditions(Dimension...)} has been set.
+			 * 
+			 * @param source		The source of the thumbnails.
+			 * @param params		The parameters of the thumbnails, in the
+			 * 						order of the sizes.
+			 * @return				The destinations of the thumbnails, in
+			 * 						the order of the sizes.
+			 */
+			protected List<ImageSink<?>> createRenditions(ImageSource<T> source, List<ThumbnailParameter> params) {
+				List<ImageSink<?>> created = new ArrayList<ImageSink<?>>();
+				for (ThumbnailParameter param : params) {
+					created.add(create(source, param));
+				}
+				return created;
+			}
+			
+			/**
+			 * Returns the result once the thumbnail has been written to the
+			 * given destination.
+			 * 
+			 * @param destination	The destination of the thumbnail.
+			 * @return				The result.
+			 */
+			protected abstract R result(ImageSink<?> destination);
+			
+			/**
+			 * Returns whether a thumbnail should be skipped rather than fail
+			 * when its destination file already exists.
+			 * 
+			 * @return				{@code true} if the thumbnail should be
+			 * 						skipped.
+			 */
+			protected boolean skipExistingDestination() {
+				return false;
+			}
+			
+			/**
+			 * Returns the fingerprint of the parameters of a thumbnail which
+			 * identifies it in {@link #isUpToDate(ImageSource, ImageSink, String)}
+			 * and {@link #written(ImageSource, ImageSink, String)}.
+			 * <p>
+			 * This method is called before the source is read, as reading
+			 * the source can add filters to the parameters, such as the
+			 * filter which corrects the orientation of the image.
+			 * 
+			 * @param param			The parameters of the thumbnail.
+			 * @return				The fingerprint, or {@code null} if it is
+			 * 						not needed, or the parameters cannot be
+			 * 						identified.
+			 */
+			protected String fingerprint(ThumbnailParameter param) {
+				return null;
+			}
+			
+			/**
+			 * Returns whether the thumbnail at the given destination is up to
+			 * date, so that it does not need to be created.
+			 * 
+			 * @param source		The source of the thumbnail.
+			 * @param destination	The destination of the thumbnail.
+			 * @param fingerprint	The fingerprint of the parameters of the
+			 * 						thumbnail, or {@code null}.
+			 * @return				{@code true} if the thumbnail is up to
+			 * 						date.
+			 */
+			protected boolean isUpToDate(ImageSource<T> source, ImageSink<?> destination, String fingerprint) {
+				return false;
+			}
+			
+			/**
+			 * Called when thumbnails were not created because they are up
+			 * to date.
+			 * 
+			 * @param count			The number of thumbnails.
+			 */
+			protected void skipped(int count) {
+			}
+			
+			/**
+			 * Called when a thumbnail has been written to its destination.
+			 * 
+			 * @param source		The source of the thumbnail.
+			 * @param destination	The destination of the thumbnail.
+			 * @param fingerprint	The fingerprint of the parameters of the
+			 * 						thumbnail, or {@code null}.
+			 */
+			protected void written(ImageSource<T> source, ImageSink<?> destination, String fingerprint) {
+			}
+		}
+		
+		/**
+		 * Creates thumbnails from all sources, and returns their results in
+		 * the order of the sources.
+		 * <p>
+		 * When {@link #renditions(Dimension...)} has been set, a thumbnail
+		 * is created for each size from each source, and the results of the
+		 * thumbnails of each source are in the order of the sizes.
+		 * 
+		 * @param destinations	The destinations of the thumbnails.
+		 * @return				The results of the thumbnails, with
+		 * 						{@code null} for a thumbnail which was
+		 * 						skipped.
+		 * @throws IOException	If a problem occurs while creating the
+		 * 						thumbnails.
+		 */
+		private <R> List<R> createThumbnails(final Destinations<R> destinations) throws IOException {
+			if (renditions == null) {
+				SourceTaskIterator<R> tasks = new SourceTaskIterator<R>() {
+					protected SourceTask<R> prepare(final ImageSource<T> source) {
+						final ThumbnailParameter param = makeParam();
+						final String fingerprint = destinations.fingerprint(param);
+						ImageSink<?> created = destinations.create(source, param);
+						
+						if (destinations.isUpToDate(source, created, fingerprint)) {
+							destinations.skipped(1);
+							return new UpToDateSourceTask<R>(destinations.result(created));
+						}
+						
+						boolean isLossless = isLosslessOrientationApplicable(source, created);
+						final ImageSink<?> destination = prepareDestination(created, isLossless);
+						
+						// The data of the source is needed to transform it losslessly.
+						ImageSource<T> taskSource = source;
+						PrefetchingImageSource<T> prefetchingSource = null;
+						if (isLossless && !(source instanceof PrefetchingImageSource)) {
+							prefetchingSource = new PrefetchingImageSource<T>(source);
+							taskSource = prefetchingSource;
+						}
+						
+						ThumbnailSourceTask<R> task = new ThumbnailSourceTask<R>(
+								createTask(param, taskSource, destination),
+								destination,
+								destinations.skipExistingDestination()
+						) {
+							protected R result() {
+								destinations.written(source, destination, fingerprint);
+								return destinations.result(destination);
+							}
+						};
+						if (prefetchingSource != null) {
+							task.prefetchingSource = prefetchingSource;
+						}
+						task.losslessOrientation = isLossless;
+						
+						return enableListeners(enableCancellation(enableCache(task, destinations)), taskSource);
+					}
+				};
+				
+				try {
+					return runTasks(tasks);
+				} finally {
+					tasks.close();
+				}
+			}
+			
+			SourceTaskIterator<List<R>> renditionTasks = new SourceTaskIterator<List<R>>() {
+				protected SourceTask<List<R>> prepare(ImageSource<T> source) {
+					RenditionSourceTask<R> task = new RenditionSourceTask<R>(source, destinations);
+					
+					List<R> upToDateResults = task.getUpToDateResults();
+					if (upToDateResults != null) {
+						destinations.skipped(upToDateResults.size());
+						return new UpToDateSourceTask<List<R>>(upToDateResults);
+					}
+					
+					return task;
+				}
+			};
+			
+			List<List<R>> renditionResults;
+			try {
+				renditionResults = runTasks(renditionTasks);
+			} finally {
+				renditionTasks.close();
+			}
+			
+			List<R> results = new ArrayList<R>();
+			for (List<R> r : renditionResults) {
+				results.addAll(r);
+			}
+			
+			return results;
+		}
+		
+		/**
+		 * Returns the destination to which a thumbnail is written.
+		 * <p>
+		 * When the thumbnails are created by a pipeline, or are cached, or
+		 * the thumbnail may be transformed losslessly, thumbnails which are
+		 * written to files or {@link OutputStream}s are encoded into memory
+		 * first, so that writing them takes place in the
+		 * {@link PipelineStage#WRITE} stage, and the encoded thumbnails can
+		 * be stored in the cache or replaced by the transformed source.
+		 * 
+		 * @param destination	The destination of the thumbnail.
+		 * @param isLossless	Whether the thumbnail may be transformed
+		 * 						losslessly, as determined by
+		 * 						{@link #isLosslessOrientationApplicable(ImageSource, ImageSink)}.
+		 * @return				The destination to write the thumbnail to.
+		 */
+		private <S> ImageSink<S> prepareDestination(ImageSink<S> destination, boolean isLossless) {
+			if (
+					(pipelineThreads != null || cache != null || isLossless) &&
+					(destination instanceof FileImageSink || destination instanceof OutputStreamImageSink)
+			) {
+				return new BufferingImageSink<S>(destination);
+			}
+			return destination;
+		}
+		
+		/**
+		 * Returns whether the thumbnails are the source images with their
+		 * Exif orientation applied, and nothing else, so that JPEG sources
+		 * can be transformed by {@link LosslessJpegTransform} without
+		 * decoding them.
+		 * 
+		 * @return				{@code true} if the thumbnails may be
+		 * 						transformed losslessly.
+		 */
+		private boolean isLosslessOrientationPossible() {
+			return useExifOrientation &&
+					scaleWidth == 1.0 && scaleHeight == 1.0 &&
+					sourceRegion == null &&
+					renditions == null &&
+					imageType == IMAGE_TYPE_UNSPECIFIED &&
+					outputFormatType == ThumbnailParameter.DEFAULT_FORMAT_TYPE &&
+					Float.isNaN(outputQuality) &&
+					(
+							ThumbnailParameter.DETERMINE_FORMAT.equals(outputFormat) ||
+							outputFormat == ThumbnailParameter.ORIGINAL_FORMAT ||
+							"jpg".equalsIgnoreCase(outputFormat) ||
+							"jpeg".equalsIgnoreCase(outputFormat)
+					) &&
+					makeFilters(width, height).isEmpty();
+		}
+		
+		/**
+		 * Returns whether the thumbnail of the given source may be created
+		 * by {@link LosslessJpegTransform}, in which case the data of the
+		 * source is read into memory and the thumbnail is encoded into
+		 * memory.
+		 * <p>
+		 * Besides the settings of this builder allowing it, the thumbnail
+		 * must be written as a JPEG image, and the source must be a JPEG
+		 * image with an Exif orientation to apply, as found by reading the
+		 * start of the source. Only files, and {@link InputStream}s which
+		 * support {@link InputStream#mark(int)}, can be examined in this
+		 * way, so thumbnails of other sources are always decoded.
+		 * 
+		 * @param source		The source of the thumbnail.
+		 * @param destination	The destination of the thumbnail.
+		 * @return				{@code true} if the thumbnail may be
+		 * 						transformed losslessly.
+		 */
+		private boolean isLosslessOrientationApplicable(ImageSource<?> source, ImageSink<?> destination) {
+			if (
+					!isLosslessOrientationPossible() ||
+					!(destination instanceof FileImageSink || destination instanceof OutputStreamImageSink)
+			) {
+				return false;
+			}
+			
+			String formatName = outputFormat;
+			if (ThumbnailParameter.DETERMINE_FORMAT.equals(formatName)) {
+				formatName = destination.preferredOutputFormatName();
+			}
+			if (
+					formatName != ThumbnailParameter.ORIGINAL_FORMAT &&
+					!"jpg".equalsIgnoreCase(formatName) &&
+					!"jpeg".equalsIgnoreCase(formatName)
+			) {
+				return false;
+			}
+			
+			ImageSource<?> imageSource = source;
+			if (imageSource instanceof PrefetchingImageSource) {
+				imageSource = ((PrefetchingImageSource<?>)imageSource).getImageSource();
+			}
+			
+			Object sourceObject = imageSource.getSource();
+			try {
+				if (imageSource instanceof InputStreamImageSource) {
+					return ((InputStreamImageSource)imageSource).hasOrientationToApply();
+					
+				} else if (sourceObject instanceof File) {
+					InputStream is = new BufferedInputStream(new FileInputStream((File)sourceObject));
+					try {
+						return LosslessJpegTransform.hasOrientationToApply(is);
+					} finally {
+						is.close();
+					}
+				}
+				
+			} catch (IOException e) {
+				// The problem is reported when the source is read.
+			}
+			
+			return false;
+		}
+		
+		/**
+		 * Returns the fingerprint of the given parameters.
+		 * 
+		 * @param param			The parameters.
+		 * @return				The fingerprint, or {@code null} if the
+		 * 						parameters cannot be identified.
+		 */
+		private String fingerprintOf(ThumbnailParameter param) {
+			try {
+				return param.getFingerprint();
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+		
+		/**
+		 * Enables the given task to look up and store its thumbnail in the
+		 * cache, when the cache has been set and the thumbnail can be cached.
+		 * 
+		 * @param task			The task.
+		 * @param destinations	The destinations of the output method, whose
+		 * 						fingerprints of the parameters are shared by
+		 * 						its thumbnails, or {@code null} if the task
+		 * 						creates the only thumbnail.
+		 * @return				The task.
+		 */
+		private <R> ThumbnailSourceTask<R> enableCache(ThumbnailSourceTask<R> task, Destinations<?> destinations) {
+			if (cache == null || !(task.destination instanceof BufferingImageSink)) {
+				return task;
+			}
+			
+			ThumbnailParameter param = task.task.getParam();
+			
+			String fingerprint = destinations == null
+					? fingerprintOf(param)
+					: destinations.parameterFingerprint(param);
+			if (fingerprint == null) {
+				// Thumbnails are not cached if the parameters cannot be identified.
+				return task;
+			}
+			
+			// The output format can depend on the destination.
+			if (ThumbnailParameter.DETERMINE_FORMAT.equals(param.getOutputFormat())) {
+				fingerprint += ":" + task.destination.preferredOutputFormatName();
+			}
+			
+			task.cache = cache;
+			task.cacheFingerprint = fingerprint;
+			return task;
+		}
+		
+		/**
+		 * Enables the given task to be cancelled by the
+		 * {@link CancellationToken} of this builder, and to be stopped once
+		 * its timeout has passed.
+		 * 
+		 * @param task			The task.
+		 * @return				The task.
+		 */
+		private <R> ThumbnailSourceTask<R> enableCancellation(ThumbnailSourceTask<R> task) {
+			task.cancellationToken = cancellationToken;
+			task.timeoutNanos = timeoutNanos;
+			return task;
+		}
+		
+		/**
+		 * Enables the given task to record how its thumbnail is created, and
+		 * to notify the listeners, when there are listeners to notify.
+		 * 
+		 * @param task			The task.
+		 * @param source		The source of the thumbnail.
+		 * @return				The task.
+		 */
+		private <R> ThumbnailSourceTask<R> enableListeners(ThumbnailSourceTask<R> task, ImageSource<?> source) {
+			List<ThumbnailListener> listeners = ThumbnailListeners.forBuilder(listener);
+			if (listeners == null) {
+				return task;
+			}
+			
+			task.listeners = listeners;
+			task.imageSource = source;
+			task.event = new ThumbnailEvent(source.getSource());
+			return task;
+		}
+		
+		/**
+		 * Returns a task which creates a thumbnail from the given source and
+		 * writes it to the given destination.
+		 * 
+		 * @param param			The parameters of the thumbnail.
+		 * @param source		The source of the thumbnail.
+		 * @param destination	The destination of the thumbnail.
+		 * @return				The task.
+		 */
+		private <S, D> SourceSinkThumbnailTask<S, D> createTask(ThumbnailParameter param, ImageSource<S> source, ImageSink<D> destination) {
+			return new SourceSinkThumbnailTask<S, D>(param, source, destination);
+		}
+		
+		/**
+		 * Checks that {@link #renditions(Dimension...)} has not been set, for
+		 * output methods which create a single thumbnail from each source.
+		 * 
+		 * @throws IllegalStateException	If the renditions have been set.
+		 */
+		private void checkNoRenditions() {
+			if (renditions != null) {
+				throw new IllegalStateException(
+						"Cannot use this output method when renditions are set."
+				);
+			}
+		}
+		
+		/**
+		 * A unit of work which creates a thumbnail of each size set by
+		 * {@link #renditions(Dimension...)} from a single source.
+		 * <p>
+		 * The source is decoded once, the thumbnails are created by
+		 * {@link Thumbnailator#createRenditions(List, BufferedImage)}, and
+		 * the thumbnails are encoded concurrently.
+		 * 
+		 * @param <R>		The type of the result of each thumbnail.
+		 */
+		private final class RenditionSourceTask<R> extends SourceTask<List<R>> {
+			/**
+			 * The source of the thumbnails.
+			 */
+			private final ImageSource<T> source;
+			
+			/**
+			 * The parameters of the thumbnails, in the order of the sizes.
+			 */
+			private final List<ThumbnailParameter> params;
+			
+			/**
+			 * Where the results of the thumbnails are obtained from.
+			 */
+			private final Destinations<R> destinations;
+			
+			/**
+			 * The destinations of the thumbnails, in the order of the sizes.
+			 */
+			private final List<ImageSink<?>> sinks = new ArrayList<ImageSink<?>>();
+			
+			/**
+			 * The fingerprints of the parameters of the thumbnails, taken
+			 * before the source is read, in the order of the sizes.
+			 */
+			private final List<String> fingerprints = new ArrayList<String>();
+			
+			/**
+			 * Whether each thumbnail was skipped because the destination
+			 * file already exists.
+			 */
+			private final boolean[] isSkipped;
+			
+			/**
+			 * The decoded source image.
+			 */
+			private BufferedImage sourceImage;
+			
+			/**
+			 * The name of the format of the source image.
+			 */
+			private String inputFormatName;
+			
+			/**
+			 * The thumbnails, in the order of the sizes.
+			 */
+			private List<BufferedImage> thumbnails;
+			
+			private RenditionSourceTask(ImageSource<T> source, Destinations<R> destinations) {
+				this.source = source;
+				this.params = makeRenditionParams();
+				this.destinations = destinations;
+				this.isSkipped = new boolean[params.size()];
+				
+				for (ImageSink<?> sink : destinations.createRenditions(source, params)) {
+					sinks.add(prepareDestination(sink, false));
+				}
+				for (ThumbnailParameter param : params) {
+					fingerprints.add(destinations.fingerprint(param));
+				}
+				
+				source.setThumbnailParameter(params.get(0));
+			}
+			
+			public List<R> run() throws IOException {
+				perform(PipelineStage.DECODE);
+				perform(PipelineStage.RESIZE);
+				perform(PipelineStage.ENCODE);
+				perform(PipelineStage.WRITE);
+				
+				return getResult();
+			}
+			
+			public void perform(PipelineStage stage) throws IOException {
+				switch (stage) {
+					case PREFETCH:
+						fetch();
+						break;
+						
+					case DECODE:
+						decode();
+						break;
+						
+					case RESIZE:
+						try {
+							thumbnails = Thumbnailator.createRenditions(params, sourceImage);
+							
+						} finally {
+							sourceImage.flush();
+							PixelMemoryGovernor.release(sourceImage);
+							sourceImage = null;
+						}
+						break;
+						
+					case ENCODE:
+						try {
+							encode();
+							
+						} finally {
+							for (BufferedImage thumbnail : thumbnails) {
+								thumbnail.flush();
+							}
+							thumbnails = null;
+						}
+						break;
+						
+					case WRITE:
+						for (int i = 0; i < sinks.size(); i++) {
+							ImageSink<?> sink = sinks.get(i);
+							if (!isSkipped[i] && sink instanceof BufferingImageSink) {
+								((BufferingImageSink<?>)sink).commit();
+							}
+						}
+						break;
+				}
+			}
+			
+			public List<R> getResult() {
+				List<R> results = new ArrayList<R>();
+				for (int i = 0; i < sinks.size(); i++) {
+					if (isSkipped[i]) {
+						results.add(null);
+						continue;
+					}
+					
+					destinations.written(source, sinks.get(i), fingerprints.get(i));
+					results.add(destinations.result(sinks.get(i)));
+				}
+				return results;
+			}
+			
+			/**
+			 * Returns the results of the thumbnails when all of them are up
+			 * to date, so that they do not need to be created.
+			 * 
+			 * @return					The results, or {@code null} if a
+			 * 							thumbnail is not up to date.
+			 */
+			private List<R> getUpToDateResults() {
+				List<R> results = new ArrayList<R>();
+				for (int i = 0; i < sinks.size(); i++) {
+					if (!destinations.isUpToDate(source, sinks.get(i), fingerprints.get(i))) {
+						return null;
+					}
+					results.add(destinations.result(sinks.get(i)));
+				}
+				return results;
+			}
+			
+			/**
+			 * Decodes the source image.
+			 * 
+			 * @throws IOException		If a problem occurs while reading
+			 * 							the source image.
+			 */
+			private void decode() throws IOException {
+				List<ImageFilter> filters = params.get(0).getImageFilters();
+				int filterCount = filters.size();
+				
+				Object event = FlightRecorderEvents.beginRead();
+				try {
+					sourceImage = source.read();
+					inputFormatName = source.getInputFormatName();
+					
+				} finally {
+					FlightRecorderEvents.endRead(event, source.getSource(), inputFormatName, sourceImage);
+				}
+				
+				/*
+				 * The source may add filters to its parameters, such as the
+				 * filter which corrects the orientation of the image, which
+				 * apply to all of the thumbnails.
+				 */
+				List<ImageFilter> addedFilters =
+						filters.subList(0, filters.size() - filterCount);
+				
+				for (ThumbnailParameter param : params.subList(1, params.size())) {
+					param.getImageFilters().addAll(0, addedFilters);
+				}
+			}
+			
+			/**
+			 * Encodes the thumbnails concurrently, with the current thread
+			 * encoding thumbnails alongside threads of the default
+			 * {@link Executor} of Thumbnailator.
+			 * 
+			 * @throws IOException		If a problem occurs while encoding a
+			 * 							thumbnail.
+			 */
+			private void encode() throws IOException {
+				final int count = thumbnails.size();
+				final AtomicInteger nextIndex = new AtomicInteger();
+				final CountDownLatch remaining = new CountDownLatch(count);
+				final Throwable[] failures = new Throwable[count];
+				
+				Runnable encoder = new Runnable() {
+					public void run() {
+						int i;
+						while ((i = nextIndex.getAndIncrement()) < count) {
+							try {
+								encode(i);
+							} catch (Throwable t) {
+								failures[i] = t;
+							} finally {
+								remaining.countDown();
+							}
+						}
+					}
+				};
+				
+				Executor executor = ThumbnailatorExecutors.getDefaultExecutor();
+				for (int i = 1; i < count; i++) {
+					try {
+						executor.execute(encoder);
+					} catch (RejectedExecutionException e) {
+						// The current thread encodes the remaining thumbnails.
+						break;
+					}
+				}
+				
+				encoder.run();
+				
+				try {
+					remaining.await();
+					
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException(
+							"Interrupted while waiting for thumbnails to be encoded."
+					);
+				}
+				
+				for (Throwable t : failures) {
+					if (t instanceof IOException) {
+						throw (IOException)t;
+					} else if (t instanceof RuntimeException) {
+						throw (RuntimeException)t;
+					} else if (t instanceof Error) {
+						throw (Error)t;
+					}
+				}
+			}
+			
+			/**
+			 * Encodes a thumbnail.
+			 * 
+			 * @param i					The index of the thumbnail.
+			 * @throws IOException		If a problem occurs while encoding
+			 * 							the thumbnail.
+			 */
+			private void encode(int i) throws IOException {
+				SourceSinkThumbnailTask<T, ?> task = createTask(
+						params.get(i),
+						new DecodedImageSource<T>(source.getSource(), thumbnails.get(i), inputFormatName),
+						sinks.get(i)
+				);
+				
+				try {
+					task.write(task.read());
+					
+				} catch (IllegalArgumentException e) {
+					if (!destinations.skipExistingDestination()) {
+						throw e;
+					}
+					isSkipped[i] = true;
+				}
+			}
+		}
+		
+		/**
+		 * An {@link ImageSource} of an image which has already been read.
+		 * 
+		 * @param <S>		The type of the source of the image.
+		 */
+		private static final class DecodedImageSource<S> extends AbstractImageSource<S> {
+			private final S source;
+			private final BufferedImage image;
+			
+			private DecodedImageSource(S source, BufferedImage image, String inputFormatName) {
+				this.source = source;
+				this.image = image;
+				this.inputFormatName = inputFormatName;
+			}
+			
+			public BufferedImage read() throws IOException {
+				return finishedReading(image);
+			}
+			
+			public S getSource() {
+				return source;
+			}
+		}
+		
+		/**
+		 * Runs the given tasks, and returns their results in the order of the
+		 * tasks.
+		 * <p>
+		 * If neither {@link #parallelism(int)} nor
+		 * {@link #executor(ExecutorService)} has been set, the tasks are run
+		 * one at a time on the current thread, and the first exception
+		 * thrown by a task is thrown by this method.
+		 * <p>
+		 * Otherwise, the tasks are run concurrently, and exceptions thrown by
+		 * the tasks are collected into a {@link ThumbnailBatchException}
+		 * which is thrown after all tasks have completed.
+		 * <p>
+		 * When {@link #ioParallelism(int)} has been set, the data of the
+		 * sources is retrieved on threads dedicated to I/O before the tasks
+		 * are run. When the pipeline has been enabled by {@link #pipelined()},
+		 * the tasks are run by a {@link ThumbnailPipeline}.
+		 * 
+		 * @param tasks			The tasks to run.
+		 * @return				The results of the tasks.
+		 * @throws IOException	If a task failed.
+		 */
+		private <R> List<R> runTasks(Iterator<SourceTask<R>> tasks) throws IOException {
+			if (pipelineThreads != null) {
+				return new ThumbnailPipeline(pipelineThreads, pipelineStatistics).run(tasks);
+			}
+			
+			List<R> results = new ArrayList<R>();
+			
+			if (parallelism == 1 && executor == null && ioParallelism == 0) {
+				while (tasks.hasNext()) {
+					results.add(tasks.next().run());
+				}
+				return results;
+			}
+			
+			ExecutorService service = executor;
+			int concurrency = parallelism;
+			if (service == null) {
+				if (ioParallelism != 0 && statusMap.get(Properties.PARALLELISM) != Status.ALREADY_SET) {
+					concurrency = Runtime.getRuntime().availableProcessors();
+				}
+				service = Executors.newFixedThreadPool(
+						concurrency,
+						new DaemonThreadFactory("thumbnailator-worker")
+				);
+			} else {
+				// The number of threads of the caller's executor is not known.
+				concurrency = Runtime.getRuntime().availableProcessors();
+			}
+			
+			ExecutorService ioService = null;
+			if (ioParallelism != 0) {
+				ioService = ThumbnailatorExecutors.newIoExecutor();
+			}
+			
+			/*
+			 * Limit the number of tasks which are submitted but have not had
+			 * their results collected, so that a large number of sources does
+			 * not result in a large number of pending tasks. When sources are
+			 * retrieved on I/O threads, this also limits the number of
+			 * sources whose data is held in memory.
+			 */
+			int maxInFlight = ioService == null ? concurrency * 4 : ioParallelism;
+			
+			LinkedList<Future<R>> inFlight = new LinkedList<Future<R>>();
+			Map<Integer, Throwable> failures = new HashMap<Integer, Throwable>();
+			
+			boolean isCompleted = false;
+			try {
+				while (tasks.hasNext()) {
+					if (inFlight.size() >= maxInFlight) {
+						collectResult(inFlight.removeFirst(), results, failures);
+					}
+					
+					final SourceTask<R> task = tasks.next();
+					if (ioService == null) {
+						inFlight.add(service.submit(new Callable<R>() {
+							public R call() throws IOException {
+								return task.run();
+							}
+						}));
+					} else {
+						inFlight.add(fetchAndRun(task, ioService, service));
+					}
+				}
+				
+				while (!inFlight.isEmpty()) {
+					collectResult(inFlight.removeFirst(), results, failures);
+				}
+				
+				isCompleted = true;
+				
+			} finally {
+				if (!isCompleted) {
+					for (Future<R> future : inFlight) {
+						future.cancel(true);
+					}
+				}
+				if (service != executor) {
+					service.shutdown();
+				}
+				if (ioService != null) {
+					if (isCompleted) {
+						ioService.shutdown();
+					} else {
+						ioService.shutdownNow();
+					}
+				}
+			}
+			
+			if (!failures.isEmpty()) {
+				throw new ThumbnailBatchException(results, failures);
+			}
+			
+			return results;
+		}
+		
+		/**
+		 * Retrieves the data of the source of the given task on the I/O
+		 * {@link ExecutorService}, then runs the task on the other
+		 * {@link ExecutorService}.
+		 * 
+		 * @param task			The task to run.
+		 * @param ioService		The {@link ExecutorService} on which the
+		 * 						data of the source is retrieved.
+		 * @param service		The {@link ExecutorService} on which the
+		 * 						thumbnail is created.
+		 * @return				A {@link Future} for the result of the task.
+		 */
+		private <R> Future<R> fetchAndRun(final SourceTask<R> task, ExecutorService ioService, ExecutorService service) {
+			return CompletableFuture.runAsync(new Runnable() {
+				public void run() {
+					try {
+						task.fetch();
+					} catch (IOException e) {
+						throw new CompletionException(e);
+					}
+				}
+			}, ioService).thenApplyAsync(new Function<Void, R>() {
+				public R apply(Void v) {
+					try {
+						return task.run();
+					} catch (IOException e) {
+						throw new CompletionException(e);
+					}
+				}
+			}, service);
+		}
+		
+		/**
+		 * Waits for the given task to complete, and adds its result to the
+		 * results, or its failure to the failures.
+		 * 
+		 * @param future		The task to wait for.
+		 * @param results		The results collected so far.
+		 * @param failures		The failures collected so far.
+		 * @throws InterruptedIOException	If the current thread was
+		 * 									interrupted while waiting.
+		 */
+		private <R> void collectResult(Future<R> future, List<R> results, Map<Integer, Throwable> failures) throws InterruptedIOException {
+			try {
+				results.add(future.get());
+				
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof Error) {
+					throw (Error)cause;
+				}
+				
+				failures.put(results.size(), cause);
+				results.add(null);
+				
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException(
+						"Interrupted while waiting for thumbnails to be created."
+				);
+			}
+		}
+		
+		/**
+		 * A {@link CompletableFuture} which cancels the task which will
+		 * complete it when it is cancelled.
+		 * 
+		 * @param <R>		The type of the result.
+		 */
+		private static final class CancellableFuture<R> extends CompletableFuture<R> {
+			/**
+			 * The task which will complete this future.
+			 */
+			private volatile Future<?> task;
+			
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+				boolean isCancelled = super.cancel(mayInterruptIfRunning);
+				
+				Future<?> currentTask = task;
+				if (isCancelled && currentTask != null) {
+					currentTask.cancel(true);
+				}
+				
+				return isCancelled;
+			}
+		}
+		
+		/**
+		 * Runs the given task on the given {@link Executor}, and returns a
+		 * {@link CompletableFuture} which is completed with the result of
+		 * the task.
+		 * <p>
+		 * Cancelling the returned {@link CompletableFuture} prevents the task
+		 * from starting if it has not started yet, and interrupts the thread
+		 * running the task if it has.
+		 * 
+		 * @param task			The task to run.
+		 * @param executor		The {@link Executor} to run the task on.
+		 * @return				A {@link CompletableFuture} for the result of
+		 * 						the task.
+		 */
+		private <R> CompletableFuture<R> runAsync(final SourceTask<R> task, Executor executor) {
+			final CancellableFuture<R> result = new CancellableFuture<R>();
+			
+			FutureTask<R> futureTask = new FutureTask<R>(new Callable<R>() {
+				public R call() throws IOException {
+					return task.run();
+				}
+			}) {
+				@Override
+				protected void done() {
+					try {
+						result.complete(get());
+						
+					} catch (ExecutionException e) {
+						result.completeExceptionally(e.getCause());
+						
+					} catch (CancellationException e) {
+						result.cancel(false);
+						
+					} catch (InterruptedException e) {
+						// Not reachable, as the task has already completed.
+						Thread.currentThread().interrupt();
+					}
+				}
+			};
+			
+			result.task = futureTask;
+			
+			try {
+				executor.execute(futureTask);
+				
+			} catch (RuntimeException e) {
+				result.completeExceptionally(e);
+			}
+			
+			return result;
+		}
+		
+		/**
+		 * <p>
+		 * Create the thumbnails and return as a {@link Iterable} of
+		 * {@link BufferedImage}s.
+		 * </p>
+		 * <p>
+		 * Thumbnail for a given input is lazily evaluated as the
+		 * {@link Iterator#next()} method is called on the iterator.
+		 * </p>
 		 * <p>
 		 * For situations where multiple thumbnails are being generated, this
 		 * method is preferred over the {@link #asBufferedImages()} method,
@@ -2212,6 +4907,7 @@ watermark(Positions.CENTER, image, opacity);
 		 */
 		public Iterable<BufferedImage> iterableBufferedImages() {
 			checkReadiness();
+			checkNoRenditions();
 			/*
 			 * TODO To get the precise error information, there would have to
 			 * be an event notification mechanism.
@@ -2277,21 +4973,311 @@ watermark(Positions.CENTER, image, opacity);
 		public List<BufferedImage> asBufferedImages() throws IOException {
 			checkReadiness();
 			
-			List<BufferedImage> thumbnails = new ArrayList<BufferedImage>();
-			
 			// Create thumbnails
-			for (ImageSource<T> source : sources) {
-				BufferedImageSink destination = new BufferedImageSink();
+			return createThumbnails(new Destinations<BufferedImage>() {
+				protected ImageSink<?> create(ImageSource<T> source, ThumbnailParameter param) {
+					return new BufferedImageSink();
+				}
 				
-				Thumbnailator.createThumbnail(
-					new SourceSinkThumbnailTask<T, BufferedImage>(makeParam(), source, destination)
-				);
+				protected BufferedImage result(ImageSink<?> destination) {
+					return ((BufferedImageSink)destination).getSink();
+				}
+			});
+		}
+		
+		/**
+		 * Returns a {@link SourceTask} which creates a thumbnail as a
+		 * {@link BufferedImage}.
+		 * 
+		 * @param source			The source of the thumbnail.
+		 * @return					The task which creates the thumbnail.
+		 */
+		private ThumbnailSourceTask<BufferedImage> createBufferedImageTask(ImageSource<T> source) {
+			final BufferedImageSink destination = new BufferedImageSink();
+			
+			SourceSinkThumbnailTask<T, BufferedImage> task =
+					new SourceSinkThumbnailTask<T, BufferedImage>(makeParam(), source, destination);
+			
+			ThumbnailSourceTask<BufferedImage> sourceTask = new ThumbnailSourceTask<BufferedImage>(task, destination) {
+				protected BufferedImage result() {
+					return destination.getSink();
+				}
+			};
+			
+			return enableListeners(enableCancellation(sourceTask), source);
+		}
+		
+		/**
+		 * Returns a {@link Stream} of the results of creating thumbnails
+		 * from the sources.
+		 * <p>
+		 * Each element of the {@link Stream} is a {@link ThumbnailResult}
+		 * which holds the source and either its thumbnail, or the exception
+		 * which prevented the thumbnail from being created. The elements are
+		 * in the same order as the sources.
+		 * <p>
+		 * The thumbnails are created lazily, when the elements of the
+		 * {@link Stream} are consumed, so processing of the thumbnails can
+		 * follow in the same {@link Stream} pipeline without holding all
+		 * thumbnails in memory at once. When the sources were given as an
+		 * array or a {@link Collection}, the {@link Stream} is sized, and
+		 * calling {@link Stream#parallel()} splits the sources evenly among
+		 * the threads of the common {@link java.util.concurrent.ForkJoinPool}.
+		 * Otherwise, the sources are taken as the elements are consumed, so a
+		 * {@link Stream} of a directory walked by
+		 * {@link Thumbnails#fromDirectory(Path, String, boolean)} starts before the
+		 * walk has finished, and a parallel {@link Stream} takes the sources
+		 * in batches.
+		 * <p>
+		 * The parameters of each thumbnail are determined when its source is
+		 * taken. The {@link #parallelism(int)}, {@link #executor(ExecutorService)},
+		 * {@link #ioParallelism(int)} and {@link #pipelined()} settings do not
+		 * apply to the returned {@link Stream}.
+		 * 
+		 * @return		A {@link Stream} of the results of creating thumbnails.
+		 * @throws IllegalStateException	If the builder is not ready to
+		 * 									create thumbnails.
+		 * @since	0.4.21
+		 */
+		public Stream<ThumbnailResult<T>> stream() {
+			checkReadiness();
+			checkNoRenditions();
+			
+			Stream<ResultTask> tasks;
+			if (isSized) {
+				final List<ImageSource<T>> sourceList = new ArrayList<ImageSource<T>>();
+				for (ImageSource<T> source : sources) {
+					sourceList.add(source);
+				}
+				
+				tasks = IntStream.range(0, sourceList.size())
+						.mapToObj(new IntFunction<ResultTask>() {
+							public ResultTask apply(int index) {
+								return createResultTask(index, sourceList.get(index), false);
+							}
+						});
 				
-				thumbnails.add(destination.getSink());
+			} else {
+				final ResultTaskIterator resultTasks = new ResultTaskIterator(false);
+				tasks = StreamSupport.stream(
+						Spliterators.spliteratorUnknownSize(
+								resultTasks,
+								Spliterator.ORDERED | Spliterator.NONNULL
+						),
+						false
+				).onClose(new Runnable() {
+					public void run() {
+						resultTasks.close();
+					}
+				});
+			}
+			
+			return tasks
+					.map(new Function<ResultTask, ThumbnailResult<T>>() {
+						public ThumbnailResult<T> apply(ResultTask task) {
+							return task.call();
+						}
+					});
+		}
+		
+		/**
+		 * Returns a {@link Flow.Publisher} which creates thumbnails from the
+		 * sources as its {@link Flow.Subscriber} requests them.
+		 * <p>
+		 * This method behaves in the same manner as the
+		 * {@link #publisher(int, int, Executor)} method, with a concurrency
+		 * of the number of processors, no prefetch, and the
+		 * {@link ThumbnailatorExecutors#getDefaultExecutor() default executor}.
+		 * 
+		 * @return		A {@link Flow.Publisher} of the results of creating
+		 * 				thumbnails.
+		 * @throws IllegalStateException	If the builder is not ready to
+		 * 									create thumbnails.
+		 * @since	0.4.21
+		 */
+		public Flow.Publisher<ThumbnailResult<T>> publisher() {
+			return publisher(
+					Runtime.getRuntime().availableProcessors(),
+					0,
+					ThumbnailatorExecutors.getDefaultExecutor()
+			);
+		}
+		
+		/**
+		 * Returns a {@link Flow.Publisher} which creates thumbnails from the
+		 * sources as its {@link Flow.Subscriber} requests them.
+		 * <p>
+		 * This method behaves in the same manner as the
+		 * {@link #publisher(int, int, Executor)} method, using the
+		 * {@link ThumbnailatorExecutors#getDefaultExecutor() default executor}.
+		 * 
+		 * @param concurrency	The maximum number of thumbnails created at a
+		 * 						time.
+		 * @param prefetch		The number of thumbnails which may be created
+		 * 						beyond those requested.
+		 * @return		A {@link Flow.Publisher} of the results of creating
+		 * 				thumbnails.
+		 * @throws IllegalArgumentException	If the concurrency is less than
+		 * 									{@code 1}, or the prefetch is
+		 * 									negative.
+		 * @throws IllegalStateException	If the builder is not ready to
+		 * 									create thumbnails.
+		 * @since	0.4.21
+		 */
+		public Flow.Publisher<ThumbnailResult<T>> publisher(int concurrency, int prefetch) {
+			return publisher(concurrency, prefetch, ThumbnailatorExecutors.getDefaultExecutor());
+		}
+		
+		/**
+		 * Returns a {@link Flow.Publisher} which creates thumbnails from the
+		 * sources as its {@link Flow.Subscriber} requests them.
+		 * <p>
+		 * A thumbnail is only started when the subscriber has requested it,
+		 * or when it is within {@code prefetch} thumbnails beyond those
+		 * requested, so results do not accumulate faster than the subscriber
+		 * consumes them. At most {@code concurrency} thumbnails are created
+		 * at a time, on the given {@link Executor}. The results are sent in
+		 * the order of the sources, and a failure to create a thumbnail is
+		 * sent as a {@link ThumbnailResult} holding the exception.
+		 * <p>
+		 * Cancelling the {@link Flow.Subscription} stops further thumbnails
+		 * from being started, and interrupts the threads creating thumbnails.
+		 * Retrieving the data of a source image is abandoned when the thread
+		 * is interrupted.
+		 * <p>
+		 * The sources are taken as the thumbnails are started, so only the
+		 * thumbnails in progress are held in memory, and a directory walked
+		 * by {@link Thumbnails#fromDirectory(Path, String, boolean)} is not walked in
+		 * advance. The parameters of each thumbnail are determined when its
+		 * source is taken. The returned {@link Flow.Publisher} supports a
+		 * single {@link Flow.Subscriber}.
+		 * 
+		 * @param concurrency	The maximum number of thumbnails created at a
+		 * 						time.
+		 * @param prefetch		The number of thumbnails which may be created
+		 * 						beyond those requested.
+		 * @param executor		The {@link Executor} on which the thumbnails
+		 * 						are created.
+		 * @return		A {@link Flow.Publisher} of the results of creating
+		 * 				thumbnails.
+		 * @throws IllegalArgumentException	If the concurrency is less than
+		 * 									{@code 1}, or the prefetch is
+		 * 									negative.
+		 * @throws NullPointerException		If the {@link Executor} is
+		 * 									{@code null}.
+		 * @throws IllegalStateException	If the builder is not ready to
+		 * 									create thumbnails.
+		 * @since	0.4.21
+		 */
+		public Flow.Publisher<ThumbnailResult<T>> publisher(int concurrency, int prefetch, Executor executor) {
+			checkReadiness();
+			checkNoRenditions();
+			
+			if (concurrency < 1) {
+				throw new IllegalArgumentException("Concurrency must be greater than 0.");
+			}
+			if (prefetch < 0) {
+				throw new IllegalArgumentException("Prefetch cannot be negative.");
+			}
+			if (executor == null) {
+				throw new NullPointerException("Executor is null.");
+			}
+			
+			return new ThumbnailPublisher<T>(new ResultTaskIterator(true), concurrency, prefetch, executor);
+		}
+		
+		/**
+		 * A task which creates a thumbnail from a single source, and returns
+		 * a {@link ThumbnailResult}.
+		 */
+		private final class ResultTask implements Callable<ThumbnailResult<T>> {
+			private final int index;
+			private final T source;
+			private final SourceTask<BufferedImage> task;
+			
+			private ResultTask(int index, T source, SourceTask<BufferedImage> task) {
+				this.index = index;
+				this.source = source;
+				this.task = task;
+			}
+			
+			public ThumbnailResult<T> call() {
+				try {
+					task.fetch();
+					return new ThumbnailResult<T>(index, source, task.run(), null);
+					
+				} catch (IOException e) {
+					return new ThumbnailResult<T>(index, source, null, e);
+				}
+			}
+		}
+		
+		/**
+		 * Prepares a {@link ResultTask} for the given source.
+		 * 
+		 * @param index			The index of the source.
+		 * @param source		The source of the thumbnail.
+		 * @param prefetch		Whether the data of the source image should
+		 * 						be retrieved separately from decoding it.
+		 * @return				The task.
+		 */
+		private ResultTask createResultTask(int index, ImageSource<T> source, boolean prefetch) {
+			T sourceObject = source.getSource();
+			
+			SourceTask<BufferedImage> task;
+			if (prefetch) {
+				PrefetchingImageSource<T> prefetchingSource =
+						new PrefetchingImageSource<T>(source);
+				task = createBufferedImageTask(prefetchingSource);
+				task.prefetchingSource = prefetchingSource;
+			} else {
+				task = createBufferedImageTask(source);
+			}
+			
+			return new ResultTask(index, sourceObject, task);
+		}
+		
+		/**
+		 * An {@link Iterator} which prepares a {@link ResultTask} for each
+		 * source as it is taken, so that the sources are not enumerated in
+		 * advance. Closing it releases the resources held by the sources,
+		 * such as the open directories of a {@link DirectoryImageFiles}.
+		 */
+		private final class ResultTaskIterator implements Iterator<ResultTask>, Closeable {
+			private final Iterator<ImageSource<T>> sourceIter = sources.iterator();
+			
+			/**
+			 * Whether the data of the source images should be retrieved
+			 * separately from decoding them, so that retrieving the data
+			 * can be interrupted.
+			 */
+			private final boolean prefetch;
+			
+			private int index = 0;
+			
+			private ResultTaskIterator(boolean prefetch) {
+				this.prefetch = prefetch;
+			}
+			
+			public boolean hasNext() {
+				return sourceIter.hasNext();
+			}
+			
+			public ResultTask next() {
+				return createResultTask(index++, sourceIter.next(), prefetch);
+			}
+			
+			public void remove() {
+				throw new UnsupportedOperationException(
+						"Cannot remove elements from this iterator."
+				);
 			}
 			
-			return thumbnails;
+			public void close() {
+				closeSources(sourceIter);
+			}
 		}
+
 		
 		/**
 		 * <p>
@@ -2332,30 +5318,396 @@ watermark(Positions.CENTER, image, opacity);
 		 * {@link BufferedImage#getType()}.
 		 * </p>
 		 * 
-		 * @return		A thumbnail as a {@link BufferedImage}.
+		 * @return		A thumbnail as a {@link BufferedImage}.
+		 * @throws IOException					If a problem occurred during
+		 * 										the reading of the original
+		 * 										image.
+		 * @throws IllegalArgumentException		If multiple original images are
+		 * 										specified.
+		 */
+		public BufferedImage asBufferedImage() throws IOException {
+			return prepareAsBufferedImage().run();
+		}
+		
+		/**
+		 * Creates a thumbnail asynchronously, and returns a
+		 * {@link CompletableFuture} which is completed with the thumbnail as
+		 * a {@link BufferedImage}.
+		 * <p>
+		 * The thumbnail is created on the
+		 * {@link ThumbnailatorExecutors#getDefaultExecutor() default executor}.
+		 * <p>
+		 * Other than creating the thumbnail asynchronously, this method
+		 * behaves in the same manner as the {@link #asBufferedImage()} method.
+		 * 
+		 * @return		A {@link CompletableFuture} for the thumbnail.
+		 * @throws IllegalArgumentException		If multiple original images are
+		 * 										specified.
+		 * @see #asBufferedImageAsync(Executor)
+		 * @since	0.4.21
+		 */
+		public CompletableFuture<BufferedImage> asBufferedImageAsync() {
+			return asBufferedImageAsync(ThumbnailatorExecutors.getDefaultExecutor());
+		}
+		
+		/**
+		 * Creates a thumbnail asynchronously on the specified
+		 * {@link Executor}, and returns a {@link CompletableFuture} which is
+		 * completed with the thumbnail as a {@link BufferedImage}.
+		 * <p>
+		 * Reading the original image, creating the thumbnail and applying
+		 * filters are all performed on the specified {@link Executor}.
+		 * If a problem occurs while creating the thumbnail, the returned
+		 * {@link CompletableFuture} is completed exceptionally with the
+		 * exception which would have been thrown by the
+		 * {@link #asBufferedImage()} method.
+		 * <p>
+		 * Cancelling the returned {@link CompletableFuture} prevents the
+		 * thumbnail from being created if it has not started yet, and
+		 * interrupts the thread creating the thumbnail if it has.
+		 * <p>
+		 * Other than creating the thumbnail asynchronously, this method
+		 * behaves in the same manner as the {@link #asBufferedImage()} method.
+		 * 
+		 * @param executor		The {@link Executor} to create the thumbnail
+		 * 						on.
+		 * @return				A {@link CompletableFuture} for the thumbnail.
+		 * @throws NullPointerException			If the {@link Executor} is
+		 * 										{@code null}.
+		 * @throws IllegalArgumentException		If multiple original images are
+		 * 										specified.
+		 * @since	0.4.21
+		 */
+		public CompletableFuture<BufferedImage> asBufferedImageAsync(Executor executor) {
+			if (executor == null) {
+				throw new NullPointerException("Executor is null.");
+			}
+			
+			return runAsync(prepareAsBufferedImage(), executor);
+		}
+		
+		/**
+		 * Creates a thumbnail in two phases, and returns a
+		 * {@link ProgressiveThumbnail} whose preview is completed first,
+		 * followed by the thumbnail itself.
+		 * <p>
+		 * The thumbnails are created on the
+		 * {@link ThumbnailatorExecutors#getDefaultExecutor() default executor}.
+		 * 
+		 * @return		The preview and the thumbnail.
+		 * @throws IllegalArgumentException		If multiple original images are
+		 * 										specified.
+		 * @see #asBufferedImageWithPreview(Executor)
+		 * @since	0.4.21
+		 */
+		public ProgressiveThumbnail asBufferedImageWithPreview() {
+			return asBufferedImageWithPreview(ThumbnailatorExecutors.getDefaultExecutor());
+		}
+		
+		/**
+		 * Creates a thumbnail in two phases on the specified
+		 * {@link Executor}, and returns a {@link ProgressiveThumbnail} whose
+		 * preview is completed first, followed by the thumbnail itself.
+		 * <p>
+		 * This is meant for interactive uses, where showing something
+		 * quickly matters more than showing the final thumbnail. The data
+		 * of the original image is read once, and decoded twice:
+		 * <ol>
+		 * <li>The preview is decoded with the highest subsampling which
+		 * keeps it at least as large as the thumbnail, and is resized with
+		 * a {@link NearestNeighborResizer}. The other parameters, such as
+		 * filters and cropping, are the same as the thumbnail.</li>
+		 * <li>The thumbnail is then created in the same manner as the
+		 * {@link #asBufferedImage()} method.</li>
+		 * </ol>
+		 * When the original image is a {@link BufferedImage}, or the preview
+		 * could not be created, the preview is completed with the thumbnail.
+		 * The preview is never completed exceptionally unless the thumbnail
+		 * is.
+		 * <p>
+		 * Cancelling the {@link ProgressiveThumbnail#getThumbnail() thumbnail}
+		 * stops both phases, in the same manner as
+		 * {@link #asBufferedImageAsync(Executor)}.
+		 * 
+		 * @param executor		The {@link Executor} to create the thumbnails
+		 * 						on.
+		 * @return				The preview and the thumbnail.
+		 * @throws NullPointerException			If the {@link Executor} is
+		 * 										{@code null}.
+		 * @throws IllegalArgumentException		If multiple original images are
+		 * 										specified.
+		 * @since	0.4.21
+		 */
+		public ProgressiveThumbnail asBufferedImageWithPreview(Executor executor) {
+			if (executor == null) {
+				throw new NullPointerException("Executor is null.");
+			}
+			
+			checkReadiness();
+			checkNoRenditions();
+			
+			PreviewSourceTask task = new PreviewSourceTask(getSingleSource());
+			CompletableFuture<BufferedImage> thumbnail = runAsync(task, executor);
+			
+			// The preview is completed by the thumbnail, when it was not created first.
+			final CompletableFuture<BufferedImage> preview = task.preview;
+			thumbnail.whenComplete(new BiConsumer<BufferedImage, Throwable>() {
+				public void accept(BufferedImage image, Throwable failure) {
+					if (failure != null) {
+						preview.completeExceptionally(failure);
+					} else {
+						preview.complete(image);
+					}
+				}
+			});
+			
+			return new ProgressiveThumbnail(preview, thumbnail);
+		}
+		
+		/**
+		 * A unit of work which creates a preview of a thumbnail from the
+		 * data of its source, and then the thumbnail itself from the same
+		 * data.
+		 */
+		private final class PreviewSourceTask extends SourceTask<BufferedImage> {
+			/**
+			 * The source, whose data is shared by the preview and the
+			 * thumbnail.
+			 */
+			private final PrefetchingImageSource<T> source;
+			
+			/**
+			 * The task which creates the thumbnail.
+			 */
+			private final ThumbnailSourceTask<BufferedImage> task;
+			
+			/**
+			 * The parameters of the preview.
+			 */
+			private final ThumbnailParameter previewParam;
+			
+			/**
+			 * The preview, once it has been created.
+			 */
+			private final CompletableFuture<BufferedImage> preview = new CompletableFuture<BufferedImage>();
+			
+			private PreviewSourceTask(ImageSource<T> source) {
+				this.source = new PrefetchingImageSource<T>(source);
+				this.task = createBufferedImageTask(this.source);
+				this.task.prefetchingSource = this.source;
+				this.previewParam = makePreviewParam();
+			}
+			
+			public BufferedImage run() throws IOException {
+				task.fetch();
+				
+				// The preview counts toward the timeout, and stops when the thumbnail is cancelled.
+				CancellationToken previous = task.attachToken();
+				try {
+					createPreview();
+				} finally {
+					task.detachToken(previous);
+				}
+				
+				return task.run();
+			}
+			
+			/**
+			 * Creates the preview from the data of the source, if it is
+			 * available.
+			 * 
+			 * @throws CancellationException	If the thumbnail has been
+			 * 									cancelled.
+			 */
+			private void createPreview() {
+				byte[] data = source.getData();
+				if (data == null) {
+					return;
+				}
+				
+				InputStreamImageSource previewSource = new InputStreamImageSource(new ByteArrayInputStream(data));
+				previewSource.setFastDecoding(true);
+				BufferedImageSink previewSink = new BufferedImageSink();
+				
+				// A preview which could not be created is not worth failing the thumbnail for.
+				try {
+					Thumbnailator.createThumbnail(
+							new SourceSinkThumbnailTask<InputStream, BufferedImage>(previewParam, previewSource, previewSink)
+					);
+					preview.complete(previewSink.getSink());
+					
+				} catch (IOException e) {
+					// The preview is completed with the thumbnail instead.
+					
+				} catch (CancellationException e) {
+					throw e;
+					
+				} catch (RuntimeException e) {
+					// The preview is completed with the thumbnail instead.
+				}
+			}
+			
+			public void perform(PipelineStage stage) throws IOException {
+				task.perform(stage);
+			}
+			
+			public BufferedImage getResult() {
+				return task.getResult();
+			}
+		}
+		
+		/**
+		 * Returns a {@link ThumbnailParameter} for the preview of a
+		 * thumbnail, which is the same as the parameter of the thumbnail
+		 * except for its resizer.
+		 * 
+		 * @return			A {@link ThumbnailParameter} for the preview.
+		 */
+		private ThumbnailParameter makePreviewParam() {
+			ThumbnailParameter param = makeParam();
+			ResizerFactory previewResizerFactory = new FixedResizerFactory(new NearestNeighborResizer());
+			
+			if (param.getSize() != null) {
+				return new ThumbnailParameter(
+						param.getSize(),
+						param.getSourceRegion(),
+						param.isKeepAspectRatio(),
+						param.getOutputFormat(),
+						param.getOutputFormatType(),
+						param.getOutputQuality(),
+						param.getType(),
+						param.getImageFilters(),
+						previewResizerFactory,
+						param.fitWithinDimenions(),
+						param.useExifOrientation()
+				);
+			}
+			
+			return new ThumbnailParameter(
+					param.getWidthScalingFactor(),
+					param.getHeightScalingFactor(),
+					param.getSourceRegion(),
+					param.isKeepAspectRatio(),
+					param.getOutputFormat(),
+					param.getOutputFormatType(),
+					param.getOutputQuality(),
+					param.getType(),
+					param.getImageFilters(),
+					previewResizerFactory,
+					param.fitWithinDimenions(),
+					param.useExifOrientation()
+			);
+		}
+		
+		/**
+		 * Returns the only source of this builder.
+		 * 
+		 * @return		The source.
+		 * @throws IllegalArgumentException		If multiple original images are
+		 * 										specified.
+		 */
+		private ImageSource<T> getSingleSource() {
+			return getSingleSource("Cannot create one thumbnail from multiple original images.");
+		}
+		
+		/**
+		 * Returns the only source of this builder.
+		 * 
+		 * @param message		The message of the exception thrown when
+		 * 						there are multiple sources.
+		 * @return				The source.
+		 * @throws IllegalArgumentException		If multiple original images are
+		 * 										specified.
+		 */
+		private ImageSource<T> getSingleSource(String message) {
+			Iterator<ImageSource<T>> iter = sources.iterator();
+			try {
+				ImageSource<T> source = iter.next();
+				
+				if (iter.hasNext()) {
+					throw new IllegalArgumentException(message);
+				}
+				
+				return source;
+				
+			} finally {
+				closeSources(iter);
+			}
+		}
+		
+		/**
+		 * Prepares the task which creates a thumbnail as a
+		 * {@link BufferedImage}.
+		 * 
+		 * @return		The task which creates the thumbnail.
+		 */
+		private SourceTask<BufferedImage> prepareAsBufferedImage() {
+			checkReadiness();
+			checkNoRenditions();
+			
+			return createBufferedImageTask(getSingleSource());
+		}
+		
+		/**
+		 * Creates a thumbnail, and writes it into the top-left corner of the
+		 * specified image.
+		 * <p>
+		 * This method is useful when thumbnails are rendered into an image
+		 * which already exists, such as a frame of a video or a grid of
+		 * thumbnails. To write the thumbnail into a region of an image, pass
+		 * a {@link BufferedImage#getSubimage(int, int, int, int) subimage}
+		 * of the region, which shares its pixels with the image.
+		 * <p>
+		 * When no filters are applied, the original image is resized
+		 * directly into the specified image, and no image is allocated for
+		 * the thumbnail. Pixels of the specified image outside of the
+		 * thumbnail are left unchanged. The image type of the specified
+		 * image is used, and any image type set through
+		 * {@link #imageType(int)} is ignored.
+		 * <p>
+		 * To render thumbnails repeatedly with the same parameters, use
+		 * {@link ThumbnailPlan#createThumbnail(BufferedImage, BufferedImage)}
+		 * of a {@link #compile() compiled} plan instead.
+		 * 
+		 * @param destination	The image to write the thumbnail into.
+		 * @return				The dimensions of the thumbnail which was
+		 * 						written.
 		 * @throws IOException					If a problem occurred during
 		 * 										the reading of the original
 		 * 										image.
+		 * @throws NullPointerException			If the image is {@code null}.
 		 * @throws IllegalArgumentException		If multiple original images are
-		 * 										specified.
+		 * 										specified, if the thumbnail
+		 * 										does not fit within the
+		 * 										specified image, or if the
+		 * 										original image shares its
+		 * 										pixels with the specified
+		 * 										image.
+		 * @throws IllegalStateException		If the size of the thumbnail
+		 * 										has not been specified, or
+		 * 										{@link #renditions(Dimension...)}
+		 * 										has been set.
+		 * @since	0.4.21
 		 */
-		public BufferedImage asBufferedImage() throws IOException {
+		public Dimension into(BufferedImage destination) throws IOException {
+			checkForNull(destination, "Destination image cannot be null.");
 			checkReadiness();
+			checkNoRenditions();
 			
-			Iterator<ImageSource<T>> iter = sources.iterator();
-			ImageSource<T> source = iter.next();
-			
-			if (iter.hasNext()) {
-				throw new IllegalArgumentException("Cannot create one thumbnail from multiple original images.");
-			}
+			ImageSource<T> source = getSingleSource();
 			
-			BufferedImageSink destination = new BufferedImageSink();
+			ThumbnailParameter param = makeParam();
+			SourceSinkThumbnailTask<T, BufferedImage> task =
+					new SourceSinkThumbnailTask<T, BufferedImage>(param, source, new BufferedImageSink());
 			
-			Thumbnailator.createThumbnail(
-				new SourceSinkThumbnailTask<T, BufferedImage>(makeParam(), source, destination)
-			);
+			BufferedImage sourceImage = task.read();
+			try {
+				return Thumbnailator.createThumbnailInto(param, sourceImage, destination);
 				
-			return destination.getSink();
+			} finally {
+				sourceImage.flush();
+				PixelMemoryGovernor.release(sourceImage);
+			}
 		}
 		
 		/**
@@ -2389,38 +5741,19 @@ watermark(Positions.CENTER, image, opacity);
 				throw new NullPointerException("File name iterable is null.");
 			}
 			
-			List<File> destinationFiles = new ArrayList<File>();
-			
-			Iterator<File> filenameIter = iterable.iterator();
+			final Iterator<File> filenameIter = iterable.iterator();
 			
-			for (ImageSource<T> source : sources) {
-				if (!filenameIter.hasNext()) {
-					throw new IndexOutOfBoundsException(
-							"Not enough file names provided by iterator."
-					);
-				}
-				
-				ThumbnailParameter param = makeParam();
-				
-				FileImageSink destination = new FileImageSink(filenameIter.next(), allowOverwrite);
-				
-				try {
-					Thumbnailator.createThumbnail(
-							new SourceSinkThumbnailTask<T, File>(param, source, destination)
-					);
+			return writeToFiles(new FileDestinations() {
+				protected ImageSink<?> create(ImageSource<T> source, ThumbnailParameter param) {
+					if (!filenameIter.hasNext()) {
+						throw new IndexOutOfBoundsException(
+								"Not enough file names provided by iterator."
+						);
+					}
 					
-					destinationFiles.add(destination.getSink());
-
-				} catch (IllegalArgumentException e) {
-					/*
-					 * Handle the IllegalArgumentException which is thrown when
-					 * the destination file already exists by not adding the
-					 * current file to the destinationFiles list.
-					 */
+					return new FileImageSink(filenameIter.next(), allowOverwrite);
 				}
-			}
-			
-			return destinationFiles;
+			});
 		}
 		
 		/**
@@ -2517,6 +5850,20 @@ watermark(Positions.CENTER, image, opacity);
 		 * @since 	0.4.7
 		 */
 		public List<File> asFiles(File destinationDir, Rename rename) throws IOException {
+			return writeToFiles(createRenamedDestinations(destinationDir, rename));
+		}
+		
+		/**
+		 * Returns the destinations of thumbnails which are written to files
+		 * named by the given {@link Rename} function.
+		 * 
+		 * @param destinationDir	The destination directory, or
+		 * 							{@code null} if the thumbnails are written
+		 * 							to the directories of the source files.
+		 * @param rename			The rename function.
+		 * @return					The destinations.
+		 */
+		private FileDestinations createRenamedDestinations(final File destinationDir, final Rename rename) {
 			checkReadiness();
 			
 			if (rename == null) {
@@ -2527,35 +5874,231 @@ watermark(Positions.CENTER, image, opacity);
 				throw new IllegalArgumentException("Given destination is not a directory.");
 			}
 
-			List<File> destinationFiles = new ArrayList<File>();
+			FileDestinations destinations = new FileDestinations() {
+				protected ImageSink<?> create(ImageSource<T> source, ThumbnailParameter param) {
+					if (!(source.getSource() instanceof File)) {
+						throw new IllegalStateException("Cannot create thumbnails to files if original images are not from files.");
+					}
+					
+					File f = (File)source.getSource();
+					
+					File actualDestDir = destinationDir == null ? f.getParentFile() : destinationDir;
+					File destinationFile = new File(actualDestDir, rename.apply(f.getName(), param));
+					
+					return new FileImageSink(destinationFile, allowOverwrite);
+				}
+			};
 			
-			for (ImageSource<T> source : sources) {
-				if (!(source instanceof FileImageSource)) {
-					throw new IllegalStateException("Cannot create thumbnails to files if original images are not from files.");
+			// The built-in Rename functions give all sizes of a source the same name.
+			return destinations.addSizesToSameNames();
+		}
+		
+		/**
+		 * The destinations of thumbnails which are written to files.
+		 * <p>
+		 * The result of each thumbnail is the file which was written, or
+		 * {@code null} if the file was not written because it already
+		 * exists.
+		 */
+		private abstract class FileDestinations extends Destinations<File> {
+			/**
+			 * Whether the files are not returned, so that the results are
+			 * not held in memory.
+			 */
+			private boolean isResultDiscarded = false;
+			
+			/**
+			 * Whether the sizes are added to the names of the thumbnails of
+			 * a source which would be written to the same file.
+			 */
+			private boolean isSizeAddedToSameNames = false;
+			
+			protected File result(ImageSink<?> destination) {
+				return isResultDiscarded ? null : (File)destination.getSink();
+			}
+			
+			/**
+			 * Discards the results, for output methods which do not return
+			 * the files.
+			 * 
+			 * @return				This object.
+			 */
+			private FileDestinations discardResults() {
+				isResultDiscarded = true;
+				return this;
+			}
+			
+			/*
+			 * The IllegalArgumentException which is thrown when the
+			 * destination file already exists is handled by not returning
+			 * the file.
+			 */
+			@Override
+			protected boolean skipExistingDestination() {
+				return true;
+			}
+			
+			/**
+			 * Adds the sizes to the names of the files of the thumbnails of a
+			 * source which would otherwise be written to the same file, for
+			 * files named by a {@link Rename} which does not depend on the
+			 * size.
+			 * 
+			 * @return				This object.
+			 */
+			private FileDestinations addSizesToSameNames() {
+				isSizeAddedToSameNames = true;
+				return this;
+			}
+			
+			/*
+			 * Thumbnails of a source which would be written to the same file
+			 * are rejected before any of them is created.
+			 */
+			@Override
+			protected List<ImageSink<?>> createRenditions(ImageSource<T> source, List<ThumbnailParameter> params) {
+				List<ImageSink<?>> created = super.createRenditions(source, params);
+				
+				Map<File, Integer> counts = new HashMap<File, Integer>();
+				for (ImageSink<?> sink : created) {
+					File f = (File)sink.getSink();
+					counts.put(f, counts.containsKey(f) ? counts.get(f) + 1 : 1);
+				}
+				
+				Set<File> files = new HashSet<File>();
+				for (int i = 0; i < created.size(); i++) {
+					File f = (File)created.get(i).getSink();
+					if (isSizeAddedToSameNames && counts.get(f) > 1) {
+						f = appendSize(f, params.get(i).getSize());
+						created.set(i, new FileImageSink(f, allowOverwrite));
+					}
+					
+					if (!files.add(f)) {
+						throw new IllegalArgumentException(
+								"Multiple thumbnails of " + source.getSource() +
+								" would be written to the same file: " + f
+						);
+					}
+				}
+				
+				return created;
+			}
+			
+			/**
+			 * Returns the file with the given size added to its name,
+			 * before its extension.
+			 * 
+			 * @param f				The file.
+			 * @param size			The size of the thumbnail.
+			 * @return				The file with the size in its name.
+			 */
+			private File appendSize(File f, Dimension size) {
+				String name = f.getName();
+				String suffix = "-" + size.width + "x" + size.height;
+				
+				int dot = name.lastIndexOf('.');
+				if (dot > 0) {
+					name = name.substring(0, dot) + suffix + name.substring(dot);
+				} else {
+					name = name + suffix;
 				}
 				
-				ThumbnailParameter param = makeParam();
+				return new File(f.getParentFile(), name);
+			}
+			
+			@Override
+			protected String fingerprint(ThumbnailParameter param) {
+				if (!incremental || outputManifest == null) {
+					return null;
+				}
 				
-				File f = ((FileImageSource)source).getSource();
+				return parameterFingerprint(param);
+			}
+			
+			@Override
+			protected boolean isUpToDate(ImageSource<T> source, ImageSink<?> destination, String fingerprint) {
+				if (!incremental || !(source.getSource() instanceof File)) {
+					return false;
+				}
 				
-				File actualDestDir = destinationDir == null ? f.getParentFile() : destinationDir;
-				File destinationFile = new File(actualDestDir, rename.apply(f.getName(), param));
+				File sourceFile = (File)source.getSource();
+				File destinationFile = (File)destination.getSink();
 				
-				FileImageSink destination = new FileImageSink(destinationFile, allowOverwrite);
+				if (outputManifest != null) {
+					return fingerprint != null &&
+							outputManifest.isUpToDate(sourceFile, destinationFile, fingerprint);
+				}
 				
-				try {
-					Thumbnailator.createThumbnail(
-							new SourceSinkThumbnailTask<T, File>(param, source, destination)
-					);
-					
-					destinationFiles.add(destination.getSink());
-
-				} catch (IllegalArgumentException e) {
-					/*
-					 * Handle the IllegalArgumentException which is thrown when
-					 * the destination file already exists by not adding the
-					 * current file to the destinationFiles list.
-					 */
+				return destinationFile.isFile() &&
+						destinationFile.length() > 0 &&
+						destinationFile.lastModified() >= sourceFile.lastModified();
+			}
+			
+			@Override
+			protected void skipped(int count) {
+				if (incrementalStatistics != null) {
+					for (int i = 0; i < count; i++) {
+						incrementalStatistics.recordSkipped();
+					}
+				}
+			}
+			
+			@Override
+			protected void written(ImageSource<T> source, ImageSink<?> destination, String fingerprint) {
+				if (!incremental) {
+					return;
+				}
+				
+				if (incrementalStatistics != null) {
+					incrementalStatistics.recordRegenerated();
+				}
+				
+				if (outputManifest != null && source.getSource() instanceof File) {
+					if (fingerprint != null) {
+						outputManifest.record(
+								(File)source.getSource(),
+								(File)destination.getSink(),
+								fingerprint
+						);
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Creates the thumbnails and writes them to files, and returns the
+		 * files which were written.
+		 * 
+		 * @param destinations	The files to write the thumbnails to.
+		 * @return				The files which were written.
+		 * @throws IOException	If a thumbnail could not be created.
+		 */
+		private List<File> writeToFiles(FileDestinations destinations) throws IOException {
+			if (incrementalStatistics != null) {
+				incrementalStatistics.start();
+			}
+			
+			List<File> destinationFiles = new ArrayList<File>();
+			
+			boolean isCompleted = false;
+			try {
+				for (File f : createThumbnails(destinations)) {
+					if (f != null) {
+						destinationFiles.add(f);
+					}
+				}
+				isCompleted = true;
+				
+			} finally {
+				// The thumbnails which were written are recorded even when others failed.
+				if (outputManifest != null) {
+					try {
+						outputManifest.save();
+					} catch (IOException e) {
+						if (isCompleted) {
+							throw e;
+						}
+					}
 				}
 			}
 			
@@ -2625,7 +6168,7 @@ watermark(Positions.CENTER, image, opacity);
 		 * @since 	0.4.7
 		 */
 		public void toFiles(File destinationDir, Rename rename) throws IOException {
-			asFiles(destinationDir, rename);
+			writeToFiles(createRenamedDestinations(destinationDir, rename).discardResults());
 		}
 
 		/**
@@ -2652,18 +6195,124 @@ watermark(Positions.CENTER, image, opacity);
 		public void toFile(File outFile) throws IOException {
 			checkReadiness();
 			
-			Iterator<ImageSource<T>> iter = sources.iterator();
-			ImageSource<T> source = iter.next();
+			prepareToFile(new FileImageSink(outFile, allowOverwrite)).run();
+		}
+		
+		/**
+		 * Create a thumbnail asynchronously and writes it to a {@link File}.
+		 * <p>
+		 * The thumbnail is created on the
+		 * {@link ThumbnailatorExecutors#getDefaultExecutor() default executor}.
+		 * <p>
+		 * Other than creating the thumbnail asynchronously, this method
+		 * behaves in the same manner as the {@link #toFile(File)} method.
+		 * 
+		 * @param outFile			The file to which the thumbnail is to be
+		 * 							written to.
+		 * @return					A {@link CompletableFuture} which is
+		 * 							completed when the thumbnail has been
+		 * 							written.
+		 * @throws IllegalArgumentException		If multiple original image files
+		 * 										are	specified.
+		 * @see #toFileAsync(File, Executor)
+		 * @since	0.4.21
+		 */
+		public CompletableFuture<Void> toFileAsync(File outFile) {
+			return toFileAsync(outFile, ThumbnailatorExecutors.getDefaultExecutor());
+		}
+		
+		/**
+		 * Create a thumbnail asynchronously on the specified {@link Executor}
+		 * and writes it to a {@link File}.
+		 * <p>
+		 * Reading the original image, creating the thumbnail and writing the
+		 * thumbnail are all performed on the specified {@link Executor}.
+		 * If a problem occurs while creating or writing the thumbnail, the
+		 * returned {@link CompletableFuture} is completed exceptionally with
+		 * the exception which would have been thrown by the
+		 * {@link #toFile(File)} method. This includes the
+		 * {@link IllegalArgumentException} which is thrown when the
+		 * destination file exists, and overwriting files is disabled.
+		 * <p>
+		 * Cancelling the returned {@link CompletableFuture} prevents the
+		 * thumbnail from being created if it has not started yet, and
+		 * interrupts the thread creating the thumbnail if it has.
+		 * 
+		 * @param outFile			The file to which the thumbnail is to be
+		 * 							written to.
+		 * @param executor			The {@link Executor} to create the
+		 * 							thumbnail on.
+		 * @return					A {@link CompletableFuture} which is
+		 * 							completed when the thumbnail has been
+		 * 							written.
+		 * @throws NullPointerException			If the {@link Executor} is
+		 * 										{@code null}.
+		 * @throws IllegalArgumentException		If multiple original image files
+		 * 										are	specified.
+		 * @since	0.4.21
+		 */
+		public CompletableFuture<Void> toFileAsync(File outFile, Executor executor) {
+			if (executor == null) {
+				throw new NullPointerException("Executor is null.");
+			}
+			
+			checkReadiness();
+			
+			return runAsync(prepareToFile(new FileImageSink(outFile, allowOverwrite)), executor);
+		}
+		
+		/**
+		 * Prepares the task which creates a thumbnail and writes it to a
+		 * file.
+		 * 
+		 * @param destination		The destination of the thumbnail.
+		 * @return					The task which creates the thumbnail.
+		 */
+		private SourceTask<Void> prepareToFile(FileImageSink destination) {
+			checkReadiness();
+			checkNoRenditions();
+			
+			ImageSource<T> source = getSingleSource("Cannot output multiple thumbnails to one file.");
+			
+			return createOutputTask(source, destination);
+		}
+		
+		/**
+		 * Returns a task which creates a thumbnail from a single source and
+		 * writes it to the given destination.
+		 * <p>
+		 * When {@link #cache(ThumbnailCache)} has been set, or the thumbnail
+		 * may be transformed losslessly, the source is wrapped in a
+		 * {@link PrefetchingImageSource}, so that its data can be used to
+		 * look up the cache or be transformed.
+		 * 
+		 * @param source			The source of the thumbnail.
+		 * @param destination		The destination of the thumbnail.
+		 * @return					The task which creates the thumbnail.
+		 */
+		private SourceTask<Void> createOutputTask(ImageSource<T> source, ImageSink<?> destination) {
+			boolean isLossless = isLosslessOrientationApplicable(source, destination);
 			
-			if (iter.hasNext()) {
-				throw new IllegalArgumentException("Cannot output multiple thumbnails to one file.");
+			PrefetchingImageSource<T> prefetchingSource = null;
+			if (cache != null || isLossless) {
+				prefetchingSource = new PrefetchingImageSource<T>(source);
+				source = prefetchingSource;
 			}
 			
-			FileImageSink destination = new FileImageSink(outFile, allowOverwrite);
+			ImageSink<?> sink = prepareDestination(destination, isLossless);
 			
-			Thumbnailator.createThumbnail(
-					new SourceSinkThumbnailTask<T, File>(makeParam(), source, destination)
-			);
+			ThumbnailSourceTask<Void> task = new ThumbnailSourceTask<Void>(
+					createTask(makeParam(), source, sink),
+					sink
+			) {
+				protected Void result() {
+					return null;
+				}
+			};
+			task.prefetchingSource = prefetchingSource;
+			task.losslessOrientation = isLossless;
+			
+			return enableListeners(enableCancellation(enableCache(task, null)), source);
 		}
 		
 		/**
@@ -2690,18 +6339,7 @@ watermark(Positions.CENTER, image, opacity);
 		public void toFile(String outFilepath) throws IOException {
 			checkReadiness();
 			
-			Iterator<ImageSource<T>> iter = sources.iterator();
-			ImageSource<T> source = iter.next();
-			
-			if (iter.hasNext()) {
-				throw new IllegalArgumentException("Cannot output multiple thumbnails to one file.");
-			}
-			
-			FileImageSink destination = new FileImageSink(outFilepath, allowOverwrite);
-			
-			Thumbnailator.createThumbnail(
-					new SourceSinkThumbnailTask<T, File>(makeParam(), source, destination)
-			);
+			prepareToFile(new FileImageSink(outFilepath, allowOverwrite)).run();
 		}
 		
 		/**
@@ -2726,14 +6364,95 @@ watermark(Positions.CENTER, image, opacity);
 		 * 										method.
 		 */
 		public void toOutputStream(OutputStream os) throws IOException {
-			checkReadiness();
+			prepareToOutputStream(os).run();
+		}
+		
+		/**
+		 * Create a thumbnail asynchronously and writes it to a
+		 * {@link OutputStream}.
+		 * <p>
+		 * The thumbnail is created on the
+		 * {@link ThumbnailatorExecutors#getDefaultExecutor() default executor}.
+		 * <p>
+		 * Other than creating the thumbnail asynchronously, this method
+		 * behaves in the same manner as the {@link #toOutputStream(OutputStream)}
+		 * method.
+		 * 
+		 * @param os				The output stream to which the thumbnail
+		 * 							is to be written to.
+		 * @return					A {@link CompletableFuture} which is
+		 * 							completed when the thumbnail has been
+		 * 							written.
+		 * @throws IllegalArgumentException		If multiple original image files
+		 * 										are	specified.
+		 * @throws IllegalStateException		If the output format has not
+		 * 										been specified through the
+		 * 										{@link #outputFormat(String)}
+		 * 										method.
+		 * @see #toOutputStreamAsync(OutputStream, Executor)
+		 * @since	0.4.21
+		 */
+		public CompletableFuture<Void> toOutputStreamAsync(OutputStream os) {
+			return toOutputStreamAsync(os, ThumbnailatorExecutors.getDefaultExecutor());
+		}
+		
+		/**
+		 * Create a thumbnail asynchronously on the specified {@link Executor}
+		 * and writes it to a {@link OutputStream}.
+		 * <p>
+		 * Reading the original image, creating the thumbnail and writing the
+		 * thumbnail are all performed on the specified {@link Executor}.
+		 * If a problem occurs while creating or writing the thumbnail, the
+		 * returned {@link CompletableFuture} is completed exceptionally with
+		 * the exception which would have been thrown by the
+		 * {@link #toOutputStream(OutputStream)} method.
+		 * <p>
+		 * Cancelling the returned {@link CompletableFuture} prevents the
+		 * thumbnail from being created if it has not started yet, and
+		 * interrupts the thread creating the thumbnail if it has.
+		 * <p>
+		 * Note that the {@link OutputStream#close()} method will not be
+		 * called upon the completion of the thumbnail being written to the
+		 * {@link OutputStream}.
+		 * 
+		 * @param os				The output stream to which the thumbnail
+		 * 							is to be written to.
+		 * @param executor			The {@link Executor} to create the
+		 * 							thumbnail on.
+		 * @return					A {@link CompletableFuture} which is
+		 * 							completed when the thumbnail has been
+		 * 							written.
+		 * @throws NullPointerException			If the {@link Executor} is
+		 * 										{@code null}.
+		 * @throws IllegalArgumentException		If multiple original image files
+		 * 										are	specified.
+		 * @throws IllegalStateException		If the output format has not
+		 * 										been specified through the
+		 * 										{@link #outputFormat(String)}
+		 * 										method.
+		 * @since	0.4.21
+		 */
+		public CompletableFuture<Void> toOutputStreamAsync(OutputStream os, Executor executor) {
+			if (executor == null) {
+				throw new NullPointerException("Executor is null.");
+			}
 			
-			Iterator<ImageSource<T>> iter = sources.iterator();
-			ImageSource<T> source = iter.next();
+			return runAsync(prepareToOutputStream(os), executor);
+		}
+		
+		/**
+		 * Prepares the task which creates a thumbnail and writes it to an
+		 * {@link OutputStream}.
+		 * 
+		 * @param os				The output stream to which the thumbnail
+		 * 							is to be written to.
+		 * @return					The task which creates the thumbnail.
+		 */
+		private SourceTask<Void> prepareToOutputStream(OutputStream os) {
+			checkReadiness();
+			checkNoRenditions();
 			
-			if (iter.hasNext()) {
-				throw new IllegalArgumentException("Cannot output multiple thumbnails to a single OutputStream.");
-			}
+			ImageSource<T> source = getSingleSource("Cannot output multiple thumbnails to a single OutputStream.");
 			
 			/*
 			 * if the image is from a BufferedImage, then we require that the
@@ -2748,11 +6467,7 @@ watermark(Positions.CENTER, image, opacity);
 				}
 			}
 			
-			OutputStreamImageSink destination = new OutputStreamImageSink(os);
-			
-			Thumbnailator.createThumbnail(
-					new SourceSinkThumbnailTask<T, OutputStream>(makeParam(), source, destination)
-			);
+			return createOutputTask(source, new OutputStreamImageSink(os));
 		}
 		
 		/**
@@ -2781,34 +6496,36 @@ watermark(Positions.CENTER, image, opacity);
 				throw new NullPointerException("OutputStream iterable is null.");
 			}
 			
-			Iterator<? extends OutputStream> osIter = iterable.iterator();
+			final Iterator<? extends OutputStream> osIter = iterable.iterator();
 			
-			for (ImageSource<T> source : sources) {
-				/*
-				 * if the image is from a BufferedImage, then we require that the
-				 * output format be set. (or else, we can't tell what format to
-				 * output as!)
-				 */
-				if (source instanceof BufferedImageSource) {
-					if (isOutputFormatNotSet()) {
-						throw new IllegalStateException(
-								"Output format not specified."
+			createThumbnails(new Destinations<Void>() {
+				protected ImageSink<?> create(ImageSource<T> source, ThumbnailParameter param) {
+					/*
+					 * if the image is from a BufferedImage, then we require that the
+					 * output format be set. (or else, we can't tell what format to
+					 * output as!)
+					 */
+					if (source.getSource() instanceof BufferedImage) {
+						if (isOutputFormatNotSet()) {
+							throw new IllegalStateException(
+									"Output format not specified."
+							);
+						}
+					}
+					
+					if (!osIter.hasNext()) {
+						throw new IndexOutOfBoundsException(
+								"Not enough file names provided by iterator."
 						);
 					}
+					
+					return new OutputStreamImageSink(osIter.next());
 				}
 				
-				if (!osIter.hasNext()) {
-					throw new IndexOutOfBoundsException(
-							"Not enough file names provided by iterator."
-					);
+				protected Void result(ImageSink<?> destination) {
+					return null;
 				}
-				
-				OutputStreamImageSink destination = new OutputStreamImageSink(osIter.next());
-				
-				Thumbnailator.createThumbnail(
-						new SourceSinkThumbnailTask<T, OutputStream>(makeParam(), source, destination)
-				);
-			}
+			});
 		}
 	}
 }
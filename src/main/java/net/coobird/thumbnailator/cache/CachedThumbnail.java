@@ -0,0 +1,96 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An encoded thumbnail which was retrieved from a cache.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class CachedThumbnail {
+	/**
+	 * The name of the format of the thumbnail.
+	 */
+	private final String formatName;
+	
+	/**
+	 * The encoded thumbnail.
+	 */
+	private final byte[] data;
+	
+	/**
+	 * Instantiates a {@link CachedThumbnail}.
+	 * 
+	 * @param formatName	The name of the format of the thumbnail.
+	 * @param data			The encoded thumbnail.
+	 */
+	CachedThumbnail(String formatName, byte[] data) {
+		this.formatName = formatName;
+		this.data = data;
+	}
+	
+	/**
+	 * Returns the name of the format of the thumbnail, as used by the
+	 * Image I/O API.
+	 * 
+	 * @return		The name of the format.
+	 */
+	public String getFormatName() {
+		return formatName;
+	}
+	
+	/**
+	 * Returns the size of the encoded thumbnail.
+	 * 
+	 * @return		The size, in bytes.
+	 */
+	public int getSize() {
+		return data.length;
+	}
+	
+	/**
+	 * Returns the encoded thumbnail.
+	 * 
+	 * @return		A copy of the encoded thumbnail.
+	 */
+	public byte[] getData() {
+		return data.clone();
+	}
+	
+	/**
+	 * Writes the encoded thumbnail to the given {@link OutputStream}.
+	 * 
+	 * @param os			The {@link OutputStream} to write to.
+	 * @throws IOException	If the thumbnail could not be written.
+	 */
+	public void writeTo(OutputStream os) throws IOException {
+		os.write(data);
+	}
+}
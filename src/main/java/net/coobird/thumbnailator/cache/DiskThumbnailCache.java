@@ -0,0 +1,471 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.cache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import net.coobird.thumbnailator.util.Fingerprint;
+
+/**
+ * A cache of encoded thumbnails which is stored in a directory.
+ * <p>
+ * Entries are addressed by content: the key of a thumbnail is derived from
+ * a digest of the data of the source image and the fingerprint of the
+ * parameters used to create the thumbnail, by the
+ * {@link #createKey(byte[], String)} method. A thumbnail which has been
+ * created before can therefore be served from the cache without decoding
+ * the source image, regardless of where the source image came from.
+ * <p>
+ * The total size of the entries is kept within the maximum size given when
+ * the cache is opened, by evicting the least recently used entries. Each
+ * entry is first written to a temporary file and then moved into place, so
+ * an entry is either complete or absent, even if the Java virtual machine
+ * stops while it is being written. When the cache is opened, temporary files
+ * left behind are removed, and the recency of the entries is restored from
+ * the last modified times of their files.
+ * <p>
+ * This class is thread-safe. The directory should not be used by more than
+ * one instance of this class at a time.
+ * <p>
+ * The cache is used when creating thumbnails by calling the
+ * {@link net.coobird.thumbnailator.Thumbnails.Builder#cache(ThumbnailCache)}
+ * method.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class DiskThumbnailCache implements ThumbnailCache {
+	/**
+	 * The pattern of the name of an entry file, which consists of the key
+	 * and the name of the format of the thumbnail.
+	 */
+	private static final Pattern ENTRY_NAME = Pattern.compile("([0-9a-f]{64})\\.([A-Za-z0-9_-]+)");
+	
+	/**
+	 * The pattern of a key.
+	 */
+	private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+	
+	/**
+	 * The pattern of a format name which can be part of a file name.
+	 */
+	private static final Pattern FORMAT_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+	
+	/**
+	 * The suffix of temporary files which hold entries being written.
+	 */
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+	
+	/**
+	 * The directory in which the entries are stored.
+	 */
+	private final File directory;
+	
+	/**
+	 * The maximum total size of the entries, in bytes.
+	 */
+	private final long maxSize;
+	
+	/**
+	 * The entries, from the least recently used to the most recently used.
+	 * Guarded by {@code this}.
+	 */
+	private final LinkedHashMap<String, Entry> entries =
+			new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	
+	/**
+	 * The total size of the entries, in bytes. Guarded by {@code this}.
+	 */
+	private long size = 0;
+	
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+	
+	/**
+	 * Opens a cache in the given directory, creating the directory if it
+	 * does not exist.
+	 * <p>
+	 * Entries written by a previous instance are retained, unless they
+	 * exceed the maximum size.
+	 * 
+	 * @param directory		The directory in which the entries are stored.
+	 * @param maxSize		The maximum total size of the entries, in bytes.
+	 * @throws IOException	If the directory could not be created or read.
+	 * @throws NullPointerException		If the directory is {@code null}.
+	 * @throws IllegalArgumentException	If the maximum size is negative.
+	 */
+	public DiskThumbnailCache(File directory, long maxSize) throws IOException {
+		if (directory == null) {
+			throw new NullPointerException("Directory is null.");
+		}
+		if (maxSize < 0) {
+			throw new IllegalArgumentException("Maximum size cannot be negative.");
+		}
+		
+		this.directory = directory;
+		this.maxSize = maxSize;
+		
+		Files.createDirectories(directory.toPath());
+		recover();
+	}
+	
+	/**
+	 * Restores the entries from the directory, and removes the temporary
+	 * files of entries which were not completely written.
+	 * 
+	 * @throws IOException	If the directory could not be read.
+	 */
+	private void recover() throws IOException {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			throw new IOException("Could not read directory: " + directory);
+		}
+		
+		List<Entry> recovered = new ArrayList<Entry>();
+		for (File f : files) {
+			if (f.getName().endsWith(TEMPORARY_SUFFIX)) {
+				Files.deleteIfExists(f.toPath());
+				continue;
+			}
+			
+			Matcher m = ENTRY_NAME.matcher(f.getName());
+			if (m.matches() && f.isFile()) {
+				recovered.add(new Entry(m.group(1), m.group(2), f.length(), f.lastModified()));
+			}
+		}
+		
+		// The least recently used entries come first.
+		Collections.sort(recovered, new Comparator<Entry>() {
+			public int compare(Entry e1, Entry e2) {
+				return e1.lastUsed < e2.lastUsed ? -1 : (e1.lastUsed > e2.lastUsed ? 1 : 0);
+			}
+		});
+		
+		synchronized (this) {
+			for (Entry entry : recovered) {
+				entries.put(entry.key, entry);
+				size += entry.size;
+			}
+			evict();
+		}
+	}
+	
+	/**
+	 * Returns the key of a thumbnail.
+	 * 
+	 * @param sourceData	The data of the source image.
+	 * @param fingerprint	The fingerprint of the parameters used to create
+	 * 						the thumbnail, which should also identify the
+	 * 						output format.
+	 * @return				The key of the thumbnail.
+	 * @throws NullPointerException	If an argument is {@code null}.
+	 */
+	public static String createKey(byte[] sourceData, String fingerprint) {
+		if (sourceData == null) {
+			throw new NullPointerException("Source data is null.");
+		}
+		if (fingerprint == null) {
+			throw new NullPointerException("Fingerprint is null.");
+		}
+		
+		return Fingerprint.digest(Fingerprint.digest(sourceData) + ":" + fingerprint);
+	}
+	
+	/**
+	 * Returns the thumbnail cached under the given key.
+	 * 
+	 * @param key			The key of the thumbnail.
+	 * @return				The thumbnail, or {@code null} if the thumbnail
+	 * 						is not in the cache.
+	 * @throws IOException	If the entry could not be read.
+	 */
+	public CachedThumbnail get(String key) throws IOException {
+		Entry entry;
+		synchronized (this) {
+			entry = entries.get(key);
+		}
+		
+		if (entry == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		
+		File f = entry.file();
+		byte[] data;
+		try {
+			data = Files.readAllBytes(f.toPath());
+			
+		} catch (NoSuchFileException e) {
+			// The entry was evicted, or removed from outside of the cache.
+			remove(entry);
+			missCount.incrementAndGet();
+			return null;
+		}
+		
+		/*
+		 * The last modified time of the file records the recency of the
+		 * entry, so that it can be restored when the cache is opened again.
+		 */
+		long now = System.currentTimeMillis();
+		entry.lastUsed = now;
+		f.setLastModified(now);
+		
+		hitCount.incrementAndGet();
+		return new CachedThumbnail(entry.formatName, data);
+	}
+	
+	/**
+	 * Stores a thumbnail in the cache under the given key, replacing any
+	 * thumbnail already stored under the key.
+	 * <p>
+	 * The thumbnail is not stored if it is larger than the maximum size of
+	 * the cache, or if the name of its format contains characters other
+	 * than letters, digits, {@code -} and {@code _}, as the format name is
+	 * part of the name of the entry file.
+	 * 
+	 * @param key			The key of the thumbnail.
+	 * @param formatName	The name of the format of the thumbnail.
+	 * @param data			The encoded thumbnail.
+	 * @return				{@code true} if the thumbnail was stored.
+	 * @throws IOException	If the entry could not be written.
+	 * @throws NullPointerException		If an argument is {@code null}.
+	 * @throws IllegalArgumentException	If the key was not created by the
+	 * 									{@link #createKey(byte[], String)}
+	 * 									method.
+	 */
+	public boolean put(String key, String formatName, byte[] data) throws IOException {
+		if (key == null || formatName == null || data == null) {
+			throw new NullPointerException("Key, format name or data is null.");
+		}
+		if (!KEY.matcher(key).matches()) {
+			throw new IllegalArgumentException("Invalid key: " + key);
+		}
+		
+		if (data.length > maxSize || !FORMAT_NAME.matcher(formatName).matches()) {
+			return false;
+		}
+		
+		Entry entry = new Entry(key, formatName, data.length, System.currentTimeMillis());
+		
+		// Write to a temporary file, so that an entry is never partially written.
+		File tempFile = File.createTempFile(key, TEMPORARY_SUFFIX, directory);
+		try {
+			OutputStream os = new FileOutputStream(tempFile);
+			try {
+				os.write(data);
+			} finally {
+				os.close();
+			}
+			
+			try {
+				Files.move(
+						tempFile.toPath(),
+						entry.file().toPath(),
+						StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING
+				);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(
+						tempFile.toPath(),
+						entry.file().toPath(),
+						StandardCopyOption.REPLACE_EXISTING
+				);
+			}
+			
+		} finally {
+			Files.deleteIfExists(tempFile.toPath());
+		}
+		
+		synchronized (this) {
+			Entry previous = entries.put(key, entry);
+			if (previous != null) {
+				size -= previous.size;
+				if (!previous.formatName.equals(formatName)) {
+					Files.deleteIfExists(previous.file().toPath());
+				}
+			}
+			size += entry.size;
+			
+			evict();
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Does nothing, as this cache does not wait for thumbnails which are
+	 * being created.
+	 * 
+	 * @param key			The key of the thumbnail.
+	 */
+	public void release(String key) {
+	}
+	
+	/**
+	 * Returns {@code true}, as the entries of this cache are addressed by
+	 * the content of the source images.
+	 * 
+	 * @return				{@code true}.
+	 */
+	public boolean isKeyedBySourceData() {
+		return true;
+	}
+	
+	/**
+	 * Removes the least recently used entries until the total size of the
+	 * entries is within the maximum size.
+	 * 
+	 * @throws IOException	If an entry file could not be deleted.
+	 */
+	private synchronized void evict() throws IOException {
+		Iterator<Entry> iter = entries.values().iterator();
+		while (size > maxSize && iter.hasNext()) {
+			Entry entry = iter.next();
+			iter.remove();
+			size -= entry.size;
+			evictionCount.incrementAndGet();
+			
+			Files.deleteIfExists(entry.file().toPath());
+		}
+	}
+	
+	/**
+	 * Removes an entry whose file no longer exists.
+	 * 
+	 * @param entry		The entry to remove.
+	 */
+	private synchronized void remove(Entry entry) {
+		if (entries.get(entry.key) == entry) {
+			entries.remove(entry.key);
+			size -= entry.size;
+		}
+	}
+	
+	/**
+	 * Returns the number of times a thumbnail was found in the cache.
+	 * 
+	 * @return		The number of hits.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+	
+	/**
+	 * Returns the number of times a thumbnail was not found in the cache.
+	 * 
+	 * @return		The number of misses.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+	
+	/**
+	 * Returns the number of entries which were evicted to keep the cache
+	 * within its maximum size.
+	 * 
+	 * @return		The number of evictions.
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+	
+	/**
+	 * Returns the number of entries in the cache.
+	 * 
+	 * @return		The number of entries.
+	 */
+	public synchronized int getEntryCount() {
+		return entries.size();
+	}
+	
+	/**
+	 * Returns the total size of the entries in the cache.
+	 * 
+	 * @return		The total size of the entries, in bytes.
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+	
+	/**
+	 * Returns the maximum total size of the entries in the cache.
+	 * 
+	 * @return		The maximum size, in bytes.
+	 */
+	public long getMaxSize() {
+		return maxSize;
+	}
+	
+	@Override
+	public String toString() {
+		return "DiskThumbnailCache [directory=" + directory
+				+ ", entries=" + getEntryCount()
+				+ ", size=" + getSize()
+				+ ", maxSize=" + maxSize
+				+ ", hits=" + getHitCount()
+				+ ", misses=" + getMissCount()
+				+ ", evictions=" + getEvictionCount() + "]";
+	}
+	
+	/**
+	 * An entry of the cache.
+	 */
+	private final class Entry {
+		private final String key;
+		private final String formatName;
+		private final long size;
+		private volatile long lastUsed;
+		
+		private Entry(String key, String formatName, long size, long lastUsed) {
+			this.key = key;
+			this.formatName = formatName;
+			this.size = size;
+			this.lastUsed = lastUsed;
+		}
+		
+		private File file() {
+			return new File(directory, key + "." + formatName);
+		}
+	}
+}
@@ -0,0 +1,556 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.cache;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link ThumbnailCache} which stores encoded thumbnails in memory, up to
+ * a maximum total size.
+ * <p>
+ * Entries are evicted by a segmented LRU policy. A new entry is placed in a
+ * probationary segment, and is promoted to a protected segment, which takes
+ * up to 80% of the maximum size, when it is retrieved again. Entries are
+ * evicted from the probationary segment first, so that a burst of
+ * thumbnails which are only created once does not evict the thumbnails
+ * which are retrieved repeatedly.
+ * <p>
+ * Retrieving a thumbnail does not acquire a lock. Retrievals are recorded
+ * in a buffer, and are applied to the eviction order when the buffer is
+ * drained by a thread which is able to acquire the lock without waiting,
+ * or by the next thread which stores a thumbnail. When the buffer is full,
+ * further retrievals are not recorded until it is drained.
+ * <p>
+ * When a thumbnail is not found, the caller of {@link #get(String)} is
+ * expected to create it and call {@link #put(String, String, byte[])} or
+ * {@link #release(String)}. Until then, other callers of {@link #get(String)}
+ * for the same key wait, so that a thumbnail is only created once when it
+ * is requested by many threads at the same time. As the caller which is
+ * creating a thumbnail may be abandoned without calling either method,
+ * the other callers only wait for a limited time, after which one of them
+ * is expected to create the thumbnail in its place.
+ * <p>
+ * As thumbnails are retrieved without reading their source images, the
+ * thumbnails of files are keyed by the path, size and last modified time
+ * of the file, as described in {@link #isKeyedBySourceData()}.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class MemoryThumbnailCache implements ThumbnailCache {
+	/**
+	 * The percentage of the maximum size which may be taken by the
+	 * protected segment.
+	 */
+	private static final int PROTECTED_PERCENTAGE = 80;
+	
+	/**
+	 * The number of recorded retrievals at which a retrieving thread
+	 * attempts to drain the buffer.
+	 */
+	private static final int DRAIN_THRESHOLD = 32;
+	
+	/**
+	 * The maximum number of recorded retrievals in the buffer.
+	 */
+	private static final int MAX_BUFFERED_READS = 1024;
+	
+	/**
+	 * The default time in seconds for which a caller waits for a thumbnail
+	 * being created by another caller.
+	 */
+	private static final long DEFAULT_LOAD_TIMEOUT_SECONDS = 60;
+	
+	/**
+	 * The maximum total size of the entries.
+	 */
+	private final long maxSize;
+	
+	/**
+	 * The maximum total size of the entries in the protected segment.
+	 */
+	private final long maxProtectedSize;
+	
+	/**
+	 * The time in nanoseconds for which a caller waits for a thumbnail
+	 * being created by another caller.
+	 */
+	private final long loadTimeoutNanos;
+	
+	/**
+	 * The entries, by their keys.
+	 */
+	private final ConcurrentMap<String, Node> entries =
+			new ConcurrentHashMap<String, Node>();
+	
+	/**
+	 * Latches of the keys whose thumbnails are being created, which are
+	 * released when the thumbnail has been stored or given up.
+	 */
+	private final ConcurrentMap<String, CountDownLatch> loading =
+			new ConcurrentHashMap<String, CountDownLatch>();
+	
+	/**
+	 * The entries which were retrieved, and have not yet been applied to
+	 * the eviction order.
+	 */
+	private final Queue<Node> readBuffer = new ConcurrentLinkedQueue<Node>();
+	
+	/**
+	 * The number of entries in the {@link #readBuffer}.
+	 */
+	private final AtomicInteger bufferedReads = new AtomicInteger();
+	
+	/**
+	 * The lock which guards the segments and the sizes.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+	
+	/**
+	 * The probationary segment, from least to most recently used.
+	 */
+	private final Node probation = Node.createHead();
+	
+	/**
+	 * The protected segment, from least to most recently used.
+	 */
+	private final Node protectedSegment = Node.createHead();
+	
+	/**
+	 * The total size of the entries.
+	 */
+	private long size;
+	
+	/**
+	 * The total size of the entries in the protected segment.
+	 */
+	private long protectedSize;
+	
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+	
+	/**
+	 * Creates a {@link MemoryThumbnailCache}.
+	 * <p>
+	 * A caller waits for up to 60 seconds for a thumbnail being created by
+	 * another caller.
+	 * 
+	 * @param maxSize		The maximum total size of the thumbnails stored in
+	 * 						the cache, in bytes.
+	 * @throws IllegalArgumentException	If the maximum size is negative.
+	 */
+	public MemoryThumbnailCache(long maxSize) {
+		this(maxSize, DEFAULT_LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+	}
+	
+	/**
+	 * Creates a {@link MemoryThumbnailCache} whose callers wait for up to
+	 * the given time for a thumbnail being created by another caller.
+	 * 
+	 * @param maxSize		The maximum total size of the thumbnails stored in
+	 * 						the cache, in bytes.
+	 * @param loadTimeout	The time for which a caller waits for a
+	 * 						thumbnail being created by another caller,
+	 * 						before creating it itself.
+	 * @param unit			The unit of the time.
+	 * @throws IllegalArgumentException	If the maximum size or the time is
+	 * 									negative.
+	 * @throws NullPointerException		If the unit is {@code null}.
+	 */
+	public MemoryThumbnailCache(long maxSize, long loadTimeout, TimeUnit unit) {
+		if (maxSize < 0) {
+			throw new IllegalArgumentException("Maximum size is negative.");
+		}
+		if (loadTimeout < 0) {
+			throw new IllegalArgumentException("Load timeout is negative.");
+		}
+		if (unit == null) {
+			throw new NullPointerException("Unit is null.");
+		}
+		
+		this.maxSize = maxSize;
+		this.loadTimeoutNanos = unit.toNanos(loadTimeout);
+		this.maxProtectedSize = maxSize / 100 * PROTECTED_PERCENTAGE
+				+ maxSize % 100 * PROTECTED_PERCENTAGE / 100;
+	}
+	
+	/**
+	 * Returns the thumbnail cached under the given key.
+	 * <p>
+	 * When the thumbnail is not found, and it is not being created by
+	 * another caller, {@code null} is returned, and the caller is expected
+	 * to create the thumbnail. When it is being created by another caller,
+	 * this method waits until that caller has stored it or given it up.
+	 * If that does not happen within the load timeout, the other caller is
+	 * assumed to have been abandoned, and the thumbnail is treated as not
+	 * found.
+	 * 
+	 * @param key			The key of the thumbnail.
+	 * @return				The thumbnail, or {@code null} if the thumbnail
+	 * 						is not in the cache.
+	 * @throws IOException	If the current thread was interrupted while
+	 * 						waiting for the thumbnail to be created.
+	 * @throws NullPointerException	If the key is {@code null}.
+	 */
+	public CachedThumbnail get(String key) throws IOException {
+		if (key == null) {
+			throw new NullPointerException("Key is null.");
+		}
+		
+		while (true) {
+			Node node = entries.get(key);
+			if (node != null) {
+				return hit(node);
+			}
+			
+			CountDownLatch latch = new CountDownLatch(1);
+			CountDownLatch existing = loading.putIfAbsent(key, latch);
+			if (existing == null) {
+				// The thumbnail may have been stored since it was looked up.
+				node = entries.get(key);
+				if (node != null) {
+					release(key);
+					return hit(node);
+				}
+				
+				missCount.incrementAndGet();
+				return null;
+			}
+			
+			try {
+				if (!existing.await(loadTimeoutNanos, TimeUnit.NANOSECONDS)) {
+					// The caller creating the thumbnail is taken to be abandoned.
+					if (loading.remove(key, existing)) {
+						existing.countDown();
+					}
+				}
+				
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException(
+						"Interrupted while waiting for a thumbnail to be created."
+				);
+			}
+		}
+	}
+	
+	/**
+	 * Records the retrieval of an entry.
+	 * 
+	 * @param node			The entry.
+	 * @return				The thumbnail of the entry.
+	 */
+	private CachedThumbnail hit(Node node) {
+		if (bufferedReads.get() < MAX_BUFFERED_READS) {
+			readBuffer.offer(node);
+			if (bufferedReads.incrementAndGet() >= DRAIN_THRESHOLD && lock.tryLock()) {
+				try {
+					drainReadBuffer();
+				} finally {
+					lock.unlock();
+				}
+			}
+		}
+		
+		hitCount.incrementAndGet();
+		return new CachedThumbnail(node.formatName, node.data);
+	}
+	
+	/**
+	 * Stores a thumbnail in the cache under the given key, replacing any
+	 * thumbnail already stored under the key, and releases the callers
+	 * which are waiting for the thumbnail.
+	 * <p>
+	 * The thumbnail is not stored if it is larger than the maximum size of
+	 * the cache.
+	 * 
+	 * @param key			The key of the thumbnail.
+	 * @param formatName	The name of the format of the thumbnail.
+	 * @param data			The encoded thumbnail.
+	 * @return				{@code true} if the thumbnail was stored.
+	 * @throws NullPointerException		If an argument is {@code null}.
+	 */
+	public boolean put(String key, String formatName, byte[] data) {
+		if (key == null || formatName == null || data == null) {
+			throw new NullPointerException("Key, format name or data is null.");
+		}
+		
+		try {
+			if (data.length > maxSize) {
+				return false;
+			}
+			
+			Node node = new Node(key, formatName, data.clone());
+			
+			lock.lock();
+			try {
+				drainReadBuffer();
+				
+				Node previous = entries.put(key, node);
+				if (previous != null) {
+					unlink(previous);
+					size -= previous.data.length;
+					if (previous.isProtected) {
+						protectedSize -= previous.data.length;
+					}
+				}
+				
+				link(probation, node);
+				size += node.data.length;
+				
+				evict();
+				
+			} finally {
+				lock.unlock();
+			}
+			
+			return true;
+			
+		} finally {
+			release(key);
+		}
+	}
+	
+	/**
+	 * Releases the callers which are waiting for the thumbnail of the given
+	 * key, which will not be stored by the caller that did not find it.
+	 * One of the waiting callers will then be expected to create it.
+	 * 
+	 * @param key			The key of the thumbnail.
+	 */
+	public void release(String key) {
+		CountDownLatch latch = loading.remove(key);
+		if (latch != null) {
+			latch.countDown();
+		}
+	}
+	
+	/**
+	 * Returns {@code false}, so that thumbnails can be found without
+	 * reading their source images. Thumbnails are keyed by the data of the
+	 * source image only when the source has no other identity, as with an
+	 * {@link java.io.InputStream}.
+	 * 
+	 * @return				{@code false}.
+	 */
+	public boolean isKeyedBySourceData() {
+		return false;
+	}
+	
+	/**
+	 * Applies the recorded retrievals to the eviction order.
+	 * <p>
+	 * Must be called while holding the {@link #lock}.
+	 */
+	private void drainReadBuffer() {
+		Node node;
+		while ((node = readBuffer.poll()) != null) {
+			bufferedReads.decrementAndGet();
+			
+			// The entry may have been evicted or replaced since it was retrieved.
+			if (node.prev == null) {
+				continue;
+			}
+			
+			unlink(node);
+			if (node.isProtected) {
+				link(protectedSegment, node);
+				continue;
+			}
+			
+			node.isProtected = true;
+			link(protectedSegment, node);
+			protectedSize += node.data.length;
+			
+			// Demote the least recently used entries of the protected segment.
+			while (protectedSize > maxProtectedSize) {
+				Node demoted = protectedSegment.next;
+				unlink(demoted);
+				protectedSize -= demoted.data.length;
+				demoted.isProtected = false;
+				link(probation, demoted);
+			}
+		}
+	}
+	
+	/**
+	 * Removes entries until the total size of the entries is within the
+	 * maximum size, starting from the least recently used entries of the
+	 * probationary segment.
+	 * <p>
+	 * Must be called while holding the {@link #lock}.
+	 */
+	private void evict() {
+		while (size > maxSize) {
+			Node victim = probation.next != probation ? probation.next : protectedSegment.next;
+			
+			entries.remove(victim.key, victim);
+			unlink(victim);
+			size -= victim.data.length;
+			if (victim.isProtected) {
+				protectedSize -= victim.data.length;
+			}
+			evictionCount.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * Adds an entry as the most recently used entry of a segment.
+	 * 
+	 * @param head			The head of the segment.
+	 * @param node			The entry.
+	 */
+	private static void link(Node head, Node node) {
+		node.prev = head.prev;
+		node.next = head;
+		head.prev.next = node;
+		head.prev = node;
+	}
+	
+	/**
+	 * Removes an entry from its segment, without changing the sizes.
+	 * 
+	 * @param node			The entry.
+	 */
+	private static void unlink(Node node) {
+		node.prev.next = node.next;
+		node.next.prev = node.prev;
+		node.prev = null;
+		node.next = null;
+	}
+	
+	/**
+	 * Returns the number of times a thumbnail was found in the cache.
+	 * 
+	 * @return		The number of hits.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+	
+	/**
+	 * Returns the number of times a thumbnail was not found in the cache.
+	 * 
+	 * @return		The number of misses.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+	
+	/**
+	 * Returns the number of entries which were evicted to keep the cache
+	 * within its maximum size.
+	 * 
+	 * @return		The number of evictions.
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+	
+	/**
+	 * Returns the number of entries in the cache.
+	 * 
+	 * @return		The number of entries.
+	 */
+	public int getEntryCount() {
+		return entries.size();
+	}
+	
+	/**
+	 * Returns the total size of the entries in the cache.
+	 * 
+	 * @return		The total size of the entries, in bytes.
+	 */
+	public long getSize() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the maximum total size of the entries in the cache.
+	 * 
+	 * @return		The maximum size, in bytes.
+	 */
+	public long getMaxSize() {
+		return maxSize;
+	}
+	
+	@Override
+	public String toString() {
+		return "MemoryThumbnailCache [entries=" + getEntryCount()
+				+ ", size=" + getSize()
+				+ ", maxSize=" + maxSize
+				+ ", hits=" + getHitCount()
+				+ ", misses=" + getMissCount()
+				+ ", evictions=" + getEvictionCount() + "]";
+	}
+	
+	/**
+	 * An entry of the cache, which is linked into one of the segments.
+	 * The links are guarded by the {@link MemoryThumbnailCache#lock}.
+	 */
+	private static final class Node {
+		private final String key;
+		private final String formatName;
+		private final byte[] data;
+		private boolean isProtected;
+		private Node prev;
+		private Node next;
+		
+		private Node(String key, String formatName, byte[] data) {
+			this.key = key;
+			this.formatName = formatName;
+			this.data = data;
+		}
+		
+		/**
+		 * Returns the head of an empty segment.
+		 * 
+		 * @return		The head of the segment.
+		 */
+		private static Node createHead() {
+			Node head = new Node(null, null, null);
+			head.prev = head;
+			head.next = head;
+			return head;
+		}
+	}
+}
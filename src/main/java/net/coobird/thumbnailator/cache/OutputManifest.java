@@ -0,0 +1,209 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.cache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.coobird.thumbnailator.util.Fingerprint;
+
+/**
+ * A record of the thumbnail files which have been written, which is used to
+ * determine whether a thumbnail file is up to date when thumbnails are
+ * created incrementally by calling the
+ * {@link net.coobird.thumbnailator.Thumbnails.Builder#incremental(OutputManifest)}
+ * method.
+ * <p>
+ * For each thumbnail file, the manifest records the fingerprint of the
+ * parameters used to create it, and the size and last modified time of both
+ * the source file and the thumbnail file. A thumbnail file is up to date
+ * when none of them have changed, so that a thumbnail is created again when
+ * its source file is replaced, even by an older file, or when the
+ * parameters have changed.
+ * <p>
+ * The manifest is stored in a file, which is read when the manifest is
+ * created, and written by the {@link #save()} method.
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class OutputManifest {
+	/**
+	 * The file in which the manifest is stored.
+	 */
+	private final File file;
+	
+	/**
+	 * The records of the thumbnail files, by their absolute paths.
+	 */
+	private final Map<String, String> records = new ConcurrentHashMap<String, String>();
+	
+	/**
+	 * Creates an {@link OutputManifest} which is stored in the given file.
+	 * The records are read from the file when it exists.
+	 * 
+	 * @param file			The file in which the manifest is stored.
+	 * @throws IOException	If the file could not be read.
+	 * @throws NullPointerException	If the file is {@code null}.
+	 */
+	public OutputManifest(File file) throws IOException {
+		if (file == null) {
+			throw new NullPointerException("File is null.");
+		}
+		
+		this.file = file;
+		
+		if (file.exists()) {
+			Properties properties = new Properties();
+			InputStream is = new FileInputStream(file);
+			try {
+				properties.load(is);
+			} finally {
+				is.close();
+			}
+			
+			for (String path : properties.stringPropertyNames()) {
+				records.put(path, properties.getProperty(path));
+			}
+		}
+	}
+	
+	/**
+	 * Returns whether the given thumbnail file is up to date with its source
+	 * file and the parameters used to create it.
+	 * 
+	 * @param source		The source file of the thumbnail.
+	 * @param destination	The thumbnail file.
+	 * @param fingerprint	The fingerprint of the parameters used to create
+	 * 						the thumbnail.
+	 * @return				{@code true} if the thumbnail file is up to date.
+	 */
+	public boolean isUpToDate(File source, File destination, String fingerprint) {
+		String recorded = records.get(destination.getAbsolutePath());
+		return recorded != null
+				&& destination.isFile()
+				&& recorded.equals(createRecord(source, destination, fingerprint));
+	}
+	
+	/**
+	 * Records that the given thumbnail file has been written.
+	 * 
+	 * @param source		The source file of the thumbnail.
+	 * @param destination	The thumbnail file.
+	 * @param fingerprint	The fingerprint of the parameters used to create
+	 * 						the thumbnail.
+	 */
+	public void record(File source, File destination, String fingerprint) {
+		records.put(
+				destination.getAbsolutePath(),
+				createRecord(source, destination, fingerprint)
+		);
+	}
+	
+	/**
+	 * Returns the record of a thumbnail file.
+	 * 
+	 * @param source		The source file of the thumbnail.
+	 * @param destination	The thumbnail file.
+	 * @param fingerprint	The fingerprint of the parameters.
+	 * @return				The record.
+	 */
+	private static String createRecord(File source, File destination, String fingerprint) {
+		return Fingerprint.digest(fingerprint)
+				+ " " + source.length()
+				+ " " + source.lastModified()
+				+ " " + destination.length()
+				+ " " + destination.lastModified();
+	}
+	
+	/**
+	 * Writes the manifest to its file.
+	 * <p>
+	 * The manifest is written to a temporary file first, so that the file
+	 * of the manifest is never partially written.
+	 * 
+	 * @throws IOException	If the file could not be written.
+	 */
+	public synchronized void save() throws IOException {
+		Properties properties = new Properties();
+		properties.putAll(records);
+		
+		File dir = file.getAbsoluteFile().getParentFile();
+		File tempFile = File.createTempFile(file.getName() + "-", ".tmp", dir);
+		try {
+			OutputStream os = new FileOutputStream(tempFile);
+			try {
+				properties.store(os, "Thumbnailator output manifest");
+			} finally {
+				os.close();
+			}
+			
+			try {
+				Files.move(
+						tempFile.toPath(),
+						file.toPath(),
+						StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING
+				);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(
+						tempFile.toPath(),
+						file.toPath(),
+						StandardCopyOption.REPLACE_EXISTING
+				);
+			}
+			
+		} finally {
+			Files.deleteIfExists(tempFile.toPath());
+		}
+	}
+	
+	/**
+	 * Returns the number of thumbnail files in the manifest.
+	 * 
+	 * @return				The number of thumbnail files.
+	 */
+	public int size() {
+		return records.size();
+	}
+	
+	@Override
+	public String toString() {
+		return "OutputManifest [file=" + file + ", size=" + size() + "]";
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.cache;
+
+import java.io.IOException;
+
+/**
+ * A cache of encoded thumbnails, which is used when creating thumbnails by
+ * calling the
+ * {@link net.coobird.thumbnailator.Thumbnails.Builder#cache(ThumbnailCache)}
+ * method.
+ * <p>
+ * When {@link #get(String)} does not find a thumbnail, the caller is expected
+ * to create the thumbnail, and then either store it by calling
+ * {@link #put(String, String, byte[])}, or give up by calling
+ * {@link #release(String)}. A cache may use this to have concurrent callers
+ * which look up the same thumbnail wait for the first caller, rather than
+ * creating the same thumbnail more than once.
+ * <p>
+ * Implementations must be thread-safe.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public interface ThumbnailCache {
+	/**
+	 * Returns the thumbnail cached under the given key.
+	 * 
+	 * @param key			The key of the thumbnail.
+	 * @return				The thumbnail, or {@code null} if the thumbnail
+	 * 						is not in the cache.
+	 * @throws IOException	If the cache could not be read, or the current
+	 * 						thread was interrupted while waiting for another
+	 * 						caller to create the thumbnail.
+	 */
+	public CachedThumbnail get(String key) throws IOException;
+	
+	/**
+	 * Stores a thumbnail in the cache under the given key.
+	 * <p>
+	 * Callers which are waiting for the thumbnail are released, as with
+	 * {@link #release(String)}, whether or not the thumbnail was stored.
+	 * 
+	 * @param key			The key of the thumbnail, which is a hexadecimal
+	 * 						SHA-256 digest.
+	 * @param formatName	The name of the format of the thumbnail.
+	 * @param data			The encoded thumbnail.
+	 * @return				{@code true} if the thumbnail was stored.
+	 * @throws IOException	If the cache could not be written.
+	 */
+	public boolean put(String key, String formatName, byte[] data) throws IOException;
+	
+	/**
+	 * Indicates that the thumbnail which was not found by {@link #get(String)}
+	 * will not be stored, for example, because it could not be created.
+	 * 
+	 * @param key			The key of the thumbnail.
+	 */
+	public void release(String key);
+	
+	/**
+	 * Returns whether thumbnails should be keyed by the data of the source
+	 * image, rather than by the identity of the source, such as the path
+	 * and last modified time of a file.
+	 * <p>
+	 * Keying by data allows thumbnails to be shared between sources with
+	 * the same content, while keying by identity allows thumbnails to be
+	 * found without reading the source.
+	 * 
+	 * @return				{@code true} if thumbnails should be keyed by
+	 * 						the data of the source image.
+	 */
+	public boolean isKeyedBySourceData();
+}
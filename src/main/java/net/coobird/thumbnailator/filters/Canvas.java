@@ -31,6 +31,8 @@ import java.awt.image.BufferedImage;
 
 import net.coobird.thumbnailator.builders.BufferedImageBuilder;
 import net.coobird.thumbnailator.geometry.Position;
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
 
 /**
  * An {@link ImageFilter} which will enclose an image into a specified
@@ -48,7 +50,7 @@ import net.coobird.thumbnailator.geometry.Position;
  * @since 0.3.2
  *
  */
-public class Canvas implements ImageFilter {
+public class Canvas implements ImageFilter, Fingerprintable {
 	/**
 	 * The width of the enclosing image.
 	 */
@@ -198,4 +200,20 @@ public class Canvas implements ImageFilter {
 		
 		return finalImage;
 	}
+	
+	/**
+	 * Returns the fingerprint of this filter.
+	 * 
+	 * @return		The fingerprint of this filter.
+	 * @since	0.4.21
+	 */
+	public String getFingerprint() {
+		return new Fingerprint(getClass().getName())
+				.add("width", width)
+				.add("height", height)
+				.add("position", position)
+				.add("fillColor", fillColor)
+				.add("crop", crop)
+				.toString();
+	}
 }
@@ -28,19 +28,32 @@ import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
+import java.awt.FontMetrics;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
 import java.awt.image.BufferedImage;
 
+import net.coobird.thumbnailator.builders.BufferedImageBuilder;
 import net.coobird.thumbnailator.geometry.Position;
 import net.coobird.thumbnailator.util.BufferedImages;
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
 
 /**
  * An {@link ImageFilter} which will overlay a text caption to an image.
+ * <p>
+ * The text of the caption is laid out and rasterized only once for a given
+ * font rendering context, and the resulting image is reused for all
+ * subsequent images the caption is applied to. This avoids repeating the
+ * text layout and glyph rasterization when the same caption is applied to
+ * many images.
  * 
  * @author coobird
  *
  */
-public class Caption implements ImageFilter {
+public class Caption implements ImageFilter, Fingerprintable {
 	/**
 	 * The text of the caption.
 	 */
@@ -75,6 +88,62 @@ public class Caption implements ImageFilter {
 	 */
 	private final int insets;
 	
+	/**
+	 * The most recently rendered caption.
+	 * <p>
+	 * This is {@code null} until the caption has been rendered for the first
+	 * time.
+	 */
+	private volatile RenderedCaption renderedCaption;
+	
+	/**
+	 * A pre-rendered caption text, along with the metrics that are needed
+	 * to position it on an image.
+	 */
+	private static final class RenderedCaption {
+		/**
+		 * The font rendering context which the caption was rendered with.
+		 */
+		private final FontRenderContext frc;
+		
+		/**
+		 * The rendered text, or {@code null} if the text has no visible
+		 * pixels.
+		 */
+		private final BufferedImage image;
+		
+		/**
+		 * The advance width of the text.
+		 */
+		private final int width;
+		
+		/**
+		 * The height of a line of text in the font.
+		 */
+		private final int height;
+		
+		/**
+		 * The offset from the origin of the text to the top-left corner
+		 * of {@link #image}.
+		 */
+		private final int offsetX;
+		
+		/**
+		 * The offset from the baseline of the text to the top-left corner
+		 * of {@link #image}.
+		 */
+		private final int offsetY;
+		
+		private RenderedCaption(FontRenderContext frc, BufferedImage image, int width, int height, int offsetX, int offsetY) {
+			this.frc = frc;
+			this.image = image;
+			this.width = width;
+			this.height = height;
+			this.offsetX = offsetX;
+			this.offsetY = offsetY;
+		}
+	}
+	
 	/**
 	 * Instantiates a filter which adds a text caption to an image.
 	 * 
@@ -138,16 +207,14 @@ public class Caption implements ImageFilter {
 		
 		Graphics2D g = newImage.createGraphics();
 		g.setFont(font);
-		g.setColor(c);
-		g.setComposite(
-				AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha)
-		);
+		
+		RenderedCaption rendered = getRenderedCaption(g);
 		
 		int imageWidth = img.getWidth();
 		int imageHeight = img.getHeight();
 		
-		int captionWidth = g.getFontMetrics().stringWidth(caption);
-		int captionHeight = g.getFontMetrics().getHeight() / 2;
+		int captionWidth = rendered.width;
+		int captionHeight = rendered.height / 2;
 		
 		Point p = position.calculate(
 				imageWidth,	imageHeight, captionWidth, 0,
@@ -157,10 +224,87 @@ public class Caption implements ImageFilter {
 		double yRatio = p.y / (double)img.getHeight();
 		int yOffset = (int)((1.0 - yRatio) * captionHeight);
 		
-		g.drawString(caption, p.x, p.y + yOffset);
+		if (rendered.image != null) {
+			g.setComposite(
+					AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha)
+			);
+			g.drawImage(
+					rendered.image,
+					p.x + rendered.offsetX,
+					p.y + yOffset + rendered.offsetY,
+					null
+			);
+		}
 		
 		g.dispose();
 		
 		return newImage;
 	}
+	
+	/**
+	 * Returns the caption rendered for the font rendering context of the
+	 * specified {@link Graphics2D}, rendering the caption if a suitable one
+	 * has not been rendered yet.
+	 * 
+	 * @param g			The {@link Graphics2D} the caption will be drawn on,
+	 * 					with the font of the caption already set.
+	 * @return			The rendered caption.
+	 */
+	private RenderedCaption getRenderedCaption(Graphics2D g) {
+		FontRenderContext frc = g.getFontRenderContext();
+		
+		RenderedCaption rendered = renderedCaption;
+		if (rendered != null && rendered.frc.equals(frc)) {
+			return rendered;
+		}
+		
+		FontMetrics metrics = g.getFontMetrics();
+		GlyphVector gv = font.createGlyphVector(frc, caption);
+		Rectangle bounds = gv.getPixelBounds(frc, 0, 0);
+		
+		BufferedImage image = null;
+		if (bounds.width > 0 && bounds.height > 0) {
+			image = new BufferedImageBuilder(
+					bounds.width,
+					bounds.height,
+					BufferedImage.TYPE_INT_ARGB
+			).build();
+			
+			Graphics2D imageGraphics = image.createGraphics();
+			imageGraphics.setRenderingHints(g.getRenderingHints());
+			imageGraphics.setFont(font);
+			imageGraphics.setColor(c);
+			imageGraphics.drawString(caption, -bounds.x, -bounds.y);
+			imageGraphics.dispose();
+		}
+		
+		rendered = new RenderedCaption(
+				frc,
+				image,
+				metrics.stringWidth(caption),
+				metrics.getHeight(),
+				bounds.x,
+				bounds.y
+		);
+		renderedCaption = rendered;
+		
+		return rendered;
+	}
+	
+	/**
+	 * Returns the fingerprint of this filter.
+	 * 
+	 * @return		The fingerprint of this filter.
+	 * @since	0.4.21
+	 */
+	public String getFingerprint() {
+		return new Fingerprint(getClass().getName())
+				.add("caption", caption)
+				.add("font", font)
+				.add("color", c)
+				.add("alpha", alpha)
+				.add("position", position)
+				.add("insets", insets)
+				.toString();
+	}
 }
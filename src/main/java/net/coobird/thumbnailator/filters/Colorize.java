@@ -30,6 +30,8 @@ import java.awt.image.BufferedImage;
 
 import net.coobird.thumbnailator.builders.BufferedImageBuilder;
 import net.coobird.thumbnailator.util.BufferedImages;
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
 
 /**
  * An image filter which will add a color tint to an image.
@@ -37,7 +39,7 @@ import net.coobird.thumbnailator.util.BufferedImages;
  * @author coobird
  *
  */
-public final class Colorize implements ImageFilter {
+public final class Colorize implements ImageFilter, Fingerprintable {
 	/**
 	 * The color to tint a target image with.
 	 */
@@ -112,4 +114,16 @@ public final class Colorize implements ImageFilter {
 
 		return newImage;
 	}
+	
+	/**
+	 * Returns the fingerprint of this filter.
+	 * 
+	 * @return		The fingerprint of this filter.
+	 * @since	0.4.21
+	 */
+	public String getFingerprint() {
+		return new Fingerprint(getClass().getName())
+				.add("color", c)
+				.toString();
+	}
 }
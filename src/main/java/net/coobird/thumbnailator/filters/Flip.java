@@ -28,6 +28,8 @@ import java.awt.Graphics;
 import java.awt.image.BufferedImage;
 
 import net.coobird.thumbnailator.builders.BufferedImageBuilder;
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
 
 /**
  * A class containing flip transformation filters.
@@ -37,10 +39,30 @@ import net.coobird.thumbnailator.builders.BufferedImageBuilder;
  */
 public class Flip {
 	
+	/**
+	 * A flip filter, which is identified by its direction.
+	 */
+	private abstract static class FlipFilter implements ImageFilter, Fingerprintable {
+		/**
+		 * The direction of the flip.
+		 */
+		private final String direction;
+		
+		private FlipFilter(String direction) {
+			this.direction = direction;
+		}
+		
+		public String getFingerprint() {
+			return new Fingerprint(Flip.class.getName())
+					.add("direction", direction)
+					.toString();
+		}
+	}
+	
 	/**
 	 * An image filter which performs a horizontal flip of the image.
 	 */
-	public static final ImageFilter HORIZONTAL = new ImageFilter() {
+	public static final ImageFilter HORIZONTAL = new FlipFilter("horizontal") {
 		public BufferedImage apply(BufferedImage img) {
 			int width = img.getWidth();
 			int height = img.getHeight();
@@ -59,7 +81,7 @@ public class Flip {
 	/**
 	 * An image filter which performs a vertical flip of the image.
 	 */
-	public static final ImageFilter VERTICAL = new ImageFilter() {
+	public static final ImageFilter VERTICAL = new FlipFilter("vertical") {
 		public BufferedImage apply(BufferedImage img) {
 			int width = img.getWidth();
 			int height = img.getHeight();
@@ -31,6 +31,9 @@ import java.util.Collections;
 import java.util.List;
 
 import net.coobird.thumbnailator.util.BufferedImages;
+import net.coobird.thumbnailator.util.CancellationToken;
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
 
 /**
  * An {@link ImageFilter} which will apply multiple {@link ImageFilter}s in a
@@ -39,7 +42,7 @@ import net.coobird.thumbnailator.util.BufferedImages;
  * @author coobird
  *
  */
-public final class Pipeline implements ImageFilter {
+public final class Pipeline implements ImageFilter, Fingerprintable {
 	/**
 	 * A list of image filters to apply.
 	 */
@@ -149,9 +152,23 @@ public final class Pipeline implements ImageFilter {
 		BufferedImage image = BufferedImages.copy(img);
 		
 		for (ImageFilter filter : filtersToApply) {
+			// Stops between the filters once the current thumbnail has been cancelled.
+			CancellationToken.checkCurrent();
 			image = filter.apply(image);
 		}
 		
 		return image;
 	}
+	
+	/**
+	 * Returns the fingerprint of this filter.
+	 * 
+	 * @return		The fingerprint of this filter.
+	 * @since	0.4.21
+	 */
+	public String getFingerprint() {
+		return new Fingerprint(getClass().getName())
+				.add("filters", filtersToApply)
+				.toString();
+	}
 }
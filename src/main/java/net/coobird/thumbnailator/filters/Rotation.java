@@ -30,6 +30,8 @@ import java.awt.image.BufferedImage;
 
 import net.coobird.thumbnailator.builders.BufferedImageBuilder;
 import net.coobird.thumbnailator.util.BufferedImages;
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
 
 /**
  * A class containing rotation filters.
@@ -56,7 +58,7 @@ public class Rotation {
 	 * @author coobird
 	 *
 	 */
-	public abstract static class Rotator implements ImageFilter {
+	public abstract static class Rotator implements ImageFilter, Fingerprintable {
 		/**
 		 * This class is not intended to be instantiated.
 		 */
@@ -152,6 +154,12 @@ public class Rotation {
 
 				return newImage;
 			}
+			
+			public String getFingerprint() {
+				return new Fingerprint(Rotation.class.getName())
+						.add("angle", angle)
+						.toString();
+			}
 		};
 		
 		return r;
@@ -26,6 +26,9 @@ package net.coobird.thumbnailator.filters;
 
 import java.awt.image.BufferedImage;
 
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
+
 /**
  * This is a no-op filter that acts as a "flag" to enable proper handling of
  * dimensions for images that will be oriented by using Exif metadata.
@@ -33,7 +36,7 @@ import java.awt.image.BufferedImage;
  * This is an internal filter that should not be used by consumers of
  * Thumbnailator.
  */
-public class SwapDimensions implements ImageFilter {
+public class SwapDimensions implements ImageFilter, Fingerprintable {
 	private static final SwapDimensions INSTANCE = new SwapDimensions();
 	private SwapDimensions() {}
 
@@ -44,4 +47,14 @@ public class SwapDimensions implements ImageFilter {
 	public BufferedImage apply(BufferedImage img) {
 		return img;
 	}
+	
+	/**
+	 * Returns the fingerprint of this filter.
+	 * 
+	 * @return		The fingerprint of this filter.
+	 * @since	0.4.21
+	 */
+	public String getFingerprint() {
+		return new Fingerprint(getClass().getName()).toString();
+	}
 }
@@ -26,6 +26,8 @@ package net.coobird.thumbnailator.filters;
 
 import net.coobird.thumbnailator.builders.BufferedImageBuilder;
 import net.coobird.thumbnailator.util.BufferedImages;
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
 
 import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
@@ -40,7 +42,7 @@ import java.awt.image.BufferedImage;
  * @author coobird
  *
  */
-public class Transparency implements ImageFilter {
+public class Transparency implements ImageFilter, Fingerprintable {
 	/**
 	 * The alpha composite to use when drawing the transparent image.
 	 */
@@ -113,4 +115,17 @@ public class Transparency implements ImageFilter {
 	public float getAlpha() {
 		return composite.getAlpha();
 	}
+	
+	/**
+	 * Returns the fingerprint of this filter.
+	 * 
+	 * @return		The fingerprint of this filter.
+	 * @since	0.4.21
+	 */
+	public String getFingerprint() {
+		return new Fingerprint(getClass().getName())
+				.add("alpha", composite.getAlpha())
+				.add("rule", composite.getRule())
+				.toString();
+	}
 }
@@ -31,6 +31,8 @@ import java.awt.image.BufferedImage;
 
 import net.coobird.thumbnailator.builders.BufferedImageBuilder;
 import net.coobird.thumbnailator.geometry.Position;
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
 
 /**
  * This class applies a watermark to an image.
@@ -38,7 +40,7 @@ import net.coobird.thumbnailator.geometry.Position;
  * @author coobird
  *
  */
-public class Watermark implements ImageFilter {
+public class Watermark implements ImageFilter, Fingerprintable {
 	/**
 	 * The position of the watermark.
 	 */
@@ -142,4 +144,19 @@ public class Watermark implements ImageFilter {
 
 		return imgWithWatermark;
 	}
+	
+	/**
+	 * Returns the fingerprint of this filter.
+	 * 
+	 * @return		The fingerprint of this filter.
+	 * @since	0.4.21
+	 */
+	public String getFingerprint() {
+		return new Fingerprint(getClass().getName())
+				.add("position", position)
+				.add("image", watermarkImg)
+				.add("opacity", opacity)
+				.add("insets", insets)
+				.toString();
+	}
 }
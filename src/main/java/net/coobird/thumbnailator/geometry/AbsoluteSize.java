@@ -26,6 +26,9 @@ package net.coobird.thumbnailator.geometry;
 
 import java.awt.Dimension;
 
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
+
 /**
  * A {@link Size} object which indicates that the size of the enclosed object
  * should be the specified absolute size.
@@ -34,7 +37,7 @@ import java.awt.Dimension;
  * @since	0.3.4
  *
  */
-public class AbsoluteSize implements Size {
+public class AbsoluteSize implements Size, Fingerprintable {
 	/**
 	 * The size of the object.
 	 */
@@ -88,4 +91,16 @@ public class AbsoluteSize implements Size {
 	public String toString() {
 		return "AbsoluteSize [width=" + size.width + ", height=" + size.height + "]";
 	}
+	
+	/**
+	 * Returns the fingerprint of this size.
+	 * 
+	 * @return		The fingerprint of this size.
+	 * @since	0.4.21
+	 */
+	public String getFingerprint() {
+		return new Fingerprint(getClass().getName())
+				.add("size", size)
+				.toString();
+	}
 }
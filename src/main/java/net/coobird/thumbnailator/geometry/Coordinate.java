@@ -26,6 +26,9 @@ package net.coobird.thumbnailator.geometry;
 
 import java.awt.Point;
 
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
+
 /**
  * This class calculates the position of an image which is to be enclosed,
  * using an absolute coordinate at which the image should be located.
@@ -33,7 +36,7 @@ import java.awt.Point;
  * @author coobird
  *
  */
-public final class Coordinate implements Position {
+public final class Coordinate implements Position, Fingerprintable {
 	/**
 	 * The horizontal position of the image to be enclosed.
 	 */
@@ -67,4 +70,17 @@ public final class Coordinate implements Position {
 		
 		return new Point(x, y);
 	}
+	
+	/**
+	 * Returns the fingerprint of this position.
+	 * 
+	 * @return		The fingerprint of this position.
+	 * @since	0.4.21
+	 */
+	public String getFingerprint() {
+		return new Fingerprint(getClass().getName())
+				.add("x", x)
+				.add("y", y)
+				.toString();
+	}
 }
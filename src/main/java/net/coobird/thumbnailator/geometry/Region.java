@@ -28,6 +28,9 @@ import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.Rectangle;
 
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
+
 /**
  * A representation of a region, using a {@link Position} object and a
  * {@link Dimension} object.
@@ -36,7 +39,7 @@ import java.awt.Rectangle;
  * @since	0.3.4
  *
  */
-public final class Region {
+public final class Region implements Fingerprintable {
 	/**
 	 * Position of the region.
 	 */
@@ -148,4 +151,17 @@ public final class Region {
 	public String toString() {
 		return "Region [position=" + position + ", size=" + size + "]";
 	}
+	
+	/**
+	 * Returns the fingerprint of this region.
+	 * 
+	 * @return		The fingerprint of this region.
+	 * @since	0.4.21
+	 */
+	public String getFingerprint() {
+		return new Fingerprint(getClass().getName())
+				.add("position", position)
+				.add("size", size)
+				.toString();
+	}
 }
@@ -26,6 +26,9 @@ package net.coobird.thumbnailator.geometry;
 
 import java.awt.Dimension;
 
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
+
 /**
  * Calculates the size of an enclosed object relative to the enclosing object.
  * 
@@ -33,7 +36,7 @@ import java.awt.Dimension;
  * @since	0.3.4
  *
  */
-public class RelativeSize implements Size {
+public class RelativeSize implements Size, Fingerprintable {
 	/**
 	 * The scaling factor to use for the enclosed object.
 	 */
@@ -79,4 +82,16 @@ public class RelativeSize implements Size {
 	public String toString() {
 		return "RelativeSize [scalingFactor=" + scalingFactor + "]";
 	}
+	
+	/**
+	 * Returns the fingerprint of this size.
+	 * 
+	 * @return		The fingerprint of this size.
+	 * @since	0.4.21
+	 */
+	public String getFingerprint() {
+		return new Fingerprint(getClass().getName())
+				.add("scalingFactor", scalingFactor)
+				.toString();
+	}
 }
@@ -24,6 +24,7 @@
 
 package net.coobird.thumbnailator.makers;
 
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 
 /**
@@ -263,13 +264,26 @@ public final class FixedSizeThumbnailMaker extends ThumbnailMaker {
 	
 	@Override
 	public BufferedImage make(BufferedImage img) {
+		Dimension size = calculateSize(img.getWidth(), img.getHeight());
+		
+		return super.makeThumbnail(img, size.width, size.height);
+	}
+	
+	/**
+	 * Calculates the dimensions of the thumbnail which would be created from
+	 * an image of the specified dimensions.
+	 * 
+	 * @param sourceWidth		The width of the source image.
+	 * @param sourceHeight		The height of the source image.
+	 * @return					The dimensions of the thumbnail.
+	 * @since	0.4.21
+	 */
+	@Override
+	public Dimension calculateSize(int sourceWidth, int sourceHeight) {
 		int targetWidth = this.width;
 		int targetHeight = this.height;
 
 		if (keepRatio) {
-			int sourceWidth = img.getWidth();
-			int sourceHeight = img.getHeight();
-			
 			double sourceRatio = (double)sourceWidth / (double)sourceHeight;
 			double targetRatio = (double)targetWidth / (double)targetHeight;
 			
@@ -301,6 +315,6 @@ public final class FixedSizeThumbnailMaker extends ThumbnailMaker {
 		targetWidth = (targetWidth == 0) ? 1 : targetWidth;
 		targetHeight = (targetHeight == 0) ? 1 : targetHeight;
 		
-		return super.makeThumbnail(img, targetWidth, targetHeight);
+		return new Dimension(targetWidth, targetHeight);
 	}
 }
@@ -24,6 +24,7 @@
 
 package net.coobird.thumbnailator.makers;
 
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 
 /**
@@ -183,12 +184,28 @@ public final class ScaledThumbnailMaker extends ThumbnailMaker {
 	
 	@Override
 	public BufferedImage make(BufferedImage img) {
-		int width = (int)Math.round(img.getWidth() * widthFactor);
-		int height = (int)Math.round(img.getHeight() * heightFactor);
+		Dimension size = calculateSize(img.getWidth(), img.getHeight());
+
+		return super.makeThumbnail(img, size.width, size.height);
+	}
+	
+	/**
+	 * Calculates the dimensions of the thumbnail which would be created from
+	 * an image of the specified dimensions.
+	 * 
+	 * @param sourceWidth		The width of the source image.
+	 * @param sourceHeight		The height of the source image.
+	 * @return					The dimensions of the thumbnail.
+	 * @since	0.4.21
+	 */
+	@Override
+	public Dimension calculateSize(int sourceWidth, int sourceHeight) {
+		int width = (int)Math.round(sourceWidth * widthFactor);
+		int height = (int)Math.round(sourceHeight * heightFactor);
 		
 		width = (width == 0) ? 1 : width;
 		height = (height == 0) ? 1 : height;
 
-		return super.makeThumbnail(img, width, height);
+		return new Dimension(width, height);
 	}
 }
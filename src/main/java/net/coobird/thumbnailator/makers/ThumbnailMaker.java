@@ -25,6 +25,7 @@
 package net.coobird.thumbnailator.makers;
 
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.util.HashMap;
 import java.util.Map;
@@ -34,6 +35,7 @@ import net.coobird.thumbnailator.resizers.FixedResizerFactory;
 import net.coobird.thumbnailator.resizers.Resizer;
 import net.coobird.thumbnailator.resizers.DefaultResizerFactory;
 import net.coobird.thumbnailator.resizers.ResizerFactory;
+import net.coobird.thumbnailator.util.jfr.FlightRecorderEvents;
 
 /**
  * An abstract class which provides support functionalities for
@@ -215,11 +217,145 @@ public abstract class ThumbnailMaker {
 		
 		Resizer resizer = resizerFactory.getResizer(imgSize, thumbnailSize);
 		
-		resizer.resize(img, thumbnailImage);
+		Object event = FlightRecorderEvents.beginResize();
+		boolean isResized = false;
+		try {
+			resizer.resize(img, thumbnailImage);
+			isResized = true;
+			
+		} finally {
+			FlightRecorderEvents.endResize(event, resizer, img, isResized ? thumbnailImage : null);
+		}
 		
 		return thumbnailImage;
 	}
 
+	/**
+	 * Calculates the dimensions of the thumbnail which would be created from
+	 * an image of the specified dimensions.
+	 * <p>
+	 * {@link ThumbnailMaker}s which determine the dimensions of thumbnails
+	 * from the dimensions of the source image should override this method.
+	 * 
+	 * @param sourceWidth		The width of the source image.
+	 * @param sourceHeight		The height of the source image.
+	 * @return					The dimensions of the thumbnail.
+	 * @throws UnsupportedOperationException	If this {@link ThumbnailMaker}
+	 * 											does not support calculating
+	 * 											the dimensions of thumbnails.
+	 * @since	0.4.21
+	 */
+	public Dimension calculateSize(int sourceWidth, int sourceHeight) {
+		throw new UnsupportedOperationException(
+				"Calculating the size of thumbnails is not supported."
+		);
+	}
+	
+	/**
+	 * Resizes the source image into the specified destination image, so that
+	 * the resized image fills the destination image.
+	 * <p>
+	 * Unlike {@link #make(BufferedImage)}, no image is allocated for the
+	 * thumbnail, which allows the same destination image to be reused when
+	 * thumbnails are rendered repeatedly. The image type of the destination
+	 * image is used, rather than the image type set on this
+	 * {@link ThumbnailMaker}.
+	 * 
+	 * @param src		The source image.
+	 * @param dest		The destination image.
+	 * @throws NullPointerException			If the source or destination
+	 * 										image is {@code null}.
+	 * @throws IllegalArgumentException		If the source and destination
+	 * 										images share their pixel data.
+	 * @throws IllegalStateException		If the {@code ThumbnailMaker} is
+	 * 										not ready to create thumbnails.
+	 * @since	0.4.21
+	 */
+	public void makeInto(BufferedImage src, BufferedImage dest) {
+		if (dest == null) {
+			throw new NullPointerException("Destination image is null.");
+		}
+		
+		makeInto(src, dest, new Rectangle(0, 0, dest.getWidth(), dest.getHeight()));
+	}
+	
+	/**
+	 * Resizes the source image into a region of the specified destination
+	 * image, so that the resized image fills the region. Pixels of the
+	 * destination image outside the region are left unchanged.
+	 * <p>
+	 * Unlike {@link #make(BufferedImage)}, no image is allocated for the
+	 * thumbnail, which allows the same destination image to be reused when
+	 * thumbnails are rendered repeatedly. The image type of the destination
+	 * image is used, rather than the image type set on this
+	 * {@link ThumbnailMaker}.
+	 * 
+	 * @param src		The source image.
+	 * @param dest		The destination image.
+	 * @param region	The region of the destination image to write the
+	 * 					resized image to.
+	 * @throws NullPointerException			If the source image, destination
+	 * 										image or region is {@code null}.
+	 * @throws IllegalArgumentException		If the region is empty or is not
+	 * 										within the destination image, or
+	 * 										if the source and destination
+	 * 										images share their pixel data.
+	 * @throws IllegalStateException		If the {@code ThumbnailMaker} is
+	 * 										not ready to create thumbnails.
+	 * @since	0.4.21
+	 */
+	public void makeInto(BufferedImage src, BufferedImage dest, Rectangle region) {
+		if (!ready.isReady()) {
+			throw new IllegalStateException(ThumbnailMaker.NOT_READY_FOR_MAKE);
+		}
+		
+		if (src == null) {
+			throw new NullPointerException("Source image is null.");
+		}
+		if (dest == null) {
+			throw new NullPointerException("Destination image is null.");
+		}
+		if (region == null) {
+			throw new NullPointerException("Region is null.");
+		}
+		
+		if (region.isEmpty()) {
+			throw new IllegalArgumentException("Region must not be empty.");
+		}
+		if (!new Rectangle(0, 0, dest.getWidth(), dest.getHeight()).contains(region)) {
+			throw new IllegalArgumentException(
+					"Region must be within the destination image."
+			);
+		}
+		if (src.getRaster().getDataBuffer() == dest.getRaster().getDataBuffer()) {
+			throw new IllegalArgumentException(
+					"Source and destination images must not share pixel data."
+			);
+		}
+		
+		BufferedImage target = dest;
+		if (region.x != 0 || region.y != 0
+				|| region.width != dest.getWidth() || region.height != dest.getHeight()) {
+			// The subimage shares the pixel data of the destination image.
+			target = dest.getSubimage(region.x, region.y, region.width, region.height);
+		}
+		
+		Dimension imgSize = new Dimension(src.getWidth(), src.getHeight());
+		Dimension thumbnailSize = new Dimension(region.width, region.height);
+		
+		Resizer resizer = resizerFactory.getResizer(imgSize, thumbnailSize);
+		
+		Object event = FlightRecorderEvents.beginResize();
+		boolean isResized = false;
+		try {
+			resizer.resize(src, target);
+			isResized = true;
+			
+		} finally {
+			FlightRecorderEvents.endResize(event, resizer, src, isResized ? target : null);
+		}
+	}
+
 	/**
 	 * Sets the type for the {@link BufferedImage} to produce.
 	 * 
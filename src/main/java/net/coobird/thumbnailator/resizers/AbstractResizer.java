@@ -27,10 +27,15 @@ package net.coobird.thumbnailator.resizers;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
+
 /**
  * A class which performs a resize operation on a source image and outputs the
  * result to a destination image.
@@ -38,7 +43,7 @@ import java.util.Map;
  * @author coobird
  *
  */
-public abstract class AbstractResizer implements Resizer {
+public abstract class AbstractResizer implements Resizer, Fingerprintable {
 	/**
 	 * Rendering hints to use when resizing an image.
 	 */
@@ -146,4 +151,23 @@ public abstract class AbstractResizer implements Resizer {
 	public Map<RenderingHints.Key, Object> getRenderingHints() {
 		return UNMODIFIABLE_RENDERING_HINTS;
 	}
+	
+	/**
+	 * Returns the fingerprint of this resizer.
+	 * 
+	 * @return		The fingerprint of this resizer.
+	 * @since	0.4.21
+	 */
+	public String getFingerprint() {
+		// The rendering hints are ordered, as the map is not ordered.
+		List<String> hints = new ArrayList<String>();
+		for (Map.Entry<RenderingHints.Key, Object> hint : RENDERING_HINTS.entrySet()) {
+			hints.add(hint.getKey() + "=" + hint.getValue());
+		}
+		Collections.sort(hints);
+		
+		return new Fingerprint(getClass().getName())
+				.add("renderingHints", hints)
+				.toString();
+	}
 }
@@ -26,6 +26,9 @@ package net.coobird.thumbnailator.resizers;
 
 import java.awt.Dimension;
 
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
+
 
 /**
  * This class provides factory methods which provides suitable {@link Resizer}s
@@ -102,7 +105,7 @@ resizer.resize(sourceImage, destImage);
  * @since	0.4.0
  *
  */
-public class DefaultResizerFactory implements ResizerFactory {
+public class DefaultResizerFactory implements ResizerFactory, Fingerprintable {
 	private static final DefaultResizerFactory INSTANCE = new DefaultResizerFactory();
 
 	/**
@@ -144,4 +147,14 @@ public class DefaultResizerFactory implements ResizerFactory {
 			return getResizer();
 		}
 	}
+	
+	/**
+	 * Returns the fingerprint of this resizer factory.
+	 * 
+	 * @return		The fingerprint of this resizer factory.
+	 * @since	0.4.21
+	 */
+	public String getFingerprint() {
+		return new Fingerprint(getClass().getName()).toString();
+	}
 }
@@ -26,6 +26,9 @@ package net.coobird.thumbnailator.resizers;
 
 import java.awt.Dimension;
 
+import net.coobird.thumbnailator.util.Fingerprint;
+import net.coobird.thumbnailator.util.Fingerprintable;
+
 /**
  * A {@link ResizerFactory} that returns a specific {@link Resizer}
  * unconditionally.
@@ -33,7 +36,7 @@ import java.awt.Dimension;
  * @author coobird
  * @since	0.4.0
  */
-public class FixedResizerFactory implements ResizerFactory {
+public class FixedResizerFactory implements ResizerFactory, Fingerprintable {
 	/**
 	 * The resizer which is to be returned unconditionally by this class.
 	 */
@@ -57,4 +60,16 @@ public class FixedResizerFactory implements ResizerFactory {
 	public Resizer getResizer(Dimension originalSize, Dimension thumbnailSize) {
 		return resizer;
 	}
+	
+	/**
+	 * Returns the fingerprint of this resizer factory.
+	 * 
+	 * @return		The fingerprint of this resizer factory.
+	 * @since	0.4.21
+	 */
+	public String getFingerprint() {
+		return new Fingerprint(getClass().getName())
+				.add("resizer", resizer)
+				.toString();
+	}
 }
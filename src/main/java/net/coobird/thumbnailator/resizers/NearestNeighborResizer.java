@@ -0,0 +1,81 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.resizers;
+
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Image resizer class using nearest-neighbor interpolation for the resizing
+ * operation.
+ * <p>
+ * This is the fastest resizer, at the cost of aliasing when an image is
+ * reduced by more than a small factor. It is used to create previews from
+ * images which have already been subsampled close to the size of the
+ * thumbnail.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class NearestNeighborResizer extends AbstractResizer {
+	/**
+	 * Instantiates a {@link NearestNeighborResizer} with default rendering
+	 * hints.
+	 */
+	public NearestNeighborResizer() {
+		this(Collections.<RenderingHints.Key, Object>emptyMap());
+	}
+	
+	/**
+	 * Instantiates a {@link NearestNeighborResizer} with the specified
+	 * rendering hints.
+	 * 
+	 * @param hints		Additional rendering hints to apply.
+	 */
+	public NearestNeighborResizer(Map<RenderingHints.Key, Object> hints) {
+		super(RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR, hints);
+	}
+	
+	/**
+	 * Resizes an image using nearest-neighbor interpolation.
+	 * <p>
+	 * If the source and/or destination image is {@code null}, then a
+	 * {@link NullPointerException} will be thrown.
+	 * 
+	 * @param srcImage		The source image.
+	 * @param destImage		The destination image.
+	 * 
+	 * @throws NullPointerException		When the source and/or the destination
+	 * 									image is {@code null}.
+	 */
+	@Override
+	public void resize(BufferedImage srcImage, BufferedImage destImage)
+			throws NullPointerException {
+		super.resize(srcImage, destImage);
+	}
+}
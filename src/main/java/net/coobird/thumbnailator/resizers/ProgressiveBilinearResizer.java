@@ -24,7 +24,8 @@
 
 package net.coobird.thumbnailator.resizers;
 
-import net.coobird.thumbnailator.builders.BufferedImageBuilder;
+import net.coobird.thumbnailator.util.BufferedImagePool;
+import net.coobird.thumbnailator.util.CancellationToken;
 
 import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
@@ -72,12 +73,19 @@ public class ProgressiveBilinearResizer extends AbstractResizer {
 	 * <p>
 	 * If the source and/or destination image is {@code null}, then a
 	 * {@link NullPointerException} will be thrown.
+	 * <p>
+	 * When the {@link CancellationToken#current() current}
+	 * {@link CancellationToken} is cancelled, the resize stops before its
+	 * next step.
 	 * 
 	 * @param srcImage		The source image.
 	 * @param destImage		The destination image.
 	 * 
 	 * @throws NullPointerException		When the source and/or the destination
 	 * 									image is {@code null}.
+	 * @throws java.util.concurrent.CancellationException	When the current
+	 * 									{@link CancellationToken} has been
+	 * 									cancelled.
 	 */	
 	@Override
 	public void resize(BufferedImage srcImage, BufferedImage destImage)
@@ -98,12 +106,45 @@ public class ProgressiveBilinearResizer extends AbstractResizer {
 			return;
 		}
 		
-		// Temporary image used for in-place resizing of image.
-		BufferedImage tempImage = new BufferedImageBuilder(
+		/*
+		 * Temporary image used for in-place resizing of image.
+		 * 
+		 * The image may be larger than requested when it comes from a pool,
+		 * and may contain pixels of a previous resize. Neither matters, as
+		 * the image is always drawn to from (0, 0) with the Src composite,
+		 * and only the area which has been drawn to is read from.
+		 */
+		BufferedImagePool.Lease lease = BufferedImagePool.leaseFromDefault(
 				currentWidth,
 				currentHeight,
 				destImage.getType()
-		).build();
+		);
+		try {
+			resizeInSteps(srcImage, destImage, lease.getImage());
+		} finally {
+			lease.release();
+		}
+	}
+	
+	/**
+	 * Performs the progressive bilinear resize, using the specified
+	 * temporary image.
+	 * 
+	 * @param srcImage		The source image.
+	 * @param destImage		The destination image.
+	 * @param tempImage		The temporary image, which is at least as large
+	 * 						as the source image.
+	 */
+	private void resizeInSteps(
+			BufferedImage srcImage,
+			BufferedImage destImage,
+			BufferedImage tempImage
+	) {
+		int currentWidth = srcImage.getWidth();
+		int currentHeight = srcImage.getHeight();
+		
+		final int targetWidth = destImage.getWidth();
+		final int targetHeight = destImage.getHeight();
 		
 		Graphics2D g = createGraphics(tempImage);
 		g.setComposite(AlphaComposite.Src);
@@ -128,8 +169,16 @@ public class ProgressiveBilinearResizer extends AbstractResizer {
 		// Perform first resize step.
 		g.drawImage(srcImage, 0, 0, currentWidth, currentHeight, null);
 		
+		// Stops between the steps once the current thumbnail has been cancelled.
+		CancellationToken token = CancellationToken.current();
+		
 		// Perform an in-place progressive bilinear resize.
 		while (	(currentWidth >= targetWidth * 2) && (currentHeight >= targetHeight * 2) ) {
+			if (token != null && token.isCancelled()) {
+				g.dispose();
+				token.throwIfCancelled();
+			}
+			
 			currentWidth /= 2;
 			currentHeight /= 2;
 			
@@ -0,0 +1,95 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks;
+
+import java.io.IOException;
+
+/**
+ * An exception used to indicate that an image was not decoded, as the
+ * dimensions or the number of frames declared by its header exceed the
+ * {@link net.coobird.thumbnailator.util.DecodeLimits} in effect.
+ * <p>
+ * Such images are typically decompression bombs: small files which declare
+ * huge dimensions, and which would exhaust the heap if decoded.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class ImageLimitExceededException extends IOException {
+	/**
+	 * An ID used for serialization.
+	 */
+	private static final long serialVersionUID = 4180263405826385911L;
+	
+	private final int width;
+	private final int height;
+	private final int frames;
+	
+	/**
+	 * Instantiates a {@link ImageLimitExceededException} with the declared
+	 * dimensions and number of frames of the image, and a detailed message.
+	 * 
+	 * @param width			The declared width of the image.
+	 * @param height		The declared height of the image.
+	 * @param frames		The declared number of frames of the image, or
+	 * 						{@code -1} if it was not determined.
+	 * @param s				A message detailing the exception.
+	 */
+	public ImageLimitExceededException(int width, int height, int frames, String s) {
+		super(s);
+		this.width = width;
+		this.height = height;
+		this.frames = frames;
+	}
+	
+	/**
+	 * Returns the width declared by the image.
+	 * 
+	 * @return			The declared width.
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * Returns the height declared by the image.
+	 * 
+	 * @return			The declared height.
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * Returns the number of frames declared by the image.
+	 * 
+	 * @return			The declared number of frames, or {@code -1} if it
+	 * 					was not determined.
+	 */
+	public int getFrames() {
+		return frames;
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks;
+
+import java.io.IOException;
+
+/**
+ * An exception used to indicate that an image could not be decoded, as the
+ * memory it requires could not be reserved from the
+ * {@link net.coobird.thumbnailator.util.PixelMemoryGovernor}.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class MemoryBudgetExceededException extends IOException {
+	/**
+	 * An ID used for serialization.
+	 */
+	private static final long serialVersionUID = -3360227934475061392L;
+	
+	/**
+	 * The number of bytes which could not be reserved.
+	 */
+	private final long requestedBytes;
+	
+	/**
+	 * Instantiates a {@link MemoryBudgetExceededException} with the number
+	 * of bytes which could not be reserved and a detailed message.
+	 * 
+	 * @param requestedBytes	The number of bytes which could not be
+	 * 							reserved.
+	 * @param s					A message detailing the exception.
+	 */
+	public MemoryBudgetExceededException(long requestedBytes, String s) {
+		super(s);
+		this.requestedBytes = requestedBytes;
+	}
+	
+	/**
+	 * Returns the number of bytes which could not be reserved.
+	 * 
+	 * @return			The number of bytes.
+	 */
+	public long getRequestedBytes() {
+		return requestedBytes;
+	}
+}
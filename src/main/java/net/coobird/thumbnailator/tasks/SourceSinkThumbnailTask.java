@@ -30,6 +30,7 @@ import java.io.IOException;
 import net.coobird.thumbnailator.ThumbnailParameter;
 import net.coobird.thumbnailator.tasks.io.ImageSink;
 import net.coobird.thumbnailator.tasks.io.ImageSource;
+import net.coobird.thumbnailator.util.jfr.FlightRecorderEvents;
 
 /**
  * A {@link ThumbnailTask} which holds an {@link ImageSource} from which the
@@ -92,8 +93,15 @@ public class SourceSinkThumbnailTask<S, D> extends ThumbnailTask<S, D> {
 
 	@Override
 	public BufferedImage read() throws IOException {
-		BufferedImage img = source.read();
-		inputFormatName = source.getInputFormatName();
+		Object event = FlightRecorderEvents.beginRead();
+		BufferedImage img = null;
+		try {
+			img = source.read();
+			inputFormatName = source.getInputFormatName();
+			
+		} finally {
+			FlightRecorderEvents.endRead(event, source.getSource(), inputFormatName, img);
+		}
 		
 		return img;
 	}
@@ -114,7 +122,14 @@ public class SourceSinkThumbnailTask<S, D> extends ThumbnailTask<S, D> {
 		}
 
 		destination.setOutputFormatName(formatName);
-		destination.write(img);
+		
+		Object event = FlightRecorderEvents.beginWrite();
+		try {
+			destination.write(img);
+			
+		} finally {
+			FlightRecorderEvents.endWrite(event, destination.getSink(), formatName, img);
+		}
 	}
 
 	@Override
@@ -0,0 +1,122 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An exception used to indicate that one or more thumbnails in a batch could
+ * not be created.
+ * <p>
+ * When a batch of thumbnails is processed in parallel, a failure of one
+ * thumbnail does not prevent the remaining thumbnails from being created.
+ * Instead, the failures are collected and reported through this exception
+ * once all thumbnails in the batch have been processed.
+ * <p>
+ * The first failure is available as the {@link #getCause() cause} of this
+ * exception, and all other failures are available as
+ * {@link #getSuppressed() suppressed} exceptions.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class ThumbnailBatchException extends IOException {
+	/**
+	 * An ID used for serialization.
+	 */
+	private static final long serialVersionUID = -2912471623209386215L;
+	
+	/**
+	 * The results of the batch, in the order of the sources.
+	 */
+	private final List<?> results;
+	
+	/**
+	 * The failures, keyed by the index of the source which failed.
+	 */
+	private final Map<Integer, Throwable> failures;
+	
+	/**
+	 * Instantiates a {@link ThumbnailBatchException} with the results and
+	 * failures of a batch.
+	 * 
+	 * @param results		The results of the batch, in the order of the
+	 * 						sources. Sources which failed should have a
+	 * 						{@code null} result.
+	 * @param failures		The failures, keyed by the index of the source
+	 * 						which failed. Must contain at least one failure.
+	 * @throws IllegalArgumentException	If there are no failures.
+	 */
+	public ThumbnailBatchException(List<?> results, Map<Integer, Throwable> failures) {
+		super(failures.size() + " of " + results.size() + " thumbnails could not be created.");
+		
+		if (failures.isEmpty()) {
+			throw new IllegalArgumentException("No failures specified.");
+		}
+		
+		this.results = Collections.unmodifiableList(results);
+		this.failures = Collections.unmodifiableMap(new TreeMap<Integer, Throwable>(failures));
+		
+		boolean isFirst = true;
+		for (Throwable t : this.failures.values()) {
+			if (isFirst) {
+				initCause(t);
+				isFirst = false;
+			} else {
+				addSuppressed(t);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the results of the batch, in the order of the sources.
+	 * <p>
+	 * The type of each result depends on the method which processed the
+	 * batch. For example, it will be a {@link java.io.File} when thumbnails
+	 * were written to files, and a {@link java.awt.image.BufferedImage} when
+	 * thumbnails were returned as images. Sources which failed, or which did
+	 * not produce a result, have a {@code null} result.
+	 * 
+	 * @return			The results of the batch.
+	 */
+	public List<?> getResults() {
+		return results;
+	}
+	
+	/**
+	 * Returns the failures of the batch, keyed by the index of the source
+	 * which failed, in ascending order of the index.
+	 * 
+	 * @return			The failures of the batch.
+	 */
+	public Map<Integer, Throwable> getFailures() {
+		return failures;
+	}
+}
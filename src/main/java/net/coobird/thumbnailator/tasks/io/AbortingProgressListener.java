@@ -0,0 +1,129 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks.io;
+
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.event.IIOReadProgressListener;
+import javax.imageio.event.IIOWriteProgressListener;
+
+import net.coobird.thumbnailator.util.CancellationToken;
+
+/**
+ * A progress listener which aborts the {@link ImageReader} or
+ * {@link ImageWriter} it listens to, once its {@link CancellationToken}
+ * has been cancelled.
+ * <p>
+ * Readers and writers check whether they have been aborted between the
+ * parts of the image they process, and return early once they have.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+final class AbortingProgressListener implements IIOReadProgressListener, IIOWriteProgressListener {
+	/**
+	 * The token which decides whether to abort.
+	 */
+	private final CancellationToken token;
+	
+	/**
+	 * Creates a listener which aborts once the given token has been
+	 * cancelled.
+	 * 
+	 * @param token		The token.
+	 */
+	AbortingProgressListener(CancellationToken token) {
+		this.token = token;
+	}
+	
+	public void imageStarted(ImageReader source, int imageIndex) {
+		checkReader(source);
+	}
+	
+	public void imageProgress(ImageReader source, float percentageDone) {
+		checkReader(source);
+	}
+	
+	public void thumbnailStarted(ImageReader source, int imageIndex, int thumbnailIndex) {
+		checkReader(source);
+	}
+	
+	public void thumbnailProgress(ImageReader source, float percentageDone) {
+		checkReader(source);
+	}
+	
+	public void sequenceStarted(ImageReader source, int minIndex) {
+	}
+	
+	public void sequenceComplete(ImageReader source) {
+	}
+	
+	public void imageComplete(ImageReader source) {
+	}
+	
+	public void thumbnailComplete(ImageReader source) {
+	}
+	
+	public void readAborted(ImageReader source) {
+	}
+	
+	public void imageStarted(ImageWriter source, int imageIndex) {
+		checkWriter(source);
+	}
+	
+	public void imageProgress(ImageWriter source, float percentageDone) {
+		checkWriter(source);
+	}
+	
+	public void thumbnailStarted(ImageWriter source, int imageIndex, int thumbnailIndex) {
+		checkWriter(source);
+	}
+	
+	public void thumbnailProgress(ImageWriter source, float percentageDone) {
+		checkWriter(source);
+	}
+	
+	public void imageComplete(ImageWriter source) {
+	}
+	
+	public void thumbnailComplete(ImageWriter source) {
+	}
+	
+	public void writeAborted(ImageWriter source) {
+	}
+	
+	private void checkReader(ImageReader source) {
+		if (token.isCancelled()) {
+			source.abort();
+		}
+	}
+	
+	private void checkWriter(ImageWriter source) {
+		if (token.isCancelled()) {
+			source.abort();
+		}
+	}
+}
@@ -24,6 +24,8 @@
 
 package net.coobird.thumbnailator.tasks.io;
 
+import java.awt.Dimension;
+
 import net.coobird.thumbnailator.ThumbnailParameter;
 
 /**
@@ -48,6 +50,22 @@ public abstract class AbstractImageSource<T> implements ImageSource<T> {
 	 */
 	protected boolean hasReadInput = false;
 	
+	/**
+	 * The dimensions of the stored image, before a source region or
+	 * subsampling was applied while reading it, or {@code null} if they are
+	 * not known.
+	 * 
+	 * @since	0.4.21
+	 */
+	protected Dimension sourceSize;
+	
+	/**
+	 * The subsampling factor used while reading the image.
+	 * 
+	 * @since	0.4.21
+	 */
+	protected int subsampling = 1;
+	
 	/**
 	 * Default constructor.
 	 */
@@ -83,4 +101,63 @@ return finishedReading(sourceImage);
 		}
 		return inputFormatName;
 	}
+	
+	/**
+	 * Returns the dimensions of the stored image, before a source region or
+	 * subsampling was applied while reading it.
+	 * 
+	 * @return							The dimensions of the stored image,
+	 * 									or {@code null} if they are not
+	 * 									known.
+	 * @throws IllegalStateException	If the source image has not been
+	 * 									read yet.
+	 * @since	0.4.21
+	 */
+	public Dimension getSourceSize() {
+		if (!hasReadInput) {
+			throw new IllegalStateException("Input has not been read yet.");
+		}
+		return sourceSize == null ? null : new Dimension(sourceSize);
+	}
+	
+	/**
+	 * Returns the subsampling factor used while reading the image. A factor
+	 * of {@code 2} indicates that every second pixel of each row and column
+	 * was read.
+	 * 
+	 * @return							The subsampling factor, which is
+	 * 									{@code 1} if the image was not
+	 * 									subsampled.
+	 * @throws IllegalStateException	If the source image has not been
+	 * 									read yet.
+	 * @since	0.4.21
+	 */
+	public int getSubsampling() {
+		if (!hasReadInput) {
+			throw new IllegalStateException("Input has not been read yet.");
+		}
+		return subsampling;
+	}
+	
+	/**
+	 * Copies the information about how the image was read from another
+	 * {@link ImageSource} which this source has read the image through.
+	 * 
+	 * @param source		The {@link ImageSource} which read the image.
+	 * @since	0.4.21
+	 */
+	protected void copyReadInformation(ImageSource<?> source) {
+		inputFormatName = source.getInputFormatName();
+		
+		if (source instanceof AbstractImageSource) {
+			AbstractImageSource<?> other = (AbstractImageSource<?>)source;
+			sourceSize = other.getSourceSize();
+			subsampling = other.getSubsampling();
+			
+		} else if (source instanceof FileImageSource) {
+			FileImageSource other = (FileImageSource)source;
+			sourceSize = other.getSourceSize();
+			subsampling = other.getSubsampling();
+		}
+	}
 }
@@ -0,0 +1,269 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import net.coobird.thumbnailator.ThumbnailParameter;
+import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
+
+/**
+ * An {@link ImageSink} which separates encoding a thumbnail from writing the
+ * encoded thumbnail to its destination.
+ * <p>
+ * The {@link #write(BufferedImage)} method encodes the thumbnail into
+ * memory, without writing to the destination of the underlying
+ * {@link ImageSink}. The encoded thumbnail is written to the destination
+ * when the {@link #commit()} method is called. This allows the CPU-bound
+ * encoding of the thumbnail and the I/O-bound writing of the thumbnail to
+ * be performed on different threads.
+ * <p>
+ * The underlying {@link ImageSink} must be a {@link FileImageSink} or an
+ * {@link OutputStreamImageSink}.
+ * 
+ * @param <T>		The class of the destination of the thumbnail.
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class BufferingImageSink<T> extends AbstractImageSink<T> {
+	/**
+	 * The underlying {@link ImageSink}.
+	 */
+	private final ImageSink<T> sink;
+	
+	/**
+	 * The encoded thumbnail, or {@code null} if the thumbnail has not been
+	 * encoded, or has already been written to the destination.
+	 */
+	private ByteArrayOutputStream encodedImage;
+	
+	/**
+	 * The name of the format of the encoded thumbnail.
+	 */
+	private String encodedFormatName;
+	
+	/**
+	 * Instantiates a {@link BufferingImageSink} which writes the thumbnail
+	 * to the destination of the specified {@link ImageSink}.
+	 * 
+	 * @param sink		The underlying {@link ImageSink}.
+	 * @throws NullPointerException		If the {@link ImageSink} is
+	 * 									{@code null}.
+	 * @throws IllegalArgumentException	If the {@link ImageSink} is neither
+	 * 									a {@link FileImageSink} nor an
+	 * 									{@link OutputStreamImageSink}.
+	 */
+	public BufferingImageSink(ImageSink<T> sink) {
+		super();
+		
+		if (sink == null) {
+			throw new NullPointerException("ImageSink cannot be null.");
+		}
+		if (!(sink instanceof FileImageSink || sink instanceof OutputStreamImageSink)) {
+			throw new IllegalArgumentException(
+					"ImageSink must be a FileImageSink or an OutputStreamImageSink."
+			);
+		}
+		
+		this.sink = sink;
+	}
+	
+	/**
+	 * Encodes the thumbnail into memory.
+	 * <p>
+	 * The thumbnail is not written to the destination until the
+	 * {@link #commit()} method is called.
+	 * 
+	 * @param img							The image to encode.
+	 * @throws UnsupportedFormatException	When the output format is not
+	 * 										supported.
+	 * @throws IOException					When a problem occurs while
+	 * 										encoding the image.
+	 * @throws NullPointerException			If the image is {@code null}.
+	 * @throws IllegalArgumentException		If the underlying
+	 * 										{@link FileImageSink} does not
+	 * 										permit overwriting the destination
+	 * 										file and the destination file
+	 * 										already exists.
+	 */
+	@Override
+	public void write(BufferedImage img) throws IOException {
+		super.write(img);
+		
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		String formatName = outputFormat;
+		
+		if (sink instanceof FileImageSink) {
+			FileImageSink fileSink = (FileImageSink)sink;
+			fileSink.setOutputFormatName(outputFormat);
+			formatName = fileSink.prepareDestination();
+			fileSink.encode(img, formatName, baos);
+			
+		} else {
+			OutputStreamImageSink encoder = new OutputStreamImageSink(baos);
+			encoder.setThumbnailParameter(param);
+			encoder.setOutputFormatName(outputFormat);
+			encoder.write(img);
+		}
+		
+		encodedImage = baos;
+		encodedFormatName = formatName;
+	}
+	
+	/**
+	 * Sets a thumbnail which has already been encoded, such as a thumbnail
+	 * retrieved from a cache, in place of encoding a thumbnail by the
+	 * {@link #write(BufferedImage)} method.
+	 * <p>
+	 * The thumbnail is not written to the destination until the
+	 * {@link #commit()} method is called.
+	 * 
+	 * @param data							The encoded thumbnail.
+	 * @param formatName					The name of the format of the
+	 * 										encoded thumbnail.
+	 * @throws IOException					When a problem occurs while
+	 * 										preparing the destination.
+	 * @throws NullPointerException			If an argument is {@code null}.
+	 * @throws IllegalArgumentException		If the underlying
+	 * 										{@link FileImageSink} does not
+	 * 										permit overwriting the destination
+	 * 										file and the destination file
+	 * 										already exists.
+	 * @since	0.4.21
+	 */
+	public void setEncodedImage(byte[] data, String formatName) throws IOException {
+		if (data == null || formatName == null) {
+			throw new NullPointerException("Data or format name is null.");
+		}
+		
+		if (sink instanceof FileImageSink) {
+			FileImageSink fileSink = (FileImageSink)sink;
+			fileSink.setOutputFormatName(formatName);
+			fileSink.prepareDestination();
+		}
+		
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length);
+		baos.write(data);
+		
+		encodedImage = baos;
+		encodedFormatName = formatName;
+	}
+	
+	/**
+	 * Returns the encoded thumbnail.
+	 * 
+	 * @return		A copy of the encoded thumbnail.
+	 * @throws IllegalStateException	If the thumbnail has not been encoded,
+	 * 									or has already been written to the
+	 * 									destination.
+	 * @since	0.4.21
+	 */
+	public byte[] getEncodedImage() {
+		if (encodedImage == null) {
+			throw new IllegalStateException("The thumbnail has not been encoded.");
+		}
+		
+		return encodedImage.toByteArray();
+	}
+	
+	/**
+	 * Returns the number of bytes of the encoded thumbnail.
+	 * 
+	 * @return		The number of bytes, or {@code -1} if the thumbnail has
+	 * 				not been encoded, or has already been written to the
+	 * 				destination.
+	 * @since	0.4.21
+	 */
+	public int getEncodedSize() {
+		return encodedImage == null ? -1 : encodedImage.size();
+	}
+	
+	/**
+	 * Returns the name of the format in which the thumbnail was encoded.
+	 * 
+	 * @return		The name of the format, or {@code null} if the thumbnail
+	 * 				has not been encoded.
+	 * @since	0.4.21
+	 */
+	public String getEncodedFormatName() {
+		return encodedFormatName;
+	}
+	
+	/**
+	 * Writes the encoded thumbnail to the destination of the underlying
+	 * {@link ImageSink}.
+	 * 
+	 * @throws IOException				When a problem occurs while writing
+	 * 									the thumbnail.
+	 * @throws IllegalStateException	If the thumbnail has not been encoded
+	 * 									by the {@link #write(BufferedImage)}
+	 * 									method.
+	 */
+	public void commit() throws IOException {
+		if (encodedImage == null) {
+			throw new IllegalStateException("The thumbnail has not been encoded.");
+		}
+		
+		if (sink instanceof FileImageSink) {
+			FileImageSink fileSink = (FileImageSink)sink;
+			OutputStream os = fileSink.createOutputStream(fileSink.getSink());
+			try {
+				encodedImage.writeTo(os);
+			} finally {
+				os.close();
+			}
+			
+		} else {
+			encodedImage.writeTo(((OutputStreamImageSink)sink).getSink());
+		}
+		
+		encodedImage = null;
+	}
+	
+	@Override
+	public void setOutputFormatName(String format) {
+		super.setOutputFormatName(format);
+		sink.setOutputFormatName(format);
+	}
+	
+	@Override
+	public void setThumbnailParameter(ThumbnailParameter param) {
+		super.setThumbnailParameter(param);
+		sink.setThumbnailParameter(param);
+	}
+	
+	@Override
+	public String preferredOutputFormatName() {
+		return sink.preferredOutputFormatName();
+	}
+	
+	public T getSink() {
+		return sink.getSink();
+	}
+}
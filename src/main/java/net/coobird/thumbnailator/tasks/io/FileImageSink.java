@@ -273,6 +273,29 @@ public class FileImageSink implements ImageSink<File> {
 	 * 										file already exists.
 	 */
 	public void write(BufferedImage img) throws IOException {
+		String formatName = prepareDestination();
+		
+		OutputStream os = createOutputStream(destinationFile);
+		try {
+			encode(img, formatName, os);
+		} finally {
+			os.close();
+		}
+	}
+	
+	/**
+	 * Determines the destination file and the output format of the
+	 * thumbnail, without writing to the destination file.
+	 * 
+	 * @return								The name of the output format.
+	 * @throws UnsupportedFormatException	If the output format cannot be
+	 * 										determined.
+	 * @throws IllegalArgumentException		If this {@code FileImageSink} does
+	 * 										not permit overwriting the
+	 * 										destination file and the destination
+	 * 										file already exists.
+	 */
+	String prepareDestination() throws IOException {
 		/*
 		 * Add or replace the file extension of the output file.
 		 * 
@@ -311,15 +334,24 @@ public class FileImageSink implements ImageSink<File> {
 			);
 		}
 
-		OutputStream os = createOutputStream(destinationFile);
+		return formatName;
+	}
+	
+	/**
+	 * Encodes the image in the given output format to an
+	 * {@link OutputStream}.
+	 * 
+	 * @param img				The image to encode.
+	 * @param formatName		The name of the output format.
+	 * @param os				The {@link OutputStream} to write to.
+	 * @throws IOException		When a problem occurs while encoding the
+	 * 							image.
+	 */
+	void encode(BufferedImage img, String formatName, OutputStream os) throws IOException {
 		imageSink = new OutputStreamImageSink(os);
 		imageSink.setThumbnailParameter(param);
 		imageSink.setOutputFormatName(formatName);
-		try {
-			imageSink.write(img);
-		} finally {
-			os.close();
-		}
+		imageSink.write(img);
 	}
 
 	// Visible for testing only.
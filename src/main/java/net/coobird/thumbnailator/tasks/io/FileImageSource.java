@@ -24,11 +24,13 @@
 
 package net.coobird.thumbnailator.tasks.io;
 
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 
 import net.coobird.thumbnailator.ThumbnailParameter;
 import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
@@ -50,7 +52,7 @@ public class FileImageSource implements ImageSource<File> {
 	 * operations. This {@link ImageSource} can change during the lifecycle
 	 * of the {@link FileImageSource} class.
 	 */
-	private ImageSource<?> imageSource = new UninitializedImageSource();
+	private AbstractImageSource<?> imageSource = new UninitializedImageSource();
 	
 	/**
 	 * A {@link ThumbnailParameter} object that is given by 
@@ -110,16 +112,26 @@ public class FileImageSource implements ImageSource<File> {
 		this.sourceFile = new File(sourceFilePath);
 	}
 
-	public BufferedImage read() throws IOException {
-		FileInputStream fis;
+	/**
+	 * Opens the source file for reading.
+	 * 
+	 * @return				An {@link InputStream} of the source file.
+	 * @throws FileNotFoundException	If the source file could not be
+	 * 									found.
+	 */
+	InputStream openStream() throws FileNotFoundException {
 		try {
-			fis = new FileInputStream(sourceFile);
+			return new FileInputStream(sourceFile);
 
 		} catch (FileNotFoundException e) {
 			throw new FileNotFoundException(
 					"Could not find file: " + sourceFile.getAbsolutePath()
 			);
 		}
+	}
+
+	public BufferedImage read() throws IOException {
+		InputStream fis = openStream();
 
 		try {
 			imageSource = new InputStreamImageSource(fis);
@@ -149,6 +161,35 @@ public class FileImageSource implements ImageSource<File> {
 	public String getInputFormatName() {
 		return imageSource.getInputFormatName();
 	}
+	
+	/**
+	 * Returns the dimensions of the stored image, before a source region or
+	 * subsampling was applied while reading it.
+	 * 
+	 * @return							The dimensions of the stored image.
+	 * @throws IllegalStateException	If the source image has not been
+	 * 									read yet.
+	 * @see AbstractImageSource#getSourceSize()
+	 * @since	0.4.21
+	 */
+	public Dimension getSourceSize() {
+		return imageSource.getSourceSize();
+	}
+	
+	/**
+	 * Returns the subsampling factor used while reading the image.
+	 * 
+	 * @return							The subsampling factor, which is
+	 * 									{@code 1} if the image was not
+	 * 									subsampled.
+	 * @throws IllegalStateException	If the source image has not been
+	 * 									read yet.
+	 * @see AbstractImageSource#getSubsampling()
+	 * @since	0.4.21
+	 */
+	public int getSubsampling() {
+		return imageSource.getSubsampling();
+	}
 
 	public void setThumbnailParameter(ThumbnailParameter param) {
 		// We need to keep "param" when we replace "imageSource" in the
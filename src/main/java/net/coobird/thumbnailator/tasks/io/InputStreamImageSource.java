@@ -24,8 +24,10 @@
 
 package net.coobird.thumbnailator.tasks.io;
 
+import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Field;
@@ -37,15 +39,20 @@ import java.util.List;
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReadParam;
 import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
 import javax.imageio.stream.ImageInputStream;
 
 import net.coobird.thumbnailator.ThumbnailParameter;
 import net.coobird.thumbnailator.filters.ImageFilter;
 import net.coobird.thumbnailator.geometry.Region;
 import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
+import net.coobird.thumbnailator.util.CancellationToken;
 import net.coobird.thumbnailator.util.Configurations;
+import net.coobird.thumbnailator.util.DecodeLimits;
+import net.coobird.thumbnailator.util.PixelMemoryGovernor;
 import net.coobird.thumbnailator.util.exif.ExifFilterUtils;
 import net.coobird.thumbnailator.util.exif.ExifUtils;
+import net.coobird.thumbnailator.util.exif.LosslessJpegTransform;
 import net.coobird.thumbnailator.util.exif.Orientation;
 
 /**
@@ -66,6 +73,12 @@ public class InputStreamImageSource extends AbstractImageSource<InputStream> {
 	 */
 	private InputStream is;
 	
+	/**
+	 * Whether the image is decoded with the highest subsampling which
+	 * keeps it at least as large as the thumbnail.
+	 */
+	private boolean fastDecoding = false;
+	
 	/**
 	 * Instantiates an {@link InputStreamImageSource} with the
 	 * {@link InputStream} which will be used to read the source image.
@@ -101,6 +114,21 @@ public class InputStreamImageSource extends AbstractImageSource<InputStream> {
 		}
 	}
 
+	/**
+	 * Sets whether the image is decoded with the highest subsampling which
+	 * keeps it at least as large as the thumbnail.
+	 * <p>
+	 * Decoding fewer pixels is much faster, but the quality of the
+	 * thumbnail suffers, so this is meant for creating previews. By
+	 * default, images are only subsampled when memory is scarce.
+	 * 
+	 * @param fastDecoding	Whether to decode with the highest subsampling.
+	 * @since	0.4.21
+	 */
+	public void setFastDecoding(boolean fastDecoding) {
+		this.fastDecoding = fastDecoding;
+	}
+
 	/**
 	 * An {@link InputStream} which intercepts the data stream to find Exif
 	 * data and captures it if present.
@@ -527,6 +555,14 @@ public class InputStreamImageSource extends AbstractImageSource<InputStream> {
 		ImageReadParam irParam = reader.getDefaultReadParam();
 		int width = reader.getWidth(FIRST_IMAGE_INDEX);
 		int height = reader.getHeight(FIRST_IMAGE_INDEX);
+		sourceSize = new Dimension(width, height);
+
+		// Guard against decompression bombs before any pixel is decoded.
+		DecodeLimits limits = DecodeLimits.getDefault();
+		if (limits != null) {
+			int frames = limits.isCountingFrames() ? reader.getNumImages(true) : -1;
+			limits.check(width, height, frames);
+		}
 
 		if (param != null && param.getSourceRegion() != null) {
 			Region region = param.getSourceRegion();
@@ -535,62 +571,218 @@ public class InputStreamImageSource extends AbstractImageSource<InputStream> {
 			);
 		}
 
+		Rectangle sourceRegion = irParam.getSourceRegion();
+		int decodedWidth = width;
+		int decodedHeight = height;
+		if (sourceRegion != null) {
+			decodedWidth = Math.max(1, Math.min(sourceRegion.width, width - Math.max(0, sourceRegion.x)));
+			decodedHeight = Math.max(1, Math.min(sourceRegion.height, height - Math.max(0, sourceRegion.y)));
+		}
+
 		/*
 		 * FIXME Workaround to enable subsampling for large source images.
 		 *
 		 * Issue:
 		 * https://github.com/coobird/thumbnailator/issues/69
 		 */
+		int subsampling = 1;
 		if (param != null &&
 				Configurations.CONSERVE_MEMORY_WORKAROUND.getBoolean() &&
 				width > 1800 && height > 1800 &&
 				(width * height * 4L > Runtime.getRuntime().freeMemory() / 4)
 		) {
-			int subsampling = 1;
-
 			// Calculate the maximum subsampling that can be used.
-			if (param.getSize() != null && (param.getSize().width * 2 < width && param.getSize().height * 2 < height)) {
-				int targetWidth = param.getSize().width;
-				int targetHeight = param.getSize().height;
+			subsampling = calculateMaxSubsampling(width, height);
+
+			// Prevent excessive subsampling that can ruin image quality.
+			// This will ensure that at least a 600 x 600 image will be used as source.
+			for (; subsampling > 1 && ((width / subsampling) < 600 || (height / subsampling) < 600); subsampling--);
+		}
+
+		// Previews are decoded as small as the thumbnail allows.
+		if (fastDecoding) {
+			subsampling = Math.max(subsampling, calculateMaxSubsampling(decodedWidth, decodedHeight));
+		}
+
+		// Oversized images which are accepted are decoded within the limits.
+		if (limits != null && !limits.isWithin(decodedWidth, decodedHeight)) {
+			subsampling = Math.max(subsampling, limits.getSubsampling(decodedWidth, decodedHeight));
+		}
+
+		// Reserve the memory for the decoded image before decoding it.
+		PixelMemoryGovernor.Reservation reservation = null;
+		PixelMemoryGovernor governor = PixelMemoryGovernor.getDefault();
+		if (governor != null) {
+			int bytesPerPixel = getBytesPerPixel(reader);
+
+			if (governor.getPolicy() == PixelMemoryGovernor.Policy.SUBSAMPLE) {
+				// Subsample more until the image fits the remaining budget.
+				int maxSubsampling = Math.max(subsampling, calculateMaxSubsampling(decodedWidth, decodedHeight));
+				for (int s = subsampling; s <= maxSubsampling; s++) {
+					reservation = governor.tryReserve(estimatePeakBytes(decodedWidth, decodedHeight, s, bytesPerPixel));
+					if (reservation != null) {
+						if (s != subsampling) {
+							governor.recordSubsampled();
+							subsampling = s;
+						}
+						break;
+					}
+				}
 
-				// Handle cases where .width() or .height() is called. (Issue 161)
-				targetWidth = targetWidth != Integer.MAX_VALUE ? targetWidth : targetHeight;
-				targetHeight = targetHeight != Integer.MAX_VALUE ? targetHeight : targetWidth;
+				// Wait for the memory of the smallest acceptable image.
+				if (reservation == null && maxSubsampling != subsampling) {
+					governor.recordSubsampled();
+					subsampling = maxSubsampling;
+				}
+			}
 
-				double widthScaling = (double)width / (double)targetWidth;
-				double heightScaling = (double)height / (double)targetHeight;
+			if (reservation == null) {
+				reservation = governor.reserve(estimatePeakBytes(decodedWidth, decodedHeight, subsampling, bytesPerPixel));
+			}
+		}
 
-				subsampling = (int)Math.floor(Math.min(widthScaling, heightScaling));
+		boolean isRead = false;
+		try {
+			if (subsampling > 1) {
+				applySubsampling(irParam, subsampling);
+			}
 
-			} else if (param.getSize() == null) {
-				subsampling = (int)Math.max(1, Math.floor(1 / Math.max(param.getHeightScalingFactor(), param.getWidthScalingFactor())));
+			// Decoding is aborted once the current thumbnail has been cancelled.
+			CancellationToken token = CancellationToken.current();
+			if (token != null) {
+				token.throwIfCancelled();
+				reader.addIIOReadProgressListener(new AbortingProgressListener(token));
 			}
 
-			// Prevent excessive subsampling that can ruin image quality.
-			// This will ensure that at least a 600 x 600 image will be used as source.
-			for (; (width / subsampling) < 600 || (height / subsampling) < 600; subsampling--);
+			BufferedImage img = reader.read(FIRST_IMAGE_INDEX, irParam);
 
-			// If scaling factor based resize is used, need to change the scaling factor.
-			if (param.getSize() == null) {
-				try {
-					Class<?> c = param.getClass();
-					Field heightField = c.getDeclaredField("heightScalingFactor");
-					Field widthField = c.getDeclaredField("widthScalingFactor");
-					heightField.setAccessible(true);
-					widthField.setAccessible(true);
-					heightField.set(param, param.getHeightScalingFactor() * (double)subsampling);
-					widthField.set(param, param.getWidthScalingFactor() * (double)subsampling);
+			// An aborted reader returns the partially decoded image.
+			if (token != null && token.isCancelled()) {
+				img.flush();
+				token.throwIfCancelled();
+			}
 
-				} catch (Exception e) {
-					// If we can't update the parameter, then disable subsampling.
-					subsampling = 1;
-				}
+			if (reservation != null) {
+				reservation.attach(img);
 			}
+			isRead = true;
+			return img;
 
-			irParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+		} finally {
+			if (!isRead && reservation != null) {
+				reservation.release();
+			}
 		}
+	}
 
-		return reader.read(FIRST_IMAGE_INDEX, irParam);
+	/**
+	 * Returns the highest subsampling which keeps the decoded image at
+	 * least as large as the thumbnail.
+	 *
+	 * @param width			The width of the image to decode.
+	 * @param height		The height of the image to decode.
+	 * @return				The highest subsampling, which is at least
+	 * 						{@code 1}.
+	 */
+	private int calculateMaxSubsampling(int width, int height) {
+		int subsampling = 1;
+		if (param == null) {
+			return subsampling;
+		}
+
+		if (param.getSize() != null && (param.getSize().width * 2 < width && param.getSize().height * 2 < height)) {
+			int targetWidth = param.getSize().width;
+			int targetHeight = param.getSize().height;
+
+			// Handle cases where .width() or .height() is called. (Issue 161)
+			targetWidth = targetWidth != Integer.MAX_VALUE ? targetWidth : targetHeight;
+			targetHeight = targetHeight != Integer.MAX_VALUE ? targetHeight : targetWidth;
+
+			double widthScaling = (double)width / (double)targetWidth;
+			double heightScaling = (double)height / (double)targetHeight;
+
+			subsampling = (int)Math.floor(Math.min(widthScaling, heightScaling));
+
+		} else if (param.getSize() == null) {
+			subsampling = (int)Math.max(1, Math.floor(1 / Math.max(param.getHeightScalingFactor(), param.getWidthScalingFactor())));
+		}
+
+		return Math.max(1, subsampling);
+	}
+
+	/**
+	 * Sets the subsampling used to decode the image, and adjusts the scaling
+	 * factors of the thumbnail to the smaller decoded image.
+	 *
+	 * @param irParam		The parameters used to decode the image.
+	 * @param subsampling	The subsampling.
+	 */
+	private void applySubsampling(ImageReadParam irParam, int subsampling) {
+		// If scaling factor based resize is used, need to change the scaling factor.
+		if (param.getSize() == null) {
+			try {
+				Class<?> c = param.getClass();
+				Field heightField = c.getDeclaredField("heightScalingFactor");
+				Field widthField = c.getDeclaredField("widthScalingFactor");
+				heightField.setAccessible(true);
+				widthField.setAccessible(true);
+				heightField.set(param, param.getHeightScalingFactor() * (double)subsampling);
+				widthField.set(param, param.getWidthScalingFactor() * (double)subsampling);
+
+			} catch (Exception e) {
+				// If we can't update the parameter, then disable subsampling.
+				subsampling = 1;
+			}
+		}
+
+		irParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+		this.subsampling = subsampling;
+	}
+
+	/**
+	 * Estimates the peak memory used to create a thumbnail from the image
+	 * to decode.
+	 *
+	 * @param width			The width of the image to decode.
+	 * @param height		The height of the image to decode.
+	 * @param subsampling	The subsampling used to decode the image.
+	 * @param bytesPerPixel	The number of bytes of each decoded pixel.
+	 * @return				The estimated number of bytes.
+	 */
+	private static long estimatePeakBytes(int width, int height, int subsampling, int bytesPerPixel) {
+		return PixelMemoryGovernor.estimatePeakBytes(
+				(width + subsampling - 1) / subsampling,
+				(height + subsampling - 1) / subsampling,
+				bytesPerPixel
+		);
+	}
+
+	/**
+	 * Returns the number of bytes of each pixel of the image decoded by the
+	 * given reader.
+	 *
+	 * @param reader		The reader.
+	 * @return				The number of bytes of each pixel, which is
+	 * 						{@code 4} if it cannot be determined.
+	 */
+	private static int getBytesPerPixel(ImageReader reader) {
+		try {
+			ImageTypeSpecifier type = reader.getRawImageType(FIRST_IMAGE_INDEX);
+			if (type == null) {
+				Iterator<ImageTypeSpecifier> types = reader.getImageTypes(FIRST_IMAGE_INDEX);
+				type = types.hasNext() ? types.next() : null;
+			}
+			if (type != null) {
+				DataBuffer buffer = type.getSampleModel(1, 1).createDataBuffer();
+				return Math.max(1, buffer.getSize() * buffer.getNumBanks()
+						* DataBuffer.getDataTypeSize(buffer.getDataType()) / 8);
+			}
+
+		} catch (Exception e) {
+			// Assume the most common type when the type cannot be determined.
+		}
+
+		return 4;
 	}
 
 	private Rectangle calculateSourceRegion(int width, int height, Orientation orientation, Region region) {
@@ -639,6 +831,41 @@ public class InputStreamImageSource extends AbstractImageSource<InputStream> {
 		);
 	}
 
+	/**
+	 * Returns whether the image is a JPEG image with an Exif orientation
+	 * other than {@link Orientation#TOP_LEFT}, by reading only the start
+	 * of the {@link InputStream}.
+	 * <p>
+	 * The {@link InputStream} is reset to where it was, so that the image
+	 * can still be read afterwards. If the {@link InputStream} does not
+	 * support {@link InputStream#mark(int)}, nothing is read and
+	 * {@code false} is returned.
+	 * 
+	 * @return				{@code true} if the image has an orientation to
+	 * 						apply.
+	 * @throws IOException	If the {@link InputStream} could not be read,
+	 * 						or could not be reset.
+	 * @since	0.4.21
+	 */
+	public boolean hasOrientationToApply() throws IOException {
+		InputStream original = is;
+		if (original instanceof ExifCaptureInputStream) {
+			// Peek at the original `InputStream`, so that nothing is captured.
+			original = ((ExifCaptureInputStream)original).is;
+		}
+
+		if (!original.markSupported()) {
+			return false;
+		}
+
+		original.mark(LosslessJpegTransform.MAX_HEADER_LENGTH);
+		try {
+			return LosslessJpegTransform.hasOrientationToApply(original);
+		} finally {
+			original.reset();
+		}
+	}
+
 	public InputStream getSource() {
 		return is;
 	}
@@ -39,6 +39,7 @@ import javax.imageio.stream.ImageOutputStream;
 import net.coobird.thumbnailator.ThumbnailParameter;
 import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
 import net.coobird.thumbnailator.util.BufferedImages;
+import net.coobird.thumbnailator.util.CancellationToken;
 import net.coobird.thumbnailator.util.ThumbnailatorUtils;
 
 /**
@@ -214,6 +215,12 @@ public class OutputStreamImageSink extends AbstractImageSink<OutputStream> {
 			img = BufferedImages.copy(img, BufferedImage.TYPE_INT_RGB);
 		}
 		
+		// Encoding is aborted once the current thumbnail has been cancelled.
+		CancellationToken token = CancellationToken.current();
+		if (token != null) {
+			writer.addIIOWriteProgressListener(new AbortingProgressListener(token));
+		}
+		
 		writer.setOutput(ios);
 		writer.write(null, new IIOImage(img, null, null), writeParam);
 		
@@ -229,6 +236,11 @@ public class OutputStreamImageSink extends AbstractImageSink<OutputStream> {
 		writer.dispose();
 		
 		ios.close();
+		
+		// An aborted writer leaves an incomplete image in the stream.
+		if (token != null) {
+			token.throwIfCancelled();
+		}
 	}
 
 	/**
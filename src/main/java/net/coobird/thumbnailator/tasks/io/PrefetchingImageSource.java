@@ -0,0 +1,245 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks.io;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+import net.coobird.thumbnailator.ThumbnailParameter;
+import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
+
+/**
+ * An {@link ImageSource} which separates retrieving the data of an image from
+ * decoding the image.
+ * <p>
+ * Calling the {@link #prefetch()} method retrieves the data of the image from
+ * the underlying {@link ImageSource} into memory, without decoding it.
+ * The image is decoded from the data in memory when the {@link #read()}
+ * method is called. This allows the I/O-bound retrieval of the data and the
+ * CPU-bound decoding of the image to be performed on different threads.
+ * <p>
+ * Prefetching is supported for {@link FileImageSource}s,
+ * {@link URLImageSource}s and {@link InputStreamImageSource}s. For other
+ * {@link ImageSource}s, the {@link #prefetch()} method does nothing, and the
+ * {@link #read()} method reads the image from the underlying
+ * {@link ImageSource}.
+ * 
+ * @param <T>		The source class from which the source image is retrieved
+ * 					or read.
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public class PrefetchingImageSource<T> extends AbstractImageSource<T> {
+	/**
+	 * The size of the buffer used when the size of the data is not known.
+	 */
+	private static final int BUFFER_SIZE = 8192;
+	
+	/**
+	 * The underlying {@link ImageSource}.
+	 */
+	private final ImageSource<T> source;
+	
+	/**
+	 * The data of the image which has been prefetched, or {@code null} if
+	 * the data has not been prefetched.
+	 */
+	private byte[] data;
+	
+	/**
+	 * Instantiates a {@link PrefetchingImageSource} which prefetches the
+	 * data of the image from the specified {@link ImageSource}.
+	 * 
+	 * @param source		The underlying {@link ImageSource}.
+	 * @throws NullPointerException		If the {@link ImageSource} is
+	 * 									{@code null}.
+	 */
+	public PrefetchingImageSource(ImageSource<T> source) {
+		super();
+		
+		if (source == null) {
+			throw new NullPointerException("ImageSource cannot be null.");
+		}
+		
+		this.source = source;
+	}
+	
+	/**
+	 * Retrieves the data of the image into memory, without decoding it.
+	 * <p>
+	 * Calling this method more than once, or calling this method when the
+	 * underlying {@link ImageSource} does not support prefetching has no
+	 * effect.
+	 * 
+	 * @throws IOException		When a problem occurs while retrieving the
+	 * 							data of the image.
+	 */
+	public void prefetch() throws IOException {
+		if (data != null || hasReadInput) {
+			return;
+		}
+		
+		if (source instanceof FileImageSource) {
+			FileImageSource fileSource = (FileImageSource)source;
+			InputStream is = fileSource.openStream();
+			try {
+				data = readFully(is, fileSource.getSource().length());
+			} finally {
+				is.close();
+			}
+			
+		} else if (source instanceof URLImageSource) {
+			InputStream is = ((URLImageSource)source).openStream();
+			try {
+				data = readFully(is, -1);
+			} finally {
+				is.close();
+			}
+			
+		} else if (source instanceof InputStreamImageSource) {
+			// The InputStream is not closed, as with InputStreamImageSource.
+			data = readFully(((InputStreamImageSource)source).getSource(), -1);
+		}
+	}
+	
+	/**
+	 * Reads all remaining data from the given {@link InputStream}.
+	 * 
+	 * @param is				The {@link InputStream} to read from.
+	 * @param expectedLength	The expected length of the data, or a
+	 * 							negative value if unknown.
+	 * @return					The data which was read.
+	 * @throws IOException		When a problem occurs while reading.
+	 * @throws InterruptedIOException	When the current thread is
+	 * 									interrupted while reading.
+	 */
+	private static byte[] readFully(InputStream is, long expectedLength) throws IOException {
+		int initialSize = BUFFER_SIZE;
+		if (expectedLength > 0 && expectedLength < Integer.MAX_VALUE - 8) {
+			initialSize = (int)expectedLength;
+		}
+		
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(initialSize);
+		byte[] buffer = new byte[BUFFER_SIZE];
+		
+		int bytesRead;
+		while ((bytesRead = is.read(buffer)) != -1) {
+			baos.write(buffer, 0, bytesRead);
+			
+			// Allow retrieving a large or slow source to be abandoned.
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedIOException(
+						"Interrupted while retrieving the source image."
+				);
+			}
+		}
+		
+		return baos.toByteArray();
+	}
+	
+	/**
+	 * Returns the data of the source image which was retrieved by the
+	 * {@link #prefetch()} method.
+	 * <p>
+	 * The returned array should not be modified.
+	 * 
+	 * @return		The data of the source image, or {@code null} if the data
+	 * 				has not been retrieved, has already been decoded, or cannot
+	 * 				be retrieved separately from decoding, as with a
+	 * 				{@link BufferedImageSource}.
+	 */
+	public byte[] getData() {
+		return data;
+	}
+	
+	public BufferedImage read() throws IOException {
+		if (data == null) {
+			BufferedImage img = source.read();
+			copyReadInformation(source);
+			return finishedReading(img);
+		}
+		
+		InputStreamImageSource dataSource =
+				new InputStreamImageSource(new ByteArrayInputStream(data));
+		dataSource.setThumbnailParameter(param);
+		
+		BufferedImage img;
+		try {
+			img = dataSource.read();
+			
+		} catch (UnsupportedFormatException e) {
+			if (source instanceof FileImageSource) {
+				String sourcePath = ((FileImageSource)source).getSource().getAbsolutePath();
+				throw new UnsupportedFormatException(
+						UnsupportedFormatException.UNKNOWN,
+						"No suitable ImageReader found for " + sourcePath + "."
+				);
+			} else if (source instanceof URLImageSource) {
+				throw new IOException(
+						"Could not obtain image from URL: " + source.getSource()
+				);
+			}
+			throw e;
+			
+		} finally {
+			// The data is no longer needed once the image has been decoded.
+			data = null;
+		}
+		
+		copyReadInformation(dataSource);
+		
+		return finishedReading(img);
+	}
+	
+	@Override
+	public void setThumbnailParameter(ThumbnailParameter param) {
+		super.setThumbnailParameter(param);
+		source.setThumbnailParameter(param);
+	}
+	
+	/**
+	 * Returns the underlying {@link ImageSource}.
+	 * 
+	 * @return		The underlying {@link ImageSource}.
+	 * @since	0.4.21
+	 */
+	public ImageSource<T> getImageSource() {
+		return source;
+	}
+	
+	/**
+	 * Returns the source of the underlying {@link ImageSource}.
+	 * 
+	 * @return		The source of the image.
+	 */
+	public T getSource() {
+		return source.getSource();
+	}
+}
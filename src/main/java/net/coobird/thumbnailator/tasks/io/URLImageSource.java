@@ -132,18 +132,27 @@ public class URLImageSource extends AbstractImageSource<URL> {
 		this.proxy = proxy;
 	}
 
-	public BufferedImage read() throws IOException {
-		InputStream is;
+	/**
+	 * Opens a connection to the URL, through the proxy if one was given.
+	 * 
+	 * @return				An {@link InputStream} of the URL.
+	 * @throws IOException	If the connection could not be opened.
+	 */
+	InputStream openStream() throws IOException {
 		try {
 			if (proxy != null) {
-				is = url.openConnection(proxy).getInputStream();
+				return url.openConnection(proxy).getInputStream();
 			} else {
-				is = url.openStream();
+				return url.openStream();
 			}
 
 		} catch (IOException e) {
-			throw new IOException("Could not open connection to URL: " + url);
+			throw new IOException("Could not open connection to URL: " + url, e);
 		}
+	}
+
+	public BufferedImage read() throws IOException {
+		InputStream is = openStream();
 
 		InputStreamImageSource source = new InputStreamImageSource(is);
 		source.setThumbnailParameter(param);
@@ -157,7 +166,7 @@ public class URLImageSource extends AbstractImageSource<URL> {
 			is.close();
 		}
 
-		this.inputFormatName = source.getInputFormatName();
+		copyReadInformation(source);
 		
 		return finishedReading(img);
 	}
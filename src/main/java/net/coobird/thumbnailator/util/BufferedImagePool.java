@@ -0,0 +1,390 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util;
+
+import net.coobird.thumbnailator.builders.BufferedImageBuilder;
+
+import java.awt.image.BufferedImage;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of {@link BufferedImage}s which Thumbnailator uses for the temporary
+ * image of the
+ * {@link net.coobird.thumbnailator.resizers.ProgressiveBilinearResizer},
+ * so that its pixel buffer can be reused instead of being allocated for each
+ * thumbnail.
+ * <p>
+ * Images are leased by calling {@link #lease(int, int, int)}, and returned to
+ * the pool by calling {@link Lease#release()} once the image is no longer
+ * used. Leased images are at least as large as requested, as their dimensions
+ * are rounded up to a size class so that images of similar sizes can share
+ * pixel buffers. The contents of a leased image are undefined.
+ * <p>
+ * The pool never holds more than the maximum number of bytes specified when
+ * it was created. Images which are released when the pool is full are
+ * discarded, and left to the garbage collector.
+ * <p>
+ * Pooling is disabled by default. It is enabled by setting a pool through
+ * {@link #setDefault(BufferedImagePool)}:
+ * <pre>
+BufferedImagePool.setDefault(new BufferedImagePool(64L * 1024 * 1024));
+ * </pre>
+ * <p>
+ * Only images which do not escape Thumbnailator are taken from the pool.
+ * Thumbnails are always newly allocated, as are the images passed between
+ * {@link net.coobird.thumbnailator.filters.ImageFilter}s, since a filter may
+ * keep or return the image it is given.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class BufferedImagePool {
+	/**
+	 * The smallest size class of a dimension.
+	 */
+	private static final int MIN_SIZE_CLASS = 64;
+	
+	/**
+	 * The pool used by Thumbnailator, or {@code null} if pooling is disabled.
+	 */
+	private static volatile BufferedImagePool defaultPool;
+	
+	/**
+	 * The maximum number of bytes of pixel data held by this pool.
+	 */
+	private final long maxBytes;
+	
+	/**
+	 * Images which are available to be leased, by size class and type.
+	 */
+	private final ConcurrentMap<Key, Deque<BufferedImage>> freeImages =
+			new ConcurrentHashMap<Key, Deque<BufferedImage>>();
+	
+	private final AtomicLong pooledBytes = new AtomicLong();
+	private final AtomicLong leaseCount = new AtomicLong();
+	private final AtomicLong reuseCount = new AtomicLong();
+	private final AtomicLong discardCount = new AtomicLong();
+	
+	/**
+	 * Creates a pool which holds at most the specified number of bytes of
+	 * pixel data.
+	 * 
+	 * @param maxBytes		The maximum number of bytes held by the pool.
+	 * @throws IllegalArgumentException	If the maximum is negative.
+	 */
+	public BufferedImagePool(long maxBytes) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("Maximum size must not be negative.");
+		}
+		
+		this.maxBytes = maxBytes;
+	}
+	
+	/**
+	 * Sets the pool used by Thumbnailator for the temporary images of the
+	 * progressive bilinear resizer.
+	 * 
+	 * @param pool		The pool to use, or {@code null} to disable pooling.
+	 */
+	public static void setDefault(BufferedImagePool pool) {
+		defaultPool = pool;
+	}
+	
+	/**
+	 * Returns the pool used by Thumbnailator for the temporary images of the
+	 * progressive bilinear resizer.
+	 * 
+	 * @return			The pool in use, or {@code null} if pooling is
+	 * 					disabled.
+	 */
+	public static BufferedImagePool getDefault() {
+		return defaultPool;
+	}
+	
+	/**
+	 * Leases an image from the default pool. If pooling is disabled, an image
+	 * of exactly the requested size is allocated, and releasing its lease
+	 * has no effect.
+	 * 
+	 * @param width			The minimum width of the image.
+	 * @param height		The minimum height of the image.
+	 * @param imageType		The type of the image.
+	 * @return				The lease of the image.
+	 */
+	public static Lease leaseFromDefault(int width, int height, int imageType) {
+		BufferedImagePool pool = defaultPool;
+		if (pool != null) {
+			return pool.lease(width, height, imageType);
+		}
+		
+		return new Lease(null, null, new BufferedImageBuilder(width, height, imageType).build());
+	}
+	
+	/**
+	 * Leases an image which is at least as large as the specified dimensions.
+	 * 
+	 * @param width			The minimum width of the image.
+	 * @param height		The minimum height of the image.
+	 * @param imageType		The type of the image. If
+	 * 						{@link BufferedImage#TYPE_CUSTOM} is specified,
+	 * 						{@link BufferedImage#TYPE_INT_ARGB} will be used.
+	 * @return				The lease of the image.
+	 * @throws IllegalArgumentException	If the width or height is less than
+	 * 									or equal to 0.
+	 */
+	public Lease lease(int width, int height, int imageType) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Width and height must be greater than 0.");
+		}
+		if (imageType == BufferedImage.TYPE_CUSTOM) {
+			imageType = BufferedImage.TYPE_INT_ARGB;
+		}
+		
+		leaseCount.incrementAndGet();
+		
+		Key key = new Key(sizeClass(width), sizeClass(height), imageType);
+		
+		Deque<BufferedImage> images = freeImages.get(key);
+		BufferedImage img = images == null ? null : images.pollFirst();
+		
+		if (img != null) {
+			pooledBytes.addAndGet(-BufferedImages.sizeOf(img));
+			reuseCount.incrementAndGet();
+		} else {
+			img = new BufferedImageBuilder(key.width, key.height, imageType).build();
+		}
+		
+		return new Lease(this, key, img);
+	}
+	
+	/**
+	 * Returns an image to the pool, or discards it if the pool is full.
+	 * 
+	 * @param key		The key of the image.
+	 * @param img		The image.
+	 */
+	private void giveBack(Key key, BufferedImage img) {
+		long bytes = BufferedImages.sizeOf(img);
+		
+		long current;
+		do {
+			current = pooledBytes.get();
+			if (current + bytes > maxBytes) {
+				discardCount.incrementAndGet();
+				return;
+			}
+		} while (!pooledBytes.compareAndSet(current, current + bytes));
+		
+		Deque<BufferedImage> images = freeImages.get(key);
+		if (images == null) {
+			Deque<BufferedImage> newImages = new ConcurrentLinkedDeque<BufferedImage>();
+			images = freeImages.putIfAbsent(key, newImages);
+			if (images == null) {
+				images = newImages;
+			}
+		}
+		
+		// Most recently returned images are leased first, as they are the
+		// most likely to still be in the CPU caches.
+		images.offerFirst(img);
+	}
+	
+	/**
+	 * Removes all images held by this pool.
+	 */
+	public void clear() {
+		for (Deque<BufferedImage> images : freeImages.values()) {
+			BufferedImage img;
+			while ((img = images.pollFirst()) != null) {
+				pooledBytes.addAndGet(-BufferedImages.sizeOf(img));
+			}
+		}
+	}
+	
+	/**
+	 * Rounds a dimension up to its size class. Size classes are spaced at a
+	 * quarter of the largest power of two not greater than the dimension, so
+	 * that at most a quarter of each dimension is wasted.
+	 * 
+	 * @param size		The dimension.
+	 * @return			The size class of the dimension.
+	 */
+	static int sizeClass(int size) {
+		if (size <= MIN_SIZE_CLASS) {
+			return MIN_SIZE_CLASS;
+		}
+		
+		int step = Math.max(MIN_SIZE_CLASS, Integer.highestOneBit(size) / 4);
+		long rounded = ((long)size + step - 1) / step * step;
+		
+		return (int)Math.min(rounded, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Returns the maximum number of bytes of pixel data held by this pool.
+	 * 
+	 * @return		The maximum number of bytes.
+	 */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+	
+	/**
+	 * Returns the number of bytes of pixel data currently held by this pool.
+	 * 
+	 * @return		The number of bytes held.
+	 */
+	public long getPooledBytes() {
+		return pooledBytes.get();
+	}
+	
+	/**
+	 * Returns the number of leases made from this pool.
+	 * 
+	 * @return		The number of leases.
+	 */
+	public long getLeaseCount() {
+		return leaseCount.get();
+	}
+	
+	/**
+	 * Returns the number of leases which reused an image held by this pool.
+	 * 
+	 * @return		The number of reused images.
+	 */
+	public long getReuseCount() {
+		return reuseCount.get();
+	}
+	
+	/**
+	 * Returns the fraction of leases which reused an image held by this pool.
+	 * 
+	 * @return		The reuse rate, between {@code 0.0} and {@code 1.0}.
+	 */
+	public double getReuseRate() {
+		long leases = leaseCount.get();
+		return leases == 0 ? 0.0 : (double)reuseCount.get() / leases;
+	}
+	
+	/**
+	 * Returns the number of released images which were discarded because
+	 * the pool was full.
+	 * 
+	 * @return		The number of discarded images.
+	 */
+	public long getDiscardCount() {
+		return discardCount.get();
+	}
+	
+	@Override
+	public String toString() {
+		return "BufferedImagePool[leases=" + getLeaseCount()
+				+ ", reuses=" + getReuseCount()
+				+ ", discards=" + getDiscardCount()
+				+ ", pooledBytes=" + getPooledBytes()
+				+ ", maxBytes=" + maxBytes + "]";
+	}
+	
+	/**
+	 * A lease of an image from a {@link BufferedImagePool}.
+	 * 
+	 * @author coobird
+	 * @since	0.4.21
+	 *
+	 */
+	public static final class Lease {
+		private final BufferedImagePool pool;
+		private final Key key;
+		private final BufferedImage img;
+		private final AtomicBoolean released = new AtomicBoolean();
+		
+		private Lease(BufferedImagePool pool, Key key, BufferedImage img) {
+			this.pool = pool;
+			this.key = key;
+			this.img = img;
+		}
+		
+		/**
+		 * Returns the leased image. The image may be larger than requested.
+		 * 
+		 * @return		The leased image.
+		 */
+		public BufferedImage getImage() {
+			return img;
+		}
+		
+		/**
+		 * Returns the leased image to its pool. The image must not be used
+		 * after the lease has been released.
+		 * 
+		 * @throws IllegalStateException	If the lease has already been
+		 * 									released.
+		 */
+		public void release() {
+			if (!released.compareAndSet(false, true)) {
+				throw new IllegalStateException("Lease has already been released.");
+			}
+			if (pool != null) {
+				pool.giveBack(key, img);
+			}
+		}
+	}
+	
+	/**
+	 * The size class and type of pooled images.
+	 */
+	private static final class Key {
+		private final int width;
+		private final int height;
+		private final int imageType;
+		
+		private Key(int width, int height, int imageType) {
+			this.width = width;
+			this.height = height;
+			this.imageType = imageType;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key)o;
+			return width == other.width && height == other.height
+					&& imageType == other.imageType;
+		}
+		
+		@Override
+		public int hashCode() {
+			return (width * 31 + height) * 31 + imageType;
+		}
+	}
+}
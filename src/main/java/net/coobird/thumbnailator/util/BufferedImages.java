@@ -28,6 +28,7 @@ import net.coobird.thumbnailator.builders.BufferedImageBuilder;
 
 import java.awt.Graphics;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
 
 /**
  * This class provides convenience methods for using {@link BufferedImage}s.
@@ -72,4 +73,17 @@ public final class BufferedImages {
 		
 		return newImage;
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Returns the number of bytes of pixel data held by the specified image.
+	 * 
+	 * @param img		The image.
+	 * @return			The number of bytes of pixel data.
+	 * @since	0.4.21
+	 */
+	public static long sizeOf(BufferedImage img) {
+		DataBuffer buffer = img.getRaster().getDataBuffer();
+		return (long)buffer.getSize() * buffer.getNumBanks()
+				* DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+	}
+}
@@ -0,0 +1,226 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token which signals that the creation of thumbnails should stop,
+ * either because it has been cancelled, or because its deadline has
+ * passed.
+ * <p>
+ * Cancellation is cooperative. The token of the thumbnail being created is
+ * made the current token of the thread which creates it, by
+ * {@link #attach()}, and is checked by the long running parts of
+ * Thumbnailator:
+ * <ul>
+ * <li>the {@link javax.imageio.ImageReader} decoding the source image is
+ * aborted from its progress listener,</li>
+ * <li>the {@link javax.imageio.ImageWriter} encoding the thumbnail is
+ * aborted from its progress listener,</li>
+ * <li>the steps of the
+ * {@link net.coobird.thumbnailator.resizers.ProgressiveBilinearResizer},
+ * and</li>
+ * <li>the filters of a {@link net.coobird.thumbnailator.filters.Pipeline}.
+ * </li>
+ * </ul>
+ * Once the token has been cancelled, these stop at their next check, and a
+ * {@link CancellationException} is thrown.
+ * <p>
+ * A token can have a parent, in which case it is also cancelled when its
+ * parent is cancelled. This allows a deadline to be applied to each
+ * thumbnail, while all of them can be cancelled through their parent.
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class CancellationToken {
+	/**
+	 * The token which is current on each thread.
+	 */
+	private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<CancellationToken>();
+	
+	/**
+	 * The parent of this token, or {@code null}.
+	 */
+	private final CancellationToken parent;
+	
+	/**
+	 * The value of {@link System#nanoTime()} at which this token expires.
+	 * Only used when {@link #hasDeadline} is {@code true}.
+	 */
+	private final long deadlineNanos;
+	
+	/**
+	 * Whether this token has a deadline.
+	 */
+	private final boolean hasDeadline;
+	
+	/**
+	 * Whether {@link #cancel()} has been called.
+	 */
+	private volatile boolean cancelled = false;
+	
+	/**
+	 * Creates a token which is only cancelled by calling {@link #cancel()}.
+	 */
+	public CancellationToken() {
+		this.parent = null;
+		this.deadlineNanos = 0;
+		this.hasDeadline = false;
+	}
+	
+	/**
+	 * Creates a token which is cancelled once the given time has elapsed.
+	 * 
+	 * @param timeout		The time until the token is cancelled.
+	 * @param unit			The unit of the timeout.
+	 * @throws IllegalArgumentException	If the timeout is negative.
+	 * @throws NullPointerException		If the unit is {@code null}.
+	 */
+	public CancellationToken(long timeout, TimeUnit unit) {
+		this(null, timeout, unit);
+	}
+	
+	/**
+	 * Creates a token which is cancelled once the given time has elapsed,
+	 * or when the given parent is cancelled.
+	 * 
+	 * @param parent		The parent of the token, or {@code null}.
+	 * @param timeout		The time until the token is cancelled.
+	 * @param unit			The unit of the timeout.
+	 * @throws IllegalArgumentException	If the timeout is negative.
+	 * @throws NullPointerException		If the unit is {@code null}.
+	 */
+	public CancellationToken(CancellationToken parent, long timeout, TimeUnit unit) {
+		if (timeout < 0) {
+			throw new IllegalArgumentException("Timeout must not be negative.");
+		}
+		if (unit == null) {
+			throw new NullPointerException("Unit is null.");
+		}
+		
+		this.parent = parent;
+		this.deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+		this.hasDeadline = true;
+	}
+	
+	/**
+	 * Cancels this token, and the tokens whose parent it is.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+	
+	/**
+	 * Returns whether this token has been cancelled, its deadline has
+	 * passed, or its parent has been cancelled.
+	 * 
+	 * @return		{@code true} if the work should stop.
+	 */
+	public boolean isCancelled() {
+		return cancelled || isExpired() || (parent != null && parent.isCancelled());
+	}
+	
+	/**
+	 * Returns whether the deadline of this token, or of its parent, has
+	 * passed.
+	 * 
+	 * @return		{@code true} if a deadline has passed.
+	 */
+	public boolean isExpired() {
+		return (hasDeadline && System.nanoTime() - deadlineNanos >= 0) ||
+				(parent != null && parent.isExpired());
+	}
+	
+	/**
+	 * Throws a {@link CancellationException} if this token has been
+	 * cancelled.
+	 * 
+	 * @throws CancellationException	If this token has been cancelled.
+	 */
+	public void throwIfCancelled() {
+		if (isCancelled()) {
+			throw new CancellationException(
+					isExpired() ? "Deadline of the thumbnail has passed." : "Thumbnail has been cancelled."
+			);
+		}
+	}
+	
+	/**
+	 * Makes this token the current token of the calling thread.
+	 * <p>
+	 * The returned token must be passed to {@link #detach(CancellationToken)}
+	 * once the work has finished, usually in a {@code finally} block.
+	 * 
+	 * @return		The token which was current before, or {@code null}.
+	 */
+	public CancellationToken attach() {
+		CancellationToken previous = CURRENT.get();
+		CURRENT.set(this);
+		return previous;
+	}
+	
+	/**
+	 * Restores the token which was current before {@link #attach()} was
+	 * called.
+	 * 
+	 * @param previous		The token returned by {@link #attach()}.
+	 */
+	public static void detach(CancellationToken previous) {
+		if (previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(previous);
+		}
+	}
+	
+	/**
+	 * Returns the current token of the calling thread.
+	 * 
+	 * @return		The current token, or {@code null} if there is none.
+	 */
+	public static CancellationToken current() {
+		return CURRENT.get();
+	}
+	
+	/**
+	 * Throws a {@link CancellationException} if the current token of the
+	 * calling thread has been cancelled.
+	 * 
+	 * @throws CancellationException	If the current token has been
+	 * 									cancelled.
+	 */
+	public static void checkCurrent() {
+		CancellationToken token = CURRENT.get();
+		if (token != null) {
+			token.throwIfCancelled();
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ThreadFactory} which creates daemon threads with a common name
+ * prefix.
+ * <p>
+ * Threads created by Thumbnailator should not prevent the Java virtual
+ * machine from exiting, therefore, this {@link ThreadFactory} is used
+ * whenever Thumbnailator creates its own threads.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class DaemonThreadFactory implements ThreadFactory {
+	/**
+	 * The prefix of the names of the threads created by this factory.
+	 */
+	private final String namePrefix;
+	
+	/**
+	 * The number of the next thread to create.
+	 */
+	private final AtomicInteger threadNumber = new AtomicInteger(1);
+	
+	/**
+	 * Instantiates a {@link DaemonThreadFactory} which creates threads
+	 * named with the specified prefix followed by a sequence number.
+	 * 
+	 * @param namePrefix	The prefix of the names of the threads.
+	 * @throws NullPointerException	If the prefix is {@code null}.
+	 */
+	public DaemonThreadFactory(String namePrefix) {
+		if (namePrefix == null) {
+			throw new NullPointerException("Name prefix is null.");
+		}
+		
+		this.namePrefix = namePrefix;
+	}
+	
+	public Thread newThread(Runnable r) {
+		Thread t = new Thread(r, namePrefix + "-" + threadNumber.getAndIncrement());
+		t.setDaemon(true);
+		return t;
+	}
+}
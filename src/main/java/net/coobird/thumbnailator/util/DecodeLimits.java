@@ -0,0 +1,259 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util;
+
+import net.coobird.thumbnailator.tasks.ImageLimitExceededException;
+
+/**
+ * Limits on the dimensions and the number of frames which images may
+ * declare in their headers, which protect against decompression bombs.
+ * <p>
+ * A file of a few hundred bytes can declare an image of billions of pixels,
+ * which the {@link javax.imageio.ImageReader} would try to allocate when
+ * the image is decoded. When limits are set by
+ * {@link #setDefault(DecodeLimits)}, the dimensions and the number of
+ * frames declared by an image are checked before it is decoded, and an
+ * {@link ImageLimitExceededException} is thrown if they exceed the limits.
+ * <p>
+ * Alternatively, images whose dimensions exceed the limits can be decoded
+ * with enough subsampling to fit within the limits, for applications which
+ * accept large but legitimate images. The number of frames cannot be
+ * reduced by subsampling, and is always enforced.
+ * <p>
+ * No limits are set by default.
+ * <p>
+ * Instances of this class are immutable.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class DecodeLimits {
+	/**
+	 * The limits used by Thumbnailator, or {@code null} if there are none.
+	 */
+	private static volatile DecodeLimits defaultLimits;
+	
+	private final int maxWidth;
+	private final int maxHeight;
+	private final long maxPixels;
+	private final int maxFrames;
+	private final boolean subsampleOversized;
+	
+	/**
+	 * Creates limits which reject the images which exceed them.
+	 * 
+	 * @param maxWidth		The largest width an image may declare.
+	 * @param maxHeight		The largest height an image may declare.
+	 * @param maxPixels		The largest number of pixels, which is the width
+	 * 						multiplied by the height, an image may declare.
+	 * @param maxFrames		The largest number of frames an image may
+	 * 						declare, or {@link Integer#MAX_VALUE} to not
+	 * 						count the frames.
+	 * @throws IllegalArgumentException	If a limit is not positive.
+	 */
+	public DecodeLimits(int maxWidth, int maxHeight, long maxPixels, int maxFrames) {
+		this(maxWidth, maxHeight, maxPixels, maxFrames, false);
+	}
+	
+	/**
+	 * Creates limits.
+	 * 
+	 * @param maxWidth		The largest width an image may declare.
+	 * @param maxHeight		The largest height an image may declare.
+	 * @param maxPixels		The largest number of pixels, which is the width
+	 * 						multiplied by the height, an image may declare.
+	 * @param maxFrames		The largest number of frames an image may
+	 * 						declare, or {@link Integer#MAX_VALUE} to not
+	 * 						count the frames.
+	 * @param subsampleOversized	Whether images whose dimensions exceed the
+	 * 						limits should be decoded with subsampling, rather
+	 * 						than rejected.
+	 * @throws IllegalArgumentException	If a limit is not positive.
+	 */
+	public DecodeLimits(int maxWidth, int maxHeight, long maxPixels, int maxFrames, boolean subsampleOversized) {
+		if (maxWidth <= 0 || maxHeight <= 0 || maxPixels <= 0 || maxFrames <= 0) {
+			throw new IllegalArgumentException("Limits must be positive.");
+		}
+		
+		this.maxWidth = maxWidth;
+		this.maxHeight = maxHeight;
+		this.maxPixels = maxPixels;
+		this.maxFrames = maxFrames;
+		this.subsampleOversized = subsampleOversized;
+	}
+	
+	/**
+	 * Sets the limits used by Thumbnailator for the images it decodes.
+	 * 
+	 * @param limits	The limits to use, or {@code null} to decode images
+	 * 					without limits.
+	 */
+	public static void setDefault(DecodeLimits limits) {
+		defaultLimits = limits;
+	}
+	
+	/**
+	 * Returns the limits used by Thumbnailator for the images it decodes.
+	 * 
+	 * @return			The limits in use, or {@code null} if images are
+	 * 					decoded without limits.
+	 */
+	public static DecodeLimits getDefault() {
+		return defaultLimits;
+	}
+	
+	/**
+	 * Returns the largest width an image may declare.
+	 * 
+	 * @return		The largest width.
+	 */
+	public int getMaxWidth() {
+		return maxWidth;
+	}
+	
+	/**
+	 * Returns the largest height an image may declare.
+	 * 
+	 * @return		The largest height.
+	 */
+	public int getMaxHeight() {
+		return maxHeight;
+	}
+	
+	/**
+	 * Returns the largest number of pixels an image may declare.
+	 * 
+	 * @return		The largest number of pixels.
+	 */
+	public long getMaxPixels() {
+		return maxPixels;
+	}
+	
+	/**
+	 * Returns the largest number of frames an image may declare.
+	 * 
+	 * @return		The largest number of frames, or
+	 * 				{@link Integer#MAX_VALUE} if frames are not counted.
+	 */
+	public int getMaxFrames() {
+		return maxFrames;
+	}
+	
+	/**
+	 * Returns whether images whose dimensions exceed the limits are decoded
+	 * with subsampling, rather than rejected.
+	 * 
+	 * @return		{@code true} if oversized images are subsampled.
+	 */
+	public boolean isSubsamplingOversized() {
+		return subsampleOversized;
+	}
+	
+	/**
+	 * Returns whether frames need to be counted to check these limits.
+	 * Counting the frames may require the whole image to be scanned.
+	 * 
+	 * @return		{@code true} if frames should be counted.
+	 */
+	public boolean isCountingFrames() {
+		return maxFrames != Integer.MAX_VALUE;
+	}
+	
+	/**
+	 * Returns whether the given dimensions are within these limits.
+	 * 
+	 * @param width			The width.
+	 * @param height		The height.
+	 * @return				{@code true} if the dimensions are within the
+	 * 						limits.
+	 */
+	public boolean isWithin(int width, int height) {
+		return width <= maxWidth && height <= maxHeight
+				&& (long)width * height <= maxPixels;
+	}
+	
+	/**
+	 * Checks the dimensions and the number of frames declared by an image.
+	 * 
+	 * @param width			The declared width.
+	 * @param height		The declared height.
+	 * @param frames		The declared number of frames, or {@code -1} if
+	 * 						they were not counted.
+	 * @throws ImageLimitExceededException	If the image exceeds the limits,
+	 * 										and cannot be subsampled to fit
+	 * 										them.
+	 */
+	public void check(int width, int height, int frames) throws ImageLimitExceededException {
+		if (frames > maxFrames) {
+			throw new ImageLimitExceededException(width, height, frames,
+					"Image declares " + frames + " frames, exceeding the limit of "
+							+ maxFrames + "."
+			);
+		}
+		
+		if (!subsampleOversized && !isWithin(width, height)) {
+			throw new ImageLimitExceededException(width, height, frames,
+					"Image declares " + width + " x " + height
+							+ " pixels, exceeding the limits of " + maxWidth
+							+ " x " + maxHeight + " and " + maxPixels + " pixels."
+			);
+		}
+	}
+	
+	/**
+	 * Returns the lowest subsampling with which an image of the given
+	 * dimensions is decoded within these limits.
+	 * 
+	 * @param width			The width of the image to decode.
+	 * @param height		The height of the image to decode.
+	 * @return				The subsampling, which is {@code 1} if the image
+	 * 						is within the limits.
+	 */
+	public int getSubsampling(int width, int height) {
+		// Starts from an estimate, as declared dimensions may be huge.
+		int subsampling = Math.max(1, Math.max(
+				Math.max(ceilDiv(width, maxWidth), ceilDiv(height, maxHeight)),
+				(int)Math.min(Integer.MAX_VALUE, (long)Math.sqrt((double)width * height / maxPixels))
+		));
+		while (!isWithin(ceilDiv(width, subsampling), ceilDiv(height, subsampling))) {
+			subsampling++;
+		}
+		return subsampling;
+	}
+	
+	private static int ceilDiv(int value, int divisor) {
+		return (int)(((long)value + divisor - 1) / divisor);
+	}
+	
+	@Override
+	public String toString() {
+		return "DecodeLimits[maxWidth=" + maxWidth
+				+ ", maxHeight=" + maxHeight
+				+ ", maxPixels=" + maxPixels
+				+ ", maxFrames=" + maxFrames
+				+ ", subsampleOversized=" + subsampleOversized + "]";
+	}
+}
@@ -0,0 +1,287 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import javax.imageio.ImageIO;
+
+/**
+ * An {@link Iterable} of the image files in a directory, which are found
+ * lazily while they are being iterated.
+ * <p>
+ * Each {@link Iterator} walks the directory anew, depth first, and holds
+ * only the open directories along the current path, so that iterating
+ * over a directory with a very large number of files requires a constant
+ * amount of memory, and the first file is returned as soon as it is found.
+ * <p>
+ * A file is returned when its suffix is one which {@link ImageIO} can read,
+ * as returned by {@link ImageIO#getReaderFileSuffixes()}, and its name
+ * matches the glob pattern, if one was given. Symbolic links to directories
+ * are not followed. The order of the files is not specified.
+ * <p>
+ * Directories are closed when the iteration reaches their end. The
+ * {@link Iterator} is also {@link Closeable}, so that the open directories
+ * can be closed when the iteration is abandoned before its end. A problem
+ * while reading a directory causes the {@link Iterator} to throw an
+ * {@link UncheckedIOException}.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class DirectoryImageFiles implements Iterable<File> {
+	/**
+	 * The directory to walk.
+	 */
+	private final Path directory;
+	
+	/**
+	 * The matcher of the names of files, or {@code null} if the names of
+	 * files are not matched.
+	 */
+	private final PathMatcher matcher;
+	
+	/**
+	 * Whether subdirectories are walked.
+	 */
+	private final boolean recursive;
+	
+	/**
+	 * The lower case suffixes of the files which can be read.
+	 */
+	private final Set<String> suffixes = new HashSet<String>();
+	
+	/**
+	 * Creates a {@link DirectoryImageFiles}.
+	 * 
+	 * @param directory		The directory to walk.
+	 * @param glob			The glob pattern which the names of files must
+	 * 						match, as described in
+	 * 						{@link java.nio.file.FileSystem#getPathMatcher(String)},
+	 * 						or {@code null} to match all names.
+	 * @param recursive		Whether subdirectories are walked.
+	 * @throws NullPointerException		If the directory is {@code null}.
+	 * @throws IllegalArgumentException	If the directory is not a
+	 * 									directory, or the glob pattern is
+	 * 									invalid.
+	 */
+	public DirectoryImageFiles(Path directory, String glob, boolean recursive) {
+		if (directory == null) {
+			throw new NullPointerException("Directory is null.");
+		}
+		if (!Files.isDirectory(directory)) {
+			throw new IllegalArgumentException("Given path is not a directory: " + directory);
+		}
+		
+		this.directory = directory;
+		this.matcher = glob == null ? null : directory.getFileSystem().getPathMatcher("glob:" + glob);
+		this.recursive = recursive;
+		
+		for (String suffix : ImageIO.getReaderFileSuffixes()) {
+			suffixes.add(suffix.toLowerCase(Locale.ENGLISH));
+		}
+	}
+	
+	/**
+	 * Returns an {@link Iterator} which walks the directory. The returned
+	 * {@link Iterator} is {@link Closeable}.
+	 * 
+	 * @return		An {@link Iterator} of the image files.
+	 */
+	public Iterator<File> iterator() {
+		return new DirectoryIterator();
+	}
+	
+	/**
+	 * Returns whether the given file should be returned.
+	 * 
+	 * @param path			The file.
+	 * @return				{@code true} if the file should be returned.
+	 */
+	private boolean accept(Path path) {
+		String name = path.getFileName().toString();
+		int lastDot = name.lastIndexOf('.');
+		if (lastDot == -1 || !suffixes.contains(name.substring(lastDot + 1).toLowerCase(Locale.ENGLISH))) {
+			return false;
+		}
+		
+		return matcher == null || matcher.matches(path.getFileName());
+	}
+	
+	/**
+	 * An {@link Iterator} which walks the directory, and which closes the
+	 * open directories when it is closed.
+	 */
+	private final class DirectoryIterator implements Iterator<File>, Closeable {
+		/**
+		 * The open directories along the current path, with the innermost
+		 * directory first.
+		 */
+		private final Deque<DirectoryStream<Path>> streams = new ArrayDeque<DirectoryStream<Path>>();
+		
+		/**
+		 * The iterators of the entries of the open directories, in the same
+		 * order as {@link #streams}.
+		 */
+		private final Deque<Iterator<Path>> entries = new ArrayDeque<Iterator<Path>>();
+		
+		/**
+		 * The next file to return, or {@code null} if it has not been found.
+		 */
+		private File next;
+		
+		/**
+		 * Whether the walk has started.
+		 */
+		private boolean isStarted = false;
+		
+		public boolean hasNext() {
+			if (next == null) {
+				next = findNext();
+			}
+			return next != null;
+		}
+		
+		public File next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			
+			File f = next;
+			next = null;
+			return f;
+		}
+		
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+		
+		/**
+		 * Closes the open directories, after which no more files are
+		 * returned.
+		 */
+		public void close() {
+			isStarted = true;
+			next = null;
+			closeAll();
+		}
+		
+		/**
+		 * Walks the directory until the next file is found.
+		 * 
+		 * @return			The next file, or {@code null} if all files have
+		 * 					been found.
+		 */
+		private File findNext() {
+			if (!isStarted) {
+				isStarted = true;
+				open(directory);
+			}
+			
+			while (!entries.isEmpty()) {
+				Path path;
+				try {
+					Iterator<Path> iter = entries.peek();
+					if (!iter.hasNext()) {
+						closeInnermost();
+						continue;
+					}
+					path = iter.next();
+					
+				} catch (DirectoryIteratorException e) {
+					closeAll();
+					throw new UncheckedIOException(e.getCause());
+				}
+				
+				if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+					if (recursive) {
+						open(path);
+					}
+				} else if (accept(path) && Files.isRegularFile(path)) {
+					return path.toFile();
+				}
+			}
+			
+			return null;
+		}
+		
+		/**
+		 * Opens a directory, and makes it the innermost open directory.
+		 * 
+		 * @param dir		The directory.
+		 */
+		private void open(Path dir) {
+			DirectoryStream<Path> stream;
+			try {
+				stream = Files.newDirectoryStream(dir);
+				
+			} catch (IOException e) {
+				closeAll();
+				throw new UncheckedIOException(e);
+			}
+			
+			streams.push(stream);
+			entries.push(stream.iterator());
+		}
+		
+		/**
+		 * Closes the innermost open directory.
+		 */
+		private void closeInnermost() {
+			entries.pop();
+			try {
+				streams.pop().close();
+			} catch (IOException e) {
+				// The entries of the directory have already been read.
+			}
+		}
+		
+		/**
+		 * Closes all open directories.
+		 */
+		private void closeAll() {
+			while (!entries.isEmpty()) {
+				closeInnermost();
+			}
+		}
+	}
+}
@@ -0,0 +1,250 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A builder of canonical fingerprints.
+ * <p>
+ * A fingerprint consists of a type name, followed by the names and values of
+ * the properties which determine the behavior of the object, for example:
+ * <pre>
+Canvas(width=100,height=100,position=net.coobird.thumbnailator.geometry.Positions.CENTER)
+ * </pre>
+ * The values are written in a canonical form, so equivalent objects have
+ * the same fingerprint across invocations of the Java virtual machine.
+ * Images are represented by a digest of their pixels.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class Fingerprint {
+	/**
+	 * The fingerprint being built.
+	 */
+	private final StringBuilder sb = new StringBuilder();
+	
+	/**
+	 * Whether a property has been added.
+	 */
+	private boolean hasProperty = false;
+	
+	/**
+	 * Instantiates a {@link Fingerprint} of the given type.
+	 * 
+	 * @param type		The name of the type of the object.
+	 * @throws NullPointerException	If the type is {@code null}.
+	 */
+	public Fingerprint(String type) {
+		if (type == null) {
+			throw new NullPointerException("Type is null.");
+		}
+		
+		sb.append(type).append('(');
+	}
+	
+	/**
+	 * Adds a property to the fingerprint.
+	 * <p>
+	 * The value can be {@code null}, a {@link String}, a {@link Number}, a
+	 * {@link Boolean}, an {@link Enum}, a {@link Fingerprintable}, a
+	 * {@link Color}, a {@link Font}, a {@link Dimension}, a
+	 * {@link BufferedImage}, or an {@link Iterable} of those.
+	 * 
+	 * @param name		The name of the property.
+	 * @param value		The value of the property.
+	 * @return			Reference to this object.
+	 * @throws IllegalArgumentException	If the value cannot be
+	 * 									fingerprinted.
+	 */
+	public Fingerprint add(String name, Object value) {
+		if (hasProperty) {
+			sb.append(',');
+		}
+		sb.append(name).append('=');
+		appendValue(value);
+		
+		hasProperty = true;
+		return this;
+	}
+	
+	private void appendValue(Object value) {
+		if (value == null) {
+			sb.append("null");
+			
+		} else if (value instanceof String) {
+			sb.append('"');
+			String s = (String)value;
+			for (int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				if (c == '"' || c == '\\') {
+					sb.append('\\');
+				}
+				sb.append(c);
+			}
+			sb.append('"');
+			
+		} else if (value instanceof Number || value instanceof Boolean) {
+			sb.append(value);
+			
+		} else if (value instanceof Enum) {
+			Enum<?> e = (Enum<?>)value;
+			sb.append(e.getDeclaringClass().getName()).append('.').append(e.name());
+			
+		} else if (value instanceof Fingerprintable) {
+			sb.append(((Fingerprintable)value).getFingerprint());
+			
+		} else if (value instanceof Color) {
+			sb.append("Color(").append(Integer.toHexString(((Color)value).getRGB())).append(')');
+			
+		} else if (value instanceof Font) {
+			Font font = (Font)value;
+			if (font.isTransformed()) {
+				throw new IllegalArgumentException("Cannot fingerprint a transformed font.");
+			}
+			sb.append(new Fingerprint("Font")
+					.add("name", font.getName())
+					.add("style", font.getStyle())
+					.add("size", font.getSize2D())
+			);
+			
+		} else if (value instanceof Dimension) {
+			Dimension d = (Dimension)value;
+			sb.append("Dimension(").append(d.width).append(',').append(d.height).append(')');
+			
+		} else if (value instanceof BufferedImage) {
+			BufferedImage img = (BufferedImage)value;
+			sb.append("BufferedImage(")
+				.append(img.getWidth()).append(',')
+				.append(img.getHeight()).append(',')
+				.append(img.getType()).append(',')
+				.append(digest(img))
+				.append(')');
+			
+		} else if (value instanceof Iterable) {
+			sb.append('[');
+			boolean isFirst = true;
+			for (Object element : (Iterable<?>)value) {
+				if (!isFirst) {
+					sb.append(',');
+				}
+				appendValue(element);
+				isFirst = false;
+			}
+			sb.append(']');
+			
+		} else {
+			throw new IllegalArgumentException(
+					"Cannot fingerprint " + value.getClass().getName() + "."
+			);
+		}
+	}
+	
+	/**
+	 * Returns the fingerprint.
+	 * 
+	 * @return		The fingerprint.
+	 */
+	@Override
+	public String toString() {
+		return sb.toString() + ")";
+	}
+	
+	/**
+	 * Returns a digest of the given fingerprint, which can be used as a
+	 * key to look up the result of creating a thumbnail.
+	 * 
+	 * @param fingerprint	The fingerprint.
+	 * @return				A hexadecimal SHA-256 digest of the fingerprint.
+	 */
+	public static String digest(String fingerprint) {
+		MessageDigest md = newDigest();
+		md.update(fingerprint.getBytes(Charset.forName("UTF-8")));
+		return toHex(md.digest());
+	}
+	
+	/**
+	 * Returns a digest of the given data.
+	 * 
+	 * @param data			The data.
+	 * @return				A hexadecimal SHA-256 digest of the data.
+	 */
+	public static String digest(byte[] data) {
+		return toHex(newDigest().digest(data));
+	}
+	
+	/**
+	 * Returns a digest of the pixels of an image.
+	 * 
+	 * @param img			The image.
+	 * @return				A hexadecimal SHA-256 digest of the pixels.
+	 */
+	private static String digest(BufferedImage img) {
+		MessageDigest md = newDigest();
+		
+		int width = img.getWidth();
+		int[] row = new int[width];
+		byte[] bytes = new byte[width * 4];
+		
+		for (int y = 0; y < img.getHeight(); y++) {
+			img.getRGB(0, y, width, 1, row, 0, width);
+			for (int x = 0; x < width; x++) {
+				bytes[x * 4] = (byte)(row[x] >>> 24);
+				bytes[x * 4 + 1] = (byte)(row[x] >>> 16);
+				bytes[x * 4 + 2] = (byte)(row[x] >>> 8);
+				bytes[x * 4 + 3] = (byte)row[x];
+			}
+			md.update(bytes);
+		}
+		
+		return toHex(md.digest());
+	}
+	
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256.
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+			hex.append(Character.forDigit(b & 0xf, 16));
+		}
+		return hex.toString();
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util;
+
+/**
+ * An object which can describe itself by a canonical fingerprint.
+ * <p>
+ * Two objects with the same fingerprint must have the same effect when
+ * creating a thumbnail, for example, two {@link net.coobird.thumbnailator.filters.ImageFilter}s
+ * with the same fingerprint must produce the same image. This allows the
+ * result of creating a thumbnail to be cached and reused.
+ * <p>
+ * Fingerprints are usually created with the {@link Fingerprint} class.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public interface Fingerprintable {
+	/**
+	 * Returns the fingerprint of this object.
+	 * 
+	 * @return		The fingerprint of this object.
+	 * @throws IllegalArgumentException	If this object holds an object
+	 * 									which cannot be fingerprinted.
+	 */
+	public String getFingerprint();
+}
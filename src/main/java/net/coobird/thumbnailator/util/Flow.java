@@ -0,0 +1,132 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util;
+
+/**
+ * Interfaces for publishing items to subscribers with backpressure, in
+ * which a subscriber controls the rate at which it receives items by
+ * requesting them.
+ * <p>
+ * These interfaces have the same methods and contracts as the interfaces
+ * of {@code java.util.concurrent.Flow} introduced in Java 9, and of the
+ * Reactive Streams specification. They are provided here as Thumbnailator
+ * supports Java 8, and can be adapted to those interfaces by delegating
+ * each method.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class Flow {
+	/**
+	 * This class is not intended to be instantiated.
+	 */
+	private Flow() {}
+	
+	/**
+	 * A producer of items which are received by {@link Subscriber}s.
+	 * 
+	 * @param <T>		The type of the items.
+	 */
+	public static interface Publisher<T> {
+		/**
+		 * Adds the given {@link Subscriber}.
+		 * <p>
+		 * The {@link Subscriber#onSubscribe(Subscription)} method of the
+		 * {@link Subscriber} is called before any other method. If the
+		 * {@link Subscriber} cannot be added, its
+		 * {@link Subscriber#onError(Throwable)} method is called.
+		 * 
+		 * @param subscriber	The {@link Subscriber}.
+		 * @throws NullPointerException		If the {@link Subscriber} is
+		 * 									{@code null}.
+		 */
+		public void subscribe(Subscriber<? super T> subscriber);
+	}
+	
+	/**
+	 * A receiver of items from a {@link Publisher}.
+	 * <p>
+	 * The methods of a {@link Subscriber} are called one at a time, in the
+	 * order in which the signals occur.
+	 * 
+	 * @param <T>		The type of the items.
+	 */
+	public static interface Subscriber<T> {
+		/**
+		 * Called before any other method, with the {@link Subscription}
+		 * through which items are requested.
+		 * 
+		 * @param subscription		The {@link Subscription}.
+		 */
+		public void onSubscribe(Subscription subscription);
+		
+		/**
+		 * Called with the next item. Called no more times than the number
+		 * of items requested through the {@link Subscription}.
+		 * 
+		 * @param item			The item.
+		 */
+		public void onNext(T item);
+		
+		/**
+		 * Called when an unrecoverable error occurs. No other methods are
+		 * called afterwards.
+		 * 
+		 * @param throwable		The error.
+		 */
+		public void onError(Throwable throwable);
+		
+		/**
+		 * Called when all items have been received. No other methods are
+		 * called afterwards.
+		 */
+		public void onComplete();
+	}
+	
+	/**
+	 * A link between a {@link Publisher} and a {@link Subscriber}, through
+	 * which the {@link Subscriber} requests items.
+	 */
+	public static interface Subscription {
+		/**
+		 * Requests the given number of additional items.
+		 * <p>
+		 * If the number is not positive, the {@link Subscriber} receives
+		 * an {@link IllegalArgumentException} through its
+		 * {@link Subscriber#onError(Throwable)} method.
+		 * 
+		 * @param n				The number of additional items.
+		 */
+		public void request(long n);
+		
+		/**
+		 * Requests that the {@link Publisher} stops sending items.
+		 * Items may still be received for a while after this method is
+		 * called.
+		 */
+		public void cancel();
+	}
+}
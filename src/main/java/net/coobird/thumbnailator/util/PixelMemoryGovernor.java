@@ -0,0 +1,532 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.coobird.thumbnailator.tasks.MemoryBudgetExceededException;
+
+/**
+ * A process-wide budget for the pixels of decoded images, and of the
+ * intermediate images created while resizing them.
+ * <p>
+ * When a governor is set by {@link #setDefault(PixelMemoryGovernor)}, each
+ * source image reserves its estimated peak memory usage from the governor
+ * before it is decoded, based on the dimensions read from its header, the
+ * planned subsampling, and the type of its pixels. When the budget is
+ * exhausted, the {@link Policy} of the governor decides whether to wait
+ * for memory to be released, to decode the image with a higher subsampling
+ * so that it fits the remaining budget, or to fail. Waiting threads are
+ * generally served in the order they arrived, so that a large image is not
+ * starved by a stream of small ones.
+ * <p>
+ * A reservation is released once its image has been resized, or when its
+ * image is garbage collected, whichever comes first. A reservation which
+ * is larger than the whole budget is reduced to the budget, so that such
+ * an image is decoded alone rather than never.
+ * <p>
+ * No governor is set by default, in which case images are decoded without
+ * reserving memory.
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class PixelMemoryGovernor {
+	/**
+	 * How a reservation is handled when the budget is exhausted.
+	 */
+	public enum Policy {
+		/**
+		 * Waits for memory to be released, up to the timeout of the
+		 * governor.
+		 */
+		WAIT,
+		
+		/**
+		 * Decodes the image with a higher subsampling, so that it fits the
+		 * remaining budget. When even the highest subsampling which keeps
+		 * the source image larger than the thumbnail does not fit, waits as
+		 * for {@link #WAIT}.
+		 */
+		SUBSAMPLE,
+		
+		/**
+		 * Fails immediately with a {@link MemoryBudgetExceededException}.
+		 */
+		FAIL,
+		;
+	}
+	
+	/**
+	 * The number of bytes represented by a permit of the semaphore, which
+	 * allows budgets larger than {@link Integer#MAX_VALUE} bytes.
+	 */
+	private static final int BYTES_PER_PERMIT = 1024;
+	
+	/**
+	 * The governor used by Thumbnailator, or {@code null} if no budget is
+	 * enforced.
+	 */
+	private static volatile PixelMemoryGovernor defaultGovernor;
+	
+	/**
+	 * The reservations which are attached to decoded images, which are
+	 * released when their image is garbage collected.
+	 */
+	private static final ConcurrentMap<ImageReference, Reservation> attached =
+			new ConcurrentHashMap<ImageReference, Reservation>();
+	
+	/**
+	 * The queue of the images which have been garbage collected.
+	 */
+	private static final ReferenceQueue<BufferedImage> collected =
+			new ReferenceQueue<BufferedImage>();
+	
+	/**
+	 * Whether the thread which releases the reservations of garbage
+	 * collected images has been started. It is started when the first
+	 * reservation is attached to an image.
+	 */
+	private static final AtomicBoolean isCleanerStarted = new AtomicBoolean();
+	
+	private final long budgetBytes;
+	private final Policy policy;
+	private final long timeoutNanos;
+	private final Semaphore permits;
+	
+	private final AtomicLong reservedBytes = new AtomicLong();
+	private final AtomicLong waitCount = new AtomicLong();
+	private final AtomicLong subsampledCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+	
+	/**
+	 * Creates a governor which waits without a time limit for memory to be
+	 * released when its budget is exhausted.
+	 * 
+	 * @param budgetBytes	The number of bytes of pixels which may be held
+	 * 						at once.
+	 * @param policy		How a reservation is handled when the budget is
+	 * 						exhausted.
+	 * @throws IllegalArgumentException	If the budget is smaller than a
+	 * 									kilobyte.
+	 * @throws NullPointerException		If the policy is {@code null}.
+	 */
+	public PixelMemoryGovernor(long budgetBytes, Policy policy) {
+		this(budgetBytes, policy, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Creates a governor.
+	 * 
+	 * @param budgetBytes	The number of bytes of pixels which may be held
+	 * 						at once.
+	 * @param policy		How a reservation is handled when the budget is
+	 * 						exhausted.
+	 * @param timeout		The longest time to wait for memory to be
+	 * 						released, after which the reservation fails.
+	 * @param unit			The unit of the timeout.
+	 * @throws IllegalArgumentException	If the budget is smaller than a
+	 * 									kilobyte or larger than can be
+	 * 									represented, or the timeout is
+	 * 									negative.
+	 * @throws NullPointerException		If the policy or the unit is
+	 * 									{@code null}.
+	 */
+	public PixelMemoryGovernor(long budgetBytes, Policy policy, long timeout, TimeUnit unit) {
+		if (budgetBytes < BYTES_PER_PERMIT || budgetBytes / BYTES_PER_PERMIT > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Budget is out of range: " + budgetBytes);
+		}
+		if (policy == null) {
+			throw new NullPointerException("Policy is null.");
+		}
+		if (unit == null) {
+			throw new NullPointerException("Unit is null.");
+		}
+		if (timeout < 0) {
+			throw new IllegalArgumentException("Timeout must not be negative.");
+		}
+		
+		this.budgetBytes = budgetBytes;
+		this.policy = policy;
+		this.timeoutNanos = unit.toNanos(timeout);
+		this.permits = new Semaphore((int)(budgetBytes / BYTES_PER_PERMIT), true);
+	}
+	
+	/**
+	 * Sets the governor used by Thumbnailator for the images it decodes.
+	 * 
+	 * @param governor	The governor to use, or {@code null} to decode images
+	 * 					without a budget.
+	 */
+	public static void setDefault(PixelMemoryGovernor governor) {
+		defaultGovernor = governor;
+	}
+	
+	/**
+	 * Returns the governor used by Thumbnailator for the images it decodes.
+	 * 
+	 * @return			The governor in use, or {@code null} if images are
+	 * 					decoded without a budget.
+	 */
+	public static PixelMemoryGovernor getDefault() {
+		return defaultGovernor;
+	}
+	
+	/**
+	 * Estimates the peak number of bytes of pixels used while creating a
+	 * thumbnail from a decoded image: the decoded image itself, and half as
+	 * much again for the intermediate images of the resizer and for the
+	 * thumbnail.
+	 * 
+	 * @param width			The width of the decoded image.
+	 * @param height		The height of the decoded image.
+	 * @param bytesPerPixel	The number of bytes of each decoded pixel.
+	 * @return				The estimated peak number of bytes.
+	 */
+	public static long estimatePeakBytes(int width, int height, int bytesPerPixel) {
+		long decodedBytes = (long)width * height * bytesPerPixel;
+		return decodedBytes + decodedBytes / 2;
+	}
+	
+	/**
+	 * Reserves memory, waiting for it to be released if the budget is
+	 * exhausted and the policy of this governor is not {@link Policy#FAIL}.
+	 * 
+	 * @param bytes			The number of bytes to reserve.
+	 * @return				The reservation.
+	 * @throws MemoryBudgetExceededException	If the memory could not be
+	 * 											reserved under the policy of
+	 * 											this governor.
+	 * @throws InterruptedIOException			If the thread was interrupted
+	 * 											while waiting.
+	 */
+	public Reservation reserve(long bytes) throws IOException {
+		Reservation reservation = tryReserve(bytes);
+		if (reservation != null) {
+			return reservation;
+		}
+		
+		if (policy == Policy.FAIL) {
+			rejectedCount.incrementAndGet();
+			throw new MemoryBudgetExceededException(bytes,
+					"Could not reserve " + bytes + " bytes; "
+							+ getAvailableBytes() + " of " + budgetBytes
+							+ " bytes are available."
+			);
+		}
+		
+		waitCount.incrementAndGet();
+		try {
+			/*
+			 * A single wait keeps the place of this thread in the queue of
+			 * the semaphore, so that a large reservation is not overtaken.
+			 */
+			int n = permitsFor(bytes);
+			if (timeoutNanos == Long.MAX_VALUE) {
+				permits.acquire(n);
+				return newReservation(n);
+			}
+			if (permits.tryAcquire(n, timeoutNanos, TimeUnit.NANOSECONDS)) {
+				return newReservation(n);
+			}
+			
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(
+					"Interrupted while waiting to reserve " + bytes + " bytes."
+			);
+		}
+		
+		rejectedCount.incrementAndGet();
+		throw new MemoryBudgetExceededException(bytes,
+				"Timed out waiting to reserve " + bytes + " bytes."
+		);
+	}
+	
+	/**
+	 * Reserves memory if it is available without waiting, in the order in
+	 * which threads asked for memory.
+	 * 
+	 * @param bytes			The number of bytes to reserve.
+	 * @return				The reservation, or {@code null} if the memory is
+	 * 						not available.
+	 */
+	public Reservation tryReserve(long bytes) {
+		int n = permitsFor(bytes);
+		try {
+			return permits.tryAcquire(n, 0, TimeUnit.NANOSECONDS) ? newReservation(n) : null;
+			
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+	
+	/**
+	 * Records that an image was decoded with a higher subsampling than
+	 * planned, to fit the budget.
+	 */
+	public void recordSubsampled() {
+		subsampledCount.incrementAndGet();
+	}
+	
+	/**
+	 * Releases the reservation attached to an image which is no longer
+	 * needed, such as a source image which has been resized. Does nothing if
+	 * no reservation is attached to the image.
+	 * 
+	 * @param img			The image.
+	 */
+	public static void release(BufferedImage img) {
+		Reservation reservation = attached.remove(new ImageReference(img, null));
+		if (reservation != null) {
+			reservation.releaseIfHeld();
+		}
+	}
+	
+	/**
+	 * Starts the thread which releases the reservations of the images which
+	 * have been garbage collected, unless it has already been started.
+	 */
+	private static void startCleaner() {
+		if (!isCleanerStarted.compareAndSet(false, true)) {
+			return;
+		}
+		
+		Runnable cleaner = new Runnable() {
+			public void run() {
+				while (true) {
+					try {
+						Reservation reservation = attached.remove(collected.remove());
+						if (reservation != null) {
+							reservation.releaseIfHeld();
+						}
+						
+					} catch (InterruptedException e) {
+						isCleanerStarted.set(false);
+						return;
+					}
+				}
+			}
+		};
+		new DaemonThreadFactory("thumbnailator-governor").newThread(cleaner).start();
+	}
+	
+	private int permitsFor(long bytes) {
+		if (bytes < 0) {
+			throw new IllegalArgumentException("Bytes must not be negative.");
+		}
+		
+		long n = (bytes + BYTES_PER_PERMIT - 1) / BYTES_PER_PERMIT;
+		return (int)Math.min(n, budgetBytes / BYTES_PER_PERMIT);
+	}
+	
+	private Reservation newReservation(int n) {
+		reservedBytes.addAndGet((long)n * BYTES_PER_PERMIT);
+		return new Reservation(n);
+	}
+	
+	/**
+	 * Returns the policy of this governor.
+	 * 
+	 * @return		The policy.
+	 */
+	public Policy getPolicy() {
+		return policy;
+	}
+	
+	/**
+	 * Returns the number of bytes of pixels which may be held at once.
+	 * 
+	 * @return		The budget, in bytes.
+	 */
+	public long getBudgetBytes() {
+		return budgetBytes;
+	}
+	
+	/**
+	 * Returns the number of bytes which are reserved.
+	 * 
+	 * @return		The number of bytes reserved.
+	 */
+	public long getReservedBytes() {
+		return reservedBytes.get();
+	}
+	
+	/**
+	 * Returns the number of bytes which can be reserved without waiting.
+	 * 
+	 * @return		The number of bytes available.
+	 */
+	public long getAvailableBytes() {
+		return (long)permits.availablePermits() * BYTES_PER_PERMIT;
+	}
+	
+	/**
+	 * Returns the number of reservations which had to wait for memory to be
+	 * released.
+	 * 
+	 * @return		The number of reservations which waited.
+	 */
+	public long getWaitCount() {
+		return waitCount.get();
+	}
+	
+	/**
+	 * Returns the number of images which were decoded with a higher
+	 * subsampling to fit the budget.
+	 * 
+	 * @return		The number of images subsampled.
+	 */
+	public long getSubsampledCount() {
+		return subsampledCount.get();
+	}
+	
+	/**
+	 * Returns the number of reservations which failed.
+	 * 
+	 * @return		The number of reservations which failed.
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+	
+	@Override
+	public String toString() {
+		return "PixelMemoryGovernor[budget=" + budgetBytes
+				+ ", reserved=" + getReservedBytes()
+				+ ", policy=" + policy
+				+ ", waits=" + getWaitCount()
+				+ ", subsampled=" + getSubsampledCount()
+				+ ", rejected=" + getRejectedCount() + "]";
+	}
+	
+	/**
+	 * Memory reserved from a {@link PixelMemoryGovernor}, which must be
+	 * released exactly once.
+	 */
+	public final class Reservation {
+		private final int permitCount;
+		private final AtomicBoolean isReleased = new AtomicBoolean();
+		
+		private Reservation(int permitCount) {
+			this.permitCount = permitCount;
+		}
+		
+		/**
+		 * Returns the number of bytes reserved.
+		 * 
+		 * @return		The number of bytes reserved.
+		 */
+		public long getBytes() {
+			return (long)permitCount * BYTES_PER_PERMIT;
+		}
+		
+		/**
+		 * Attaches this reservation to the image it was made for, so that
+		 * it is released by {@link PixelMemoryGovernor#release(BufferedImage)}
+		 * or when the image is garbage collected.
+		 * 
+		 * @param img		The image.
+		 */
+		public void attach(BufferedImage img) {
+			startCleaner();
+			attached.put(new ImageReference(img, collected), this);
+		}
+		
+		/**
+		 * Returns the reserved memory to the governor.
+		 * 
+		 * @throws IllegalStateException	If the reservation has already
+		 * 									been released.
+		 */
+		public void release() {
+			if (!releaseIfHeld()) {
+				throw new IllegalStateException("Reservation has already been released.");
+			}
+		}
+		
+		/**
+		 * Returns the reserved memory to the governor, unless it has already
+		 * been released.
+		 * 
+		 * @return			{@code true} if the memory was released by this
+		 * 					call.
+		 */
+		private boolean releaseIfHeld() {
+			if (!isReleased.compareAndSet(false, true)) {
+				return false;
+			}
+			
+			reservedBytes.addAndGet(-getBytes());
+			permits.release(permitCount);
+			return true;
+		}
+	}
+	
+	/**
+	 * A weak reference to an image, which is equal to the references to the
+	 * same image, so that it can be used as the key of a map.
+	 */
+	private static final class ImageReference extends WeakReference<BufferedImage> {
+		private final int hashCode;
+		
+		private ImageReference(BufferedImage img, ReferenceQueue<BufferedImage> queue) {
+			super(img, queue);
+			this.hashCode = System.identityHashCode(img);
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof ImageReference)) {
+				return false;
+			}
+			
+			BufferedImage img = get();
+			return img != null && img == ((ImageReference)o).get();
+		}
+		
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class provides the {@link Executor}s which Thumbnailator uses when
+ * thumbnails are created asynchronously and an {@link Executor} has not been
+ * specified, and when source images are retrieved on threads dedicated to
+ * I/O.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class ThumbnailatorExecutors {
+	/**
+	 * The number of tasks which can be queued for each thread of the
+	 * default executor before further tasks are rejected.
+	 */
+	private static final int QUEUED_TASKS_PER_THREAD = 256;
+	
+	/**
+	 * This class is not intended to be instantiated.
+	 */
+	private ThumbnailatorExecutors() {}
+	
+	/**
+	 * Holder of the default executor, so that the executor is only created
+	 * when it is first used.
+	 */
+	private static final class DefaultExecutorHolder {
+		private static final Executor INSTANCE = createDefaultExecutor();
+	}
+	
+	/**
+	 * Creates the default executor.
+	 * 
+	 * @return		The default executor.
+	 */
+	private static Executor createDefaultExecutor() {
+		int threads = Runtime.getRuntime().availableProcessors();
+		
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				threads,
+				threads,
+				60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(threads * QUEUED_TASKS_PER_THREAD),
+				new DaemonThreadFactory("thumbnailator-async")
+		);
+		executor.allowCoreThreadTimeOut(true);
+		
+		return executor;
+	}
+	
+	/**
+	 * Returns the default {@link Executor} used to create thumbnails
+	 * asynchronously.
+	 * <p>
+	 * The default {@link Executor} uses as many threads as there are
+	 * processors available to the Java virtual machine. The threads are
+	 * daemon threads, and are terminated when they have been idle for a
+	 * while.
+	 * <p>
+	 * The number of tasks which can wait for a thread is bounded. When the
+	 * bound is reached, further tasks are rejected with a
+	 * {@link java.util.concurrent.RejectedExecutionException}, rather than
+	 * accumulating without limit.
+	 * 
+	 * @return		The default {@link Executor}.
+	 */
+	public static Executor getDefaultExecutor() {
+		return DefaultExecutorHolder.INSTANCE;
+	}
+	
+	/**
+	 * Creates a new {@link ExecutorService} which runs I/O-bound tasks, such
+	 * as retrieving the data of source images.
+	 * <p>
+	 * On a Java virtual machine which supports virtual threads, each task is
+	 * run on its own virtual thread, so that tasks blocked on I/O do not
+	 * occupy platform threads. Otherwise, the tasks are run on daemon
+	 * threads which are created as needed and reused when available.
+	 * <p>
+	 * The caller is responsible for shutting down the returned
+	 * {@link ExecutorService}.
+	 * 
+	 * @return		A new {@link ExecutorService} for I/O-bound tasks.
+	 */
+	public static ExecutorService newIoExecutor() {
+		try {
+			// Virtual threads are only available from Java 21.
+			Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService)m.invoke(null);
+			
+		} catch (Exception e) {
+			return Executors.newCachedThreadPool(
+					new DaemonThreadFactory("thumbnailator-io")
+			);
+		}
+	}
+}
@@ -0,0 +1,1403 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util.exif;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.coobird.thumbnailator.util.DecodeLimits;
+
+/**
+ * Applies the Exif orientation of a JPEG image by rearranging its DCT
+ * coefficients, in the same manner as {@code jpegtran -rotate}, without
+ * decoding its pixels.
+ * <p>
+ * As the quantized coefficients are only moved and negated, the transform
+ * is lossless, and much faster than decoding, rotating and re-encoding the
+ * image. The Huffman tables are regenerated to fit the rearranged
+ * coefficients.
+ * <p>
+ * As with a thumbnail which is decoded and re-encoded, the metadata of the
+ * image is not carried over, except for what is needed to display the
+ * image as before:
+ * <ul>
+ * <li>The JFIF segment, without its thumbnail.</li>
+ * <li>An Exif segment holding only the orientation
+ * {@link Orientation#TOP_LEFT}, in place of the original Exif segment.
+ * Other tags, such as the location and the embedded thumbnail, are
+ * dropped.</li>
+ * <li>The ICC profile.</li>
+ * <li>The Adobe segment, which determines the color transform.</li>
+ * </ul>
+ * Other APPn segments, such as XMP and IPTC, and COM segments are dropped.
+ * <p>
+ * Only baseline and extended sequential JPEG images with Huffman coding
+ * and 8-bit samples are transformed. An image whose edge would be moved
+ * by the transform must have that dimension be a multiple of the size of
+ * its MCU, as a partial block cannot be moved from the right or bottom
+ * edge to the left or top edge. When an image cannot be transformed,
+ * {@code null} is returned, so that the caller can fall back to decoding
+ * the image.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class LosslessJpegTransform {
+	
+	/**
+	 * The natural order index of each coefficient in the zig-zag order.
+	 */
+	private static final int[] ZIGZAG = {
+		 0,  1,  8, 16,  9,  2,  3, 10,
+		17, 24, 32, 25, 18, 11,  4,  5,
+		12, 19, 26, 33, 40, 48, 41, 34,
+		27, 20, 13,  6,  7, 14, 21, 28,
+		35, 42, 49, 56, 57, 50, 43, 36,
+		29, 22, 15, 23, 30, 37, 44, 51,
+		58, 59, 52, 45, 38, 31, 39, 46,
+		53, 60, 61, 54, 47, 55, 62, 63
+	};
+	
+	private static final int SOF0 = 0xc0;
+	private static final int SOF1 = 0xc1;
+	private static final int DHT = 0xc4;
+	private static final int SOS = 0xda;
+	private static final int DQT = 0xdb;
+	private static final int DRI = 0xdd;
+	private static final int EOI = 0xd9;
+	private static final int COM = 0xfe;
+	private static final int APP0 = 0xe0;
+	private static final int APP1 = 0xe1;
+	private static final int APP2 = 0xe2;
+	private static final int APP14 = 0xee;
+	private static final int APP15 = 0xef;
+	
+	private static final int TAG_ORIENTATION = 0x0112;
+	
+	private static final int TYPE_SHORT = 3;
+	
+	/**
+	 * The Exif segment written to the transformed image, which holds only
+	 * the orientation {@link Orientation#TOP_LEFT}.
+	 */
+	private static final byte[] EXIF_TOP_LEFT = {
+			(byte)0xff, (byte)APP1, 0, 34,
+			'E', 'x', 'i', 'f', 0, 0,
+			'M', 'M', 0, 42, 0, 0, 0, 8,
+			0, 1,
+			0x01, 0x12, 0, TYPE_SHORT, 0, 0, 0, 1, 0, 1, 0, 0,
+			0, 0, 0, 0
+	};
+	
+	/**
+	 * The maximum number of bytes read by
+	 * {@link #hasOrientationToApply(InputStream)}.
+	 */
+	public static final int MAX_HEADER_LENGTH = 128 * 1024;
+	
+	/**
+	 * This class should not be instantiated.
+	 */
+	private LosslessJpegTransform() {}
+	
+	/**
+	 * Returns the given JPEG image with its Exif orientation applied to
+	 * its pixels, and its orientation rewritten to
+	 * {@link Orientation#TOP_LEFT}.
+	 * 
+	 * @param jpeg			The data of the JPEG image.
+	 * @return				The data of the transformed JPEG image, or
+	 * 						{@code null} if the image has no orientation to
+	 * 						apply, or cannot be transformed losslessly.
+	 * @throws NullPointerException		If the data is {@code null}.
+	 */
+	public static byte[] normalizeOrientation(byte[] jpeg) {
+		if (jpeg == null) {
+			throw new NullPointerException("Data is null.");
+		}
+		
+		try {
+			return new Transcoder(jpeg).transform();
+			
+		} catch (MalformedJpegException e) {
+			return null;
+			
+		} catch (IndexOutOfBoundsException e) {
+			// Truncated data, which the decoder will report.
+			return null;
+		}
+	}
+	
+	/**
+	 * Returns whether the data read from the given {@link InputStream} is
+	 * a JPEG image with an Exif orientation other than
+	 * {@link Orientation#TOP_LEFT}, so that
+	 * {@link #normalizeOrientation(byte[])} may need to transform it.
+	 * <p>
+	 * Only the APPn and COM segments at the start of the image are read,
+	 * up to {@link #MAX_HEADER_LENGTH} bytes, so that the whole image need
+	 * not be read to find out that it does not have to be transformed.
+	 * The {@link InputStream} is not closed.
+	 * 
+	 * @param is			The {@link InputStream} to read the image from.
+	 * @return				{@code true} if the image has an orientation to
+	 * 						apply.
+	 * @throws IOException	If a problem occurs while reading.
+	 * @throws NullPointerException		If the {@link InputStream} is
+	 * 									{@code null}.
+	 */
+	public static boolean hasOrientationToApply(InputStream is) throws IOException {
+		if (is == null) {
+			throw new NullPointerException("InputStream is null.");
+		}
+		
+		DataInputStream in = new DataInputStream(is);
+		try {
+			if (in.readUnsignedByte() != 0xff || in.readUnsignedByte() != 0xd8) {
+				return false;
+			}
+			
+			int remaining = MAX_HEADER_LENGTH - 2;
+			while (remaining > 4) {
+				if (in.readUnsignedByte() != 0xff) {
+					return false;
+				}
+				int marker = in.readUnsignedByte();
+				int length = in.readUnsignedShort();
+				remaining -= 4;
+				
+				// The Exif segment precedes the tables and the frame.
+				if (!((marker >= APP0 && marker <= APP15) || marker == COM) ||
+						length < 2 || length - 2 > remaining) {
+					return false;
+				}
+				
+				byte[] segment = new byte[length + 2];
+				segment[0] = (byte)0xff;
+				segment[1] = (byte)marker;
+				segment[2] = (byte)(length >> 8);
+				segment[3] = (byte)length;
+				in.readFully(segment, 4, length - 2);
+				remaining -= length - 2;
+				
+				if (marker == APP1) {
+					Transcoder transcoder = new Transcoder(segment);
+					if (transcoder.readExif(segment)) {
+						return transcoder.orientation != null &&
+								transcoder.orientation != Orientation.TOP_LEFT;
+					}
+				}
+			}
+			return false;
+			
+		} catch (EOFException e) {
+			return false;
+			
+		} catch (IndexOutOfBoundsException e) {
+			// A malformed Exif segment, which the decoder will ignore.
+			return false;
+		}
+	}
+	
+	/**
+	 * Thrown when the data cannot be parsed as a JPEG image.
+	 */
+	private static final class MalformedJpegException extends Exception {
+		private static final long serialVersionUID = 1L;
+		
+		private MalformedJpegException(String message) {
+			super(message);
+		}
+	}
+	
+	/**
+	 * A component of the image, with its quantized coefficients.
+	 */
+	private static final class Component {
+		private int id;
+		private int h;
+		private int v;
+		private int tq;
+		private int td;
+		private int ta;
+		private int blocksWide;
+		private int blocksHigh;
+		private short[] coefficients;
+		private int predictor;
+	}
+	
+	/**
+	 * A Huffman table used to decode the entropy-coded data.
+	 */
+	private static final class DecodingTable {
+		private static final int LOOKAHEAD = 9;
+		
+		private final int[] maxCode = new int[18];
+		private final int[] minCode = new int[17];
+		private final int[] valuePointer = new int[17];
+		private final int[] values;
+		
+		/**
+		 * The length and value of the codes up to {@link #LOOKAHEAD} bits
+		 * long, indexed by the next {@link #LOOKAHEAD} bits, or
+		 * {@code 0} for longer codes.
+		 */
+		private final int[] lookup = new int[1 << LOOKAHEAD];
+		
+		private DecodingTable(int[] bits, int[] values) {
+			this.values = values;
+			
+			int code = 0;
+			int k = 0;
+			for (int length = 1; length <= 16; length++) {
+				valuePointer[length] = k;
+				minCode[length] = code;
+				
+				for (int i = 0; i < bits[length]; i++, code++, k++) {
+					if (length <= LOOKAHEAD) {
+						int shift = LOOKAHEAD - length;
+						int entry = (length << 8) | values[k];
+						for (int j = code << shift; j < (code + 1) << shift; j++) {
+							lookup[j] = entry;
+						}
+					}
+				}
+				
+				maxCode[length] = bits[length] > 0 ? code - 1 : -1;
+				code <<= 1;
+			}
+			maxCode[17] = Integer.MAX_VALUE;
+		}
+	}
+	
+	/**
+	 * A Huffman table used to encode the entropy-coded data.
+	 */
+	private static final class EncodingTable {
+		private final int[] bits;
+		private final int[] values;
+		private final int[] codes = new int[256];
+		private final int[] sizes = new int[256];
+		
+		private EncodingTable(int[] bits, int[] values) {
+			this.bits = bits;
+			this.values = values;
+			
+			int code = 0;
+			int k = 0;
+			for (int length = 1; length <= 16; length++) {
+				for (int i = 0; i < bits[length]; i++, code++, k++) {
+					codes[values[k]] = code;
+					sizes[values[k]] = length;
+				}
+				code <<= 1;
+			}
+		}
+		
+		/**
+		 * Creates a table of optimal code lengths of at most 16 bits for
+		 * the given symbol frequencies, as described in Annex K.2 of the
+		 * JPEG specification.
+		 * 
+		 * @param frequencies	The frequencies of the 256 symbols.
+		 * @return				The table.
+		 */
+		private static EncodingTable optimal(int[] frequencies) {
+			long[] freq = new long[257];
+			for (int i = 0; i < 256; i++) {
+				freq[i] = frequencies[i];
+			}
+			// Reserves a code, so that no code consists only of 1 bits.
+			freq[256] = 1;
+			
+			int[] codeSize = new int[257];
+			int[] others = new int[257];
+			for (int i = 0; i < others.length; i++) {
+				others[i] = -1;
+			}
+			
+			while (true) {
+				int c1 = -1;
+				long v = Long.MAX_VALUE;
+				for (int i = 0; i <= 256; i++) {
+					if (freq[i] != 0 && freq[i] <= v) {
+						v = freq[i];
+						c1 = i;
+					}
+				}
+				
+				int c2 = -1;
+				v = Long.MAX_VALUE;
+				for (int i = 0; i <= 256; i++) {
+					if (freq[i] != 0 && freq[i] <= v && i != c1) {
+						v = freq[i];
+						c2 = i;
+					}
+				}
+				
+				if (c2 < 0) {
+					break;
+				}
+				
+				freq[c1] += freq[c2];
+				freq[c2] = 0;
+				
+				codeSize[c1]++;
+				while (others[c1] >= 0) {
+					c1 = others[c1];
+					codeSize[c1]++;
+				}
+				others[c1] = c2;
+				
+				codeSize[c2]++;
+				while (others[c2] >= 0) {
+					c2 = others[c2];
+					codeSize[c2]++;
+				}
+			}
+			
+			int[] bits = new int[33];
+			for (int i = 0; i <= 256; i++) {
+				if (codeSize[i] != 0) {
+					bits[codeSize[i]]++;
+				}
+			}
+			
+			// Limits the code lengths to 16 bits.
+			for (int i = 32; i > 16; i--) {
+				while (bits[i] > 0) {
+					int j = i - 2;
+					while (bits[j] == 0) {
+						j--;
+					}
+					bits[i] -= 2;
+					bits[i - 1]++;
+					bits[j + 1] += 2;
+					bits[j]--;
+				}
+			}
+			
+			// Removes the reserved code from the longest codes.
+			int i = 16;
+			while (bits[i] == 0) {
+				i--;
+			}
+			bits[i]--;
+			
+			List<Integer> values = new ArrayList<Integer>();
+			for (int length = 1; length <= 32; length++) {
+				for (int symbol = 0; symbol < 256; symbol++) {
+					if (codeSize[symbol] == length) {
+						values.add(symbol);
+					}
+				}
+			}
+			
+			int[] tableBits = new int[17];
+			System.arraycopy(bits, 0, tableBits, 0, 17);
+			
+			int count = 0;
+			for (int length = 1; length <= 16; length++) {
+				count += tableBits[length];
+			}
+			int[] tableValues = new int[count];
+			for (int k = 0; k < count; k++) {
+				tableValues[k] = values.get(k);
+			}
+			
+			return new EncodingTable(tableBits, tableValues);
+		}
+	}
+	
+	/**
+	 * Reads the bits of entropy-coded data, removing the stuffed bytes.
+	 */
+	private static final class BitReader {
+		private final byte[] data;
+		private int position;
+		private int buffer;
+		private int bitCount;
+		private boolean isAtMarker;
+		
+		private BitReader(byte[] data, int position) {
+			this.data = data;
+			this.position = position;
+		}
+		
+		private int nextByte() {
+			if (isAtMarker || position >= data.length) {
+				return 0;
+			}
+			
+			int b = data[position] & 0xff;
+			if (b == 0xff) {
+				int next = position + 1 < data.length ? data[position + 1] & 0xff : 0;
+				if (next != 0) {
+					// Data stops at a marker, which is left for the caller.
+					isAtMarker = true;
+					return 0;
+				}
+				position += 2;
+				return b;
+			}
+			
+			position++;
+			return b;
+		}
+		
+		private int peek(int n) {
+			if (bitCount < n) {
+				while (bitCount <= 24) {
+					buffer = (buffer << 8) | nextByte();
+					bitCount += 8;
+				}
+			}
+			return (buffer >>> (bitCount - n)) & ((1 << n) - 1);
+		}
+		
+		private int read(int n) {
+			if (n == 0) {
+				return 0;
+			}
+			int value = peek(n);
+			bitCount -= n;
+			return value;
+		}
+		
+		private int decode(DecodingTable table) throws MalformedJpegException {
+			int entry = table.lookup[peek(DecodingTable.LOOKAHEAD)];
+			if (entry != 0) {
+				bitCount -= entry >> 8;
+				return entry & 0xff;
+			}
+			
+			for (int length = DecodingTable.LOOKAHEAD + 1; length <= 16; length++) {
+				int code = peek(length);
+				if (code <= table.maxCode[length]) {
+					bitCount -= length;
+					return table.values[table.valuePointer[length] + code - table.minCode[length]];
+				}
+			}
+			
+			throw new MalformedJpegException("Invalid Huffman code.");
+		}
+		
+		/**
+		 * Discards the remaining bits, and skips the restart marker which
+		 * follows them.
+		 */
+		private void restart() throws MalformedJpegException {
+			buffer = 0;
+			bitCount = 0;
+			isAtMarker = false;
+			
+			while (position + 1 < data.length) {
+				if ((data[position] & 0xff) == 0xff) {
+					int marker = data[position + 1] & 0xff;
+					if (marker >= 0xd0 && marker <= 0xd7) {
+						position += 2;
+						return;
+					}
+					if (marker != 0 && marker != 0xff) {
+						break;
+					}
+				}
+				position++;
+			}
+			
+			throw new MalformedJpegException("Restart marker not found.");
+		}
+	}
+	
+	/**
+	 * Writes the bits of entropy-coded data, stuffing bytes after each
+	 * {@code 0xFF} byte.
+	 */
+	private static final class BitWriter {
+		private final ByteArrayOutputStream out;
+		private int buffer;
+		private int bitCount;
+		
+		private BitWriter(ByteArrayOutputStream out) {
+			this.out = out;
+		}
+		
+		private void write(int bits, int n) {
+			buffer = (buffer << n) | (bits & ((1 << n) - 1));
+			bitCount += n;
+			
+			while (bitCount >= 8) {
+				int b = (buffer >>> (bitCount - 8)) & 0xff;
+				out.write(b);
+				if (b == 0xff) {
+					out.write(0);
+				}
+				bitCount -= 8;
+			}
+		}
+		
+		private void flush() {
+			// The last byte is padded with 1 bits.
+			if (bitCount > 0) {
+				write((1 << (8 - bitCount)) - 1, 8 - bitCount);
+			}
+		}
+	}
+	
+	/**
+	 * Decodes the coefficients of a JPEG image, transforms them, and encodes
+	 * them into a new JPEG image.
+	 */
+	private static final class Transcoder {
+		private final byte[] data;
+		private int position = 2;
+		
+		/**
+		 * The APPn segments which are written to the transformed image,
+		 * including their markers.
+		 */
+		private final List<byte[]> segments = new ArrayList<byte[]>();
+		
+		private final int[][] quantizationTables = new int[4][];
+		private final int[] quantizationPrecisions = new int[4];
+		private final DecodingTable[] dcTables = new DecodingTable[4];
+		private final DecodingTable[] acTables = new DecodingTable[4];
+		
+		private int frameMarker = -1;
+		private int width;
+		private int height;
+		private Component[] components;
+		private int maxH;
+		private int maxV;
+		private int restartInterval;
+		private boolean isScanned = false;
+		
+		private Orientation orientation;
+		private boolean isExifRead = false;
+		private boolean isLittleEndian;
+		
+		private boolean transpose;
+		private boolean flipHorizontally;
+		private boolean flipVertically;
+		
+		private Transcoder(byte[] data) {
+			this.data = data;
+		}
+		
+		private byte[] transform() throws MalformedJpegException {
+			if (data.length < 4 || (data[0] & 0xff) != 0xff || (data[1] & 0xff) != 0xd8) {
+				return null;
+			}
+			
+			while (true) {
+				int marker = nextMarker();
+				
+				if (marker == EOI) {
+					break;
+					
+				} else if (marker == SOF0 || marker == SOF1) {
+					if (frameMarker != -1) {
+						return null;
+					}
+					frameMarker = marker;
+					readFrameHeader();
+					
+					// Oversized images are left for the decoder to reject or subsample.
+					DecodeLimits limits = DecodeLimits.getDefault();
+					if (limits != null && !limits.isWithin(width, height)) {
+						return null;
+					}
+					
+				} else if (marker == DHT) {
+					readHuffmanTables();
+					
+				} else if (marker == DQT) {
+					// Tables must not change between scans, as only one set is written.
+					if (isScanned) {
+						return null;
+					}
+					readQuantizationTables();
+					
+				} else if (marker == DRI) {
+					restartInterval = readUnsignedShort(position + 2);
+					skipSegment();
+					
+				} else if ((marker >= APP0 && marker <= APP15) || marker == COM) {
+					int length = readUnsignedShort(position);
+					byte[] segment = new byte[length + 2];
+					segment[0] = (byte)0xff;
+					segment[1] = (byte)marker;
+					System.arraycopy(data, position, segment, 2, length);
+					
+					if (marker == APP1 && !isExifRead && readExif(segment)) {
+						isExifRead = true;
+						segments.add(EXIF_TOP_LEFT);
+						
+					} else if (marker == APP0 && hasIdentifier(segment, "JFIF")) {
+						segments.add(withoutJfifThumbnail(segment));
+						
+					} else if (
+							(marker == APP2 && hasIdentifier(segment, "ICC_PROFILE")) ||
+							(marker == APP14 && hasIdentifier(segment, "Adobe"))
+					) {
+						segments.add(segment);
+					}
+					skipSegment();
+					
+				} else if (marker == SOS) {
+					if (!isScanned) {
+						if (components == null || !prepareTransform()) {
+							return null;
+						}
+						isScanned = true;
+					}
+					if (!readScan()) {
+						return null;
+					}
+					
+				} else {
+					// Progressive, lossless, arithmetic coding, DNL, and others.
+					return null;
+				}
+			}
+			
+			if (!isScanned) {
+				return null;
+			}
+			
+			transformCoefficients();
+			return write();
+		}
+		
+		private int readUnsignedShort(int offset) {
+			return ((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff);
+		}
+		
+		private int nextMarker() throws MalformedJpegException {
+			// Skips entropy-coded data left over by a scan, and fill bytes.
+			while (true) {
+				if ((data[position] & 0xff) == 0xff) {
+					int marker = data[position + 1] & 0xff;
+					if (marker != 0 && marker != 0xff && !(marker >= 0xd0 && marker <= 0xd7)) {
+						position += 2;
+						return marker;
+					}
+				}
+				position++;
+			}
+		}
+		
+		private void skipSegment() {
+			position += readUnsignedShort(position);
+		}
+		
+		private void readFrameHeader() throws MalformedJpegException {
+			int p = position + 2;
+			if ((data[p] & 0xff) != 8) {
+				throw new MalformedJpegException("Only 8-bit samples are supported.");
+			}
+			height = readUnsignedShort(p + 1);
+			width = readUnsignedShort(p + 3);
+			int count = data[p + 5] & 0xff;
+			
+			if (width == 0 || height == 0 || count == 0 || count > 4) {
+				throw new MalformedJpegException("Unsupported frame.");
+			}
+			
+			components = new Component[count];
+			for (int i = 0; i < count; i++) {
+				Component c = new Component();
+				c.id = data[p + 6 + i * 3] & 0xff;
+				c.h = (data[p + 7 + i * 3] >> 4) & 0x0f;
+				c.v = data[p + 7 + i * 3] & 0x0f;
+				c.tq = data[p + 8 + i * 3] & 0x03;
+				
+				if (c.h < 1 || c.h > 4 || c.v < 1 || c.v > 4) {
+					throw new MalformedJpegException("Invalid sampling factor.");
+				}
+				
+				maxH = Math.max(maxH, c.h);
+				maxV = Math.max(maxV, c.v);
+				components[i] = c;
+			}
+			
+			// The blocks of a single component are not grouped into MCUs.
+			if (count == 1) {
+				components[0].h = components[0].v = maxH = maxV = 1;
+			}
+			
+			skipSegment();
+		}
+		
+		private void readHuffmanTables() throws MalformedJpegException {
+			int end = position + readUnsignedShort(position);
+			int p = position + 2;
+			
+			while (p < end) {
+				int tc = (data[p] >> 4) & 0x0f;
+				int th = data[p] & 0x0f;
+				if (tc > 1 || th > 3) {
+					throw new MalformedJpegException("Invalid Huffman table.");
+				}
+				
+				int[] bits = new int[17];
+				int count = 0;
+				for (int i = 1; i <= 16; i++) {
+					bits[i] = data[p + i] & 0xff;
+					count += bits[i];
+				}
+				
+				int[] values = new int[count];
+				for (int i = 0; i < count; i++) {
+					values[i] = data[p + 17 + i] & 0xff;
+				}
+				
+				DecodingTable table = new DecodingTable(bits, values);
+				if (tc == 0) {
+					dcTables[th] = table;
+				} else {
+					acTables[th] = table;
+				}
+				
+				p += 17 + count;
+			}
+			
+			position = end;
+		}
+		
+		private void readQuantizationTables() {
+			int end = position + readUnsignedShort(position);
+			int p = position + 2;
+			
+			while (p < end) {
+				int pq = (data[p] >> 4) & 0x0f;
+				int tq = data[p] & 0x03;
+				p++;
+				
+				int[] table = new int[64];
+				for (int k = 0; k < 64; k++) {
+					if (pq == 0) {
+						table[ZIGZAG[k]] = data[p++] & 0xff;
+					} else {
+						table[ZIGZAG[k]] = readUnsignedShort(p);
+						p += 2;
+					}
+				}
+				
+				quantizationTables[tq] = table;
+				quantizationPrecisions[tq] = pq;
+			}
+			
+			position = end;
+		}
+		
+		/**
+		 * Returns whether the payload of the segment starts with the given
+		 * identifier, terminated by a {@code NUL} unless it is the
+		 * identifier of the Adobe segment.
+		 * 
+		 * @param segment		The segment, including its marker.
+		 * @param identifier	The identifier.
+		 * @return				{@code true} if the segment has the
+		 * 						identifier.
+		 */
+		private static boolean hasIdentifier(byte[] segment, String identifier) {
+			int length = identifier.length();
+			boolean isTerminated = !"Adobe".equals(identifier);
+			if (segment.length < 4 + length + (isTerminated ? 1 : 0)) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (segment[4 + i] != identifier.charAt(i)) {
+					return false;
+				}
+			}
+			return !isTerminated || segment[4 + length] == 0;
+		}
+		
+		/**
+		 * Returns the JFIF segment with its thumbnail removed.
+		 * 
+		 * @param segment	The JFIF segment, including its marker.
+		 * @return			The JFIF segment without a thumbnail.
+		 */
+		private static byte[] withoutJfifThumbnail(byte[] segment) {
+			// Identifier (5), version (2), units (1), density (4), thumbnail size (2).
+			int length = 2 + 14;
+			if (segment.length < 2 + length) {
+				return segment;
+			}
+			byte[] jfif = new byte[2 + length];
+			System.arraycopy(segment, 0, jfif, 0, jfif.length);
+			jfif[2] = 0;
+			jfif[3] = (byte)length;
+			jfif[jfif.length - 2] = 0;
+			jfif[jfif.length - 1] = 0;
+			return jfif;
+		}
+		
+		/**
+		 * Finds the orientation in the Exif segment.
+		 * 
+		 * @param segment	The APP1 segment, including its marker.
+		 * @return			{@code true} if the segment holds Exif data.
+		 */
+		private boolean readExif(byte[] segment) {
+			if (segment.length < 18 ||
+					segment[4] != 'E' || segment[5] != 'x' || segment[6] != 'i' ||
+					segment[7] != 'f' || segment[8] != 0 || segment[9] != 0) {
+				return false;
+			}
+			
+			int tiff = 10;
+			isLittleEndian = segment[tiff] == 'I';
+			
+			int ifd0 = tiff + readInt(segment, tiff + 4);
+			int count = readShort(segment, ifd0);
+			for (int i = 0; i < count; i++) {
+				int entry = ifd0 + 2 + i * 12;
+				int tag = readShort(segment, entry);
+				
+				if (tag == TAG_ORIENTATION && readShort(segment, entry + 2) == TYPE_SHORT) {
+					orientation = Orientation.typeOf(readShort(segment, entry + 8));
+				}
+			}
+			
+			return true;
+		}
+		
+		private int readShort(byte[] b, int offset) {
+			if (isLittleEndian) {
+				return (b[offset] & 0xff) | ((b[offset + 1] & 0xff) << 8);
+			}
+			return ((b[offset] & 0xff) << 8) | (b[offset + 1] & 0xff);
+		}
+		
+		private int readInt(byte[] b, int offset) {
+			if (isLittleEndian) {
+				return readShort(b, offset) | (readShort(b, offset + 2) << 16);
+			}
+			return (readShort(b, offset) << 16) | readShort(b, offset + 2);
+		}
+		
+		/**
+		 * Decides the transform from the orientation, checks that it can
+		 * be performed losslessly, and allocates the coefficients.
+		 * 
+		 * @return		{@code true} if the transform can be performed.
+		 */
+		private boolean prepareTransform() {
+			if (orientation == null || orientation == Orientation.TOP_LEFT) {
+				return false;
+			}
+			
+			// The transpose is performed first, then the flips of the result.
+			switch (orientation) {
+				case TOP_RIGHT:
+					flipHorizontally = true;
+					break;
+				case BOTTOM_RIGHT:
+					flipHorizontally = true;
+					flipVertically = true;
+					break;
+				case BOTTOM_LEFT:
+					flipVertically = true;
+					break;
+				case LEFT_TOP:
+					transpose = true;
+					break;
+				case RIGHT_TOP:
+					transpose = true;
+					flipHorizontally = true;
+					break;
+				case RIGHT_BOTTOM:
+					transpose = true;
+					flipHorizontally = true;
+					flipVertically = true;
+					break;
+				case LEFT_BOTTOM:
+					transpose = true;
+					flipVertically = true;
+					break;
+				default:
+					return false;
+			}
+			
+			// A flipped dimension must not end with a partial MCU.
+			int mcuWidth = maxH * 8;
+			int mcuHeight = maxV * 8;
+			boolean isWidthAligned = width % mcuWidth == 0;
+			boolean isHeightAligned = height % mcuHeight == 0;
+			
+			if (flipHorizontally && !(transpose ? isHeightAligned : isWidthAligned)) {
+				return false;
+			}
+			if (flipVertically && !(transpose ? isWidthAligned : isHeightAligned)) {
+				return false;
+			}
+			
+			int mcusWide = (width + mcuWidth - 1) / mcuWidth;
+			int mcusHigh = (height + mcuHeight - 1) / mcuHeight;
+			for (Component c : components) {
+				if (quantizationTables[c.tq] == null) {
+					return false;
+				}
+				c.blocksWide = mcusWide * c.h;
+				c.blocksHigh = mcusHigh * c.v;
+				c.coefficients = new short[c.blocksWide * c.blocksHigh * 64];
+			}
+			
+			return true;
+		}
+		
+		/**
+		 * Reads a scan header, and decodes the coefficients of the scan.
+		 * 
+		 * @return		{@code true} if the scan could be decoded.
+		 */
+		private boolean readScan() throws MalformedJpegException {
+			int p = position + 2;
+			int count = data[p] & 0xff;
+			
+			Component[] scanComponents = new Component[count];
+			for (int i = 0; i < count; i++) {
+				int id = data[p + 1 + i * 2] & 0xff;
+				int tables = data[p + 2 + i * 2] & 0xff;
+				
+				for (Component c : components) {
+					if (c.id == id) {
+						scanComponents[i] = c;
+					}
+				}
+				if (scanComponents[i] == null) {
+					return false;
+				}
+				
+				scanComponents[i].td = (tables >> 4) & 0x03;
+				scanComponents[i].ta = tables & 0x03;
+				if (dcTables[scanComponents[i].td] == null || acTables[scanComponents[i].ta] == null) {
+					return false;
+				}
+			}
+			
+			int q = p + 1 + count * 2;
+			if ((data[q] & 0xff) != 0 || (data[q + 1] & 0xff) != 63 || (data[q + 2] & 0xff) != 0) {
+				return false;
+			}
+			
+			skipSegment();
+			
+			BitReader reader = new BitReader(data, position);
+			for (Component c : scanComponents) {
+				c.predictor = 0;
+			}
+			
+			if (count == 1) {
+				Component c = scanComponents[0];
+				int blocksWide = (((width * c.h + maxH - 1) / maxH) + 7) / 8;
+				int blocksHigh = (((height * c.v + maxV - 1) / maxV) + 7) / 8;
+				
+				int mcu = 0;
+				for (int by = 0; by < blocksHigh; by++) {
+					for (int bx = 0; bx < blocksWide; bx++) {
+						if (restartInterval > 0 && mcu > 0 && mcu % restartInterval == 0) {
+							reader.restart();
+							c.predictor = 0;
+						}
+						decodeBlock(reader, c, (by * c.blocksWide + bx) * 64);
+						mcu++;
+					}
+				}
+				
+			} else {
+				int mcusWide = (width + maxH * 8 - 1) / (maxH * 8);
+				int mcusHigh = (height + maxV * 8 - 1) / (maxV * 8);
+				
+				int mcu = 0;
+				for (int my = 0; my < mcusHigh; my++) {
+					for (int mx = 0; mx < mcusWide; mx++) {
+						if (restartInterval > 0 && mcu > 0 && mcu % restartInterval == 0) {
+							reader.restart();
+							for (Component c : scanComponents) {
+								c.predictor = 0;
+							}
+						}
+						for (Component c : scanComponents) {
+							for (int v = 0; v < c.v; v++) {
+								for (int h = 0; h < c.h; h++) {
+									int bx = mx * c.h + h;
+									int by = my * c.v + v;
+									decodeBlock(reader, c, (by * c.blocksWide + bx) * 64);
+								}
+							}
+						}
+						mcu++;
+					}
+				}
+			}
+			
+			position = reader.position;
+			return true;
+		}
+		
+		private void decodeBlock(BitReader reader, Component c, int offset) throws MalformedJpegException {
+			short[] coefficients = c.coefficients;
+			
+			int t = reader.decode(dcTables[c.td]);
+			if (t > 11) {
+				throw new MalformedJpegException("Invalid DC coefficient.");
+			}
+			c.predictor += extend(reader.read(t), t);
+			coefficients[offset] = (short)c.predictor;
+			
+			DecodingTable acTable = acTables[c.ta];
+			for (int k = 1; k < 64; ) {
+				int rs = reader.decode(acTable);
+				int r = rs >> 4;
+				int s = rs & 0x0f;
+				
+				if (s == 0) {
+					if (r != 15) {
+						break;
+					}
+					k += 16;
+					continue;
+				}
+				
+				k += r;
+				if (k > 63) {
+					throw new MalformedJpegException("Invalid AC coefficient.");
+				}
+				coefficients[offset + ZIGZAG[k]] = (short)extend(reader.read(s), s);
+				k++;
+			}
+		}
+		
+		private static int extend(int value, int size) {
+			if (size == 0) {
+				return 0;
+			}
+			return value < (1 << (size - 1)) ? value - (1 << size) + 1 : value;
+		}
+		
+		/**
+		 * Moves the blocks of each component, and transposes and negates
+		 * the coefficients within each block.
+		 */
+		private void transformCoefficients() {
+			for (Component c : components) {
+				int inWide = c.blocksWide;
+				int outWide = transpose ? c.blocksHigh : c.blocksWide;
+				int outHigh = transpose ? c.blocksWide : c.blocksHigh;
+				
+				short[] in = c.coefficients;
+				short[] out = new short[in.length];
+				
+				for (int by = 0; by < outHigh; by++) {
+					for (int bx = 0; bx < outWide; bx++) {
+						int tx = flipHorizontally ? outWide - 1 - bx : bx;
+						int ty = flipVertically ? outHigh - 1 - by : by;
+						int sx = transpose ? ty : tx;
+						int sy = transpose ? tx : ty;
+						
+						int src = (sy * inWide + sx) * 64;
+						int dest = (by * outWide + bx) * 64;
+						
+						for (int v = 0; v < 8; v++) {
+							for (int u = 0; u < 8; u++) {
+								int value = transpose ? in[src + u * 8 + v] : in[src + v * 8 + u];
+								
+								// Mirroring a block negates its odd frequencies.
+								if (flipHorizontally && (u & 1) != 0) {
+									value = -value;
+								}
+								if (flipVertically && (v & 1) != 0) {
+									value = -value;
+								}
+								out[dest + v * 8 + u] = (short)value;
+							}
+						}
+					}
+				}
+				
+				c.coefficients = out;
+				c.blocksWide = outWide;
+				c.blocksHigh = outHigh;
+				
+				if (transpose) {
+					int h = c.h;
+					c.h = c.v;
+					c.v = h;
+				}
+			}
+			
+			if (transpose) {
+				int w = width;
+				width = height;
+				height = w;
+				
+				int h = maxH;
+				maxH = maxV;
+				maxV = h;
+				
+				for (int i = 0; i < quantizationTables.length; i++) {
+					int[] table = quantizationTables[i];
+					if (table != null) {
+						int[] transposed = new int[64];
+						for (int v = 0; v < 8; v++) {
+							for (int u = 0; u < 8; u++) {
+								transposed[v * 8 + u] = table[u * 8 + v];
+							}
+						}
+						quantizationTables[i] = transposed;
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Encodes the transformed image, in a single interleaved scan.
+		 * 
+		 * @return		The data of the transformed image.
+		 */
+		private byte[] write() {
+			// The first component uses the first tables, the others share the second.
+			for (int i = 0; i < components.length; i++) {
+				components[i].td = components[i].ta = i == 0 ? 0 : 1;
+			}
+			int tableCount = components.length == 1 ? 1 : 2;
+			
+			int[][] dcFrequencies = new int[tableCount][256];
+			int[][] acFrequencies = new int[tableCount][256];
+			encodeScan(null, null, null, dcFrequencies, acFrequencies);
+			
+			EncodingTable[] dc = new EncodingTable[tableCount];
+			EncodingTable[] ac = new EncodingTable[tableCount];
+			for (int i = 0; i < tableCount; i++) {
+				dc[i] = EncodingTable.optimal(dcFrequencies[i]);
+				ac[i] = EncodingTable.optimal(acFrequencies[i]);
+			}
+			
+			ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+			out.write(0xff);
+			out.write(0xd8);
+			
+			for (byte[] segment : segments) {
+				out.write(segment, 0, segment.length);
+			}
+			
+			for (int i = 0; i < quantizationTables.length; i++) {
+				if (quantizationTables[i] == null) {
+					continue;
+				}
+				int pq = quantizationPrecisions[i];
+				writeMarker(out, DQT, 2 + 1 + 64 * (pq + 1));
+				out.write((pq << 4) | i);
+				for (int k = 0; k < 64; k++) {
+					int value = quantizationTables[i][ZIGZAG[k]];
+					if (pq != 0) {
+						out.write(value >> 8);
+					}
+					out.write(value & 0xff);
+				}
+			}
+			
+			writeMarker(out, frameMarker, 8 + components.length * 3);
+			out.write(8);
+			writeShort(out, height);
+			writeShort(out, width);
+			out.write(components.length);
+			for (Component c : components) {
+				out.write(c.id);
+				out.write((c.h << 4) | c.v);
+				out.write(c.tq);
+			}
+			
+			int length = 2;
+			for (int i = 0; i < tableCount; i++) {
+				length += 2 * 17 + dc[i].values.length + ac[i].values.length;
+			}
+			writeMarker(out, DHT, length);
+			for (int i = 0; i < tableCount; i++) {
+				writeHuffmanTable(out, i, dc[i]);
+				writeHuffmanTable(out, 0x10 | i, ac[i]);
+			}
+			
+			writeMarker(out, SOS, 6 + components.length * 2);
+			out.write(components.length);
+			for (Component c : components) {
+				out.write(c.id);
+				out.write((c.td << 4) | c.ta);
+			}
+			out.write(0);
+			out.write(63);
+			out.write(0);
+			
+			BitWriter writer = new BitWriter(out);
+			encodeScan(writer, dc, ac, null, null);
+			writer.flush();
+			
+			out.write(0xff);
+			out.write(EOI);
+			
+			return out.toByteArray();
+		}
+		
+		private static void writeMarker(ByteArrayOutputStream out, int marker, int length) {
+			out.write(0xff);
+			out.write(marker);
+			writeShort(out, length);
+		}
+		
+		private static void writeShort(ByteArrayOutputStream out, int value) {
+			out.write(value >> 8);
+			out.write(value & 0xff);
+		}
+		
+		private static void writeHuffmanTable(ByteArrayOutputStream out, int id, EncodingTable table) {
+			out.write(id);
+			for (int i = 1; i <= 16; i++) {
+				out.write(table.bits[i]);
+			}
+			for (int value : table.values) {
+				out.write(value);
+			}
+		}
+		
+		/**
+		 * Encodes the coefficients in a single interleaved scan, or counts
+		 * the frequencies of the symbols when no writer is given.
+		 */
+		private void encodeScan(
+				BitWriter writer,
+				EncodingTable[] dc,
+				EncodingTable[] ac,
+				int[][] dcFrequencies,
+				int[][] acFrequencies
+		) {
+			for (Component c : components) {
+				c.predictor = 0;
+			}
+			
+			if (components.length == 1) {
+				Component c = components[0];
+				int blocksWide = (width + 7) / 8;
+				int blocksHigh = (height + 7) / 8;
+				
+				for (int by = 0; by < blocksHigh; by++) {
+					for (int bx = 0; bx < blocksWide; bx++) {
+						encodeBlock(writer, dc, ac, dcFrequencies, acFrequencies, c, (by * c.blocksWide + bx) * 64);
+					}
+				}
+				return;
+			}
+			
+			int mcusWide = (width + maxH * 8 - 1) / (maxH * 8);
+			int mcusHigh = (height + maxV * 8 - 1) / (maxV * 8);
+			
+			for (int my = 0; my < mcusHigh; my++) {
+				for (int mx = 0; mx < mcusWide; mx++) {
+					for (Component c : components) {
+						for (int v = 0; v < c.v; v++) {
+							for (int h = 0; h < c.h; h++) {
+								int bx = mx * c.h + h;
+								int by = my * c.v + v;
+								encodeBlock(writer, dc, ac, dcFrequencies, acFrequencies, c, (by * c.blocksWide + bx) * 64);
+							}
+						}
+					}
+				}
+			}
+		}
+		
+		private static void encodeBlock(
+				BitWriter writer,
+				EncodingTable[] dc,
+				EncodingTable[] ac,
+				int[][] dcFrequencies,
+				int[][] acFrequencies,
+				Component c,
+				int offset
+		) {
+			short[] coefficients = c.coefficients;
+			
+			int diff = coefficients[offset] - c.predictor;
+			c.predictor = coefficients[offset];
+			int size = sizeOf(diff);
+			
+			if (writer == null) {
+				dcFrequencies[c.td][size]++;
+			} else {
+				writer.write(dc[c.td].codes[size], dc[c.td].sizes[size]);
+				if (size > 0) {
+					writer.write(diff < 0 ? diff - 1 : diff, size);
+				}
+			}
+			
+			int run = 0;
+			for (int k = 1; k < 64; k++) {
+				int value = coefficients[offset + ZIGZAG[k]];
+				if (value == 0) {
+					run++;
+					continue;
+				}
+				
+				while (run > 15) {
+					emit(writer, ac, acFrequencies, c.ta, 0xf0);
+					run -= 16;
+				}
+				
+				size = sizeOf(value);
+				emit(writer, ac, acFrequencies, c.ta, (run << 4) | size);
+				if (writer != null) {
+					writer.write(value < 0 ? value - 1 : value, size);
+				}
+				run = 0;
+			}
+			
+			if (run > 0) {
+				emit(writer, ac, acFrequencies, c.ta, 0x00);
+			}
+		}
+		
+		private static void emit(BitWriter writer, EncodingTable[] tables, int[][] frequencies, int table, int symbol) {
+			if (writer == null) {
+				frequencies[table][symbol]++;
+			} else {
+				writer.write(tables[table].codes[symbol], tables[table].sizes[symbol]);
+			}
+		}
+		
+		private static int sizeOf(int value) {
+			return 32 - Integer.numberOfLeadingZeros(Math.abs(value));
+		}
+	}
+}
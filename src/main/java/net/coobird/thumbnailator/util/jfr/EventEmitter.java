@@ -0,0 +1,55 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util.jfr;
+
+import java.awt.image.BufferedImage;
+
+import net.coobird.thumbnailator.filters.ImageFilter;
+import net.coobird.thumbnailator.resizers.Resizer;
+
+/**
+ * Emits the events of Thumbnailator to an implementation which depends on
+ * the Java Flight Recorder.
+ * <p>
+ * Each event is started by a {@code begin} method, which returns the event,
+ * or {@code null} if the event is not enabled. The event is then passed to
+ * the corresponding {@code end} method, which records and commits it.
+ * 
+ * @author coobird
+ *
+ */
+interface EventEmitter {
+	public Object beginRead();
+	public void endRead(Object event, Object source, String formatName, BufferedImage image);
+	
+	public Object beginResize();
+	public void endResize(Object event, Resizer resizer, BufferedImage source, BufferedImage destination);
+	
+	public Object beginFilter();
+	public void endFilter(Object event, ImageFilter filter, BufferedImage input, BufferedImage output);
+	
+	public Object beginWrite();
+	public void endWrite(Object event, Object destination, String formatName, BufferedImage image);
+}
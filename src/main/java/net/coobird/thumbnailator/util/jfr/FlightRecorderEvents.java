@@ -0,0 +1,205 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util.jfr;
+
+import java.awt.image.BufferedImage;
+
+import net.coobird.thumbnailator.filters.ImageFilter;
+import net.coobird.thumbnailator.resizers.Resizer;
+
+/**
+ * Emits Java Flight Recorder events around the steps which take most of
+ * the time of creating a thumbnail, so that they can be told apart from
+ * the frames of Java2D and Image I/O in recordings.
+ * <p>
+ * The following events are emitted, in the {@code Thumbnailator}
+ * category:
+ * <dl>
+ * <dt>{@code net.coobird.thumbnailator.Read}</dt>
+ * <dd>Reading and decoding a source image.</dd>
+ * <dt>{@code net.coobird.thumbnailator.Resize}</dt>
+ * <dd>Resizing an image by a {@link Resizer}.</dd>
+ * <dt>{@code net.coobird.thumbnailator.Filter}</dt>
+ * <dd>Applying an {@link ImageFilter}.</dd>
+ * <dt>{@code net.coobird.thumbnailator.Write}</dt>
+ * <dd>Encoding and writing a thumbnail.</dd>
+ * </dl>
+ * Each event records the dimensions and types of the images, and the
+ * classes of the source, destination, resizer or filter involved. Events
+ * have a default threshold of 10 milliseconds, so that slow thumbnails can
+ * be recorded continuously. The threshold can be changed in the settings
+ * of the recording, such as by
+ * {@code jfr configure net.coobird.thumbnailator.Resize#threshold=0ms}.
+ * <p>
+ * The events depend on the {@code jdk.jfr} module, which is only loaded
+ * when it is available. On JVMs without the Java Flight Recorder, and
+ * while the events are not enabled in a recording, the methods of this
+ * class do nothing.
+ * <p>
+ * This class is used by Thumbnailator internally, and is not intended to
+ * be used by other code.
+ * 
+ * @author coobird
+ * @since	0.4.21
+ *
+ */
+public final class FlightRecorderEvents {
+	/**
+	 * The name of the class which emits the events through the Java Flight
+	 * Recorder. It is loaded by name, so that it is not linked on JVMs
+	 * without the Java Flight Recorder.
+	 */
+	private static final String EMITTER_CLASS_NAME =
+			"net.coobird.thumbnailator.util.jfr.JfrEventEmitter";
+	
+	/**
+	 * The emitter of the events, or {@code null} if the Java Flight
+	 * Recorder is not available.
+	 */
+	private static final EventEmitter EMITTER = loadEmitter();
+	
+	/**
+	 * This class is not intended to be instantiated.
+	 */
+	private FlightRecorderEvents() {}
+	
+	/**
+	 * Loads the emitter of the events.
+	 * 
+	 * @return		The emitter, or {@code null} if the Java Flight Recorder
+	 * 				is not available.
+	 */
+	private static EventEmitter loadEmitter() {
+		try {
+			Class<?> c = Class.forName("jdk.jfr.FlightRecorder");
+			if (!(Boolean)c.getMethod("isAvailable").invoke(null)) {
+				return null;
+			}
+			
+			return (EventEmitter)Class.forName(EMITTER_CLASS_NAME)
+					.getDeclaredConstructor()
+					.newInstance();
+			
+		} catch (Throwable t) {
+			// Includes the LinkageErrors of JVMs without jdk.jfr.
+			return null;
+		}
+	}
+	
+	/**
+	 * Starts the event of reading a source image.
+	 * 
+	 * @return			The event, or {@code null} if it is not enabled.
+	 */
+	public static Object beginRead() {
+		return EMITTER == null ? null : EMITTER.beginRead();
+	}
+	
+	/**
+	 * Ends the event of reading a source image.
+	 * 
+	 * @param event			The event returned by {@link #beginRead()}.
+	 * @param source		The source of the image.
+	 * @param formatName	The format of the image, or {@code null}.
+	 * @param image			The image, or {@code null} if it could not be
+	 * 						read.
+	 */
+	public static void endRead(Object event, Object source, String formatName, BufferedImage image) {
+		if (event != null) {
+			EMITTER.endRead(event, source, formatName, image);
+		}
+	}
+	
+	/**
+	 * Starts the event of resizing an image.
+	 * 
+	 * @return			The event, or {@code null} if it is not enabled.
+	 */
+	public static Object beginResize() {
+		return EMITTER == null ? null : EMITTER.beginResize();
+	}
+	
+	/**
+	 * Ends the event of resizing an image.
+	 * 
+	 * @param event			The event returned by {@link #beginResize()}.
+	 * @param resizer		The resizer.
+	 * @param source		The image which was resized.
+	 * @param destination	The image which the resized image was drawn to,
+	 * 						or {@code null} if the resizer failed.
+	 */
+	public static void endResize(Object event, Resizer resizer, BufferedImage source, BufferedImage destination) {
+		if (event != null) {
+			EMITTER.endResize(event, resizer, source, destination);
+		}
+	}
+	
+	/**
+	 * Starts the event of applying a filter.
+	 * 
+	 * @return			The event, or {@code null} if it is not enabled.
+	 */
+	public static Object beginFilter() {
+		return EMITTER == null ? null : EMITTER.beginFilter();
+	}
+	
+	/**
+	 * Ends the event of applying a filter.
+	 * 
+	 * @param event			The event returned by {@link #beginFilter()}.
+	 * @param filter		The filter.
+	 * @param input			The image the filter was applied to.
+	 * @param output		The image returned by the filter, or
+	 * 						{@code null} if the filter failed.
+	 */
+	public static void endFilter(Object event, ImageFilter filter, BufferedImage input, BufferedImage output) {
+		if (event != null) {
+			EMITTER.endFilter(event, filter, input, output);
+		}
+	}
+	
+	/**
+	 * Starts the event of writing a thumbnail.
+	 * 
+	 * @return			The event, or {@code null} if it is not enabled.
+	 */
+	public static Object beginWrite() {
+		return EMITTER == null ? null : EMITTER.beginWrite();
+	}
+	
+	/**
+	 * Ends the event of writing a thumbnail.
+	 * 
+	 * @param event			The event returned by {@link #beginWrite()}.
+	 * @param destination	The destination of the thumbnail.
+	 * @param formatName	The format of the thumbnail, or {@code null}.
+	 * @param image			The thumbnail.
+	 */
+	public static void endWrite(Object event, Object destination, String formatName, BufferedImage image) {
+		if (event != null) {
+			EMITTER.endWrite(event, destination, formatName, image);
+		}
+	}
+}
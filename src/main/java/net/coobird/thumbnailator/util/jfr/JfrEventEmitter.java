@@ -0,0 +1,276 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util.jfr;
+
+import java.awt.image.BufferedImage;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+import net.coobird.thumbnailator.filters.ImageFilter;
+import net.coobird.thumbnailator.resizers.Resizer;
+
+/**
+ * An {@link EventEmitter} which emits the events as Java Flight Recorder
+ * events.
+ * <p>
+ * This class is only loaded by {@link FlightRecorderEvents} when the Java
+ * Flight Recorder is available.
+ * 
+ * @author coobird
+ *
+ */
+final class JfrEventEmitter implements EventEmitter {
+	
+	@Name("net.coobird.thumbnailator.Read")
+	@Label("Thumbnailator Read")
+	@Description("Reading and decoding of a source image")
+	@Category("Thumbnailator")
+	@Threshold("10 ms")
+	static final class ReadEvent extends Event {
+		@Label("Source Class")
+		Class<?> sourceClass;
+		
+		@Label("Format")
+		String formatName;
+		
+		@Label("Width")
+		int width;
+		
+		@Label("Height")
+		int height;
+		
+		@Label("Image Type")
+		int imageType;
+	}
+	
+	@Name("net.coobird.thumbnailator.Resize")
+	@Label("Thumbnailator Resize")
+	@Description("Resizing of an image by a resizer")
+	@Category("Thumbnailator")
+	@Threshold("10 ms")
+	static final class ResizeEvent extends Event {
+		@Label("Resizer")
+		String resizer;
+		
+		@Label("Source Width")
+		int sourceWidth;
+		
+		@Label("Source Height")
+		int sourceHeight;
+		
+		@Label("Source Image Type")
+		int sourceType;
+		
+		@Label("Target Width")
+		int targetWidth;
+		
+		@Label("Target Height")
+		int targetHeight;
+		
+		@Label("Target Image Type")
+		int targetType;
+	}
+	
+	@Name("net.coobird.thumbnailator.Filter")
+	@Label("Thumbnailator Filter")
+	@Description("Application of an image filter")
+	@Category("Thumbnailator")
+	@Threshold("10 ms")
+	static final class FilterEvent extends Event {
+		@Label("Filter")
+		Class<?> filter;
+		
+		@Label("Input Width")
+		int inputWidth;
+		
+		@Label("Input Height")
+		int inputHeight;
+		
+		@Label("Input Image Type")
+		int inputType;
+		
+		@Label("Output Width")
+		int outputWidth;
+		
+		@Label("Output Height")
+		int outputHeight;
+		
+		@Label("Output Image Type")
+		int outputType;
+	}
+	
+	@Name("net.coobird.thumbnailator.Write")
+	@Label("Thumbnailator Write")
+	@Description("Encoding and writing of a thumbnail")
+	@Category("Thumbnailator")
+	@Threshold("10 ms")
+	static final class WriteEvent extends Event {
+		@Label("Destination Class")
+		Class<?> destinationClass;
+		
+		@Label("Format")
+		String formatName;
+		
+		@Label("Width")
+		int width;
+		
+		@Label("Height")
+		int height;
+		
+		@Label("Image Type")
+		int imageType;
+	}
+	
+	/**
+	 * Starts an event, if it is enabled.
+	 * 
+	 * @param event		The event.
+	 * @return			The event, or {@code null} if it is not enabled.
+	 */
+	private static Event begin(Event event) {
+		if (!event.isEnabled()) {
+			return null;
+		}
+		
+		event.begin();
+		return event;
+	}
+	
+	/**
+	 * Returns the class of an object.
+	 * 
+	 * @param o			The object, or {@code null}.
+	 * @return			The class, or {@code null}.
+	 */
+	private static Class<?> classOf(Object o) {
+		return o == null ? null : o.getClass();
+	}
+	
+	/**
+	 * Returns the name of a resizer. As the constants of
+	 * {@link net.coobird.thumbnailator.resizers.Resizers} share their class,
+	 * they are named by the constant.
+	 * 
+	 * @param resizer	The resizer.
+	 * @return			The name of the resizer.
+	 */
+	private static String nameOf(Resizer resizer) {
+		if (resizer instanceof Enum) {
+			Enum<?> constant = (Enum<?>)resizer;
+			return constant.getDeclaringClass().getName() + "." + constant.name();
+		}
+		return resizer.getClass().getName();
+	}
+	
+	public Object beginRead() {
+		return begin(new ReadEvent());
+	}
+	
+	public void endRead(Object e, Object source, String formatName, BufferedImage image) {
+		ReadEvent event = (ReadEvent)e;
+		event.end();
+		if (!event.shouldCommit()) {
+			return;
+		}
+		
+		event.sourceClass = classOf(source);
+		event.formatName = formatName;
+		if (image != null) {
+			event.width = image.getWidth();
+			event.height = image.getHeight();
+			event.imageType = image.getType();
+		}
+		event.commit();
+	}
+	
+	public Object beginResize() {
+		return begin(new ResizeEvent());
+	}
+	
+	public void endResize(Object e, Resizer resizer, BufferedImage source, BufferedImage destination) {
+		ResizeEvent event = (ResizeEvent)e;
+		event.end();
+		if (!event.shouldCommit()) {
+			return;
+		}
+		
+		event.resizer = nameOf(resizer);
+		event.sourceWidth = source.getWidth();
+		event.sourceHeight = source.getHeight();
+		event.sourceType = source.getType();
+		if (destination != null) {
+			event.targetWidth = destination.getWidth();
+			event.targetHeight = destination.getHeight();
+			event.targetType = destination.getType();
+		}
+		event.commit();
+	}
+	
+	public Object beginFilter() {
+		return begin(new FilterEvent());
+	}
+	
+	public void endFilter(Object e, ImageFilter filter, BufferedImage input, BufferedImage output) {
+		FilterEvent event = (FilterEvent)e;
+		event.end();
+		if (!event.shouldCommit()) {
+			return;
+		}
+		
+		event.filter = classOf(filter);
+		event.inputWidth = input.getWidth();
+		event.inputHeight = input.getHeight();
+		event.inputType = input.getType();
+		if (output != null) {
+			event.outputWidth = output.getWidth();
+			event.outputHeight = output.getHeight();
+			event.outputType = output.getType();
+		}
+		event.commit();
+	}
+	
+	public Object beginWrite() {
+		return begin(new WriteEvent());
+	}
+	
+	public void endWrite(Object e, Object destination, String formatName, BufferedImage image) {
+		WriteEvent event = (WriteEvent)e;
+		event.end();
+		if (!event.shouldCommit()) {
+			return;
+		}
+		
+		event.destinationClass = classOf(destination);
+		event.formatName = formatName;
+		event.width = image.getWidth();
+		event.height = image.getHeight();
+		event.imageType = image.getType();
+		event.commit();
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Source images shared by the tests of {@link Thumbnails.Builder}.
+ * <p>
+ * The {@code i}-th image is {@code 100 + i} pixels wide and 200 pixels
+ * high, so that the results can be matched to their sources.
+ */
+final class TestImages {
+	
+	private TestImages() {}
+	
+	/**
+	 * Creates images.
+	 * 
+	 * @param count		The number of images.
+	 * @return			The images.
+	 */
+	static List<BufferedImage> makeImages(int count) {
+		List<BufferedImage> images = new ArrayList<BufferedImage>();
+		for (int i = 0; i < count; i++) {
+			images.add(new BufferedImage(100 + i, 200, BufferedImage.TYPE_INT_RGB));
+		}
+		return images;
+	}
+	
+	/**
+	 * Writes images to PNG files named {@code source0.png},
+	 * {@code source1.png} and so on in the given folder.
+	 * 
+	 * @param folder	The folder to write the files to.
+	 * @param count		The number of files.
+	 * @return			The files.
+	 * @throws IOException	If the files could not be written.
+	 */
+	static List<File> makeFiles(TemporaryFolder folder, int count) throws IOException {
+		List<File> files = new ArrayList<File>();
+		for (int i = 0; i < count; i++) {
+			File f = folder.newFile("source" + i + ".png");
+			ImageIO.write(new BufferedImage(100 + i, 200, BufferedImage.TYPE_INT_RGB), "png", f);
+			files.add(f);
+		}
+		return files;
+	}
+	
+	/**
+	 * Returns images which count how many of them have been taken.
+	 * 
+	 * @param images	The images.
+	 * @param taken		The number of images which have been taken.
+	 * @return			The images.
+	 */
+	static Iterable<BufferedImage> countTaken(final List<BufferedImage> images, final AtomicInteger taken) {
+		return new Iterable<BufferedImage>() {
+			public Iterator<BufferedImage> iterator() {
+				final Iterator<BufferedImage> iter = images.iterator();
+				return new Iterator<BufferedImage>() {
+					public boolean hasNext() {
+						return iter.hasNext();
+					}
+					
+					public BufferedImage next() {
+						taken.incrementAndGet();
+						return iter.next();
+					}
+					
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+	
+	/**
+	 * Returns the files as an {@link Iterable} whose iterators are
+	 * {@link Closeable}, in the same manner as those of
+	 * {@link net.coobird.thumbnailator.util.DirectoryImageFiles}.
+	 * 
+	 * @param files		The files.
+	 * @param closed	The number of iterators which have been closed.
+	 * @return			The files.
+	 */
+	static Iterable<File> countClosed(final List<File> files, final AtomicInteger closed) {
+		return new Iterable<File>() {
+			public Iterator<File> iterator() {
+				return new ClosingIterator(files.iterator(), closed);
+			}
+		};
+	}
+	
+	private static final class ClosingIterator implements Iterator<File>, Closeable {
+		private final Iterator<File> iter;
+		private final AtomicInteger closed;
+		
+		private ClosingIterator(Iterator<File> iter, AtomicInteger closed) {
+			this.iter = iter;
+			this.closed = closed;
+		}
+		
+		public boolean hasNext() {
+			return iter.hasNext();
+		}
+		
+		public File next() {
+			return iter.next();
+		}
+		
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+		
+		public void close() {
+			closed.incrementAndGet();
+		}
+	}
+}
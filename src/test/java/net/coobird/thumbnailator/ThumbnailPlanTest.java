@@ -0,0 +1,164 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import net.coobird.thumbnailator.tasks.io.InputStreamImageSource;
+import net.coobird.thumbnailator.tasks.io.OutputStreamImageSink;
+import net.coobird.thumbnailator.util.DecodeLimits;
+
+import org.junit.Test;
+
+public class ThumbnailPlanTest {
+	
+	@Test
+	public void createThumbnail_SameAsBuilder() throws IOException {
+		// given
+		BufferedImage img = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+		
+		// when
+		ThumbnailPlan plan = Thumbnails.of(img).size(50, 50).rotate(90).compile();
+		BufferedImage thumbnail = plan.createThumbnail(img);
+		
+		// then
+		BufferedImage expected = Thumbnails.of(img).size(50, 50).rotate(90).asBufferedImage();
+		assertEquals(expected.getWidth(), thumbnail.getWidth());
+		assertEquals(expected.getHeight(), thumbnail.getHeight());
+		assertEquals(expected.getType(), thumbnail.getType());
+	}
+	
+	@Test
+	public void createThumbnail_NotAffectedByLaterChangesToBuilder() {
+		BufferedImage img = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+		Thumbnails.Builder<BufferedImage> builder = Thumbnails.of(img).size(50, 50);
+		
+		ThumbnailPlan plan = builder.compile();
+		builder.rotate(90);
+		
+		assertEquals(50, plan.createThumbnail(img).getWidth());
+	}
+	
+	private static byte[] makePng(int width, int height) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", os);
+		return os.toByteArray();
+	}
+	
+	private static BufferedImage createThumbnail(ThumbnailPlan plan, byte[] source) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		plan.createThumbnail(
+				new InputStreamImageSource(new ByteArrayInputStream(source)),
+				new OutputStreamImageSink(os)
+		);
+		return ImageIO.read(new ByteArrayInputStream(os.toByteArray()));
+	}
+	
+	@Test
+	public void createThumbnail_SubsampledSourceDoesNotChangeLaterThumbnails() throws IOException {
+		// Sources larger than 100x100 are subsampled when decoded.
+		DecodeLimits.setDefault(new DecodeLimits(100, 100, 10000, Integer.MAX_VALUE, true));
+		try {
+			for (boolean useExifOrientation : new boolean[] {true, false}) {
+				// given
+				ThumbnailPlan plan = Thumbnails.of(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB))
+						.scale(0.5)
+						.outputFormat("png")
+						.useExifOrientation(useExifOrientation)
+						.compile();
+				
+				// when
+				BufferedImage large = createThumbnail(plan, makePng(400, 400));
+				BufferedImage small = createThumbnail(plan, makePng(80, 80));
+				BufferedImage largeAgain = createThumbnail(plan, makePng(400, 400));
+				
+				// then
+				assertEquals(200, large.getWidth());
+				assertEquals(40, small.getWidth());
+				assertEquals(200, largeAgain.getWidth());
+			}
+			
+		} finally {
+			DecodeLimits.setDefault(null);
+		}
+	}
+	
+	@Test
+	public void createThumbnail_ConcurrentlyFromStreams() throws Exception {
+		// given
+		ByteArrayOutputStream source = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "png", source);
+		final byte[] sourceData = source.toByteArray();
+		
+		BufferedImage sample = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+		final ThumbnailPlan plan = Thumbnails.of(sample).size(40, 40).outputFormat("png").compile();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		
+		try {
+			// when
+			List<Future<BufferedImage>> futures = new ArrayList<Future<BufferedImage>>();
+			for (int i = 0; i < 20; i++) {
+				futures.add(executor.submit(new Callable<BufferedImage>() {
+					public BufferedImage call() throws IOException {
+						ByteArrayOutputStream os = new ByteArrayOutputStream();
+						plan.createThumbnail(
+								new InputStreamImageSource(new ByteArrayInputStream(sourceData)),
+								new OutputStreamImageSink(os)
+						);
+						return ImageIO.read(new ByteArrayInputStream(os.toByteArray()));
+					}
+				}));
+			}
+			
+			// then
+			for (Future<BufferedImage> future : futures) {
+				BufferedImage thumbnail = future.get();
+				assertEquals(40, thumbnail.getWidth());
+				assertEquals(20, thumbnail.getHeight());
+			}
+			
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void compile_NotReady() {
+		Thumbnails.of(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB)).compile();
+	}
+}
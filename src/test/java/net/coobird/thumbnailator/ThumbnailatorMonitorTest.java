@@ -0,0 +1,232 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import net.coobird.thumbnailator.name.Rename;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ThumbnailatorMonitorTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	@After
+	public void unregister() {
+		ThumbnailatorMonitor.unregister();
+	}
+	
+	private File makeFile(String name, String format) throws IOException {
+		File f = temporaryFolder.newFile(name);
+		ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), format, f);
+		return f;
+	}
+	
+	@Test
+	public void register_RegistersMXBean() throws Exception {
+		// given
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(ThumbnailatorMonitor.OBJECT_NAME);
+		
+		// when
+		ThumbnailatorMonitor monitor = ThumbnailatorMonitor.register();
+		
+		// then
+		assertTrue(server.isRegistered(name));
+		assertSame(monitor, ThumbnailatorMonitor.register());
+		assertSame(monitor, ThumbnailatorMonitor.getRegistered());
+		
+		// and when
+		assertTrue(ThumbnailatorMonitor.unregister());
+		
+		// then
+		assertFalse(server.isRegistered(name));
+		assertNull(ThumbnailatorMonitor.getRegistered());
+		assertFalse(ThumbnailatorMonitor.unregister());
+	}
+	
+	@Test
+	public void countsThumbnailsByFormatAndResizer() throws IOException {
+		// given
+		ThumbnailatorMonitor monitor = ThumbnailatorMonitor.register();
+		File png = makeFile("source.png", "png");
+		File jpg = makeFile("source.jpg", "jpg");
+		
+		// when
+		Thumbnails.of(png, jpg)
+				.size(50, 50)
+				.asFiles(temporaryFolder.newFolder(), Rename.NO_CHANGE);
+		Thumbnails.of(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB))
+				.size(50, 50)
+				.asBufferedImage();
+		
+		// then
+		assertEquals(3, monitor.getCompletedCount());
+		assertEquals(3, monitor.getSuccessCount());
+		assertEquals(0, monitor.getFailureCount());
+		
+		Map<String, Long> formats = monitor.getCountsByFormat();
+		assertEquals(Long.valueOf(1), formats.get("png"));
+		assertEquals(Long.valueOf(1), formats.get("jpeg"));
+		assertEquals(Long.valueOf(1), formats.get("unknown"));
+		
+		long resized = 0;
+		for (long count : monitor.getCountsByResizer().values()) {
+			resized += count;
+		}
+		assertEquals(3, resized);
+		
+		assertEquals(0, monitor.getInFlightCount());
+		assertEquals(0, monitor.getDecodedPixelBytes());
+	}
+	
+	@Test
+	public void countsFailures() throws IOException {
+		// given
+		ThumbnailatorMonitor monitor = ThumbnailatorMonitor.register();
+		File notAnImage = temporaryFolder.newFile("notAnImage.png");
+		
+		// when
+		try {
+			Thumbnails.of(notAnImage).size(50, 50).asBufferedImage();
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+		
+		// then
+		assertEquals(1, monitor.getCompletedCount());
+		assertEquals(1, monitor.getFailureCount());
+		assertEquals(0, monitor.getInFlightCount());
+		assertEquals(0, monitor.getDecodedPixelBytes());
+	}
+	
+	@Test
+	public void recordsLatencies() throws IOException {
+		// given
+		ThumbnailatorMonitor monitor = ThumbnailatorMonitor.register();
+		
+		// when
+		for (int i = 0; i < 10; i++) {
+			Thumbnails.of(makeFile("source" + i + ".png", "png"))
+					.size(50, 50)
+					.asBufferedImage();
+		}
+		
+		// then
+		List<LatencySummary> latencies = monitor.getLatencies();
+		assertEquals(PipelineStage.values().length + 1, latencies.size());
+		
+		LatencySummary decode = latencies.get(PipelineStage.DECODE.ordinal());
+		assertEquals("DECODE", decode.getStage());
+		assertEquals(10, decode.getCount());
+		
+		LatencySummary total = latencies.get(latencies.size() - 1);
+		assertEquals("TOTAL", total.getStage());
+		assertEquals(10, total.getCount());
+		assertTrue(total.getP50Millis() > 0);
+		assertTrue(total.getP50Millis() <= total.getP99Millis());
+		assertTrue(total.getP99Millis() <= total.getMaxMillis());
+		assertEquals(total.getMaxMillis(), monitor.getLatencyPercentile("TOTAL", 100.0), 0.0);
+		
+		// and when
+		monitor.resetStatistics();
+		
+		// then
+		assertEquals(0, monitor.getCompletedCount());
+		assertEquals(0, monitor.getLatencies().get(PipelineStage.DECODE.ordinal()).getCount());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void getLatencyPercentile_UnknownStage() {
+		ThumbnailatorMonitor.register().getLatencyPercentile("UNKNOWN", 50.0);
+	}
+	
+	@Test
+	public void attributesReadThroughProxy() throws Exception {
+		// given
+		ThumbnailatorMonitor.register();
+		Thumbnails.of(makeFile("source.png", "png")).size(50, 50).asBufferedImage();
+		
+		// when
+		ThumbnailatorMXBean proxy = JMX.newMXBeanProxy(
+				ManagementFactory.getPlatformMBeanServer(),
+				new ObjectName(ThumbnailatorMonitor.OBJECT_NAME),
+				ThumbnailatorMXBean.class
+		);
+		
+		// then
+		assertEquals(1, proxy.getSuccessCount());
+		assertEquals(Long.valueOf(1), proxy.getCountsByFormat().get("png"));
+		assertEquals(1, proxy.getLatencies().get(PipelineStage.DECODE.ordinal()).getCount());
+	}
+	
+	@Test
+	public void latencyHistogram_PercentilesWithinPrecision() {
+		// given
+		LatencyHistogram histogram = new LatencyHistogram();
+		
+		// when
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i, TimeUnit.MILLISECONDS);
+		}
+		
+		// then
+		assertEquals(1000, histogram.getCount());
+		assertEquals(500.5, histogram.getMeanMillis(), 0.001);
+		assertEquals(500.0, histogram.getPercentileMillis(50.0), 500.0 * 0.04);
+		assertEquals(990.0, histogram.getPercentileMillis(99.0), 990.0 * 0.04);
+		assertTrue(histogram.getPercentileMillis(100.0) >= 1000.0);
+	}
+	
+	@Test
+	public void latencyHistogram_BucketsCoverAllValues() {
+		for (long value : new long[] {0, 1, 63, 64, 65, 1000, 123456789, Long.MAX_VALUE}) {
+			int index = LatencyHistogram.indexOf(value);
+			assertTrue(value <= LatencyHistogram.highestValueOf(index));
+			if (index > 0) {
+				assertTrue(value > LatencyHistogram.highestValueOf(index - 1));
+			}
+		}
+	}
+}
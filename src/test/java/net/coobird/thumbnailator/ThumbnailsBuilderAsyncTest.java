@@ -0,0 +1,232 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import net.coobird.thumbnailator.util.ThumbnailatorExecutors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ThumbnailsBuilderAsyncTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	private File makeFile() throws IOException {
+		return makeFile(0);
+	}
+	
+	private File makeFile(int i) throws IOException {
+		File f = temporaryFolder.newFile("source" + i + ".png");
+		ImageIO.write(new BufferedImage(100, 200, BufferedImage.TYPE_INT_RGB), "png", f);
+		return f;
+	}
+	
+	@Test
+	public void asBufferedImageAsync_Completes() throws Exception {
+		// when
+		CompletableFuture<BufferedImage> future = Thumbnails.of(makeFile())
+				.scale(0.5)
+				.asBufferedImageAsync();
+		
+		// then
+		BufferedImage thumbnail = future.get(10, TimeUnit.SECONDS);
+		assertEquals(50, thumbnail.getWidth());
+		assertEquals(100, thumbnail.getHeight());
+	}
+	
+	@Test
+	public void toFileAsync_Completes() throws Exception {
+		// given
+		File destination = new File(temporaryFolder.getRoot(), "thumbnail.png");
+		
+		// when
+		CompletableFuture<Void> future = Thumbnails.of(makeFile())
+				.scale(0.5)
+				.toFileAsync(destination);
+		future.get(10, TimeUnit.SECONDS);
+		
+		// then
+		assertEquals(50, ImageIO.read(destination).getWidth());
+	}
+	
+	@Test
+	public void toOutputStreamAsync_Completes() throws Exception {
+		// given
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		
+		// when
+		CompletableFuture<Void> future = Thumbnails.of(makeFile())
+				.scale(0.5)
+				.outputFormat("png")
+				.toOutputStreamAsync(os);
+		future.get(10, TimeUnit.SECONDS);
+		
+		// then
+		assertEquals(50, ImageIO.read(new ByteArrayInputStream(os.toByteArray())).getWidth());
+	}
+	
+	@Test
+	public void asBufferedImageAsync_CompletesExceptionallyWithIOException() throws Exception {
+		// given
+		File broken = temporaryFolder.newFile("broken.png");
+		
+		// when
+		CompletableFuture<BufferedImage> future = Thumbnails.of(broken)
+				.scale(0.5)
+				.asBufferedImageAsync();
+		
+		// then
+		try {
+			future.get(10, TimeUnit.SECONDS);
+			fail();
+			
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+		assertTrue(future.isCompletedExceptionally());
+	}
+	
+	@Test
+	public void cancel_InterruptsRunningThumbnail() throws Exception {
+		// given
+		final CountDownLatch isReading = new CountDownLatch(1);
+		final CountDownLatch isInterrupted = new CountDownLatch(1);
+		InputStream is = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				isReading.countDown();
+				try {
+					Thread.sleep(Long.MAX_VALUE);
+					return -1;
+					
+				} catch (InterruptedException e) {
+					isInterrupted.countDown();
+					throw new InterruptedIOException();
+				}
+			}
+		};
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		
+		try {
+			CompletableFuture<BufferedImage> future = Thumbnails.of(is)
+					.scale(0.5)
+					.asBufferedImageAsync(executor);
+			assertTrue(isReading.await(10, TimeUnit.SECONDS));
+			
+			// when
+			boolean isCancelled = future.cancel(true);
+			
+			// then
+			assertTrue(isCancelled);
+			assertTrue(isInterrupted.await(10, TimeUnit.SECONDS));
+			assertTrue(future.isCancelled());
+			try {
+				future.get();
+				fail();
+			} catch (CancellationException e) {
+				// expected
+			}
+			
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void asBufferedImageAsync_RejectedWhenDefaultQueueIsFull() throws Exception {
+		// given
+		final CountDownLatch release = new CountDownLatch(1);
+		Executor executor = ThumbnailatorExecutors.getDefaultExecutor();
+		Runnable blocker = new Runnable() {
+			public void run() {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		
+		try {
+			CompletableFuture<BufferedImage> future = null;
+			for (int attempt = 0; attempt < 10; attempt++) {
+				// The threads and the queue are bounded, so this ends.
+				while (true) {
+					try {
+						executor.execute(blocker);
+					} catch (RejectedExecutionException e) {
+						break;
+					}
+				}
+				
+				// when
+				future = Thumbnails.of(makeFile(attempt))
+						.scale(0.5)
+						.asBufferedImageAsync();
+				
+				// A task left over from another test may have made room.
+				if (future.isDone()) {
+					break;
+				}
+				future.cancel(true);
+			}
+			
+			// then
+			try {
+				future.get(10, TimeUnit.SECONDS);
+				fail();
+				
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof RejectedExecutionException);
+			}
+			
+		} finally {
+			release.countDown();
+		}
+	}
+}
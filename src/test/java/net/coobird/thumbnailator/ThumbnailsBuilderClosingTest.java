@@ -0,0 +1,139 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.coobird.thumbnailator;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import net.coobird.thumbnailator.name.Rename;
+import net.coobird.thumbnailator.util.Flow;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ThumbnailsBuilderClosingTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	@Test
+	public void outputMethodClosesSources() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 3);
+		AtomicInteger closed = new AtomicInteger();
+		
+		// when
+		Thumbnails.fromFiles(TestImages.countClosed(sources, closed))
+				.scale(0.5)
+				.asFiles(temporaryFolder.newFolder(), Rename.NO_CHANGE);
+		
+		// then
+		assertEquals(1, closed.get());
+	}
+	
+	@Test
+	public void singleSourceOutputMethodClosesSourcesWhenThereAreMany() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 3);
+		AtomicInteger closed = new AtomicInteger();
+		
+		// when
+		try {
+			Thumbnails.fromFiles(TestImages.countClosed(sources, closed))
+					.scale(0.5)
+					.toFile(new File(temporaryFolder.getRoot(), "thumbnail.png"));
+			fail();
+			
+		} catch (IllegalArgumentException e) {
+			// then
+			assertEquals(1, closed.get());
+		}
+	}
+	
+	@Test
+	public void closingStreamClosesSources() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 3);
+		AtomicInteger closed = new AtomicInteger();
+		
+		// when
+		Stream<ThumbnailResult<File>> stream = Thumbnails.fromFiles(TestImages.countClosed(sources, closed))
+				.scale(0.5)
+				.stream();
+		stream.findFirst();
+		int closedBeforeClose = closed.get();
+		stream.close();
+		
+		// then
+		assertEquals(0, closedBeforeClose);
+		assertEquals(1, closed.get());
+	}
+	
+	@Test(timeout=10000)
+	public void cancellingSubscriptionClosesSources() throws Exception {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 3);
+		final AtomicInteger closed = new AtomicInteger();
+		final CountDownLatch received = new CountDownLatch(1);
+		
+		// when
+		Thumbnails.fromFiles(TestImages.countClosed(sources, closed))
+				.scale(0.5)
+				.publisher(1, 0)
+				.subscribe(new Flow.Subscriber<ThumbnailResult<File>>() {
+					private Flow.Subscription subscription;
+					
+					public void onSubscribe(Flow.Subscription subscription) {
+						this.subscription = subscription;
+						subscription.request(1);
+					}
+					
+					public void onNext(ThumbnailResult<File> item) {
+						subscription.cancel();
+						received.countDown();
+					}
+					
+					public void onError(Throwable throwable) {}
+					
+					public void onComplete() {}
+				});
+		received.await();
+		
+		// then
+		while (closed.get() == 0) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, closed.get());
+	}
+}
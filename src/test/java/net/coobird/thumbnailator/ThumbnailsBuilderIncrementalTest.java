@@ -0,0 +1,191 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import net.coobird.thumbnailator.cache.OutputManifest;
+import net.coobird.thumbnailator.name.Rename;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ThumbnailsBuilderIncrementalTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	/**
+	 * Creates source files which were last modified before the thumbnails
+	 * written by the test.
+	 */
+	private List<File> makeOldFiles(int count) throws IOException {
+		List<File> files = TestImages.makeFiles(temporaryFolder, count);
+		for (File f : files) {
+			f.setLastModified(f.lastModified() - 10000);
+		}
+		return files;
+	}
+	
+	@Test
+	public void asFiles_SkipsUpToDateThumbnails() throws IOException {
+		// given
+		List<File> sources = makeOldFiles(3);
+		File dest = temporaryFolder.newFolder();
+		Thumbnails.fromFiles(sources).size(50, 50).toFiles(dest, Rename.NO_CHANGE);
+		
+		ImageIO.write(new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB), "png", sources.get(1));
+		sources.get(1).setLastModified(System.currentTimeMillis() + 10000);
+		IncrementalStatistics statistics = new IncrementalStatistics();
+		
+		// when
+		List<File> files = Thumbnails.fromFiles(sources)
+				.size(50, 50)
+				.incrementalStatistics(statistics)
+				.asFiles(dest, Rename.NO_CHANGE);
+		
+		// then
+		assertEquals(3, files.size());
+		assertEquals(2, statistics.getSkippedCount());
+		assertEquals(1, statistics.getRegeneratedCount());
+		assertEquals(50, ImageIO.read(files.get(1)).getWidth());
+		assertEquals(25, ImageIO.read(files.get(0)).getWidth());
+	}
+	
+	@Test
+	public void asFiles_ManifestDetectsChangedParameters() throws IOException {
+		// given
+		List<File> sources = makeOldFiles(2);
+		File dest = temporaryFolder.newFolder();
+		File manifestFile = new File(temporaryFolder.getRoot(), "manifest");
+		IncrementalStatistics statistics = new IncrementalStatistics();
+		
+		Thumbnails.fromFiles(sources)
+				.size(50, 50)
+				.incremental(new OutputManifest(manifestFile))
+				.incrementalStatistics(statistics)
+				.toFiles(dest, Rename.NO_CHANGE);
+		assertEquals(2, statistics.getRegeneratedCount());
+		
+		// when
+		Thumbnails.fromFiles(sources)
+				.size(50, 50)
+				.incremental(new OutputManifest(manifestFile))
+				.incrementalStatistics(statistics)
+				.toFiles(dest, Rename.NO_CHANGE);
+		long skippedWithSameParameters = statistics.getSkippedCount();
+		
+		Thumbnails.fromFiles(sources)
+				.size(80, 80)
+				.incremental(new OutputManifest(manifestFile))
+				.incrementalStatistics(statistics)
+				.toFiles(dest, Rename.NO_CHANGE);
+		
+		// then
+		assertEquals(2, skippedWithSameParameters);
+		assertEquals(0, statistics.getSkippedCount());
+		assertEquals(2, statistics.getRegeneratedCount());
+		assertEquals(40, ImageIO.read(new File(dest, "source0.png")).getWidth());
+	}
+	
+	@Test
+	public void asFiles_ManifestSkipsExifOrientedSources() throws IOException {
+		// given
+		File source = temporaryFolder.newFile("orientation_6.jpg");
+		InputStream is = getClass().getResourceAsStream("/Exif/orientation_6.jpg");
+		try {
+			Files.copy(is, source.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			is.close();
+		}
+		source.setLastModified(source.lastModified() - 10000);
+		
+		File dest = temporaryFolder.newFolder();
+		File manifestFile = new File(temporaryFolder.getRoot(), "manifest");
+		IncrementalStatistics statistics = new IncrementalStatistics();
+		
+		Thumbnails.of(source)
+				.size(50, 50)
+				.incremental(new OutputManifest(manifestFile))
+				.toFiles(dest, Rename.NO_CHANGE);
+		Thumbnails.of(source)
+				.renditions(40, 20)
+				.incremental(new OutputManifest(manifestFile))
+				.toFiles(dest, Rename.PREFIX_DOT_THUMBNAIL);
+		
+		// when
+		Thumbnails.of(source)
+				.size(50, 50)
+				.incremental(new OutputManifest(manifestFile))
+				.incrementalStatistics(statistics)
+				.toFiles(dest, Rename.NO_CHANGE);
+		long skippedThumbnails = statistics.getSkippedCount();
+		
+		Thumbnails.of(source)
+				.renditions(40, 20)
+				.incremental(new OutputManifest(manifestFile))
+				.incrementalStatistics(statistics)
+				.toFiles(dest, Rename.PREFIX_DOT_THUMBNAIL);
+		
+		// then
+		assertEquals(1, skippedThumbnails);
+		assertEquals(2, statistics.getSkippedCount());
+		assertEquals(0, statistics.getRegeneratedCount());
+	}
+	
+	@Test
+	public void asFiles_SkipsRenditionsOnlyWhenAllAreUpToDate() throws IOException {
+		// given
+		List<File> sources = makeOldFiles(1);
+		File dest = temporaryFolder.newFolder();
+		Rename rename = new Rename() {
+			public String apply(String name, ThumbnailParameter param) {
+				return param.getSize().width + "-" + name;
+			}
+		};
+		Thumbnails.fromFiles(sources).renditions(40).toFiles(dest, rename);
+		IncrementalStatistics statistics = new IncrementalStatistics();
+		
+		// when
+		Thumbnails.fromFiles(sources).renditions(40, 20).incrementalStatistics(statistics).toFiles(dest, rename);
+		Thumbnails.fromFiles(sources).renditions(40, 20).incrementalStatistics(statistics).toFiles(dest, rename);
+		
+		// then
+		assertEquals(2, statistics.getSkippedCount());
+		assertEquals(0, statistics.getRegeneratedCount());
+		assertTrue(new File(dest, "20-source0.png").isFile());
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class ThumbnailsBuilderIntoTest {
+	
+	private static BufferedImage filledImage(int width, int height, Color color) {
+		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics g = img.getGraphics();
+		g.setColor(color);
+		g.fillRect(0, 0, width, height);
+		g.dispose();
+		return img;
+	}
+	
+	@Test
+	public void into_WritesThumbnailIntoTopLeftCorner() throws IOException {
+		// given
+		BufferedImage source = filledImage(400, 200, Color.red);
+		BufferedImage destination = filledImage(100, 100, Color.blue);
+		
+		// when
+		Dimension size = Thumbnails.of(source).size(100, 100).into(destination);
+		
+		// then
+		assertEquals(new Dimension(100, 50), size);
+		assertEquals(Color.red.getRGB(), destination.getRGB(50, 25));
+		assertEquals(Color.blue.getRGB(), destination.getRGB(50, 75));
+	}
+	
+	@Test
+	public void into_SubimageWritesIntoRegion() throws IOException {
+		// given
+		BufferedImage source = filledImage(400, 400, Color.red);
+		BufferedImage grid = filledImage(200, 200, Color.blue);
+		
+		// when
+		Thumbnails.of(source).size(100, 100).into(grid.getSubimage(100, 100, 100, 100));
+		
+		// then
+		assertEquals(Color.blue.getRGB(), grid.getRGB(50, 50));
+		assertEquals(Color.red.getRGB(), grid.getRGB(150, 150));
+	}
+	
+	@Test
+	public void into_WithFilters() throws IOException {
+		// given
+		BufferedImage source = filledImage(400, 200, Color.red);
+		BufferedImage destination = filledImage(100, 100, Color.blue);
+		
+		// when
+		Dimension size = Thumbnails.of(source).size(100, 100).rotate(90).into(destination);
+		
+		// then
+		assertEquals(new Dimension(50, 100), size);
+		assertEquals(Color.red.getRGB(), destination.getRGB(25, 50));
+		assertEquals(Color.blue.getRGB(), destination.getRGB(75, 50));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void into_ThumbnailDoesNotFit() throws IOException {
+		BufferedImage source = filledImage(400, 200, Color.red);
+		BufferedImage destination = filledImage(50, 50, Color.blue);
+		
+		Thumbnails.of(source).size(100, 100).into(destination);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void into_SharedPixelData() throws IOException {
+		BufferedImage source = filledImage(400, 200, Color.red);
+		
+		Thumbnails.of(source).size(100, 100).into(source.getSubimage(0, 0, 100, 100));
+	}
+	
+	@Test
+	public void plan_RenderingRepeatedlyIntoSameImage() {
+		// given
+		ThumbnailPlan plan = Thumbnails.of(filledImage(1, 1, Color.black)).scale(0.25).compile();
+		BufferedImage frame = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+		
+		// when
+		plan.createThumbnail(filledImage(400, 400, Color.red), frame);
+		Dimension size = plan.createThumbnail(filledImage(400, 400, Color.green), frame);
+		
+		// then
+		assertEquals(new Dimension(100, 100), size);
+		assertEquals(Color.green.getRGB(), frame.getRGB(50, 50));
+	}
+}
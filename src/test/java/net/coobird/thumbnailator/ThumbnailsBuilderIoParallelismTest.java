@@ -0,0 +1,134 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import net.coobird.thumbnailator.name.Rename;
+import net.coobird.thumbnailator.tasks.ThumbnailBatchException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ThumbnailsBuilderIoParallelismTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	@Test
+	public void asFiles_Rename_IoParallelismPreservesOrder() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 10);
+		File destDir = temporaryFolder.newFolder();
+		
+		// when
+		List<File> thumbnails = Thumbnails.fromFiles(sources)
+				.size(50, 50)
+				.ioParallelism(3)
+				.asFiles(destDir, Rename.PREFIX_DOT_THUMBNAIL);
+		
+		// then
+		assertEquals(10, thumbnails.size());
+		for (int i = 0; i < 10; i++) {
+			File expected = new File(destDir, "thumbnail." + sources.get(i).getName());
+			assertEquals(expected, thumbnails.get(i));
+			
+			BufferedImage thumbnail = ImageIO.read(expected);
+			int expectedWidth = (int)Math.round(50 * (100 + i) / 200.0);
+			assertEquals(expectedWidth, thumbnail.getWidth());
+		}
+	}
+	
+	@Test
+	public void asBufferedImages_IoParallelismWithInputStreams() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 5);
+		List<InputStream> streams = new ArrayList<InputStream>();
+		for (File f : sources) {
+			streams.add(new FileInputStream(f));
+		}
+		
+		try {
+			// when
+			List<BufferedImage> thumbnails = Thumbnails.fromInputStreams(streams)
+					.scale(0.5)
+					.parallelism(2)
+					.ioParallelism(2)
+					.asBufferedImages();
+			
+			// then
+			assertEquals(5, thumbnails.size());
+			for (int i = 0; i < 5; i++) {
+				assertEquals((int)Math.round((100 + i) * 0.5), thumbnails.get(i).getWidth());
+			}
+			
+		} finally {
+			for (InputStream is : streams) {
+				is.close();
+			}
+		}
+	}
+	
+	@Test
+	public void asBufferedImages_IoParallelismCollectsFailures() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 4);
+		sources.add(1, new File(temporaryFolder.getRoot(), "nonexistent.png"));
+		
+		// when
+		try {
+			Thumbnails.fromFiles(sources)
+					.scale(0.5)
+					.ioParallelism(4)
+					.asBufferedImages();
+			fail();
+			
+		} catch (ThumbnailBatchException e) {
+			// then
+			assertEquals(Arrays.asList(1), new ArrayList<Integer>(e.getFailures().keySet()));
+			assertEquals(5, e.getResults().size());
+			assertNull(e.getResults().get(1));
+			assertNotNull(e.getResults().get(4));
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void ioParallelism_Zero() {
+		Thumbnails.of(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB))
+				.ioParallelism(0);
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import static org.junit.Assert.*;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.coobird.thumbnailator.name.Rename;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ThumbnailsBuilderListenerTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	private static final class RecordingListener implements ThumbnailListener {
+		private final List<ThumbnailEvent> events =
+				Collections.synchronizedList(new ArrayList<ThumbnailEvent>());
+		
+		public void thumbnailCompleted(ThumbnailEvent event) {
+			events.add(event);
+		}
+	}
+	
+	@Test
+	public void asBufferedImage_RecordsEvent() throws IOException {
+		// given
+		BufferedImage img = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+		RecordingListener listener = new RecordingListener();
+		
+		// when
+		Thumbnails.of(img).size(50, 50).listener(listener).asBufferedImage();
+		
+		// then
+		assertEquals(1, listener.events.size());
+		ThumbnailEvent event = listener.events.get(0);
+		assertSame(img, event.getSource());
+		assertEquals(new Dimension(200, 100), event.getSourceSize());
+		assertEquals(new Dimension(200, 100), event.getDecodedSize());
+		assertEquals(new Dimension(50, 25), event.getThumbnailSize());
+		assertEquals(1, event.getSubsampling());
+		assertNotNull(event.getResizer());
+		assertNull(event.getFailure());
+		assertFalse(event.isCached());
+		assertTrue(event.getTime(PipelineStage.RESIZE, TimeUnit.NANOSECONDS) > 0);
+		assertTrue(event.getTotalTime(TimeUnit.NANOSECONDS)
+				>= event.getTime(PipelineStage.RESIZE, TimeUnit.NANOSECONDS));
+	}
+	
+	@Test
+	public void toFiles_RecordsBytesReadAndWritten() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 2);
+		File dest = temporaryFolder.newFolder();
+		RecordingListener listener = new RecordingListener();
+		
+		// when
+		List<File> files = Thumbnails.fromFiles(sources)
+				.size(50, 50)
+				.listener(listener)
+				.asFiles(dest, Rename.NO_CHANGE);
+		
+		// then
+		assertEquals(2, listener.events.size());
+		for (int i = 0; i < 2; i++) {
+			ThumbnailEvent event = listener.events.get(i);
+			assertEquals(sources.get(i), event.getSource());
+			assertEquals(sources.get(i).length(), event.getBytesRead());
+			assertEquals(files.get(i).length(), event.getBytesWritten());
+			assertTrue(event.getTime(PipelineStage.DECODE, TimeUnit.NANOSECONDS) > 0);
+			assertTrue(event.getTime(PipelineStage.ENCODE, TimeUnit.NANOSECONDS) > 0);
+		}
+	}
+	
+	@Test
+	public void pipelined_RecordsEachStage() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 3);
+		File dest = temporaryFolder.newFolder();
+		RecordingListener listener = new RecordingListener();
+		
+		// when
+		Thumbnails.fromFiles(sources)
+				.size(50, 50)
+				.pipelined()
+				.listener(listener)
+				.toFiles(dest, Rename.NO_CHANGE);
+		
+		// then
+		assertEquals(3, listener.events.size());
+		for (ThumbnailEvent event : listener.events) {
+			assertNull(event.getFailure());
+			assertEquals(((File)event.getSource()).length(), event.getBytesRead());
+			assertTrue(event.getBytesWritten() > 0);
+			for (PipelineStage stage : PipelineStage.values()) {
+				assertTrue(event.getTime(stage, TimeUnit.NANOSECONDS) > 0);
+			}
+		}
+	}
+	
+	@Test
+	public void failure_IsRecorded() throws IOException {
+		// given
+		File notAnImage = temporaryFolder.newFile("notAnImage.png");
+		RecordingListener listener = new RecordingListener();
+		
+		// when
+		try {
+			Thumbnails.of(notAnImage).size(50, 50).listener(listener).asBufferedImage();
+			fail();
+			
+		} catch (IOException e) {
+			// then
+			assertEquals(1, listener.events.size());
+			assertSame(e, listener.events.get(0).getFailure());
+		}
+	}
+	
+	@Test
+	public void globalListener_IsNotified() throws IOException {
+		// given
+		BufferedImage img = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+		RecordingListener global = new RecordingListener();
+		RecordingListener local = new RecordingListener();
+		ThumbnailListeners.add(global);
+		
+		// when
+		try {
+			Thumbnails.of(img).size(50, 50).asBufferedImage();
+			Thumbnails.of(img).size(50, 50).listener(local).asBufferedImage();
+			
+		} finally {
+			ThumbnailListeners.remove(global);
+		}
+		Thumbnails.of(img).size(50, 50).asBufferedImage();
+		
+		// then
+		assertEquals(2, global.events.size());
+		assertEquals(1, local.events.size());
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void listener_SetTwice() {
+		RecordingListener listener = new RecordingListener();
+		Thumbnails.of(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB))
+				.listener(listener)
+				.listener(listener);
+	}
+}
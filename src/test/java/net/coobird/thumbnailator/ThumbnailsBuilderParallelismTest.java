@@ -0,0 +1,164 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+import net.coobird.thumbnailator.name.ConsecutivelyNumberedFilenames;
+import net.coobird.thumbnailator.name.Rename;
+import net.coobird.thumbnailator.tasks.ThumbnailBatchException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ThumbnailsBuilderParallelismTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	@Test
+	public void asBufferedImages_ParallelismPreservesOrder() throws IOException {
+		// given
+		List<BufferedImage> images = TestImages.makeImages(20);
+		
+		// when
+		List<BufferedImage> thumbnails = Thumbnails.fromImages(images)
+				.scale(0.5)
+				.parallelism(4)
+				.asBufferedImages();
+		
+		// then
+		assertEquals(20, thumbnails.size());
+		for (int i = 0; i < 20; i++) {
+			assertEquals((int)Math.round((100 + i) * 0.5), thumbnails.get(i).getWidth());
+			assertEquals(100, thumbnails.get(i).getHeight());
+		}
+	}
+	
+	@Test
+	public void asBufferedImages_ExecutorPreservesOrder() throws IOException {
+		// given
+		List<BufferedImage> images = TestImages.makeImages(20);
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		
+		try {
+			// when
+			List<BufferedImage> thumbnails = Thumbnails.fromImages(images)
+					.scale(0.5)
+					.executor(executor)
+					.asBufferedImages();
+			
+			// then
+			assertEquals(20, thumbnails.size());
+			for (int i = 0; i < 20; i++) {
+				assertEquals((int)Math.round((100 + i) * 0.5), thumbnails.get(i).getWidth());
+			}
+			assertFalse(executor.isShutdown());
+			
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void asFiles_Iterable_ParallelismAssignsFileNamesInOrder() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 10);
+		File destDir = temporaryFolder.newFolder();
+		Iterable<File> destinations = new ConsecutivelyNumberedFilenames(destDir, "thumbnail.%d.png");
+		
+		// when
+		List<File> thumbnails = Thumbnails.fromFiles(sources)
+				.size(50, 50)
+				.parallelism(4)
+				.asFiles(destinations);
+		
+		// then
+		assertEquals(10, thumbnails.size());
+		for (int i = 0; i < 10; i++) {
+			File expected = new File(destDir, "thumbnail." + i + ".png");
+			assertEquals(expected, thumbnails.get(i));
+			
+			BufferedImage thumbnail = ImageIO.read(expected);
+			int expectedWidth = (int)Math.round(50 * (100 + i) / 200.0);
+			assertEquals(expectedWidth, thumbnail.getWidth());
+		}
+	}
+	
+	@Test
+	public void asFiles_Rename_ParallelismCollectsFailures() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 5);
+		File broken = temporaryFolder.newFile("broken.png");
+		List<File> allSources = new ArrayList<File>(sources);
+		allSources.add(2, broken);
+		File destDir = temporaryFolder.newFolder();
+		
+		// when
+		try {
+			Thumbnails.fromFiles(allSources)
+					.size(50, 50)
+					.parallelism(2)
+					.asFiles(destDir, Rename.PREFIX_DOT_THUMBNAIL);
+			fail();
+			
+		} catch (ThumbnailBatchException e) {
+			// then
+			assertEquals(Arrays.asList(2), new ArrayList<Integer>(e.getFailures().keySet()));
+			assertEquals(6, e.getResults().size());
+			assertNull(e.getResults().get(2));
+			assertSame(e.getFailures().get(2), e.getCause());
+			
+			for (File source : sources) {
+				assertTrue(new File(destDir, "thumbnail." + source.getName()).exists());
+			}
+		}
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void parallelism_ThenExecutor() {
+		Thumbnails.of(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB))
+				.parallelism(2)
+				.executor(Executors.newSingleThreadExecutor());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void parallelism_Zero() {
+		Thumbnails.of(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB))
+				.parallelism(0);
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import net.coobird.thumbnailator.name.Rename;
+import net.coobird.thumbnailator.tasks.ThumbnailBatchException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ThumbnailsBuilderPipelinedTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	@Test
+	public void asFiles_Rename_PipelinedPreservesOrderAndRecordsStatistics() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 10);
+		File destDir = temporaryFolder.newFolder();
+		PipelineStatistics statistics = new PipelineStatistics();
+		
+		// when
+		List<File> thumbnails = Thumbnails.fromFiles(sources)
+				.size(50, 50)
+				.pipeline(PipelineStage.RESIZE, 3)
+				.pipelineStatistics(statistics)
+				.asFiles(destDir, Rename.PREFIX_DOT_THUMBNAIL);
+		
+		// then
+		assertEquals(10, thumbnails.size());
+		for (int i = 0; i < 10; i++) {
+			File expected = new File(destDir, "thumbnail." + sources.get(i).getName());
+			assertEquals(expected, thumbnails.get(i));
+			
+			BufferedImage thumbnail = ImageIO.read(expected);
+			int expectedWidth = (int)Math.round(50 * (100 + i) / 200.0);
+			assertEquals(expectedWidth, thumbnail.getWidth());
+		}
+		
+		assertEquals(3, statistics.getThreads(PipelineStage.RESIZE));
+		for (PipelineStage stage : PipelineStage.values()) {
+			assertEquals(10, statistics.getProcessedCount(stage));
+			assertTrue(statistics.getUtilization(stage) >= 0.0);
+			assertTrue(statistics.getUtilization(stage) <= 1.0);
+		}
+	}
+	
+	@Test
+	public void asFiles_Pipelined_SkipsExistingDestinations() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 3);
+		File destDir = temporaryFolder.newFolder();
+		File existing = new File(destDir, "thumbnail." + sources.get(1).getName());
+		existing.createNewFile();
+		
+		// when
+		List<File> thumbnails = Thumbnails.fromFiles(sources)
+				.size(50, 50)
+				.allowOverwrite(false)
+				.pipelined()
+				.asFiles(destDir, Rename.PREFIX_DOT_THUMBNAIL);
+		
+		// then
+		assertEquals(2, thumbnails.size());
+		assertEquals(0, existing.length());
+	}
+	
+	@Test
+	public void toOutputStreams_Pipelined() throws IOException {
+		// given
+		List<BufferedImage> images = TestImages.makeImages(5);
+		List<ByteArrayOutputStream> streams = new ArrayList<ByteArrayOutputStream>();
+		for (int i = 0; i < 5; i++) {
+			streams.add(new ByteArrayOutputStream());
+		}
+		
+		// when
+		Thumbnails.fromImages(images)
+				.scale(0.5)
+				.outputFormat("png")
+				.pipelined()
+				.toOutputStreams(streams);
+		
+		// then
+		for (int i = 0; i < 5; i++) {
+			BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(streams.get(i).toByteArray()));
+			assertEquals((int)Math.round((100 + i) * 0.5), thumbnail.getWidth());
+		}
+	}
+	
+	@Test
+	public void asBufferedImages_PipelinedCollectsFailures() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 4);
+		sources.add(2, temporaryFolder.newFile("broken.png"));
+		
+		// when
+		try {
+			Thumbnails.fromFiles(sources)
+					.scale(0.5)
+					.pipelined()
+					.asBufferedImages();
+			fail();
+			
+		} catch (ThumbnailBatchException e) {
+			// then
+			assertEquals(Arrays.asList(2), new ArrayList<Integer>(e.getFailures().keySet()));
+			assertEquals(5, e.getResults().size());
+			assertNull(e.getResults().get(2));
+			assertNotNull(e.getResults().get(4));
+		}
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void parallelism_ThenPipelined() {
+		Thumbnails.of(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB))
+				.parallelism(2)
+				.pipelined();
+	}
+}
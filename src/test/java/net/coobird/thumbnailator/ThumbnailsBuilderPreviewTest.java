@@ -0,0 +1,176 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import net.coobird.thumbnailator.filters.ImageFilter;
+import net.coobird.thumbnailator.filters.Pipeline;
+
+import org.junit.Test;
+
+public class ThumbnailsBuilderPreviewTest {
+	
+	/**
+	 * Returns a PNG of a checkerboard of single pixels, which is white at
+	 * even coordinates.
+	 */
+	private static byte[] checkerboard(int width, int height) throws IOException {
+		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				img.setRGB(x, y, (x + y) % 2 == 0 ? 0xffffff : 0x000000);
+			}
+		}
+		
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ImageIO.write(img, "png", baos);
+		return baos.toByteArray();
+	}
+	
+	private static int green(BufferedImage img, int x, int y) {
+		return (img.getRGB(x, y) >> 8) & 0xff;
+	}
+	
+	@Test
+	public void previewIsDecodedWithSubsampling() throws Exception {
+		// given
+		byte[] data = checkerboard(2000, 1000);
+		
+		// when
+		ProgressiveThumbnail result = Thumbnails.of(new ByteArrayInputStream(data))
+				.size(100, 100)
+				.asBufferedImageWithPreview();
+		
+		BufferedImage thumbnail = result.getThumbnail().get();
+		BufferedImage preview = result.getPreview().getNow(null);
+		
+		// then
+		assertEquals(100, preview.getWidth());
+		assertEquals(50, preview.getHeight());
+		assertEquals(100, thumbnail.getWidth());
+		assertEquals(50, thumbnail.getHeight());
+		
+		// Subsampling by an even factor only picks the white pixels.
+		assertEquals(255, green(preview, 50, 25));
+		
+		// Resizing the whole image averages the pixels.
+		int gray = green(thumbnail, 50, 25);
+		assertTrue(Integer.toString(gray), gray > 64 && gray < 192);
+	}
+	
+	@Test
+	public void previewOfBufferedImageIsThumbnail() throws Exception {
+		// given
+		BufferedImage source = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+		
+		// when
+		ProgressiveThumbnail result = Thumbnails.of(source)
+				.size(100, 100)
+				.asBufferedImageWithPreview();
+		
+		// then
+		BufferedImage thumbnail = result.getThumbnail().get();
+		assertSame(thumbnail, result.getPreview().get());
+		assertEquals(100, thumbnail.getWidth());
+	}
+	
+	@Test
+	public void previewFailsWithThumbnail() throws Exception {
+		// given
+		byte[] data = new byte[] {1, 2, 3, 4};
+		
+		// when
+		ProgressiveThumbnail result = Thumbnails.of(new ByteArrayInputStream(data))
+				.size(100, 100)
+				.asBufferedImageWithPreview();
+		
+		// then
+		try {
+			result.getPreview().get();
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+		assertTrue(result.getThumbnail().isCompletedExceptionally());
+	}
+	
+	@Test
+	public void timeoutCancelsPreview() throws Exception {
+		// given
+		byte[] data = checkerboard(400, 200);
+		final AtomicInteger applied = new AtomicInteger();
+		ImageFilter slowFilter = new ImageFilter() {
+			public BufferedImage apply(BufferedImage img) {
+				applied.incrementAndGet();
+				try {
+					Thread.sleep(500);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return img;
+			}
+		};
+		
+		// when
+		ProgressiveThumbnail result = Thumbnails.of(new ByteArrayInputStream(data))
+				.size(100, 100)
+				.addFilter(new Pipeline(slowFilter, slowFilter))
+				.timeout(100, TimeUnit.MILLISECONDS)
+				.asBufferedImageWithPreview();
+		
+		// then
+		try {
+			result.getPreview().get();
+			fail();
+		} catch (CancellationException e) {
+			assertEquals("Deadline of the thumbnail has passed.", e.getMessage());
+		}
+		assertTrue(result.getThumbnail().isCompletedExceptionally());
+		
+		// The preview stopped between the filters, and the thumbnail was not started.
+		assertEquals(1, applied.get());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void multipleSources() {
+		BufferedImage source = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+		
+		Thumbnails.of(source, source)
+				.size(100, 100)
+				.asBufferedImageWithPreview();
+	}
+}
@@ -0,0 +1,217 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import net.coobird.thumbnailator.util.Flow;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ThumbnailsBuilderPublisherTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	/**
+	 * A {@link Flow.Subscriber} which records the results it receives.
+	 */
+	private static class RecordingSubscriber<T> implements Flow.Subscriber<ThumbnailResult<T>> {
+		final List<ThumbnailResult<T>> results = new ArrayList<ThumbnailResult<T>>();
+		final CountDownLatch completed = new CountDownLatch(1);
+		volatile Flow.Subscription subscription;
+		volatile Throwable error;
+		volatile CountDownLatch received;
+		
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+		}
+		
+		public void onNext(ThumbnailResult<T> item) {
+			synchronized (results) {
+				results.add(item);
+			}
+			if (received != null) {
+				received.countDown();
+			}
+		}
+		
+		public void onError(Throwable throwable) {
+			error = throwable;
+			completed.countDown();
+		}
+		
+		public void onComplete() {
+			completed.countDown();
+		}
+	}
+	
+	@Test
+	public void publisher_CreatesOnlyRequestedThumbnails() throws Exception {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 6);
+		final AtomicInteger startedCount = new AtomicInteger();
+		final ExecutorService service = Executors.newFixedThreadPool(2);
+		Executor executor = new Executor() {
+			public void execute(Runnable command) {
+				startedCount.incrementAndGet();
+				service.execute(command);
+			}
+		};
+		RecordingSubscriber<File> subscriber = new RecordingSubscriber<File>();
+		
+		try {
+			// when
+			Thumbnails.fromFiles(sources)
+					.scale(0.5)
+					.publisher(2, 1, executor)
+					.subscribe(subscriber);
+			
+			subscriber.received = new CountDownLatch(2);
+			subscriber.subscription.request(2);
+			assertTrue(subscriber.received.await(10, TimeUnit.SECONDS));
+			Thread.sleep(100);
+			
+			// then
+			assertEquals(2, subscriber.results.size());
+			assertEquals(3, startedCount.get());
+			assertEquals(1, subscriber.completed.getCount());
+			
+			// when
+			subscriber.subscription.request(Long.MAX_VALUE);
+			assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+			
+			// then
+			assertNull(subscriber.error);
+			assertEquals(6, subscriber.results.size());
+			for (int i = 0; i < 6; i++) {
+				assertEquals(i, subscriber.results.get(i).getIndex());
+				assertEquals((int)Math.round((100 + i) * 0.5), subscriber.results.get(i).getThumbnail().getWidth());
+			}
+			
+		} finally {
+			service.shutdown();
+		}
+	}
+	
+	@Test
+	public void publisher_TakesSourcesAsThumbnailsAreStarted() throws Exception {
+		// given
+		AtomicInteger taken = new AtomicInteger();
+		Iterable<BufferedImage> images = TestImages.countTaken(TestImages.makeImages(10), taken);
+		RecordingSubscriber<BufferedImage> subscriber = new RecordingSubscriber<BufferedImage>();
+		
+		// when
+		Thumbnails.fromImages(images)
+				.scale(0.5)
+				.publisher(1, 0)
+				.subscribe(subscriber);
+		int takenBeforeRequest = taken.get();
+		
+		subscriber.received = new CountDownLatch(1);
+		subscriber.subscription.request(1);
+		assertTrue(subscriber.received.await(10, TimeUnit.SECONDS));
+		
+		// then
+		assertEquals(0, takenBeforeRequest);
+		assertEquals(1, taken.get());
+		subscriber.subscription.cancel();
+	}
+	
+	@Test
+	public void publisher_FromDirectory() throws Exception {
+		// given
+		File dir = temporaryFolder.newFolder();
+		for (int i = 0; i < 5; i++) {
+			ImageIO.write(new BufferedImage(100, 200, BufferedImage.TYPE_INT_RGB), "png", new File(dir, i + ".png"));
+		}
+		RecordingSubscriber<File> subscriber = new RecordingSubscriber<File>();
+		
+		// when
+		Thumbnails.fromDirectory(dir.toPath(), "*.png", false)
+				.scale(0.5)
+				.publisher(2, 1)
+				.subscribe(subscriber);
+		subscriber.subscription.request(Long.MAX_VALUE);
+		
+		// then
+		assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+		assertNull(subscriber.error);
+		assertEquals(5, subscriber.results.size());
+		for (int i = 0; i < 5; i++) {
+			assertEquals(i, subscriber.results.get(i).getIndex());
+			assertEquals(50, subscriber.results.get(i).getThumbnail().getWidth());
+		}
+	}
+	
+	@Test
+	public void publisher_EmptyDirectoryCompletes() throws Exception {
+		// given
+		RecordingSubscriber<File> subscriber = new RecordingSubscriber<File>();
+		
+		// when
+		Thumbnails.fromDirectory(temporaryFolder.newFolder().toPath(), null, false)
+				.scale(0.5)
+				.publisher()
+				.subscribe(subscriber);
+		
+		// then
+		assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+		assertNull(subscriber.error);
+		assertTrue(subscriber.results.isEmpty());
+	}
+	
+	@Test
+	public void publisher_NonPositiveRequestIsError() throws Exception {
+		// given
+		RecordingSubscriber<File> subscriber = new RecordingSubscriber<File>();
+		Thumbnails.fromFiles(TestImages.makeFiles(temporaryFolder, 2))
+				.scale(0.5)
+				.publisher()
+				.subscribe(subscriber);
+		
+		// when
+		subscriber.subscription.request(0);
+		
+		// then
+		assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+		assertTrue(subscriber.error instanceof IllegalArgumentException);
+	}
+}
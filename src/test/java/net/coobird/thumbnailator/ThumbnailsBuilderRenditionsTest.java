@@ -0,0 +1,189 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import net.coobird.thumbnailator.builders.ThumbnailParameterBuilder;
+import net.coobird.thumbnailator.name.Rename;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ThumbnailsBuilderRenditionsTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	@Test
+	public void asBufferedImages_RenditionsInOrderOfSizes() throws IOException {
+		// given
+		List<BufferedImage> sources = TestImages.makeImages(2);
+		
+		// when
+		List<BufferedImage> thumbnails = Thumbnails.fromImages(sources)
+				.renditions(160, 64, 20)
+				.asBufferedImages();
+		
+		// then
+		assertEquals(6, thumbnails.size());
+		int[] sizes = {160, 64, 20};
+		for (int i = 0; i < 2; i++) {
+			for (int j = 0; j < sizes.length; j++) {
+				BufferedImage thumbnail = thumbnails.get(i * sizes.length + j);
+				assertEquals((int)Math.round(sizes[j] * (100 + i) / 200.0), thumbnail.getWidth());
+				assertEquals(sizes[j], thumbnail.getHeight());
+			}
+		}
+	}
+	
+	@Test
+	public void createRenditions_SameSizesAsSingleThumbnails() throws IOException {
+		// given
+		BufferedImage source = new BufferedImage(1000, 750, BufferedImage.TYPE_INT_RGB);
+		int[] sizes = {64, 800, 333, 160};
+		
+		List<ThumbnailParameter> params = new ArrayList<ThumbnailParameter>();
+		for (int size : sizes) {
+			params.add(new ThumbnailParameterBuilder().size(size, size).build());
+		}
+		
+		// when
+		List<BufferedImage> thumbnails = Thumbnailator.createRenditions(params, source);
+		
+		// then
+		for (int i = 0; i < sizes.length; i++) {
+			BufferedImage expected = Thumbnails.of(source)
+					.size(sizes[i], sizes[i])
+					.asBufferedImage();
+			
+			assertEquals(expected.getWidth(), thumbnails.get(i).getWidth());
+			assertEquals(expected.getHeight(), thumbnails.get(i).getHeight());
+		}
+	}
+	
+	@Test
+	public void asFiles_Rename_PipelinedRenditions() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 3);
+		File destDir = temporaryFolder.newFolder();
+		Rename rename = new Rename() {
+			public String apply(String name, ThumbnailParameter param) {
+				return appendPrefix(name, param.getSize().height + ".");
+			}
+		};
+		
+		// when
+		List<File> thumbnails = Thumbnails.fromFiles(sources)
+				.renditions(100, 40)
+				.pipelined()
+				.asFiles(destDir, rename);
+		
+		// then
+		assertEquals(6, thumbnails.size());
+		for (int i = 0; i < 3; i++) {
+			String name = sources.get(i).getName();
+			assertEquals(new File(destDir, "100." + name), thumbnails.get(i * 2));
+			assertEquals(new File(destDir, "40." + name), thumbnails.get(i * 2 + 1));
+			
+			assertEquals(40, ImageIO.read(thumbnails.get(i * 2 + 1)).getHeight());
+		}
+	}
+	
+	@Test
+	public void asFiles_BuiltInRename_RenditionsHaveDistinctNames() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 2);
+		File destDir = temporaryFolder.newFolder();
+		
+		// when
+		List<File> thumbnails = Thumbnails.fromFiles(sources)
+				.renditions(100, 40)
+				.asFiles(destDir, Rename.PREFIX_DOT_THUMBNAIL);
+		
+		// then
+		assertEquals(4, thumbnails.size());
+		for (int i = 0; i < 2; i++) {
+			String name = sources.get(i).getName();
+			String base = name.substring(0, name.lastIndexOf('.'));
+			String extension = name.substring(name.lastIndexOf('.'));
+			
+			assertEquals(new File(destDir, "thumbnail." + base + "-100x100" + extension), thumbnails.get(i * 2));
+			assertEquals(new File(destDir, "thumbnail." + base + "-40x40" + extension), thumbnails.get(i * 2 + 1));
+			
+			assertEquals(100, ImageIO.read(thumbnails.get(i * 2)).getHeight());
+			assertEquals(40, ImageIO.read(thumbnails.get(i * 2 + 1)).getHeight());
+		}
+	}
+	
+	@Test
+	public void asFiles_Iterable_RenditionsToSameFileAreRejected() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 1);
+		File destination = new File(temporaryFolder.newFolder(), "thumbnail.png");
+		
+		// when
+		try {
+			Thumbnails.fromFiles(sources)
+					.renditions(100, 40)
+					.asFiles(Arrays.asList(destination, destination));
+			fail();
+			
+		} catch (IllegalArgumentException e) {
+			// then
+			assertFalse(destination.exists());
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void renditions_SameSizeTwice() {
+		Thumbnails.of(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB))
+				.renditions(64, 32, 64);
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void renditions_ThenSize() {
+		Thumbnails.of(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB))
+				.renditions(64, 32)
+				.size(50, 50);
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void renditions_AsBufferedImage() throws IOException {
+		Thumbnails.of(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB))
+				.renditions(64, 32)
+				.asBufferedImage();
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ThumbnailsBuilderStreamTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	@Test
+	public void stream_ParallelPreservesOrder() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 12);
+		
+		// when
+		List<ThumbnailResult<File>> results = Thumbnails.fromFiles(sources)
+				.scale(0.5)
+				.stream()
+				.parallel()
+				.collect(Collectors.<ThumbnailResult<File>>toList());
+		
+		// then
+		assertEquals(12, results.size());
+		for (int i = 0; i < 12; i++) {
+			ThumbnailResult<File> result = results.get(i);
+			assertEquals(i, result.getIndex());
+			assertEquals(sources.get(i), result.getSource());
+			assertTrue(result.isSuccessful());
+			assertEquals((int)Math.round((100 + i) * 0.5), result.getThumbnail().getWidth());
+		}
+	}
+	
+	@Test
+	public void stream_FromArrayIsSized() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 8);
+		
+		// when
+		Spliterator<ThumbnailResult<File>> spliterator = Thumbnails.of(sources.toArray(new File[0]))
+				.scale(0.5)
+				.stream()
+				.parallel()
+				.spliterator();
+		
+		// then
+		assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+		assertTrue(spliterator.hasCharacteristics(Spliterator.SUBSIZED));
+		assertEquals(8, spliterator.getExactSizeIfKnown());
+		
+		Spliterator<ThumbnailResult<File>> prefix = spliterator.trySplit();
+		assertEquals(4, prefix.getExactSizeIfKnown());
+		assertEquals(4, spliterator.getExactSizeIfKnown());
+	}
+	
+	@Test
+	public void stream_FromDirectoryIsNotSized() throws IOException {
+		// given
+		File dir = temporaryFolder.newFolder();
+		
+		// when
+		Spliterator<ThumbnailResult<File>> spliterator = Thumbnails.fromDirectory(dir.toPath(), "*.png", false)
+				.scale(0.5)
+				.stream()
+				.spliterator();
+		
+		// then
+		assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+	}
+	
+	@Test
+	public void stream_FailureIsReportedInResult() throws IOException {
+		// given
+		List<File> sources = TestImages.makeFiles(temporaryFolder, 3);
+		File broken = temporaryFolder.newFile("broken.png");
+		sources.add(1, broken);
+		
+		// when
+		List<ThumbnailResult<File>> results = Thumbnails.fromFiles(sources)
+				.scale(0.5)
+				.stream()
+				.collect(Collectors.<ThumbnailResult<File>>toList());
+		
+		// then
+		assertEquals(4, results.size());
+		assertFalse(results.get(1).isSuccessful());
+		assertNull(results.get(1).getThumbnail());
+		assertNotNull(results.get(1).getFailure());
+		assertEquals(broken, results.get(1).getSource());
+		assertTrue(results.get(2).isSuccessful());
+	}
+	
+	@Test
+	public void stream_TakesSourcesLazily() throws IOException {
+		// given
+		AtomicInteger taken = new AtomicInteger();
+		Iterable<BufferedImage> images = TestImages.countTaken(TestImages.makeImages(10), taken);
+		
+		// when
+		Stream<ThumbnailResult<BufferedImage>> stream = Thumbnails.fromImages(images)
+				.scale(0.5)
+				.stream();
+		int takenBeforeConsumed = taken.get();
+		ThumbnailResult<BufferedImage> first = stream.findFirst().get();
+		
+		// then
+		assertEquals(0, takenBeforeConsumed);
+		assertEquals(1, taken.get());
+		assertEquals(50, first.getThumbnail().getWidth());
+	}
+	
+	@Test
+	public void stream_FromDirectory() throws IOException {
+		// given
+		File dir = temporaryFolder.newFolder();
+		for (int i = 0; i < 5; i++) {
+			ImageIO.write(new BufferedImage(100, 200, BufferedImage.TYPE_INT_RGB), "png", new File(dir, i + ".png"));
+		}
+		
+		// when
+		List<ThumbnailResult<File>> results = Thumbnails.fromDirectory(dir.toPath(), "*.png", false)
+				.scale(0.5)
+				.stream()
+				.collect(Collectors.<ThumbnailResult<File>>toList());
+		
+		// then
+		assertEquals(5, results.size());
+		for (int i = 0; i < 5; i++) {
+			assertEquals(i, results.get(i).getIndex());
+			assertEquals(50, results.get(i).getThumbnail().getWidth());
+		}
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.cache;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.filters.Rotation;
+import net.coobird.thumbnailator.geometry.Positions;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DiskThumbnailCacheTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	private static String key(int i) {
+		return DiskThumbnailCache.createKey(new byte[] {(byte)i}, "fingerprint");
+	}
+	
+	@Test
+	public void get_ReturnsStoredThumbnail() throws IOException {
+		// given
+		DiskThumbnailCache cache = new DiskThumbnailCache(temporaryFolder.newFolder(), 1000);
+		
+		// when
+		assertNull(cache.get(key(1)));
+		assertTrue(cache.put(key(1), "png", new byte[] {1, 2, 3}));
+		CachedThumbnail thumbnail = cache.get(key(1));
+		
+		// then
+		assertEquals("png", thumbnail.getFormatName());
+		assertArrayEquals(new byte[] {1, 2, 3}, thumbnail.getData());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(3, cache.getSize());
+	}
+	
+	@Test
+	public void put_EvictsLeastRecentlyUsed() throws IOException {
+		// given
+		DiskThumbnailCache cache = new DiskThumbnailCache(temporaryFolder.newFolder(), 250);
+		cache.put(key(1), "png", new byte[100]);
+		cache.put(key(2), "png", new byte[100]);
+		cache.get(key(1));
+		
+		// when
+		cache.put(key(3), "png", new byte[100]);
+		
+		// then
+		assertNotNull(cache.get(key(1)));
+		assertNull(cache.get(key(2)));
+		assertNotNull(cache.get(key(3)));
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(200, cache.getSize());
+	}
+	
+	@Test
+	public void put_NotStoredWhenLargerThanMaximumSize() throws IOException {
+		DiskThumbnailCache cache = new DiskThumbnailCache(temporaryFolder.newFolder(), 10);
+		
+		assertFalse(cache.put(key(1), "png", new byte[11]));
+		assertEquals(0, cache.getEntryCount());
+	}
+	
+	@Test
+	public void constructor_RecoversEntriesAndRemovesTemporaryFiles() throws IOException {
+		// given
+		File dir = temporaryFolder.newFolder();
+		DiskThumbnailCache cache = new DiskThumbnailCache(dir, 1000);
+		cache.put(key(1), "png", new byte[10]);
+		cache.put(key(2), "JPEG", new byte[20]);
+		File tempFile = new File(dir, key(3) + "123.tmp");
+		Files.write(tempFile.toPath(), new byte[30]);
+		
+		// when
+		DiskThumbnailCache reopened = new DiskThumbnailCache(dir, 1000);
+		
+		// then
+		assertFalse(tempFile.exists());
+		assertEquals(2, reopened.getEntryCount());
+		assertEquals(30, reopened.getSize());
+		assertEquals("JPEG", reopened.get(key(2)).getFormatName());
+	}
+	
+	@Test
+	public void toFile_SecondThumbnailIsServedFromCache() throws IOException {
+		// given
+		File source = temporaryFolder.newFile("source.png");
+		ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "png", source);
+		File first = new File(temporaryFolder.getRoot(), "first.png");
+		File second = new File(temporaryFolder.getRoot(), "second.png");
+		DiskThumbnailCache cache = new DiskThumbnailCache(temporaryFolder.newFolder(), 100000);
+		
+		// when
+		Thumbnails.of(source).size(50, 50).cache(cache).toFile(first);
+		Thumbnails.of(source).size(50, 50).cache(cache).toFile(second);
+		
+		// then
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+		assertArrayEquals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath()));
+		assertEquals(50, ImageIO.read(second).getWidth());
+	}
+	
+	@Test
+	public void asFiles_DifferentParametersAreNotServedFromCache() throws IOException {
+		// given
+		File source = temporaryFolder.newFile("source.png");
+		ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "png", source);
+		File dest = temporaryFolder.newFolder();
+		DiskThumbnailCache cache = new DiskThumbnailCache(temporaryFolder.newFolder(), 100000);
+		
+		// when
+		Thumbnails.of(source).size(50, 50).cache(cache).toFile(new File(dest, "a.png"));
+		Thumbnails.of(source).size(50, 50).rotate(90).cache(cache).toFile(new File(dest, "b.png"));
+		Thumbnails.of(source).size(50, 50).crop(Positions.CENTER).cache(cache).toFile(new File(dest, "c.png"));
+		
+		// then
+		assertEquals(3, cache.getMissCount());
+		assertEquals(0, cache.getHitCount());
+		assertEquals(3, cache.getEntryCount());
+	}
+	
+	@Test
+	public void fingerprint_EqualForEquivalentFilters() {
+		assertEquals(
+				Rotation.newRotator(45).getFingerprint(),
+				Rotation.newRotator(45).getFingerprint()
+		);
+		assertFalse(
+				Rotation.newRotator(45).getFingerprint().equals(
+						Rotation.newRotator(90).getFingerprint()
+				)
+		);
+	}
+}
@@ -0,0 +1,277 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.cache;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.filters.ImageFilter;
+import net.coobird.thumbnailator.name.Rename;
+import net.coobird.thumbnailator.util.Fingerprintable;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MemoryThumbnailCacheTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	@Test
+	public void get_ReturnsStoredThumbnail() throws IOException {
+		// given
+		MemoryThumbnailCache cache = new MemoryThumbnailCache(1000);
+		
+		// when
+		assertNull(cache.get("a"));
+		assertTrue(cache.put("a", "png", new byte[] {1, 2, 3}));
+		CachedThumbnail thumbnail = cache.get("a");
+		
+		// then
+		assertEquals("png", thumbnail.getFormatName());
+		assertArrayEquals(new byte[] {1, 2, 3}, thumbnail.getData());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(3, cache.getSize());
+		assertFalse(cache.put("b", "png", new byte[1001]));
+	}
+	
+	@Test
+	public void put_RetrievedEntriesSurviveScan() throws IOException {
+		// given
+		MemoryThumbnailCache cache = new MemoryThumbnailCache(1000);
+		cache.put("retrieved", "png", new byte[100]);
+		cache.get("retrieved");
+		
+		// when
+		for (int i = 0; i < 10; i++) {
+			cache.put("scan" + i, "png", new byte[100]);
+		}
+		
+		// then
+		assertNotNull(cache.get("retrieved"));
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(1000, cache.getSize());
+		assertNull(cache.get("scan0"));
+		cache.release("scan0");
+	}
+	
+	@Test
+	public void get_WaitsForThumbnailBeingCreated() throws Exception {
+		// given
+		final MemoryThumbnailCache cache = new MemoryThumbnailCache(1000);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		
+		try {
+			assertNull(cache.get("a"));
+			
+			// when
+			Future<CachedThumbnail> waiting = executor.submit(new Callable<CachedThumbnail>() {
+				public CachedThumbnail call() throws IOException {
+					return cache.get("a");
+				}
+			});
+			Thread.sleep(100);
+			assertFalse(waiting.isDone());
+			cache.put("a", "png", new byte[] {1});
+			
+			// then
+			assertArrayEquals(new byte[] {1}, waiting.get(5, TimeUnit.SECONDS).getData());
+			assertEquals(1, cache.getMissCount());
+			
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void get_WaitingCallerCreatesThumbnailWhenReleased() throws Exception {
+		// given
+		final MemoryThumbnailCache cache = new MemoryThumbnailCache(1000);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		
+		try {
+			assertNull(cache.get("a"));
+			Future<CachedThumbnail> waiting = executor.submit(new Callable<CachedThumbnail>() {
+				public CachedThumbnail call() throws IOException {
+					return cache.get("a");
+				}
+			});
+			Thread.sleep(100);
+			
+			// when
+			cache.release("a");
+			
+			// then
+			assertNull(waiting.get(5, TimeUnit.SECONDS));
+			assertEquals(2, cache.getMissCount());
+			
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void get_WaitingCallerCreatesThumbnailWhenCreatorIsAbandoned() throws Exception {
+		// given
+		final MemoryThumbnailCache cache = new MemoryThumbnailCache(1000, 100, TimeUnit.MILLISECONDS);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		
+		try {
+			// The caller which is creating the thumbnail never stores or releases it.
+			assertNull(cache.get("a"));
+			
+			// when
+			Future<CachedThumbnail> waiting = executor.submit(new Callable<CachedThumbnail>() {
+				public CachedThumbnail call() throws IOException {
+					return cache.get("a");
+				}
+			});
+			
+			// then
+			assertNull(waiting.get(5, TimeUnit.SECONDS));
+			assertEquals(2, cache.getMissCount());
+			
+			cache.put("a", "png", new byte[] {1});
+			assertArrayEquals(new byte[] {1}, cache.get("a").getData());
+			
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test(timeout = 10000)
+	public void toFile_FailedThumbnailDoesNotStrandWaiters() throws IOException {
+		// given
+		File source = temporaryFolder.newFile("broken.png");
+		Files.write(source.toPath(), new byte[] {1, 2, 3});
+		MemoryThumbnailCache cache = new MemoryThumbnailCache(100000);
+		
+		for (int i = 0; i < 2; i++) {
+			// when
+			try {
+				Thumbnails.of(source).size(50, 50).cache(cache)
+						.toFile(new File(temporaryFolder.getRoot(), "thumbnail.png"));
+				fail();
+				
+			} catch (IOException e) {
+				// then
+				// The second attempt is not left waiting for the first one.
+			}
+		}
+		assertEquals(2, cache.getMissCount());
+	}
+	
+	@Test
+	public void toFile_CacheIsLookedUpWithoutReadingUnchangedFile() throws IOException {
+		// given
+		File source = temporaryFolder.newFile("source.png");
+		ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "png", source);
+		File first = new File(temporaryFolder.getRoot(), "first.png");
+		File second = new File(temporaryFolder.getRoot(), "second.png");
+		MemoryThumbnailCache cache = new MemoryThumbnailCache(100000);
+		Thumbnails.of(source).size(50, 50).cache(cache).toFile(first);
+		
+		// when
+		long lastModified = source.lastModified();
+		Files.write(source.toPath(), new byte[(int)source.length()]);
+		source.setLastModified(lastModified);
+		Thumbnails.of(source).size(50, 50).cache(cache).toFile(second);
+		
+		// then
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+		assertArrayEquals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath()));
+	}
+	
+	@Test
+	public void toFile_ModifiedFileIsNotServedFromCache() throws IOException {
+		// given
+		File source = temporaryFolder.newFile("source.png");
+		ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "png", source);
+		MemoryThumbnailCache cache = new MemoryThumbnailCache(100000);
+		Thumbnails.of(source).size(50, 50).cache(cache).toFile(new File(temporaryFolder.getRoot(), "first.png"));
+		
+		// when
+		ImageIO.write(new BufferedImage(100, 200, BufferedImage.TYPE_INT_RGB), "png", source);
+		source.setLastModified(source.lastModified() + 2000);
+		File second = new File(temporaryFolder.getRoot(), "second.png");
+		Thumbnails.of(source).size(50, 50).cache(cache).toFile(second);
+		
+		// then
+		assertEquals(2, cache.getMissCount());
+		assertEquals(25, ImageIO.read(second).getWidth());
+	}
+	
+	@Test
+	public void asFiles_ParametersAreFingerprintedOnce() throws IOException {
+		// given
+		List<File> sources = new ArrayList<File>();
+		for (int i = 0; i < 3; i++) {
+			File source = temporaryFolder.newFile("source" + i + ".png");
+			ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "png", source);
+			sources.add(source);
+		}
+		final AtomicInteger fingerprinted = new AtomicInteger();
+		class CountingFilter implements ImageFilter, Fingerprintable {
+			public BufferedImage apply(BufferedImage img) {
+				return img;
+			}
+			
+			public String getFingerprint() {
+				fingerprinted.incrementAndGet();
+				return "CountingFilter";
+			}
+		}
+		MemoryThumbnailCache cache = new MemoryThumbnailCache(100000);
+		
+		// when
+		Thumbnails.fromFiles(sources)
+				.size(50, 50)
+				.addFilter(new CountingFilter())
+				.cache(cache)
+				.asFiles(temporaryFolder.newFolder(), Rename.NO_CHANGE);
+		
+		// then
+		assertEquals(1, fingerprinted.get());
+		assertEquals(3, cache.getMissCount());
+	}
+}
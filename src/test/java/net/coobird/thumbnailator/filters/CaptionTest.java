@@ -0,0 +1,215 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.filters;
+
+import static org.junit.Assert.*;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import net.coobird.thumbnailator.geometry.Position;
+import net.coobird.thumbnailator.geometry.Positions;
+
+import org.junit.Test;
+
+public class CaptionTest {
+	
+	private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 14);
+	
+	private static BufferedImage makeImage(int width, int height) {
+		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = img.createGraphics();
+		g.setColor(Color.white);
+		g.fillRect(0, 0, width, height);
+		g.dispose();
+		return img;
+	}
+	
+	/**
+	 * Draws the caption directly onto a copy of the image, as each call to
+	 * {@link Caption#apply(BufferedImage)} did before the rendered caption
+	 * was kept between calls.
+	 */
+	private static BufferedImage drawDirectly(BufferedImage img, String caption, float alpha, Position position, int insets) {
+		BufferedImage newImage = makeImage(img.getWidth(), img.getHeight());
+		
+		Graphics2D g = newImage.createGraphics();
+		g.drawImage(img, 0, 0, null);
+		g.setFont(FONT);
+		g.setColor(Color.black);
+		g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
+		
+		int captionWidth = g.getFontMetrics().stringWidth(caption);
+		int captionHeight = g.getFontMetrics().getHeight() / 2;
+		
+		Point p = position.calculate(
+				img.getWidth(), img.getHeight(), captionWidth, 0,
+				insets, insets, insets, insets
+		);
+		
+		double yRatio = p.y / (double)img.getHeight();
+		int yOffset = (int)((1.0 - yRatio) * captionHeight);
+		
+		g.drawString(caption, p.x, p.y + yOffset);
+		g.dispose();
+		
+		return newImage;
+	}
+	
+	private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				assertEquals(
+						"Pixel at (" + x + ", " + y + ")",
+						expected.getRGB(x, y) & 0xffffff,
+						actual.getRGB(x, y) & 0xffffff
+				);
+			}
+		}
+	}
+	
+	@Test
+	public void apply_MatchesCaptionDrawnOnEachCall() {
+		for (Positions position : Positions.values()) {
+			// given
+			Caption caption = new Caption("Hello, world!", FONT, Color.black, position, 5);
+			BufferedImage img = makeImage(200, 100);
+			BufferedImage expected = drawDirectly(img, "Hello, world!", 1.0f, position, 5);
+			
+			// when
+			BufferedImage first = caption.apply(img);
+			BufferedImage second = caption.apply(img);
+			
+			// then
+			assertSamePixels(expected, first);
+			assertSamePixels(expected, second);
+		}
+	}
+	
+	@Test
+	public void apply_TranslucentCaptionMatchesCaptionDrawnOnEachCall() {
+		// given
+		Caption caption = new Caption("Hello, world!", FONT, Color.black, 0.5f, Positions.CENTER, 0);
+		BufferedImage img = makeImage(200, 100);
+		BufferedImage expected = drawDirectly(img, "Hello, world!", 0.5f, Positions.CENTER, 0);
+		
+		// when
+		caption.apply(img);
+		BufferedImage result = caption.apply(img);
+		
+		// then
+		assertSamePixels(expected, result);
+	}
+	
+	@Test
+	public void apply_CachedCaptionIsPlacedForEachImageSize() {
+		// given
+		Caption caption = new Caption("Hello, world!", FONT, Color.black, Positions.BOTTOM_RIGHT, 5);
+		BufferedImage small = makeImage(120, 40);
+		BufferedImage large = makeImage(300, 200);
+		
+		// when
+		caption.apply(small);
+		BufferedImage result = caption.apply(large);
+		
+		// then
+		assertSamePixels(drawDirectly(large, "Hello, world!", 1.0f, Positions.BOTTOM_RIGHT, 5), result);
+	}
+	
+	@Test
+	public void apply_EmptyCaptionLeavesImageUnchanged() {
+		// given
+		Caption caption = new Caption("", FONT, Color.black, Positions.CENTER, 0);
+		BufferedImage img = makeImage(100, 100);
+		
+		// when
+		BufferedImage result = caption.apply(img);
+		
+		// then
+		assertSamePixels(img, result);
+	}
+	
+	@Test
+	public void apply_ConcurrentCallsProduceSameResult() throws Exception {
+		// given
+		final Caption caption = new Caption("Hello, world!", FONT, Color.black, Positions.TOP_CENTER, 5);
+		final BufferedImage[] images = new BufferedImage[] {
+				makeImage(200, 100), makeImage(150, 150), makeImage(300, 60)
+		};
+		final BufferedImage[] expected = new BufferedImage[images.length];
+		for (int i = 0; i < images.length; i++) {
+			expected[i] = drawDirectly(images[i], "Hello, world!", 1.0f, Positions.TOP_CENTER, 5);
+		}
+		
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CountDownLatch start = new CountDownLatch(1);
+		
+		try {
+			List<Future<List<BufferedImage>>> futures = new ArrayList<Future<List<BufferedImage>>>();
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(new Callable<List<BufferedImage>>() {
+					public List<BufferedImage> call() throws Exception {
+						start.await();
+						
+						List<BufferedImage> results = new ArrayList<BufferedImage>();
+						for (int i = 0; i < 30; i++) {
+							results.add(caption.apply(images[i % images.length]));
+						}
+						return results;
+					}
+				}));
+			}
+			
+			// when
+			start.countDown();
+			
+			// then
+			for (Future<List<BufferedImage>> future : futures) {
+				List<BufferedImage> results = future.get(30, TimeUnit.SECONDS);
+				for (int i = 0; i < results.size(); i++) {
+					assertSamePixels(expected[i % images.length], results.get(i));
+				}
+			}
+			
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.tasks.io;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URL;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PrefetchingImageSourceTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	@Test
+	public void prefetch_File() throws IOException {
+		// given
+		File f = temporaryFolder.newFile("source.png");
+		ImageIO.write(new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB), "png", f);
+		PrefetchingImageSource<File> source =
+				new PrefetchingImageSource<File>(new FileImageSource(f));
+		
+		// when
+		source.prefetch();
+		
+		// then
+		assertEquals(f.length(), source.getData().length);
+		assertEquals(100, source.read().getWidth());
+		assertNull(source.getData());
+	}
+	
+	@Test
+	public void prefetch_URL() throws IOException {
+		// given
+		File f = temporaryFolder.newFile("source.png");
+		ImageIO.write(new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB), "png", f);
+		PrefetchingImageSource<URL> source =
+				new PrefetchingImageSource<URL>(new URLImageSource(f.toURI().toURL()));
+		
+		// when
+		source.prefetch();
+		
+		// then
+		assertEquals(f.length(), source.getData().length);
+		assertEquals(100, source.read().getWidth());
+	}
+	
+	@Test(expected = FileNotFoundException.class)
+	public void prefetch_FileNotFound() throws IOException {
+		File f = new File(temporaryFolder.getRoot(), "missing.png");
+		new PrefetchingImageSource<File>(new FileImageSource(f)).prefetch();
+	}
+	
+	@Test
+	public void prefetch_URLCannotBeOpened_KeepsCause() throws IOException {
+		// given
+		URL url = new File(temporaryFolder.getRoot(), "missing.png").toURI().toURL();
+		PrefetchingImageSource<URL> source =
+				new PrefetchingImageSource<URL>(new URLImageSource(url));
+		
+		try {
+			// when
+			source.prefetch();
+			fail();
+			
+		} catch (IOException e) {
+			// then
+			assertEquals("Could not open connection to URL: " + url, e.getMessage());
+			assertTrue(e.getCause() instanceof FileNotFoundException);
+		}
+	}
+}
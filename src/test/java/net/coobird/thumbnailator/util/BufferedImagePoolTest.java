@@ -0,0 +1,155 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+
+import net.coobird.thumbnailator.resizers.ProgressiveBilinearResizer;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class BufferedImagePoolTest {
+	
+	@After
+	public void disableDefaultPool() {
+		BufferedImagePool.setDefault(null);
+	}
+	
+	@Test
+	public void leasedImageIsAtLeastRequestedSize() {
+		// given
+		BufferedImagePool pool = new BufferedImagePool(Long.MAX_VALUE);
+		
+		// when
+		BufferedImagePool.Lease lease = pool.lease(300, 70, BufferedImage.TYPE_INT_RGB);
+		
+		// then
+		BufferedImage img = lease.getImage();
+		assertTrue(img.getWidth() >= 300);
+		assertTrue(img.getHeight() >= 70);
+		assertEquals(BufferedImage.TYPE_INT_RGB, img.getType());
+	}
+	
+	@Test
+	public void releasedImageIsReusedForSameSizeClass() {
+		// given
+		BufferedImagePool pool = new BufferedImagePool(Long.MAX_VALUE);
+		BufferedImagePool.Lease first = pool.lease(300, 200, BufferedImage.TYPE_INT_ARGB);
+		first.release();
+		
+		// when
+		BufferedImagePool.Lease second = pool.lease(310, 250, BufferedImage.TYPE_INT_ARGB);
+		
+		// then
+		assertSame(first.getImage(), second.getImage());
+		assertEquals(2, pool.getLeaseCount());
+		assertEquals(1, pool.getReuseCount());
+		assertEquals(0.5, pool.getReuseRate(), 0.0);
+		assertEquals(0, pool.getPooledBytes());
+	}
+	
+	@Test
+	public void imagesOfDifferentTypeAreNotShared() {
+		// given
+		BufferedImagePool pool = new BufferedImagePool(Long.MAX_VALUE);
+		BufferedImagePool.Lease first = pool.lease(100, 100, BufferedImage.TYPE_INT_ARGB);
+		first.release();
+		
+		// when
+		BufferedImagePool.Lease second = pool.lease(100, 100, BufferedImage.TYPE_INT_RGB);
+		
+		// then
+		assertEquals(BufferedImage.TYPE_INT_RGB, second.getImage().getType());
+		assertEquals(0, pool.getReuseCount());
+	}
+	
+	@Test
+	public void imagesExceedingMaximumSizeAreDiscarded() {
+		// given
+		BufferedImagePool pool = new BufferedImagePool(128 * 128 * 4);
+		BufferedImagePool.Lease first = pool.lease(128, 128, BufferedImage.TYPE_INT_ARGB);
+		BufferedImagePool.Lease second = pool.lease(128, 128, BufferedImage.TYPE_INT_ARGB);
+		
+		// when
+		first.release();
+		second.release();
+		
+		// then
+		assertEquals(128 * 128 * 4, pool.getPooledBytes());
+		assertEquals(1, pool.getDiscardCount());
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void releasingTwiceFails() {
+		// given
+		BufferedImagePool pool = new BufferedImagePool(Long.MAX_VALUE);
+		BufferedImagePool.Lease lease = pool.lease(10, 10, BufferedImage.TYPE_INT_ARGB);
+		lease.release();
+		
+		// when
+		lease.release();
+	}
+	
+	@Test
+	public void resizerGivesSameResultWithPooledTemporaryImage() {
+		// given
+		BufferedImage source = new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB);
+		Graphics g = source.getGraphics();
+		g.setColor(Color.red);
+		g.fillRect(0, 0, 400, 600);
+		g.setColor(Color.blue);
+		g.fillRect(400, 0, 400, 600);
+		g.dispose();
+		
+		BufferedImage expected = new BufferedImage(100, 75, BufferedImage.TYPE_INT_ARGB);
+		new ProgressiveBilinearResizer().resize(source, expected);
+		
+		BufferedImagePool pool = new BufferedImagePool(Long.MAX_VALUE);
+		BufferedImagePool.setDefault(pool);
+		
+		// when
+		BufferedImage actual1 = new BufferedImage(100, 75, BufferedImage.TYPE_INT_ARGB);
+		new ProgressiveBilinearResizer().resize(source, actual1);
+		BufferedImage actual2 = new BufferedImage(100, 75, BufferedImage.TYPE_INT_ARGB);
+		new ProgressiveBilinearResizer().resize(source, actual2);
+		
+		// then
+		assertEquals(2, pool.getLeaseCount());
+		assertEquals(1, pool.getReuseCount());
+		for (int y = 0; y < 75; y++) {
+			for (int x = 0; x < 100; x++) {
+				assertEquals(expected.getRGB(x, y), actual1.getRGB(x, y));
+				assertEquals(expected.getRGB(x, y), actual2.getRGB(x, y));
+			}
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.filters.ImageFilter;
+import net.coobird.thumbnailator.filters.Pipeline;
+import net.coobird.thumbnailator.resizers.ProgressiveBilinearResizer;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class CancellationTokenTest {
+	
+	@After
+	public void detachTokens() {
+		CancellationToken.detach(null);
+	}
+	
+	private static byte[] png(int width, int height) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", baos);
+		return baos.toByteArray();
+	}
+	
+	@Test
+	public void cancel() {
+		// given
+		CancellationToken token = new CancellationToken();
+		assertFalse(token.isCancelled());
+		
+		// when
+		token.cancel();
+		
+		// then
+		assertTrue(token.isCancelled());
+		assertFalse(token.isExpired());
+	}
+	
+	@Test
+	public void deadline() {
+		assertFalse(new CancellationToken(1, TimeUnit.HOURS).isCancelled());
+		
+		CancellationToken expired = new CancellationToken(0, TimeUnit.NANOSECONDS);
+		assertTrue(expired.isCancelled());
+		assertTrue(expired.isExpired());
+	}
+	
+	@Test
+	public void cancelledByParent() {
+		// given
+		CancellationToken parent = new CancellationToken();
+		CancellationToken child = new CancellationToken(parent, 1, TimeUnit.HOURS);
+		
+		// when
+		parent.cancel();
+		
+		// then
+		assertTrue(child.isCancelled());
+	}
+	
+	@Test
+	public void attachAndDetach() {
+		// given
+		CancellationToken outer = new CancellationToken();
+		CancellationToken inner = new CancellationToken();
+		
+		// when, then
+		assertNull(outer.attach());
+		assertSame(outer, inner.attach());
+		assertSame(inner, CancellationToken.current());
+		
+		CancellationToken.detach(outer);
+		assertSame(outer, CancellationToken.current());
+		
+		CancellationToken.detach(null);
+		assertNull(CancellationToken.current());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void negativeTimeout() {
+		new CancellationToken(-1, TimeUnit.SECONDS);
+	}
+	
+	@Test
+	public void pipelineStopsBetweenFilters() {
+		// given
+		final CancellationToken token = new CancellationToken();
+		final int[] applied = new int[1];
+		ImageFilter cancellingFilter = new ImageFilter() {
+			public BufferedImage apply(BufferedImage img) {
+				applied[0]++;
+				token.cancel();
+				return img;
+			}
+		};
+		Pipeline pipeline = new Pipeline(cancellingFilter, cancellingFilter);
+		token.attach();
+		
+		// when
+		try {
+			pipeline.apply(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB));
+			fail();
+			
+		} catch (CancellationException e) {
+			// then
+			assertEquals(1, applied[0]);
+		}
+	}
+	
+	@Test(expected=CancellationException.class)
+	public void progressiveBilinearResizerStopsBetweenSteps() {
+		// given
+		CancellationToken token = new CancellationToken();
+		token.cancel();
+		token.attach();
+		
+		// when
+		new ProgressiveBilinearResizer().resize(
+				new BufferedImage(800, 800, BufferedImage.TYPE_INT_RGB),
+				new BufferedImage(50, 50, BufferedImage.TYPE_INT_RGB)
+		);
+	}
+	
+	@Test
+	public void builderWithCancelledToken() throws IOException {
+		// given
+		CancellationToken token = new CancellationToken();
+		token.cancel();
+		
+		// when
+		try {
+			Thumbnails.of(new ByteArrayInputStream(png(200, 200)))
+					.size(50, 50)
+					.cancellationToken(token)
+					.asBufferedImage();
+			fail();
+			
+		} catch (CancellationException e) {
+			// then
+			assertNull(CancellationToken.current());
+		}
+	}
+	
+	@Test(expected=CancellationException.class)
+	public void builderWithExpiredTimeout() throws IOException {
+		Thumbnails.of(new ByteArrayInputStream(png(200, 200)))
+				.size(50, 50)
+				.timeout(0, TimeUnit.MILLISECONDS)
+				.toOutputStream(new ByteArrayOutputStream());
+	}
+	
+	@Test
+	public void builderWithinTimeout() throws IOException {
+		// when
+		BufferedImage thumbnail = Thumbnails.of(new ByteArrayInputStream(png(200, 200)))
+				.size(50, 50)
+				.timeout(1, TimeUnit.HOURS)
+				.cancellationToken(new CancellationToken())
+				.asBufferedImage();
+		
+		// then
+		assertEquals(50, thumbnail.getWidth());
+		assertNull(CancellationToken.current());
+	}
+}
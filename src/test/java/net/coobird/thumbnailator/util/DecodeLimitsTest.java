@@ -0,0 +1,213 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import net.coobird.thumbnailator.ThumbnailEvent;
+import net.coobird.thumbnailator.ThumbnailListener;
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.tasks.ImageLimitExceededException;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class DecodeLimitsTest {
+	
+	@After
+	public void disableDefaultLimits() {
+		DecodeLimits.setDefault(null);
+	}
+	
+	/**
+	 * Returns a PNG which declares the given dimensions in its header, but
+	 * has no image data.
+	 */
+	private static byte[] pngHeader(int width, int height) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(baos);
+		out.write(new byte[] {(byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'});
+		
+		ByteArrayOutputStream ihdr = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(ihdr);
+		data.writeBytes("IHDR");
+		data.writeInt(width);
+		data.writeInt(height);
+		data.write(new byte[] {8, 2, 0, 0, 0});
+		writeChunk(out, ihdr.toByteArray());
+		writeChunk(out, "IEND".getBytes("US-ASCII"));
+		
+		return baos.toByteArray();
+	}
+	
+	private static void writeChunk(DataOutputStream out, byte[] typeAndData) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(typeAndData);
+		out.writeInt(typeAndData.length - 4);
+		out.write(typeAndData);
+		out.writeInt((int)crc.getValue());
+	}
+	
+	private static byte[] png(int width, int height) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", baos);
+		return baos.toByteArray();
+	}
+	
+	private static byte[] gif(int frames) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+		ImageOutputStream ios = ImageIO.createImageOutputStream(baos);
+		writer.setOutput(ios);
+		writer.prepareWriteSequence(null);
+		for (int i = 0; i < frames; i++) {
+			BufferedImage img = new BufferedImage(50, 50, BufferedImage.TYPE_BYTE_INDEXED);
+			writer.writeToSequence(new IIOImage(img, null, null), null);
+		}
+		writer.endWriteSequence();
+		ios.close();
+		writer.dispose();
+		return baos.toByteArray();
+	}
+	
+	@Test
+	public void rejectsDecompressionBomb() throws IOException {
+		// given
+		DecodeLimits.setDefault(new DecodeLimits(10000, 10000, 50000000, Integer.MAX_VALUE));
+		byte[] bomb = pngHeader(50000, 50000);
+		
+		// when
+		try {
+			Thumbnails.of(new ByteArrayInputStream(bomb)).size(100, 100).asBufferedImage();
+			fail();
+			
+		} catch (ImageLimitExceededException e) {
+			// then
+			assertEquals(50000, e.getWidth());
+			assertEquals(50000, e.getHeight());
+			assertEquals(-1, e.getFrames());
+		}
+	}
+	
+	@Test
+	public void rejectsTooManyPixels() throws IOException {
+		// given
+		DecodeLimits.setDefault(new DecodeLimits(10000, 10000, 10000, Integer.MAX_VALUE));
+		
+		// when
+		try {
+			Thumbnails.of(new ByteArrayInputStream(png(200, 100))).size(50, 50).asBufferedImage();
+			fail();
+			
+		} catch (ImageLimitExceededException e) {
+			// then
+			assertEquals(200, e.getWidth());
+		}
+	}
+	
+	@Test
+	public void acceptsImagesWithinLimits() throws IOException {
+		// given
+		DecodeLimits.setDefault(new DecodeLimits(200, 100, 20000, 1));
+		
+		// when
+		BufferedImage thumbnail = Thumbnails.of(new ByteArrayInputStream(png(200, 100)))
+				.size(50, 50)
+				.asBufferedImage();
+		
+		// then
+		assertEquals(50, thumbnail.getWidth());
+		assertEquals(25, thumbnail.getHeight());
+	}
+	
+	@Test
+	public void rejectsTooManyFrames() throws IOException {
+		// given
+		DecodeLimits.setDefault(new DecodeLimits(10000, 10000, 50000000, 2));
+		
+		// when
+		try {
+			Thumbnails.of(new ByteArrayInputStream(gif(3))).size(20, 20).asBufferedImage();
+			fail();
+			
+		} catch (ImageLimitExceededException e) {
+			// then
+			assertEquals(3, e.getFrames());
+		}
+	}
+	
+	@Test
+	public void subsamplesOversizedImages() throws IOException {
+		// given
+		DecodeLimits.setDefault(new DecodeLimits(400, 400, Long.MAX_VALUE, Integer.MAX_VALUE, true));
+		final ThumbnailEvent[] event = new ThumbnailEvent[1];
+		
+		// when
+		BufferedImage thumbnail = Thumbnails.of(new ByteArrayInputStream(png(1000, 1000)))
+				.size(200, 200)
+				.listener(new ThumbnailListener() {
+					public void thumbnailCompleted(ThumbnailEvent e) {
+						event[0] = e;
+					}
+				})
+				.asBufferedImage();
+		
+		// then
+		assertEquals(200, thumbnail.getWidth());
+		assertEquals(200, thumbnail.getHeight());
+		assertEquals(3, event[0].getSubsampling());
+		assertEquals(334, event[0].getDecodedSize().width);
+	}
+	
+	@Test
+	public void getSubsampling() {
+		DecodeLimits limits = new DecodeLimits(1000, 1000, 500000, Integer.MAX_VALUE, true);
+		
+		assertEquals(1, limits.getSubsampling(1000, 500));
+		assertEquals(2, limits.getSubsampling(1000, 1000));
+		assertEquals(71, limits.getSubsampling(50000, 50000));
+		assertTrue(limits.isWithin(
+				Integer.MAX_VALUE / limits.getSubsampling(Integer.MAX_VALUE, Integer.MAX_VALUE),
+				Integer.MAX_VALUE / limits.getSubsampling(Integer.MAX_VALUE, Integer.MAX_VALUE)
+		));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void limitsMustBePositive() {
+		new DecodeLimits(0, 1000, 1000, 1);
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.name.Rename;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DirectoryImageFilesTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	private File makeTree() throws IOException {
+		File root = temporaryFolder.newFolder("root");
+		File sub = new File(root, "sub");
+		sub.mkdir();
+		
+		ImageIO.write(new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB), "png", new File(root, "a.png"));
+		ImageIO.write(new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB), "jpg", new File(root, "b.JPG"));
+		ImageIO.write(new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB), "png", new File(sub, "c.png"));
+		new File(root, "notes.txt").createNewFile();
+		
+		return root;
+	}
+	
+	private static List<String> names(Iterable<File> files) {
+		List<String> names = new ArrayList<String>();
+		for (File f : files) {
+			names.add(f.getName());
+		}
+		Collections.sort(names);
+		return names;
+	}
+	
+	@Test
+	public void iterator_ReturnsImageFilesOfDirectory() throws IOException {
+		File root = makeTree();
+		
+		assertEquals(
+				Arrays.asList("a.png", "b.JPG"),
+				names(new DirectoryImageFiles(root.toPath(), null, false))
+		);
+	}
+	
+	@Test
+	public void iterator_RecursiveWithGlob() throws IOException {
+		File root = makeTree();
+		
+		assertEquals(
+				Arrays.asList("a.png", "c.png"),
+				names(new DirectoryImageFiles(root.toPath(), "*.png", true))
+		);
+	}
+	
+	@Test
+	public void iterator_CloseEndsIteration() throws IOException {
+		// given
+		File root = makeTree();
+		Iterator<File> iter = new DirectoryImageFiles(root.toPath(), null, true).iterator();
+		iter.next();
+		
+		// when
+		((Closeable)iter).close();
+		
+		// then
+		assertFalse(iter.hasNext());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_NotDirectory() throws IOException {
+		new DirectoryImageFiles(temporaryFolder.newFile().toPath(), null, false);
+	}
+	
+	@Test
+	public void fromDirectory_CreatesThumbnailsOfFoundFiles() throws IOException {
+		// given
+		File root = makeTree();
+		File dest = temporaryFolder.newFolder();
+		
+		// when
+		Thumbnails.fromDirectory(root.toPath(), null, true)
+				.size(50, 50)
+				.outputFormat("png")
+				.toFiles(dest, Rename.NO_CHANGE);
+		
+		// then
+		assertEquals(
+				Arrays.asList("a.png", "b.JPG.png", "c.png"),
+				names(Arrays.asList(dest.listFiles()))
+		);
+	}
+}
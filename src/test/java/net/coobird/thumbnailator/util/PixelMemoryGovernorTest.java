@@ -0,0 +1,379 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.imageio.ImageIO;
+
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.name.Rename;
+import net.coobird.thumbnailator.tasks.MemoryBudgetExceededException;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PixelMemoryGovernorTest {
+	
+	private static final long MB = 1024 * 1024;
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	@After
+	public void disableDefaultGovernor() {
+		PixelMemoryGovernor.setDefault(null);
+	}
+	
+	@Test
+	public void reserveAndRelease() throws IOException {
+		// given
+		PixelMemoryGovernor governor = new PixelMemoryGovernor(10 * MB, PixelMemoryGovernor.Policy.FAIL);
+		
+		// when
+		PixelMemoryGovernor.Reservation reservation = governor.reserve(4 * MB);
+		
+		// then
+		assertEquals(4 * MB, reservation.getBytes());
+		assertEquals(4 * MB, governor.getReservedBytes());
+		assertEquals(6 * MB, governor.getAvailableBytes());
+		
+		// and when
+		reservation.release();
+		
+		// then
+		assertEquals(0, governor.getReservedBytes());
+		assertEquals(10 * MB, governor.getAvailableBytes());
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void releaseTwice() throws IOException {
+		PixelMemoryGovernor governor = new PixelMemoryGovernor(10 * MB, PixelMemoryGovernor.Policy.FAIL);
+		PixelMemoryGovernor.Reservation reservation = governor.reserve(MB);
+		reservation.release();
+		reservation.release();
+	}
+	
+	@Test
+	public void failPolicyFailsFast() throws IOException {
+		// given
+		PixelMemoryGovernor governor = new PixelMemoryGovernor(10 * MB, PixelMemoryGovernor.Policy.FAIL);
+		governor.reserve(8 * MB);
+		
+		// when
+		try {
+			governor.reserve(4 * MB);
+			fail();
+			
+		} catch (MemoryBudgetExceededException e) {
+			// then
+			assertEquals(4 * MB, e.getRequestedBytes());
+		}
+		assertEquals(1, governor.getRejectedCount());
+		assertNull(governor.tryReserve(4 * MB));
+	}
+	
+	@Test
+	public void reservationLargerThanBudgetIsReducedToBudget() throws IOException {
+		// given
+		PixelMemoryGovernor governor = new PixelMemoryGovernor(10 * MB, PixelMemoryGovernor.Policy.FAIL);
+		
+		// when
+		PixelMemoryGovernor.Reservation reservation = governor.reserve(100 * MB);
+		
+		// then
+		assertEquals(10 * MB, reservation.getBytes());
+		assertEquals(0, governor.getAvailableBytes());
+	}
+	
+	@Test
+	public void waitPolicyTimesOut() throws IOException {
+		// given
+		PixelMemoryGovernor governor = new PixelMemoryGovernor(
+				10 * MB, PixelMemoryGovernor.Policy.WAIT, 50, TimeUnit.MILLISECONDS
+		);
+		governor.reserve(8 * MB);
+		
+		// when
+		try {
+			governor.reserve(4 * MB);
+			fail();
+			
+		} catch (MemoryBudgetExceededException e) {
+			// then
+			assertEquals(1, governor.getWaitCount());
+			assertEquals(1, governor.getRejectedCount());
+		}
+	}
+	
+	@Test(timeout=5000)
+	public void waitPolicyWaitsForRelease() throws Exception {
+		// given
+		final PixelMemoryGovernor governor = new PixelMemoryGovernor(10 * MB, PixelMemoryGovernor.Policy.WAIT);
+		PixelMemoryGovernor.Reservation held = governor.reserve(8 * MB);
+		
+		final CountDownLatch isWaiting = new CountDownLatch(1);
+		final AtomicReference<PixelMemoryGovernor.Reservation> reserved =
+				new AtomicReference<PixelMemoryGovernor.Reservation>();
+		Thread waiter = new Thread() {
+			public void run() {
+				try {
+					isWaiting.countDown();
+					reserved.set(governor.reserve(4 * MB));
+				} catch (IOException e) {
+					// Leaves the reservation unset.
+				}
+			}
+		};
+		waiter.start();
+		isWaiting.await();
+		
+		// when
+		held.release();
+		waiter.join();
+		
+		// then
+		assertNotNull(reserved.get());
+		assertEquals(4 * MB, governor.getReservedBytes());
+	}
+	
+	@Test(timeout=10000)
+	public void largeReservationIsNotOvertakenBySmallOnes() throws Exception {
+		// given
+		final PixelMemoryGovernor governor = new PixelMemoryGovernor(
+				10 * MB, PixelMemoryGovernor.Policy.WAIT, 5, TimeUnit.SECONDS
+		);
+		List<PixelMemoryGovernor.Reservation> held = new ArrayList<PixelMemoryGovernor.Reservation>();
+		for (int i = 0; i < 10; i++) {
+			held.add(governor.reserve(MB));
+		}
+		
+		final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+		Thread large = new Thread() {
+			public void run() {
+				try {
+					PixelMemoryGovernor.Reservation reservation = governor.reserve(10 * MB);
+					order.add("large");
+					reservation.release();
+				} catch (IOException e) {
+					order.add("large failed");
+				}
+			}
+		};
+		Thread small = new Thread() {
+			public void run() {
+				try {
+					governor.reserve(MB);
+					order.add("small");
+				} catch (IOException e) {
+					order.add("small failed");
+				}
+			}
+		};
+		
+		large.start();
+		while (governor.getWaitCount() < 1) {
+			Thread.sleep(10);
+		}
+		Thread.sleep(50);
+		small.start();
+		while (governor.getWaitCount() < 2) {
+			Thread.sleep(10);
+		}
+		Thread.sleep(50);
+		
+		// when
+		for (PixelMemoryGovernor.Reservation reservation : held) {
+			Thread.sleep(150);
+			reservation.release();
+		}
+		large.join();
+		small.join();
+		
+		// then
+		assertEquals(Arrays.asList("large", "small"), order);
+	}
+	
+	@Test(timeout=10000)
+	public void reservationOfCollectedImageIsReleasedWhileWaiting() throws Exception {
+		// given
+		PixelMemoryGovernor governor = new PixelMemoryGovernor(
+				MB, PixelMemoryGovernor.Policy.WAIT, 8, TimeUnit.SECONDS
+		);
+		governor.reserve(MB).attach(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB));
+		
+		Thread collector = new Thread() {
+			public void run() {
+				while (!isInterrupted()) {
+					System.gc();
+					try {
+						Thread.sleep(50);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+		};
+		collector.start();
+		
+		// when
+		PixelMemoryGovernor.Reservation reservation;
+		try {
+			reservation = governor.reserve(MB);
+		} finally {
+			collector.interrupt();
+		}
+		
+		// then
+		assertEquals(MB, reservation.getBytes());
+		assertEquals(1, governor.getWaitCount());
+	}
+	
+	@Test
+	public void releaseByImage() throws IOException {
+		// given
+		PixelMemoryGovernor governor = new PixelMemoryGovernor(10 * MB, PixelMemoryGovernor.Policy.FAIL);
+		BufferedImage img = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+		governor.reserve(4 * MB).attach(img);
+		
+		// when
+		PixelMemoryGovernor.release(img);
+		PixelMemoryGovernor.release(img);
+		
+		// then
+		assertEquals(0, governor.getReservedBytes());
+	}
+	
+	@Test
+	public void thumbnailsReleaseTheirReservations() throws IOException {
+		// given
+		PixelMemoryGovernor governor = new PixelMemoryGovernor(10 * MB, PixelMemoryGovernor.Policy.FAIL);
+		PixelMemoryGovernor.setDefault(governor);
+		File f = temporaryFolder.newFile("source.png");
+		ImageIO.write(new BufferedImage(1000, 1000, BufferedImage.TYPE_INT_RGB), "png", f);
+		
+		// when
+		BufferedImage thumbnail = Thumbnails.of(f).size(100, 100).asBufferedImage();
+		Thumbnails.of(f).size(100, 100).toFile(temporaryFolder.newFile("thumbnail.png"));
+		
+		// then
+		assertEquals(100, thumbnail.getWidth());
+		assertEquals(0, governor.getReservedBytes());
+		assertEquals(0, governor.getSubsampledCount());
+	}
+	
+	@Test
+	public void subsamplePolicyDecodesSmallerImageToFitBudget() throws IOException {
+		// given
+		PixelMemoryGovernor governor = new PixelMemoryGovernor(10 * MB, PixelMemoryGovernor.Policy.SUBSAMPLE);
+		PixelMemoryGovernor.setDefault(governor);
+		File f = temporaryFolder.newFile("source.png");
+		ImageIO.write(new BufferedImage(1000, 1000, BufferedImage.TYPE_INT_RGB), "png", f);
+		
+		// A 1000 x 1000 image needs more than the 2 MB left in the budget.
+		PixelMemoryGovernor.Reservation held = governor.reserve(8 * MB);
+		
+		// when
+		BufferedImage thumbnail = Thumbnails.of(f).size(100, 100).asBufferedImage();
+		
+		// then
+		assertEquals(100, thumbnail.getWidth());
+		assertEquals(100, thumbnail.getHeight());
+		assertEquals(1, governor.getSubsampledCount());
+		assertEquals(8 * MB, governor.getReservedBytes());
+		held.release();
+	}
+	
+	@Test
+	public void failPolicyFailsThumbnail() throws IOException {
+		// given
+		PixelMemoryGovernor governor = new PixelMemoryGovernor(10 * MB, PixelMemoryGovernor.Policy.FAIL);
+		PixelMemoryGovernor.setDefault(governor);
+		File f = temporaryFolder.newFile("source.png");
+		ImageIO.write(new BufferedImage(1000, 1000, BufferedImage.TYPE_INT_RGB), "png", f);
+		governor.reserve(8 * MB);
+		
+		// when
+		try {
+			Thumbnails.of(f).size(100, 100).asBufferedImage();
+			fail();
+			
+		} catch (MemoryBudgetExceededException e) {
+			// then
+			assertEquals(8 * MB, governor.getReservedBytes());
+		}
+	}
+	
+	@Test(timeout=20000)
+	public void skippedAndFailedThumbnailsReleaseTheirReservations() throws IOException {
+		// given
+		PixelMemoryGovernor governor = new PixelMemoryGovernor(2 * MB, PixelMemoryGovernor.Policy.WAIT);
+		PixelMemoryGovernor.setDefault(governor);
+		
+		List<File> sources = new ArrayList<File>();
+		for (int i = 0; i < 6; i++) {
+			File f = temporaryFolder.newFile("source" + i + ".png");
+			ImageIO.write(new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB), "png", f);
+			sources.add(f);
+		}
+		Thumbnails.fromFiles(sources).size(50, 50).toFiles(Rename.PREFIX_DOT_THUMBNAIL);
+		
+		// when
+		List<File> thumbnails = Thumbnails.fromFiles(sources)
+				.size(50, 50)
+				.allowOverwrite(false)
+				.asFiles(Rename.PREFIX_DOT_THUMBNAIL);
+		
+		try {
+			Thumbnails.of(sources.get(0))
+					.size(50, 50)
+					.allowOverwrite(false)
+					.toFile(new File(temporaryFolder.getRoot(), "thumbnail.source0.png"));
+			fail();
+			
+		} catch (IllegalArgumentException e) {
+			// expected, as the destination exists.
+		}
+		
+		Thumbnails.of(sources.get(0)).size(50, 50).into(new BufferedImage(50, 50, BufferedImage.TYPE_INT_RGB));
+		
+		// then
+		assertTrue(thumbnails.isEmpty());
+		assertEquals(0, governor.getReservedBytes());
+	}
+}
@@ -0,0 +1,389 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util.exif;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import net.coobird.thumbnailator.ThumbnailEvent;
+import net.coobird.thumbnailator.ThumbnailListener;
+import net.coobird.thumbnailator.Thumbnails;
+
+import org.junit.Test;
+
+public class LosslessJpegTransformTest {
+	
+	/**
+	 * Returns an image which looks different in each orientation.
+	 */
+	private static BufferedImage makeImage(int width, int height) {
+		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = img.createGraphics();
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				img.setRGB(x, y, new Color(x * 255 / width, y * 255 / height, 128).getRGB());
+			}
+		}
+		g.setColor(Color.white);
+		g.fillRect(0, 0, width / 4, height / 4);
+		g.dispose();
+		return img;
+	}
+	
+	/**
+	 * Returns a JPEG image with an Exif segment holding the given
+	 * orientation, or no Exif segment if the orientation is {@code 0}.
+	 */
+	private static byte[] makeJpeg(int width, int height, int orientation) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ImageIO.write(makeImage(width, height), "jpg", baos);
+		byte[] jpeg = baos.toByteArray();
+		
+		if (orientation == 0) {
+			return jpeg;
+		}
+		
+		byte[] exif = {
+				(byte)0xff, (byte)0xe1, 0, 34,
+				'E', 'x', 'i', 'f', 0, 0,
+				'M', 'M', 0, 42, 0, 0, 0, 8,
+				0, 1,
+				0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte)orientation, 0, 0,
+				0, 0, 0, 0
+		};
+		
+		// The Exif segment is placed after the JFIF segment.
+		int app0End = 4 + (((jpeg[4] & 0xff) << 8) | (jpeg[5] & 0xff));
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(jpeg, 0, app0End);
+		out.write(exif);
+		out.write(jpeg, app0End, jpeg.length - app0End);
+		return out.toByteArray();
+	}
+	
+	private static Orientation readOrientation(byte[] jpeg) throws IOException {
+		ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(jpeg));
+		Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+		ImageReader reader = readers.next();
+		try {
+			reader.setInput(iis);
+			return ExifUtils.getExifOrientation(reader, 0);
+			
+		} finally {
+			reader.dispose();
+			iis.close();
+		}
+	}
+	
+	private static double meanDifference(BufferedImage a, BufferedImage b) {
+		long total = 0;
+		for (int y = 0; y < a.getHeight(); y++) {
+			for (int x = 0; x < a.getWidth(); x++) {
+				int p = a.getRGB(x, y);
+				int q = b.getRGB(x, y);
+				for (int shift = 0; shift < 24; shift += 8) {
+					total += Math.abs(((p >> shift) & 0xff) - ((q >> shift) & 0xff));
+				}
+			}
+		}
+		return total / (a.getWidth() * a.getHeight() * 3.0);
+	}
+	
+	private static void assertTransformed(int width, int height, int orientation) throws IOException {
+		byte[] source = makeJpeg(width, height, orientation);
+		
+		byte[] transformed = LosslessJpegTransform.normalizeOrientation(source);
+		assertNotNull("orientation " + orientation, transformed);
+		
+		BufferedImage expected = Thumbnails.of(new ByteArrayInputStream(source))
+				.scale(1.0)
+				.asBufferedImage();
+		BufferedImage actual = ImageIO.read(new ByteArrayInputStream(transformed));
+		
+		assertEquals("orientation " + orientation, expected.getWidth(), actual.getWidth());
+		assertEquals("orientation " + orientation, expected.getHeight(), actual.getHeight());
+		assertTrue("orientation " + orientation, meanDifference(expected, actual) < 2.0);
+		assertEquals(Orientation.TOP_LEFT, readOrientation(transformed));
+	}
+	
+	@Test
+	public void allOrientationsWithSubsampledChroma() throws IOException {
+		for (int orientation = 2; orientation <= 8; orientation++) {
+			assertTransformed(64, 48, orientation);
+		}
+	}
+	
+	@Test
+	public void transposeOfUnalignedImage() throws IOException {
+		// Transposing moves no partial blocks to the top or left edge.
+		assertTransformed(60, 44, 5);
+	}
+	
+	@Test
+	public void flipOfUnalignedImageIsNotTransformed() throws IOException {
+		assertNull(LosslessJpegTransform.normalizeOrientation(makeJpeg(60, 48, 8)));
+		assertNull(LosslessJpegTransform.normalizeOrientation(makeJpeg(64, 44, 3)));
+	}
+	
+	@Test
+	public void flipAlongAlignedDimensionOfUnalignedImage() throws IOException {
+		// Only the aligned dimension is flipped.
+		assertTransformed(64, 44, 2);
+		assertTransformed(60, 48, 6);
+	}
+	
+	@Test
+	public void imageWithoutOrientationIsNotTransformed() throws IOException {
+		assertNull(LosslessJpegTransform.normalizeOrientation(makeJpeg(64, 48, 0)));
+		assertNull(LosslessJpegTransform.normalizeOrientation(makeJpeg(64, 48, 1)));
+	}
+	
+	@Test
+	public void nonJpegIsNotTransformed() throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ImageIO.write(makeImage(64, 48), "png", baos);
+		
+		assertNull(LosslessJpegTransform.normalizeOrientation(baos.toByteArray()));
+		assertNull(LosslessJpegTransform.normalizeOrientation(new byte[0]));
+	}
+	
+	@Test
+	public void truncatedJpegIsNotTransformed() throws IOException {
+		byte[] source = makeJpeg(64, 48, 6);
+		byte[] truncated = new byte[source.length / 2];
+		System.arraycopy(source, 0, truncated, 0, truncated.length);
+		
+		assertNull(LosslessJpegTransform.normalizeOrientation(truncated));
+	}
+	
+	/**
+	 * Returns the given segment, including its marker and length.
+	 */
+	private static byte[] segment(int marker, byte[] payload) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(0xff);
+		out.write(marker);
+		out.write((payload.length + 2) >> 8);
+		out.write(payload.length + 2);
+		out.write(payload, 0, payload.length);
+		return out.toByteArray();
+	}
+	
+	/**
+	 * Returns the APPn and COM segments of the JPEG image, in order.
+	 */
+	private static List<byte[]> readSegments(byte[] jpeg) {
+		List<byte[]> segments = new ArrayList<byte[]>();
+		int position = 2;
+		while ((jpeg[position + 1] & 0xff) != 0xda) {
+			int marker = jpeg[position + 1] & 0xff;
+			int length = ((jpeg[position + 2] & 0xff) << 8) | (jpeg[position + 3] & 0xff);
+			if ((marker >= 0xe0 && marker <= 0xef) || marker == 0xfe) {
+				segments.add(Arrays.copyOfRange(jpeg, position, position + 2 + length));
+			}
+			position += 2 + length;
+		}
+		return segments;
+	}
+	
+	@Test
+	public void onlyMetadataNeededForDisplayIsKept() throws IOException {
+		byte[] jpeg = makeJpeg(64, 48, 0);
+		int app0End = 4 + (((jpeg[4] & 0xff) << 8) | (jpeg[5] & 0xff));
+		
+		// Orientation and Artist in IFD0, and an IFD1 with a thumbnail.
+		byte[] exif = {
+				'E', 'x', 'i', 'f', 0, 0,
+				'M', 'M', 0, 42, 0, 0, 0, 8,
+				0, 2,
+				0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, 6, 0, 0,
+				0x01, 0x3b, 0, 2, 0, 0, 0, 7, 0, 0, 0, 38,
+				0, 0, 0, 45,
+				's', 'e', 'c', 'r', 'e', 't', 0,
+				0, 1,
+				0x02, 0x01, 0, 4, 0, 0, 0, 1, 0, 0, 0, 63,
+				0, 0, 0, 0,
+				(byte)0xff, (byte)0xd8, (byte)0xff, (byte)0xd9
+		};
+		byte[] xmp = "http://ns.adobe.com/xap/1.0/\0<x:xmpmeta/>".getBytes("US-ASCII");
+		byte[] comment = "secret".getBytes("US-ASCII");
+		byte[] profile = ICC_Profile.getInstance(ColorSpace.CS_sRGB).getData();
+		ByteArrayOutputStream icc = new ByteArrayOutputStream();
+		icc.write("ICC_PROFILE\0".getBytes("US-ASCII"));
+		icc.write(1);
+		icc.write(1);
+		icc.write(profile);
+		
+		ByteArrayOutputStream source = new ByteArrayOutputStream();
+		source.write(jpeg, 0, app0End);
+		source.write(segment(0xe1, exif));
+		source.write(segment(0xe1, xmp));
+		source.write(segment(0xe2, icc.toByteArray()));
+		source.write(segment(0xfe, comment));
+		source.write(jpeg, app0End, jpeg.length - app0End);
+		
+		byte[] transformed = LosslessJpegTransform.normalizeOrientation(source.toByteArray());
+		assertNotNull(transformed);
+		
+		List<byte[]> segments = readSegments(transformed);
+		assertEquals(3, segments.size());
+		assertArrayEquals(Arrays.copyOfRange(jpeg, 2, app0End), segments.get(0));
+		assertArrayEquals(Arrays.copyOfRange(makeJpeg(64, 48, 1), app0End, app0End + 36), segments.get(1));
+		assertArrayEquals(segment(0xe2, icc.toByteArray()), segments.get(2));
+		
+		assertEquals(Orientation.TOP_LEFT, readOrientation(transformed));
+		BufferedImage img = ImageIO.read(new ByteArrayInputStream(transformed));
+		assertEquals(48, img.getWidth());
+		assertEquals(64, img.getHeight());
+	}
+	
+	@Test(expected = NullPointerException.class)
+	public void nullData() {
+		LosslessJpegTransform.normalizeOrientation(null);
+	}
+	
+	@Test
+	public void builderTransformsLosslesslyWhenImageIsUnchanged() throws IOException {
+		byte[] source = makeJpeg(64, 48, 6);
+		
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		Thumbnails.of(new ByteArrayInputStream(source))
+				.scale(1.0)
+				.toOutputStream(baos);
+		
+		assertArrayEquals(LosslessJpegTransform.normalizeOrientation(source), baos.toByteArray());
+	}
+	
+	@Test
+	public void builderDecodesWhenImageIsResized() throws IOException {
+		byte[] source = makeJpeg(64, 48, 6);
+		
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		Thumbnails.of(new ByteArrayInputStream(source))
+				.size(24, 32)
+				.toOutputStream(baos);
+		
+		BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(baos.toByteArray()));
+		assertEquals(24, thumbnail.getWidth());
+		assertEquals(32, thumbnail.getHeight());
+	}
+	
+	@Test
+	public void hasOrientationToApply() throws IOException {
+		assertTrue(LosslessJpegTransform.hasOrientationToApply(new ByteArrayInputStream(makeJpeg(64, 48, 6))));
+		assertFalse(LosslessJpegTransform.hasOrientationToApply(new ByteArrayInputStream(makeJpeg(64, 48, 1))));
+		assertFalse(LosslessJpegTransform.hasOrientationToApply(new ByteArrayInputStream(makeJpeg(64, 48, 0))));
+		
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(makeImage(64, 48), "png", png);
+		assertFalse(LosslessJpegTransform.hasOrientationToApply(new ByteArrayInputStream(png.toByteArray())));
+		assertFalse(LosslessJpegTransform.hasOrientationToApply(new ByteArrayInputStream(new byte[0])));
+	}
+	
+	@Test
+	public void hasOrientationToApplyReadsOnlyTheHeader() throws IOException {
+		byte[] source = makeJpeg(256, 256, 6);
+		ByteArrayInputStream is = new ByteArrayInputStream(source);
+		
+		assertTrue(LosslessJpegTransform.hasOrientationToApply(is));
+		assertTrue(is.available() > source.length / 2);
+	}
+	
+	/**
+	 * Creates a thumbnail at the original scale from the given source, and
+	 * returns the number of bytes of the source which were read into memory
+	 * before decoding, or {@code -1} if the source was not read into memory.
+	 */
+	private static long bytesPrefetched(byte[] source, String formatName, ByteArrayOutputStream out) throws IOException {
+		final ThumbnailEvent[] event = new ThumbnailEvent[1];
+		Thumbnails.of(new ByteArrayInputStream(source))
+				.scale(1.0)
+				.outputFormat(formatName)
+				.listener(new ThumbnailListener() {
+					public void thumbnailCompleted(ThumbnailEvent e) {
+						event[0] = e;
+					}
+				})
+				.toOutputStream(out);
+		return event[0].getBytesRead();
+	}
+	
+	@Test
+	public void builderOnlyReadsOrientedJpegIntoMemory() throws IOException {
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(makeImage(64, 48), "png", png);
+		byte[] oriented = makeJpeg(64, 48, 6);
+		
+		assertEquals(-1, bytesPrefetched(png.toByteArray(), "jpg", new ByteArrayOutputStream()));
+		assertEquals(-1, bytesPrefetched(makeJpeg(64, 48, 1), "jpg", new ByteArrayOutputStream()));
+		assertEquals(-1, bytesPrefetched(makeJpeg(64, 48, 0), "jpg", new ByteArrayOutputStream()));
+		assertEquals(-1, bytesPrefetched(oriented, "png", new ByteArrayOutputStream()));
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals(oriented.length, bytesPrefetched(oriented, "jpg", out));
+		assertArrayEquals(LosslessJpegTransform.normalizeOrientation(oriented), out.toByteArray());
+	}
+	
+	@Test
+	public void builderDecodesOrientedJpegWrittenToPngFile() throws IOException {
+		File dir = Files.createTempDirectory("lossless").toFile();
+		try {
+			File source = new File(dir, "source.jpg");
+			Files.write(source.toPath(), makeJpeg(64, 48, 6));
+			File destination = new File(dir, "thumbnail.png");
+			
+			Thumbnails.of(source).scale(1.0).toFile(destination);
+			
+			BufferedImage thumbnail = ImageIO.read(destination);
+			assertEquals(48, thumbnail.getWidth());
+			assertEquals(64, thumbnail.getHeight());
+			
+		} finally {
+			for (File f : dir.listFiles()) {
+				f.delete();
+			}
+			dir.delete();
+		}
+	}
+}
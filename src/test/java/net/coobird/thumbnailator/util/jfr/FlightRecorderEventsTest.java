@@ -0,0 +1,148 @@
+/*
+ * Thumbnailator - a thumbnail generation library
+ *
+ * Copyright (c) 2008-2020 Chris Kroells
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.coobird.thumbnailator.util.jfr;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.filters.ImageFilter;
+import net.coobird.thumbnailator.filters.Rotation;
+import net.coobird.thumbnailator.resizers.Resizers;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FlightRecorderEventsTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	private static final String[] EVENT_NAMES = {
+			"net.coobird.thumbnailator.Read",
+			"net.coobird.thumbnailator.Resize",
+			"net.coobird.thumbnailator.Filter",
+			"net.coobird.thumbnailator.Write",
+	};
+	
+	/**
+	 * Records the events of creating a thumbnail with the given filter,
+	 * whether or not the thumbnail could be created.
+	 */
+	private Map<String, RecordedEvent> recordThumbnail(ImageFilter filter) throws IOException {
+		Recording recording = new Recording();
+		for (String name : EVENT_NAMES) {
+			recording.enable(name).withThreshold(Duration.ZERO);
+		}
+		
+		recording.start();
+		try {
+			Thumbnails.of(new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB))
+					.size(100, 100)
+					.addFilter(filter)
+					.outputFormat("png")
+					.toOutputStream(new ByteArrayOutputStream());
+			
+		} catch (IllegalStateException e) {
+			// The failure of the filter is recorded.
+			
+		} finally {
+			recording.stop();
+		}
+		
+		File file = temporaryFolder.newFile("recording.jfr");
+		recording.dump(file.toPath());
+		recording.close();
+		
+		Map<String, RecordedEvent> events = new HashMap<String, RecordedEvent>();
+		List<RecordedEvent> recorded = RecordingFile.readAllEvents(file.toPath());
+		for (RecordedEvent event : recorded) {
+			events.put(event.getEventType().getName(), event);
+		}
+		return events;
+	}
+	
+	@Test
+	public void eventsAreRecorded() throws IOException {
+		// when
+		Map<String, RecordedEvent> events = recordThumbnail(Rotation.RIGHT_90_DEGREES);
+		
+		// then
+		for (String name : EVENT_NAMES) {
+			assertTrue(name, events.containsKey(name));
+		}
+		
+		RecordedEvent read = events.get("net.coobird.thumbnailator.Read");
+		assertEquals(800, read.getInt("width"));
+		assertEquals(600, read.getInt("height"));
+		assertEquals(BufferedImage.class.getName(), read.getClass("sourceClass").getName());
+		
+		RecordedEvent resize = events.get("net.coobird.thumbnailator.Resize");
+		assertEquals(Resizers.class.getName() + ".PROGRESSIVE", resize.getString("resizer"));
+		assertEquals(800, resize.getInt("sourceWidth"));
+		assertEquals(100, resize.getInt("targetWidth"));
+		assertEquals(75, resize.getInt("targetHeight"));
+		
+		RecordedEvent filter = events.get("net.coobird.thumbnailator.Filter");
+		assertEquals(100, filter.getInt("inputWidth"));
+		assertEquals(75, filter.getInt("outputWidth"));
+		
+		RecordedEvent write = events.get("net.coobird.thumbnailator.Write");
+		assertEquals("png", write.getString("formatName"));
+		assertEquals(75, write.getInt("width"));
+	}
+	
+	@Test
+	public void eventOfFailedFilterIsRecorded() throws IOException {
+		// given
+		ImageFilter failingFilter = new ImageFilter() {
+			public BufferedImage apply(BufferedImage img) {
+				throw new IllegalStateException();
+			}
+		};
+		
+		// when
+		Map<String, RecordedEvent> events = recordThumbnail(failingFilter);
+		
+		// then
+		RecordedEvent filter = events.get("net.coobird.thumbnailator.Filter");
+		assertNotNull(filter);
+		assertEquals(100, filter.getInt("inputWidth"));
+		assertEquals(0, filter.getInt("outputWidth"));
+		assertFalse(events.containsKey("net.coobird.thumbnailator.Write"));
+	}
+}